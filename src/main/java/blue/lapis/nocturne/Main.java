@@ -25,8 +25,10 @@
 
 package blue.lapis.nocturne;
 
+import blue.lapis.nocturne.gui.GuiListener;
 import blue.lapis.nocturne.gui.io.mappings.MappingsSaveDialogHelper;
 import blue.lapis.nocturne.gui.scene.control.WebLink;
+import blue.lapis.nocturne.jar.io.JarLoader;
 import blue.lapis.nocturne.jar.model.ClassSet;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.mapping.io.writer.MappingWriterType;
@@ -158,6 +160,10 @@ public class Main extends Application {
             mainStage.getIcons().add(new Image(getClass().getResourceAsStream("/img/icons/" + icon + ".png")));
         }
 
+        GuiListener listener = new GuiListener();
+        MappingContext.addListener(listener);
+        JarLoader.addListener(listener);
+
         loadView(locale);
 
         Thread.currentThread().setUncaughtExceptionHandler((thread, throwable) -> {
@@ -0,0 +1,217 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.cli;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.io.JarLoadListener;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.MappingValidator;
+import blue.lapis.nocturne.mapping.io.MappingFormatType;
+import blue.lapis.nocturne.mapping.io.reader.MappingReaderType;
+import blue.lapis.nocturne.mapping.io.reader.MappingsReader;
+import blue.lapis.nocturne.mapping.io.writer.MappingWriterType;
+import blue.lapis.nocturne.mapping.io.writer.MappingsWriter;
+import blue.lapis.nocturne.util.ProgressMonitor;
+import blue.lapis.nocturne.util.helper.MappingsHelper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Loads JARs and reads, validates and writes mappings without initializing
+ * the GUI.
+ *
+ * <p>Only one JAR may be loaded at a time, but any number of mapping sets may
+ * be processed against it in turn, provided the engine is {@link #reset reset}
+ * before each is read.</p>
+ */
+public class HeadlessEngine {
+
+    static {
+        // registered once for all engines, as the listeners of the JarLoader are global
+        JarLoader.addListener(new JarLoadListener() {
+            @Override
+            public void onInvalidJar(String name) {
+                Main.getLogger().severe("Not a valid JAR file: " + name);
+            }
+
+            @Override
+            public void onEmptyJar(String name) {
+                Main.getLogger().severe("JAR does not contain any classes: " + name);
+            }
+        });
+    }
+
+    private ClassSet classSet;
+
+    public HeadlessEngine() {
+        if (Main.getInstance() == null) {
+            new Main(true); // the model is still accessed through Main, but it mustn't start the GUI
+        }
+    }
+
+    /**
+     * Loads the JAR at the given {@link Path}, replacing any which is
+     * currently loaded.
+     *
+     * @param jarPath The {@link Path} of the JAR to load
+     * @return The loaded {@link ClassSet}
+     * @throws IOException If the JAR cannot be read or does not contain any
+     *     classes
+     */
+    public ClassSet loadJar(Path jarPath) throws IOException {
+        Main.getMappingContext().clear();
+        classSet = JarLoader.loadJar(jarPath.getFileName().toString(), jarPath);
+        if (classSet == null) {
+            throw new IOException("Failed to load JAR " + jarPath);
+        }
+        return classSet;
+    }
+
+    /**
+     * Loads the JAR at the given {@link Path} as an updated version of the
+     * loaded one, indexing again only the classes affected by the update.
+     *
+     * @param jarPath The {@link Path} of the updated JAR
+     * @param context The mappings to keep applied to the JAR
+     * @return The reloaded {@link ClassSet}
+     * @throws IOException If the JAR cannot be read or does not contain any
+     *     classes
+     */
+    public ClassSet reloadJar(Path jarPath, MappingContext context) throws IOException {
+        checkJarLoaded();
+        JarLoader.PreparedJar jar = JarLoader.prepareReload(classSet, jarPath.getFileName().toString(), jarPath,
+                ProgressMonitor.NONE);
+        if (jar == null) {
+            throw new IOException("Failed to reload JAR " + jarPath);
+        }
+        classSet = jar.publish();
+        MappingsHelper.applyMappings(classSet, context);
+        return classSet;
+    }
+
+    /**
+     * Reads the mappings at the given {@link Path} and applies them to the
+     * loaded JAR.
+     *
+     * @param mappingsPath The {@link Path} of the mappings to read
+     * @param type The format of the mappings
+     * @return A {@link MappingContext} containing the read mappings
+     * @throws IOException If an exception occurs while reading the mappings
+     */
+    public MappingContext readMappings(Path mappingsPath, MappingReaderType type) throws IOException {
+        checkJarLoaded();
+        try (MappingsReader reader = type.constructReader(Files.newBufferedReader(mappingsPath))) {
+            MappingContext context = reader.read();
+            context.setDirty(false);
+            return context;
+        }
+    }
+
+    /**
+     * Checks the given mappings against the loaded JAR.
+     *
+     * @param context The mappings to validate
+     * @return A description of each problem found
+     * @see MappingValidator#validate
+     */
+    public List<String> validate(MappingContext context) {
+        checkJarLoaded();
+        return MappingValidator.validate(context, classSet);
+    }
+
+    /**
+     * Writes the given mappings to the given {@link Path}.
+     *
+     * @param context The mappings to write
+     * @param outputPath The {@link Path} to write to
+     * @param type The format to write the mappings in
+     * @throws IOException If an exception occurs while writing the mappings
+     */
+    public void writeMappings(MappingContext context, Path outputPath, MappingWriterType type) throws IOException {
+        PrintWriter out = new PrintWriter(Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8));
+        try (MappingsWriter writer = type.constructWriter(out)) {
+            writer.write(context);
+            // a PrintWriter swallows its exceptions, so they must be checked for explicitly
+            if (out.checkError()) {
+                throw new IOException("Failed to write mappings to " + outputPath);
+            }
+        }
+    }
+
+    /**
+     * Reverts the changes made to the loaded JAR by any mappings which have
+     * been read, so that another set of mappings may be read.
+     *
+     * <p>Unlike {@link MappingsHelper#resetMappings(MappingContext)}, this
+     * doesn't rely on the mappings themselves, so it may also be used after a
+     * read has failed part way through.</p>
+     */
+    public void reset() {
+        checkJarLoaded();
+        for (JarClassEntry entry : classSet.getClasses()) {
+            classSet.getCurrentNames().forcePut(entry.getName(), entry.getName());
+            entry.getCurrentInnerClassNames().replaceAll((obf, deobf) -> obf);
+            entry.getCurrentFields().replaceAll((obf, deobf) -> obf);
+            entry.getCurrentMethods().replaceAll((obf, deobf) -> obf);
+            entry.setDeobfuscated(false);
+        }
+    }
+
+    /**
+     * Gets the {@link MappingReaderType} for the given file, based on its
+     * extension. Files without a recognized extension are assumed to be in
+     * the Enigma format.
+     *
+     * @param path The {@link Path} of the file
+     * @return The {@link MappingReaderType} for the file
+     */
+    public static MappingReaderType getReaderType(Path path) {
+        return MappingReaderType.fromFormatType(getFormatType(path));
+    }
+
+    private static MappingFormatType getFormatType(Path path) {
+        String fileName = path.getFileName().toString();
+        String extension = fileName.substring(fileName.lastIndexOf('.') + 1);
+        return Arrays.stream(MappingFormatType.values()).filter(t -> t.getFileExtension().equals(extension))
+                .findFirst().orElse(MappingFormatType.ENIGMA);
+    }
+
+    private void checkJarLoaded() {
+        checkState(classSet != null && Main.getLoadedJar() == classSet, "No JAR is loaded");
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.cli;
+
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.MappingFormatType;
+import blue.lapis.nocturne.mapping.io.reader.MappingReaderType;
+import blue.lapis.nocturne.mapping.io.writer.MappingWriterType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command-line entry point for validating and converting mappings against a
+ * JAR without the GUI.
+ *
+ * <p>The JAR is loaded once, after which each mappings file is read,
+ * validated and optionally written in turn.</p>
+ */
+public final class NocturneCli {
+
+    private static final String USAGE = "Usage: NocturneCli --jar <file> [--input-format <srg|jam|enigma>]"
+            + " [--output-format <srg|jam|enigma> --output-dir <dir>] <mappings>...";
+
+    private static final int EXIT_OK = 0;
+    private static final int EXIT_INVALID = 1;
+    private static final int EXIT_USAGE = 2;
+
+    private NocturneCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    /**
+     * Runs the command-line interface with the given arguments.
+     *
+     * @param args The command-line arguments
+     * @return The exit code
+     */
+    public static int run(String[] args) {
+        Path jar = null;
+        MappingReaderType readerType = null;
+        MappingWriterType writerType = null;
+        Path outputDir = null;
+        List<Path> mappings = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--jar":
+                        jar = Paths.get(args[++i]);
+                        break;
+                    case "--input-format":
+                        readerType = MappingReaderType.fromFormatType(parseFormat(args[++i]));
+                        break;
+                    case "--output-format":
+                        writerType = MappingWriterType.fromFormatType(parseFormat(args[++i]));
+                        break;
+                    case "--output-dir":
+                        outputDir = Paths.get(args[++i]);
+                        break;
+                    default:
+                        mappings.add(Paths.get(args[i]));
+                        break;
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException ex) {
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        if (jar == null || mappings.isEmpty() || (writerType == null) != (outputDir == null)) {
+            System.err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        HeadlessEngine engine = new HeadlessEngine();
+        try {
+            engine.loadJar(jar);
+            if (outputDir != null) {
+                Files.createDirectories(outputDir);
+            }
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return EXIT_INVALID;
+        }
+
+        int failed = 0;
+        for (Path path : mappings) {
+            if (!process(engine, path, readerType, writerType, outputDir)) {
+                failed++;
+            }
+        }
+
+        System.out.println((mappings.size() - failed) + "/" + mappings.size() + " mapping sets passed");
+        return failed == 0 ? EXIT_OK : EXIT_INVALID;
+    }
+
+    private static boolean process(HeadlessEngine engine, Path path, MappingReaderType readerType,
+            MappingWriterType writerType, Path outputDir) {
+        try {
+            MappingContext context = engine.readMappings(path,
+                    readerType != null ? readerType : HeadlessEngine.getReaderType(path));
+
+            List<String> problems = engine.validate(context);
+            if (!problems.isEmpty()) {
+                System.out.println(path + ": " + problems.size() + " problem(s)");
+                problems.forEach(problem -> System.out.println("    " + problem));
+                return false;
+            }
+
+            if (writerType != null) {
+                engine.writeMappings(context, outputDir.resolve(getOutputName(path, writerType)), writerType);
+            }
+            System.out.println(path + ": OK");
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            System.out.println(path + ": failed - " + ex);
+            return false;
+        } finally {
+            engine.reset();
+        }
+    }
+
+    private static MappingFormatType parseFormat(String name) {
+        return MappingFormatType.valueOf(name.toUpperCase());
+    }
+
+    private static String getOutputName(Path input, MappingWriterType type) {
+        String fileName = input.getFileName().toString();
+        int extIndex = fileName.lastIndexOf('.');
+        String baseName = extIndex > 0 ? fileName.substring(0, extIndex) : fileName;
+        return baseName + "." + (type.getFormatType() == MappingFormatType.ENIGMA
+                ? "mappings"
+                : type.getFormatType().getFileExtension());
+    }
+
+}
@@ -0,0 +1,267 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.decompile;
+
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.Constants.Processing.CLASS_PREFIX;
+import static blue.lapis.nocturne.util.helper.ByteHelper.readInt;
+
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.processor.ClassFileReader;
+import blue.lapis.nocturne.processor.ClassFileVisitor;
+import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
+import blue.lapis.nocturne.util.MemberType;
+
+import com.google.common.base.Strings;
+
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Lists the declarations of a class straight from its processed bytecode,
+ * for classes which Fernflower can't decompile in time.
+ *
+ * <p>The listing keeps the processed names of the class and its members, so
+ * they may still be selected and remapped as in decompiled sources. Method
+ * bodies are reduced to the size of their bytecode.</p>
+ */
+public final class ClassListing {
+
+    private static final String INDENT = "    ";
+
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_SYNTHETIC = 0x1000;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+
+    private ClassListing() {
+    }
+
+    /**
+     * Lists the declarations of the given class along with its inner
+     * classes, each of which is nested within the closest of its outer
+     * classes which exists.
+     *
+     * @param classSet The {@link ClassSet} the class belongs to
+     * @param entry The class to list
+     * @param innerClasses The inner classes of the class, sorted by name
+     * @return The listing of the class
+     */
+    public static String list(ClassSet classSet, JarClassEntry entry, List<JarClassEntry> innerClasses) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("// The decompiler ran out of time on this class, so only its declarations are listed.\n\n");
+
+        Deque<String> openClasses = new ArrayDeque<>(); // the blocks which are still open, innermost first
+        listClass(sb, entry, 0);
+        openClasses.push(entry.getName());
+        for (JarClassEntry inner : innerClasses) {
+            String outer = getExistingOuterName(classSet, inner.getName(), entry.getName());
+            while (openClasses.size() > 1 && !openClasses.peek().equals(outer)) {
+                openClasses.pop();
+                closeBlock(sb, openClasses.size());
+            }
+            sb.append('\n');
+            listClass(sb, inner, openClasses.size());
+            openClasses.push(inner.getName());
+        }
+        while (!openClasses.isEmpty()) {
+            openClasses.pop();
+            closeBlock(sb, openClasses.size());
+        }
+        return sb.toString();
+    }
+
+    private static void listClass(StringBuilder sb, JarClassEntry entry, int depth) {
+        ClassFileReader reader = new ClassFileReader(entry.getName(), entry.getContent());
+        reader.accept(new ListingVisitor(sb, entry.getContent(), reader.getConstantPool(), depth));
+    }
+
+    private static void closeBlock(StringBuilder sb, int depth) {
+        sb.append(Strings.repeat(INDENT, depth)).append("}\n");
+    }
+
+    private static String getExistingOuterName(ClassSet classSet, String className, String topLevelName) {
+        // an inner class whose outer class is missing is nested within the listed class itself
+        Optional<JarClassEntry> outer = classSet.getOuterClass(className);
+        return outer.isPresent() ? outer.get().getName() : topLevelName;
+    }
+
+    private static String getTypeName(Type type) {
+        String name;
+        if (type.isPrimitive()) {
+            name = type.asPrimitive().name().toLowerCase();
+        } else {
+            name = getClassName(type.getClassName());
+        }
+        return name + Strings.repeat("[]", type.getArrayDimensions());
+    }
+
+    private static String getClassName(String className) {
+        // processed names are left intact so that they may be remapped
+        return className.startsWith(CLASS_PREFIX) ? className
+                : className.replace(CLASS_PATH_SEPARATOR_CHAR, '.').replace(INNER_CLASS_SEPARATOR_CHAR, '.');
+    }
+
+    /**
+     * Writes the declarations of a single class, leaving its block open for
+     * its inner classes.
+     */
+    private static class ListingVisitor implements ClassFileVisitor {
+
+        private final StringBuilder sb;
+        private final byte[] bytes;
+        private final ImmutableConstantPool pool;
+        private final String indent;
+
+        private String className;
+        private String memberHeader;
+        private int codeLength = -1;
+
+        ListingVisitor(StringBuilder sb, byte[] bytes, ImmutableConstantPool pool, int depth) {
+            this.sb = sb;
+            this.bytes = bytes;
+            this.pool = pool;
+            this.indent = Strings.repeat(INDENT, depth);
+        }
+
+        @Override
+        public void visitClass(int offset, int access, int thisClassIndex, int superClassIndex,
+                int[] interfaceIndices) {
+            className = getClassNameFromIndex(thisClassIndex);
+
+            boolean isInterface = (access & ACC_INTERFACE) != 0;
+            int modifiers = access & Modifier.classModifiers();
+            if (isInterface || (access & ACC_ENUM) != 0) {
+                modifiers &= ~(Modifier.ABSTRACT | Modifier.FINAL); // implied by the keyword
+            }
+            sb.append(indent).append(getModifiers(modifiers));
+            if ((access & ACC_ANNOTATION) != 0) {
+                sb.append("@interface ");
+            } else if (isInterface) {
+                sb.append("interface ");
+            } else if ((access & ACC_ENUM) != 0) {
+                sb.append("enum ");
+            } else {
+                sb.append("class ");
+            }
+            sb.append(className);
+
+            if (superClassIndex != 0 && (access & ACC_ENUM) == 0) {
+                String superClass = getClassNameFromIndex(superClassIndex);
+                if (!superClass.equals("java/lang/Object")) {
+                    sb.append(" extends ").append(getClassName(superClass));
+                }
+            }
+            for (int i = 0; i < interfaceIndices.length; i++) {
+                if (i == 0) {
+                    sb.append(isInterface ? " extends " : " implements ");
+                } else {
+                    sb.append(", ");
+                }
+                sb.append(getClassName(getClassNameFromIndex(interfaceIndices[i])));
+            }
+            sb.append(" {\n");
+        }
+
+        @Override
+        public void visitMember(MemberType type, int access, int nameIndex, int descriptorIndex) {
+            memberHeader = null;
+            codeLength = -1;
+            if ((access & ACC_SYNTHETIC) != 0) {
+                return; // as the decompiler is told to remove them
+            }
+
+            String name = pool.getString(nameIndex);
+            String descriptor = pool.getString(descriptorIndex);
+            if (type == MemberType.FIELD) {
+                memberHeader = getModifiers(access & Modifier.fieldModifiers())
+                        + getTypeName(Type.fromString(descriptor)) + ' ' + name;
+                return;
+            }
+
+            MethodDescriptor md = MethodDescriptor.fromString(descriptor);
+            if (name.equals("<clinit>")) {
+                memberHeader = "static";
+                return;
+            }
+            StringBuilder header = new StringBuilder(getModifiers(access & Modifier.methodModifiers()));
+            if (name.equals("<init>")) {
+                header.append(className);
+            } else {
+                header.append(getTypeName(md.getReturnType())).append(' ').append(name);
+            }
+            header.append('(');
+            Type[] params = md.getParamTypes();
+            for (int i = 0; i < params.length; i++) {
+                if (i > 0) {
+                    header.append(", ");
+                }
+                header.append(getTypeName(params[i])).append(" var").append(i + 1);
+            }
+            memberHeader = header.append(')').toString();
+        }
+
+        @Override
+        public void visitAttribute(MemberType owner, int nameIndex, int offset, int length) {
+            if (owner == MemberType.METHOD && pool.getString(nameIndex).equals("Code")) {
+                codeLength = readInt(bytes, offset + 4); // following max_stack and max_locals
+            }
+        }
+
+        @Override
+        public void visitMemberEnd(MemberType type) {
+            if (memberHeader == null) {
+                return;
+            }
+            sb.append('\n').append(indent).append(INDENT).append(memberHeader);
+            if (codeLength >= 0) {
+                sb.append(" {\n")
+                        .append(indent).append(INDENT).append(INDENT)
+                        .append("// ").append(codeLength).append(" bytes of bytecode\n")
+                        .append(indent).append(INDENT).append("}\n");
+            } else {
+                sb.append(";\n");
+            }
+        }
+
+        private String getClassNameFromIndex(int index) {
+            return pool.getString(pool.getClassNameIndex(index));
+        }
+
+        private static String getModifiers(int access) {
+            String modifiers = Modifier.toString(access);
+            return modifiers.isEmpty() ? "" : modifiers + ' ';
+        }
+
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.decompile;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.util.helper.PropertiesHelper;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+
+import java.util.function.Supplier;
+
+/**
+ * Static utility class for caching decompiled sources, so that reopening a
+ * recently viewed class needn't run the decompiler again.
+ *
+ * <p>Sources are keyed by the name of their class and a stamp of everything
+ * the decompiler reads for it, namely the processed content of the class and
+ * of its inner classes, as well as the profile it was decompiled with.
+ * Mappings are only applied once the source is
+ * displayed, so they don't affect the cached sources. A changed class thus
+ * simply misses the cache, and stale entries are evicted once the total size
+ * of the cached sources exceeds the configured limit in bytes.</p>
+ */
+public final class DecompilationCache {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 64L * 1024 * 1024;
+    private static final int ENTRY_OVERHEAD = 64; // rough size of the key and cache entry in bytes
+
+    private static Cache<String, String> sources;
+    private static long maximumSize;
+
+    private DecompilationCache() {
+    }
+
+    /**
+     * Gets the cached source of the given class, decompiling it first if it
+     * isn't cached.
+     *
+     * @param className The name of the class
+     * @param stamp The stamp of the content the decompiler reads for the
+     *     class
+     * @param decompiler The function decompiling the class
+     * @return The source of the class
+     */
+    public static String get(String className, HashCode stamp, Supplier<String> decompiler) {
+        Cache<String, String> cache = getCache();
+        String key = className + '#' + stamp;
+        String source = cache.getIfPresent(key);
+        if (source == null) {
+            source = decompiler.get();
+            cache.put(key, source);
+        }
+        return source;
+    }
+
+    /**
+     * Gets the cached source of the given class, if any.
+     *
+     * @param className The name of the class
+     * @param stamp The stamp of the content the decompiler reads for the
+     *     class
+     * @return The source of the class, or {@code null} if it isn't cached
+     */
+    public static String getIfPresent(String className, HashCode stamp) {
+        return getCache().getIfPresent(className + '#' + stamp);
+    }
+
+    /**
+     * Checks whether the source of the given class is cached, without
+     * counting towards the statistics of the cache.
+     *
+     * @param className The name of the class
+     * @param stamp The stamp of the content the decompiler reads for the
+     *     class
+     * @return Whether the source of the class is cached
+     */
+    public static boolean contains(String className, HashCode stamp) {
+        return getCache().asMap().containsKey(className + '#' + stamp);
+    }
+
+    /**
+     * Caches the source of the given class.
+     *
+     * @param className The name of the class
+     * @param stamp The stamp of the content the decompiler read for the
+     *     class
+     * @param source The source of the class
+     */
+    public static void put(String className, HashCode stamp, String source) {
+        getCache().put(className + '#' + stamp, source);
+    }
+
+    /**
+     * Gets the statistics of the cache, including its hit and miss counts.
+     *
+     * @return The statistics of the cache
+     */
+    public static CacheStats getStats() {
+        return getCache().stats();
+    }
+
+    /**
+     * Discards all cached sources.
+     */
+    public static void invalidateAll() {
+        getCache().invalidateAll();
+    }
+
+    /**
+     * Gets the configured limit of the total size of the cached sources.
+     *
+     * @return The maximum size of the cache in bytes
+     */
+    static synchronized long getCapacity() {
+        getCache();
+        return maximumSize;
+    }
+
+    private static synchronized Cache<String, String> getCache() {
+        if (sources == null) {
+            maximumSize = getMaximumSize();
+            sources = CacheBuilder.newBuilder()
+                    .maximumWeight(maximumSize)
+                    .weigher((String key, String source) -> ENTRY_OVERHEAD + (key.length() + source.length()) * 2)
+                    .recordStats()
+                    .build();
+        }
+        return sources;
+    }
+
+    private static long getMaximumSize() {
+        PropertiesHelper properties = Main.getPropertiesHelper();
+        if (properties == null) {
+            return DEFAULT_MAXIMUM_SIZE;
+        }
+        String configured = properties.getProperty(PropertiesHelper.Key.DECOMPILATION_CACHE_SIZE);
+        try {
+            long size = Long.parseLong(configured.trim());
+            if (size >= 0) {
+                return size;
+            }
+        } catch (NumberFormatException ignored) {
+            // fall through to the warning below
+        }
+        Main.getLogger().warning("Invalid decompilation cache size " + configured + " - using "
+                + DEFAULT_MAXIMUM_SIZE);
+        return DEFAULT_MAXIMUM_SIZE;
+    }
+
+}
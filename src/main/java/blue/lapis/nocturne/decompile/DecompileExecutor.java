@@ -0,0 +1,120 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.decompile;
+
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Static utility class for decompiling classes on a bounded pool of worker
+ * threads, so that the FX thread isn't blocked while the decompiler runs.
+ *
+ * <p>Fernflower keeps its state in a thread-local context, so several classes
+ * may be decompiled at once.</p>
+ */
+public final class DecompileExecutor {
+
+    private static final int THREAD_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREAD_COUNT, r -> {
+        Thread thread = new Thread(r, "Nocturne decompiler #" + THREAD_ID.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Object LOCK = new Object();
+    private static int pending;
+
+    private DecompileExecutor() {
+    }
+
+    /**
+     * Submits the given class to be decompiled in the background.
+     *
+     * <p>Cancelling the returned future before a worker has picked it up
+     * skips the decompilation altogether. A decompilation which is already
+     * running can't be interrupted, but its result is discarded.</p>
+     *
+     * @param entry The class to decompile
+     * @return A future completing with the source of the class
+     */
+    public static CompletableFuture<DecompiledSource> submit(JarClassEntry entry) {
+        DecompilePrefetcher.recordRequest(entry.getName());
+        CompletableFuture<DecompiledSource> future = new CompletableFuture<>();
+        synchronized (LOCK) {
+            pending++;
+        }
+        // the count is kept by the task itself, as a cancelled future may still be decompiling
+        EXECUTOR.execute(() -> {
+            try {
+                if (!future.isDone()) {
+                    future.complete(entry.decompile());
+                }
+            } catch (Throwable ex) {
+                future.completeExceptionally(ex);
+            } finally {
+                synchronized (LOCK) {
+                    pending--;
+                    LOCK.notifyAll();
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Gets the number of submitted decompilations which have yet to finish,
+     * including cancelled ones which a worker has yet to pick up or is still
+     * running.
+     *
+     * @return The number of pending decompilations
+     */
+    public static int getPendingCount() {
+        synchronized (LOCK) {
+            return pending;
+        }
+    }
+
+    /**
+     * Waits until no submitted decompilation is pending, so that background
+     * work doesn't compete with decompilations the user is waiting for.
+     *
+     * @throws InterruptedException If the current thread is interrupted while
+     *     waiting
+     */
+    static void awaitIdle() throws InterruptedException {
+        synchronized (LOCK) {
+            while (pending > 0) {
+                LOCK.wait();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.decompile;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.processor.constantpool.ConstantPoolReader;
+import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
+import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+import blue.lapis.nocturne.util.helper.PropertiesHelper;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Static utility class for decompiling the classes a user is likely to open
+ * next into the {@link DecompilationCache} in the background.
+ *
+ * <p>The candidates are the supertypes of the class being viewed, followed by
+ * the other classes its constant pool refers to, in the order they appear in
+ * it. They are decompiled one at a time at low priority, and only while no
+ * decompilation submitted to the {@link DecompileExecutor} is pending. A
+ * prefetch parses its classes afresh, so it never holds up a decompilation
+ * the user is waiting for. A round of prefetching stops once its sources would take up a
+ * quarter of the cache, so as not to evict the sources of open tabs.</p>
+ */
+public final class DecompilePrefetcher {
+
+    /**
+     * The maximum number of classes to prefetch around a single class.
+     */
+    private static final int MAX_CLASSES = 8;
+    private static final int CACHE_FRACTION = 4;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Nocturne decompile prefetch");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    // names of the classes prefetched since they were last requested
+    private static final Set<String> PREFETCHED = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong PREFETCH_COUNT = new AtomicLong();
+    private static final AtomicLong HIT_COUNT = new AtomicLong();
+
+    private static volatile int generation;
+    private static ClassSet currentClassSet;
+
+    private DecompilePrefetcher() {
+    }
+
+    /**
+     * Prefetches the classes referenced by the given class in the background,
+     * superseding any prefetching which has not yet completed.
+     *
+     * @param classSet The {@link ClassSet} the class belongs to
+     * @param className The name of the class being viewed
+     */
+    public static synchronized void prefetchAround(ClassSet classSet, String className) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        if (currentClassSet != classSet) {
+            PREFETCHED.clear(); // names in another JAR don't refer to the same classes
+            currentClassSet = classSet;
+        }
+
+        final int round = ++generation;
+        EXECUTOR.submit(() -> {
+            long budget = DecompilationCache.getCapacity() / CACHE_FRACTION;
+            for (JarClassEntry entry : getCandidates(classSet, className)) {
+                try {
+                    DecompileExecutor.awaitIdle();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                if (generation != round || Main.getLoadedJar() != classSet || budget <= 0) {
+                    return; // superseded, or the JAR was closed or replaced in the meantime
+                }
+
+                Optional<DecompiledSource> source;
+                try {
+                    source = classSet.getDecompilerSession().prefetch(entry,
+                            classSet.getAllInnerClasses(entry.getName()));
+                } catch (RuntimeException ex) {
+                    Main.getLogger().log(Level.FINE, "Failed to prefetch class " + entry.getName(), ex);
+                    continue;
+                }
+                if (source.isPresent()) { // classes which were cached already don't count
+                    budget -= source.get().getSource().length() * 2;
+                    PREFETCHED.add(entry.getName());
+                    PREFETCH_COUNT.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * Records that the user has requested the given class to be decompiled,
+     * counting a hit if it was prefetched.
+     *
+     * @param className The name of the requested class
+     */
+    static void recordRequest(String className) {
+        if (PREFETCHED.remove(className)) {
+            HIT_COUNT.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of classes which have been prefetched.
+     *
+     * @return The number of prefetched classes
+     */
+    public static long getPrefetchCount() {
+        return PREFETCH_COUNT.get();
+    }
+
+    /**
+     * Gets the number of prefetched classes which the user has requested
+     * afterwards.
+     *
+     * @return The number of prefetch hits
+     */
+    public static long getHitCount() {
+        return HIT_COUNT.get();
+    }
+
+    /**
+     * Gets the ratio of prefetched classes which the user has requested
+     * afterwards.
+     *
+     * @return The prefetch hit rate, or {@code 0} if nothing was prefetched
+     */
+    public static double getHitRate() {
+        long prefetched = getPrefetchCount();
+        return prefetched == 0 ? 0 : (double) getHitCount() / prefetched;
+    }
+
+    /**
+     * Gets the top-level classes which the user is most likely to open next
+     * from the given class, most likely first.
+     *
+     * @param classSet The {@link ClassSet} the class belongs to
+     * @param className The name of the class being viewed
+     * @return The classes to prefetch
+     */
+    public static ImmutableList<JarClassEntry> getCandidates(ClassSet classSet, String className) {
+        Optional<JarClassEntry> entry = classSet.getClass(className);
+        if (!entry.isPresent()) {
+            return ImmutableList.of();
+        }
+        Set<JarClassEntry> candidates = new LinkedHashSet<>();
+
+        IndexedClass clazz = IndexedClass.INDEXED_CLASSES.get(className);
+        if (clazz != null) {
+            addCandidate(candidates, classSet, clazz.getSuperclass());
+            clazz.getInterfaces().forEach(name -> addCandidate(candidates, classSet, name));
+        }
+
+        ImmutableConstantPool pool = new ConstantPoolReader(className, entry.get().getOriginalContent()).read();
+        for (int i = 1; i <= pool.size(); i++) {
+            if (pool.getType(i) == StructureType.CLASS) {
+                addCandidate(candidates, classSet, pool.getString(pool.getClassNameIndex(i)));
+            }
+        }
+
+        candidates.remove(entry.get());
+        return ImmutableList.copyOf(Iterables.limit(candidates, MAX_CLASSES));
+    }
+
+    private static void addCandidate(Set<JarClassEntry> candidates, ClassSet classSet, String className) {
+        if (className == null) {
+            return;
+        }
+        Optional<JarClassEntry> entry = classSet.getClass(className);
+        // inner classes are decompiled along with their top-level class
+        while (entry.isPresent() && !classSet.getTopLevelClasses().contains(entry.get())) {
+            entry = classSet.getOuterClass(entry.get().getName());
+        }
+        entry.ifPresent(candidates::add);
+    }
+
+    private static boolean isEnabled() {
+        PropertiesHelper properties = Main.getPropertiesHelper();
+        return properties != null
+                && Boolean.parseBoolean(properties.getProperty(PropertiesHelper.Key.PREFETCH_DECOMPILATION));
+    }
+
+}
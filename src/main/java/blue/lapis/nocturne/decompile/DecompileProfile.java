@@ -0,0 +1,83 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.decompile;
+
+import static blue.lapis.nocturne.util.Constants.FF_FAST_OPTIONS;
+import static blue.lapis.nocturne.util.Constants.FF_OPTIONS;
+
+import blue.lapis.nocturne.Main;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * The profiles a class may be decompiled with, from the most to the least
+ * thorough.
+ *
+ * <p>A class is decompiled with the next profile if the previous one runs
+ * out of time, see {@link DecompilerSession}.</p>
+ */
+public enum DecompileProfile {
+
+    FULL("codetab.profile.full", FF_OPTIONS),
+    FAST("codetab.profile.fast", FF_FAST_OPTIONS),
+    LISTING("codetab.profile.listing", null);
+
+    private final String displayName;
+    private final ImmutableMap<String, Object> options;
+
+    DecompileProfile(String displayName, ImmutableMap<String, Object> options) {
+        this.displayName = displayName;
+        this.options = options;
+    }
+
+    /**
+     * Gets the localised name of this profile.
+     *
+     * @return The display name of this profile
+     */
+    public String getDisplayName() {
+        return Main.getResourceBundle().getString(displayName);
+    }
+
+    /**
+     * Gets the Fernflower options of this profile.
+     *
+     * @return The Fernflower options of this profile, or {@code null} if
+     *     classes are only listed rather than decompiled
+     */
+    public ImmutableMap<String, Object> getOptions() {
+        return options;
+    }
+
+    /**
+     * Gets the profile to fall back to if this one runs out of time.
+     *
+     * @return The next profile, or {@code null} if this is the last one
+     */
+    public DecompileProfile getFallback() {
+        return ordinal() + 1 < values().length ? values()[ordinal() + 1] : null;
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.decompile;
+
+/**
+ * The source of a decompiled class, along with the {@link DecompileProfile}
+ * it was produced with.
+ */
+public class DecompiledSource {
+
+    private final String source;
+    private final DecompileProfile profile;
+
+    /**
+     * Constructs a new {@link DecompiledSource}.
+     *
+     * @param source The source of the class
+     * @param profile The profile the source was produced with
+     */
+    public DecompiledSource(String source, DecompileProfile profile) {
+        this.source = source;
+        this.profile = profile;
+    }
+
+    /**
+     * Gets the source of the class.
+     *
+     * @return The source of the class
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Gets the profile the source was produced with.
+     *
+     * @return The profile of the source
+     */
+    public DecompileProfile getProfile() {
+        return profile;
+    }
+
+}
@@ -0,0 +1,527 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.decompile;
+
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.util.MemberType;
+import blue.lapis.nocturne.util.helper.PropertiesHelper;
+import blue.lapis.nocturne.util.helper.StringHelper;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import org.jetbrains.java.decompiler.main.Fernflower;
+import org.jetbrains.java.decompiler.main.extern.IBytecodeProvider;
+import org.jetbrains.java.decompiler.main.extern.IFernflowerPreferences;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * A long-lived decompiler session for a {@link ClassSet}, which keeps the
+ * classes parsed by Fernflower between decompilations.
+ *
+ * <p>Each decompilation still runs in a fresh Fernflower context, but the
+ * context is populated with the {@link StructClass StructClasses} parsed by
+ * earlier decompilations, so only classes whose processed content has changed
+ * since are parsed again. Every parsed class lazily loads its method code and
+ * constant pool from the very content it was parsed from, which is how
+ * Fernflower expands and releases them around each decompilation.</p>
+ *
+ * <p>As the parsed classes are modified while they are decompiled,
+ * decompilations of the same class are serialised.</p>
+ *
+ * <p>Every decompilation is given a time limit. A class which runs out of
+ * time is decompiled again with the next {@link DecompileProfile}, and is
+ * remembered so that later decompilations of it start with that profile
+ * straight away.</p>
+ *
+ * <p>Fernflower can't be interrupted, so an attempt which runs out of time is
+ * abandoned to finish by itself. Fernflower is however told to give up on any
+ * method which takes up the whole time limit by itself, so abandoned attempts
+ * finish eventually. They run on a bounded pool of threads, and while too
+ * many of them are still running, classes skip the full profile.</p>
+ */
+public class DecompilerSession {
+
+    private static final long MAXIMUM_WEIGHT = 64L * 1024 * 1024;
+    private static final int PARSED_CLASS_FACTOR = 4; // rough size of a parsed class relative to its content
+    private static final long DEFAULT_TIME_LIMIT = 15; // seconds
+
+    private static final int WATCHED_THREAD_COUNT = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int MAX_ABANDONED_ATTEMPTS = WATCHED_THREAD_COUNT / 2;
+    private static final AtomicInteger THREAD_ID = new AtomicInteger();
+
+    private static final ExecutorService WATCHED_EXECUTOR = Executors.newFixedThreadPool(WATCHED_THREAD_COUNT, r -> {
+        Thread thread = new Thread(r, "Nocturne watched decompiler #" + THREAD_ID.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicInteger ABANDONED_ATTEMPTS = new AtomicInteger();
+
+    private final Cache<String, ParsedClass> parsedClasses = CacheBuilder.newBuilder()
+            .maximumWeight(MAXIMUM_WEIGHT)
+            .weigher((String name, ParsedClass parsed) -> parsed.content.length * PARSED_CLASS_FACTOR)
+            .recordStats()
+            .build();
+    private final Striped<Lock> locks = Striped.lock(64);
+    private final Map<String, DecompileProfile> profiles = new ConcurrentHashMap<>();
+    private final Supplier<Long> timeLimit; // in milliseconds
+
+    /**
+     * Constructs a new {@link DecompilerSession} with the configured time
+     * limit.
+     */
+    public DecompilerSession() {
+        this.timeLimit = Suppliers.memoize(DecompilerSession::getTimeLimit);
+    }
+
+    /**
+     * Constructs a new {@link DecompilerSession} with the given time limit.
+     *
+     * @param timeLimit The time a decompilation may take before falling back
+     *     to the next profile, or zero for no limit
+     * @param unit The unit of the time limit
+     */
+    public DecompilerSession(long timeLimit, TimeUnit unit) {
+        this.timeLimit = Suppliers.ofInstance(unit.toMillis(timeLimit));
+    }
+
+    /**
+     * Decompiles the given class along with its inner classes, reusing the
+     * source from the {@link DecompilationCache} if neither the class nor its
+     * inner classes have changed since it was last decompiled with its
+     * current profile.
+     *
+     * <p>Otherwise, only those classes which have changed since they were
+     * last decompiled in this session are parsed again. If the decompilation
+     * runs out of time, it is retried with the fallback profiles in turn, the
+     * last of which merely lists the declarations of the class. The source is
+     * cached under the profile it was eventually produced with.</p>
+     *
+     * @param entry The class to decompile
+     * @param innerClasses The inner classes of the class to decompile
+     * @return The source of the class, along with its profile
+     */
+    public DecompiledSource decompile(JarClassEntry entry, List<JarClassEntry> innerClasses) {
+        HashCode content = getContentStamp(entry, innerClasses);
+        DecompileProfile profile = getProfile(entry.getName());
+        String source = DecompilationCache.getIfPresent(entry.getName(), getStamp(content, profile));
+        if (source != null) {
+            return new DecompiledSource(source, profile);
+        }
+
+        DecompiledSource decompiled = decompileUncached(profile, entry, innerClasses, false);
+        DecompilationCache.put(entry.getName(), getStamp(content, decompiled.getProfile()), decompiled.getSource());
+        return decompiled;
+    }
+
+    /**
+     * Decompiles the given class into the {@link DecompilationCache} ahead of
+     * it being requested, unless it is cached already.
+     *
+     * <p>Unlike {@link #decompile}, the classes are parsed afresh rather than
+     * shared with this session, so that a prefetch never holds up a class the
+     * user is waiting for. The decompiler runs at the priority of the calling
+     * thread.</p>
+     *
+     * @param entry The class to decompile
+     * @param innerClasses The inner classes of the class to decompile
+     * @return The source of the class along with its profile, or
+     *     {@link Optional#empty()} if it was cached already
+     */
+    public Optional<DecompiledSource> prefetch(JarClassEntry entry, List<JarClassEntry> innerClasses) {
+        HashCode content = getContentStamp(entry, innerClasses);
+        DecompileProfile profile = getProfile(entry.getName());
+        if (DecompilationCache.contains(entry.getName(), getStamp(content, profile))) {
+            return Optional.empty();
+        }
+
+        DecompiledSource decompiled = decompileUncached(profile, entry, innerClasses, true);
+        DecompilationCache.put(entry.getName(), getStamp(content, decompiled.getProfile()), decompiled.getSource());
+        return Optional.of(decompiled);
+    }
+
+    /**
+     * Decompiles the given class without filling the
+     * {@link DecompilationCache}, so that decompiling many classes at once
+     * doesn't evict the sources the user has open.
+     *
+     * <p>The source is still reused from the cache if it is there, but the
+     * classes are otherwise parsed afresh rather than shared with this
+     * session.</p>
+     *
+     * @param entry The class to decompile
+     * @param innerClasses The inner classes of the class to decompile
+     * @return The source of the class, along with its profile
+     */
+    public DecompiledSource decompileDetached(JarClassEntry entry, List<JarClassEntry> innerClasses) {
+        HashCode content = getContentStamp(entry, innerClasses);
+        DecompileProfile profile = getProfile(entry.getName());
+        String source = DecompilationCache.getIfPresent(entry.getName(), getStamp(content, profile));
+        if (source != null) {
+            return new DecompiledSource(source, profile);
+        }
+        return decompileUncached(profile, entry, innerClasses, true);
+    }
+
+    /**
+     * Gets the profile the given class is decompiled with, which is the first
+     * one unless the class has run out of time before.
+     *
+     * @param className The name of the class
+     * @return The profile the class is decompiled with
+     */
+    public DecompileProfile getProfile(String className) {
+        return profiles.getOrDefault(className, DecompileProfile.FULL);
+    }
+
+    /**
+     * Gets the statistics of the parsed classes kept by this session,
+     * including how many of them were reused.
+     *
+     * @return The statistics of the parsed classes
+     */
+    public CacheStats getStats() {
+        return parsedClasses.stats();
+    }
+
+    /**
+     * Gets the number of attempts which ran out of time but are still
+     * running.
+     *
+     * @return The number of abandoned attempts
+     */
+    public static int getAbandonedAttempts() {
+        return ABANDONED_ATTEMPTS.get();
+    }
+
+    private DecompiledSource decompileUncached(DecompileProfile initialProfile, JarClassEntry entry,
+            List<JarClassEntry> innerClasses, boolean detached) {
+        DecompileProfile profile = initialProfile;
+        if (profile == DecompileProfile.FULL && ABANDONED_ATTEMPTS.get() >= MAX_ABANDONED_ATTEMPTS) {
+            // not remembered, as the class itself needn't be at fault
+            Main.getLogger().fine("Too many abandoned decompilations - skipping the full profile for "
+                    + entry.getName());
+            profile = DecompileProfile.FAST;
+        }
+        while (profile.getOptions() != null) {
+            try {
+                String source = decompileWith(profile, entry, innerClasses, detached);
+                return new DecompiledSource(source, profile);
+            } catch (TimeoutException ex) {
+                DecompileProfile fallback = profile.getFallback();
+                Main.getLogger().warning("Decompiling " + entry.getName() + " took longer than " + timeLimit.get()
+                        + "ms with the " + profile.name().toLowerCase() + " profile - falling back to the "
+                        + fallback.name().toLowerCase() + " profile");
+                profiles.put(entry.getName(), fallback);
+                profile = fallback;
+            }
+        }
+        return new DecompiledSource(ClassListing.list(Main.getLoadedJar(), entry, innerClasses), profile);
+    }
+
+    private String decompileWith(DecompileProfile profile, JarClassEntry entry, List<JarClassEntry> innerClasses,
+            boolean detached) throws TimeoutException {
+        if (profile != DecompileProfile.FULL || detached) {
+            // a timed out decompilation may still be using the kept classes, so these are parsed afresh
+            return decompileWithinLimit(profile, parseClasses(entry, innerClasses, false));
+        }
+
+        Lock lock = locks.get(getOuterName(entry.getName()));
+        lock.lock();
+        try {
+            return decompileWithinLimit(profile, parseClasses(entry, innerClasses, true));
+        } catch (TimeoutException | RuntimeException ex) {
+            // the parsed classes may have been left half expanded, so they must be parsed again
+            parsedClasses.invalidate(entry.getName());
+            innerClasses.forEach(jce -> parsedClasses.invalidate(jce.getName()));
+            throw ex;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String decompileWithinLimit(DecompileProfile profile, List<ParsedClass> classes)
+            throws TimeoutException {
+        long limit = timeLimit.get();
+        if (limit <= 0) {
+            return runDecompiler(profile, classes);
+        }
+
+        return new WatchedAttempt(() -> runDecompiler(profile, classes)).await(limit);
+    }
+
+    private String runDecompiler(DecompileProfile profile, List<ParsedClass> classes) {
+        Map<String, StructClass> structClasses = new LinkedHashMap<>();
+        classes.forEach(parsed -> structClasses.put(parsed.procName, parsed.structClass));
+        return runFernflower(profile, structClasses, classes.get(0).structClass);
+    }
+
+    /**
+     * Runs Fernflower with the options of the given profile over the given
+     * parsed classes, on the thread watched by the time limit.
+     *
+     * @param profile The profile to decompile with
+     * @param classes The parsed classes to decompile, by processed name
+     * @param target The parsed class to get the source of
+     * @return The source of the target class
+     */
+    protected String runFernflower(DecompileProfile profile, Map<String, StructClass> classes, StructClass target) {
+        Fernflower ff = new Fernflower(
+                SimpleBytecodeProvider.getInstance(),
+                NoopResultSaver.getInstance(),
+                getOptions(profile),
+                SimpleFernflowerLogger.getInstance()
+        );
+        try {
+            ff.getStructContext().getClasses().putAll(classes);
+
+            ff.decompileContext();
+            return ff.getClassContent(target);
+        } finally {
+            ff.clearContext();
+        }
+    }
+
+    private Map<String, Object> getOptions(DecompileProfile profile) {
+        long limit = timeLimit.get();
+        if (profile != DecompileProfile.FULL || limit <= 0) {
+            return profile.getOptions(); // the fast profile limits the time per method by itself
+        }
+        // lets Fernflower stop any method which would take up the whole time limit by itself
+        return ImmutableMap.<String, Object>builder()
+                .putAll(profile.getOptions())
+                .put(IFernflowerPreferences.MAX_PROCESSING_METHOD,
+                        String.valueOf(Math.max(1, TimeUnit.MILLISECONDS.toSeconds(limit))))
+                .build();
+    }
+
+    private List<ParsedClass> parseClasses(JarClassEntry entry, List<JarClassEntry> innerClasses, boolean reuse) {
+        List<ParsedClass> classes = new ArrayList<>(innerClasses.size() + 1);
+        try {
+            for (JarClassEntry jce : Iterables.concat(Collections.singleton(entry), innerClasses)) {
+                classes.add(reuse ? getParsedClass(jce) : parseClass(jce));
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
+        return classes;
+    }
+
+    private ParsedClass getParsedClass(JarClassEntry entry) throws IOException {
+        byte[] content = entry.getContent();
+        // a class parsed from different content is dropped first, so that it doesn't count as a hit
+        ParsedClass stale = parsedClasses.asMap().get(entry.getName());
+        if (stale != null && !Arrays.equals(stale.content, content)) {
+            parsedClasses.asMap().remove(entry.getName(), stale);
+        }
+        ParsedClass parsed = parsedClasses.getIfPresent(entry.getName());
+        if (parsed == null || !Arrays.equals(parsed.content, content)) {
+            parsed = parseClass(entry);
+            parsedClasses.put(entry.getName(), parsed);
+        }
+        return parsed;
+    }
+
+    private static ParsedClass parseClass(JarClassEntry entry) throws IOException {
+        return new ParsedClass(StringHelper.getProcessedName(entry.getName(), null, MemberType.CLASS),
+                entry.getContent());
+    }
+
+    private static HashCode getContentStamp(JarClassEntry entry, List<JarClassEntry> innerClasses) {
+        // the decompiler reads nothing but the processed content of the class and its inner classes
+        Hasher stamp = Hashing.murmur3_128().newHasher();
+        for (JarClassEntry jce : Iterables.concat(Collections.singleton(entry), innerClasses)) {
+            byte[] processed = jce.getContent();
+            stamp.putString(jce.getName(), StandardCharsets.UTF_8);
+            stamp.putInt(processed.length);
+            stamp.putBytes(processed);
+        }
+        return stamp.hash();
+    }
+
+    private static HashCode getStamp(HashCode content, DecompileProfile profile) {
+        return Hashing.murmur3_128().newHasher().putBytes(content.asBytes()).putInt(profile.ordinal()).hash();
+    }
+
+    private static long getTimeLimit() {
+        PropertiesHelper properties = Main.getPropertiesHelper();
+        if (properties == null) {
+            return TimeUnit.SECONDS.toMillis(DEFAULT_TIME_LIMIT);
+        }
+        String configured = properties.getProperty(PropertiesHelper.Key.DECOMPILATION_TIME_LIMIT);
+        try {
+            // zero or less disables the limit
+            return TimeUnit.SECONDS.toMillis(Long.parseLong(configured.trim()));
+        } catch (NumberFormatException ex) {
+            Main.getLogger().warning("Invalid decompilation time limit " + configured + " - using "
+                    + DEFAULT_TIME_LIMIT);
+            return TimeUnit.SECONDS.toMillis(DEFAULT_TIME_LIMIT);
+        }
+    }
+
+    private static String getOuterName(String className) {
+        int index = className.indexOf(INNER_CLASS_SEPARATOR_CHAR);
+        return index >= 0 ? className.substring(0, index) : className;
+    }
+
+    /**
+     * A decompilation on the bounded pool of watched threads, which is
+     * abandoned once it runs out of time.
+     */
+    private static class WatchedAttempt implements Runnable {
+
+        private static final int RUNNING = 0;
+        private static final int FINISHED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Callable<String> task;
+        private final int priority = Thread.currentThread().getPriority();
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+        private WatchedAttempt(Callable<String> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            started.countDown();
+            Thread thread = Thread.currentThread();
+            int poolPriority = thread.getPriority();
+            thread.setPriority(priority); // a prefetch mustn't compete with the user's decompilations
+            try {
+                result.complete(task.call());
+            } catch (Throwable ex) {
+                result.completeExceptionally(ex);
+            } finally {
+                thread.setPriority(poolPriority);
+                if (!state.compareAndSet(RUNNING, FINISHED)) {
+                    ABANDONED_ATTEMPTS.decrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Runs this attempt on the pool and waits for its result.
+         *
+         * @param limit The time limit in milliseconds, counted from when the
+         *     attempt starts running
+         * @return The result of the attempt
+         * @throws TimeoutException If the attempt ran out of time
+         */
+        private String await(long limit) throws TimeoutException {
+            Future<?> future = WATCHED_EXECUTOR.submit(this);
+            try {
+                started.await();
+                try {
+                    return result.get(limit, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException ex) {
+                    if (!state.compareAndSet(RUNNING, ABANDONED)) {
+                        return result.get(); // it finished just in time
+                    }
+                    ABANDONED_ATTEMPTS.incrementAndGet();
+                    throw ex;
+                }
+            } catch (InterruptedException ex) {
+                if (!future.cancel(false) && state.compareAndSet(RUNNING, ABANDONED)) {
+                    ABANDONED_ATTEMPTS.incrementAndGet();
+                }
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Interrupted while decompiling");
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                } else if (ex.getCause() instanceof Error) {
+                    throw (Error) ex.getCause();
+                }
+                throw new RuntimeException(ex.getCause());
+            }
+        }
+
+    }
+
+    /**
+     * A class parsed by Fernflower, along with the content it was parsed
+     * from.
+     */
+    private static class ParsedClass implements IBytecodeProvider {
+
+        private final String procName;
+        private final byte[] content;
+        private final StructClass structClass;
+
+        private ParsedClass(String procName, byte[] content) throws IOException {
+            this.procName = procName;
+            this.content = content;
+            LazyLoader loader = new LazyLoader(this);
+            loader.addClassLink(procName, new LazyLoader.Link(LazyLoader.Link.CLASS, null, procName));
+            this.structClass = new StructClass(content, true, loader);
+        }
+
+        @Override
+        public byte[] getBytecode(String externalPath, String internalPath) {
+            return content;
+        }
+
+    }
+
+}
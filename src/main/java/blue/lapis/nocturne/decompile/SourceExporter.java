@@ -0,0 +1,126 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.decompile;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.util.LoadStage;
+import blue.lapis.nocturne.util.ProgressMonitor;
+
+import com.google.common.collect.ImmutableSortedMap;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * Static utility class for exporting the deobfuscated sources of the loaded
+ * JAR.
+ */
+public final class SourceExporter {
+
+    private static final ForkJoinPool EXPORT_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private SourceExporter() {
+    }
+
+    /**
+     * Decompiles every class of the loaded JAR which gets a source file of its
+     * own in parallel, and writes its source with the current mappings
+     * applied to the given target.
+     *
+     * <p>The target is written as an archive if its name ends with
+     * {@code .zip} or {@code .jar}, and as a directory otherwise. Each source
+     * is written as soon as it has been decompiled. A class which fails to
+     * decompile is reported and skipped rather than failing the export.
+     * The sources aren't kept in the {@link DecompilationCache}, so that the
+     * export doesn't evict those of open tabs.</p>
+     *
+     * @param target The archive or directory to write the sources to
+     * @param monitor The {@link ProgressMonitor} to report progress to
+     * @return The names of the classes which failed to export, mapped to the
+     *     cause of each failure
+     * @throws CancellationException If the export was cancelled through the
+     *     given {@link ProgressMonitor}
+     */
+    public static Map<String, Throwable> export(Path target, ProgressMonitor monitor) {
+        ClassSet classSet = Main.getLoadedJar();
+        checkState(classSet != null, "JAR is not loaded");
+        MappingContext context = Main.getMappingContext();
+
+        Path absolute = target.toAbsolutePath();
+        String fileName = absolute.getFileName().toString();
+        boolean archive = fileName.endsWith(".zip") || fileName.endsWith(".jar");
+        String parent = absolute.getParent().toString();
+
+        SourceSaver saver = new SourceSaver();
+        if (archive) {
+            saver.createArchive(parent, fileName, null);
+        } else {
+            saver.saveFolder(absolute.toString());
+        }
+
+        Map<String, Throwable> failures = new ConcurrentHashMap<>();
+        AtomicInteger exported = new AtomicInteger();
+        int total = classSet.getSourceClasses().size();
+        try {
+            EXPORT_POOL.submit(() -> classSet.getSourceClasses().parallelStream().forEach(entry -> {
+                if (monitor.isCancelled()) {
+                    return;
+                }
+                try {
+                    String deobfName = ClassMapping.deobfuscate(context, entry.getName());
+                    String source = SourceRemapper.remap(context, entry.getName(), classSet.getDecompilerSession()
+                            .decompileDetached(entry, classSet.getAllInnerClasses(entry.getName())).getSource());
+                    if (archive) {
+                        saver.saveClassEntry(parent, fileName, deobfName, deobfName + ".java", source);
+                    } else {
+                        saver.saveClassFile(absolute.toString(), deobfName, deobfName + ".java", source, null);
+                    }
+                } catch (Throwable ex) { // even a StackOverflowError in one class mustn't abort the export
+                    Main.getLogger().log(Level.WARNING, "Failed to export class " + entry.getName(), ex);
+                    failures.put(entry.getName(), ex);
+                }
+                monitor.onProgress(LoadStage.EXPORTING_SOURCES, exported.incrementAndGet(), total);
+            })).join();
+        } finally {
+            if (archive) {
+                saver.closeArchive(parent, fileName);
+            }
+        }
+        monitor.checkCancelled();
+
+        return ImmutableSortedMap.copyOf(failures);
+    }
+
+}
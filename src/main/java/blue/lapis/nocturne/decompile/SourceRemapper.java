@@ -0,0 +1,167 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.decompile;
+
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.Constants.Processing.CLASS_REGEX;
+import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_REGEX;
+
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.Mapping;
+import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
+import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+import blue.lapis.nocturne.util.MemberType;
+import blue.lapis.nocturne.util.helper.MappingsHelper;
+import blue.lapis.nocturne.util.helper.StringHelper;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Static utility class for replacing the processed names in decompiled
+ * sources with their deobfuscated names, as they would be displayed.
+ */
+public final class SourceRemapper {
+
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile("\\A\\s*package [^;]+;\\s*");
+    private static final String[] DECLARATION_KEYWORDS = {"class ", "interface ", "enum "};
+
+    private SourceRemapper() {
+    }
+
+    /**
+     * Replaces the processed names in the given decompiled source with their
+     * deobfuscated names.
+     *
+     * <p>The declarations of classes and constructors get the simple names
+     * of their classes, while references to classes are fully qualified, as
+     * the decompiler doesn't import processed classes. The package
+     * declaration is replaced with the deobfuscated package of the given
+     * class.</p>
+     *
+     * @param context The {@link MappingContext} to deobfuscate names with
+     * @param className The name of the decompiled class
+     * @param source The decompiled source of the class
+     * @return The deobfuscated source
+     */
+    public static String remap(MappingContext context, String className, String source) {
+        // members come first, as their descriptors may refer to processed classes themselves
+        Matcher memberMatcher = MEMBER_REGEX.matcher(source);
+        StringBuffer body = new StringBuffer(source.length());
+        while (memberMatcher.find()) {
+            String qualName = memberMatcher.group(2);
+            int offset = qualName.lastIndexOf(CLASS_PATH_SEPARATOR_CHAR);
+            String deobf;
+            try {
+                deobf = deobfuscateMember(context, MemberType.valueOf(memberMatcher.group(1)),
+                        qualName.substring(0, offset), qualName.substring(offset + 1), memberMatcher.group(3));
+            } catch (IllegalArgumentException ex) {
+                deobf = qualName.substring(offset + 1);
+            }
+            memberMatcher.appendReplacement(body, Matcher.quoteReplacement(deobf));
+        }
+        memberMatcher.appendTail(body);
+
+        StringBuffer remapped = new StringBuffer(body.length());
+        String pkg = StringHelper.resolvePackageName(ClassMapping.deobfuscate(context, className));
+        if (!pkg.isEmpty()) {
+            remapped.append("package ").append(pkg.replace(CLASS_PATH_SEPARATOR_CHAR, '.')).append(";\n\n");
+        }
+
+        Matcher packageMatcher = PACKAGE_PATTERN.matcher(body);
+        Matcher classMatcher = CLASS_REGEX.matcher(body);
+        classMatcher.region(packageMatcher.lookingAt() ? packageMatcher.end() : 0, body.length());
+        int last = classMatcher.regionStart();
+        while (classMatcher.find()) {
+            String deobf = ClassMapping.deobfuscate(context, classMatcher.group(1));
+            remapped.append(body, last, classMatcher.start());
+            if (isDeclaration(body, classMatcher)) {
+                remapped.append(StringHelper.unqualify(deobf));
+            } else {
+                remapped.append(deobf.replace(CLASS_PATH_SEPARATOR_CHAR, '.').replace(INNER_CLASS_SEPARATOR_CHAR, '.'));
+            }
+            last = classMatcher.end();
+        }
+        remapped.append(body, last, body.length());
+
+        return remapped.toString();
+    }
+
+    /**
+     * Deobfuscates the name of the given member to the best of the given
+     * {@link MappingContext}'s ability.
+     *
+     * @param context The {@link MappingContext} to use
+     * @param type The type of the member
+     * @param parentClass The name of the class declaring the member
+     * @param name The obfuscated name of the member
+     * @param descriptor The descriptor of the member
+     * @return The deobfuscated name of the member, or its obfuscated name if
+     *     it has no mapping
+     */
+    public static String deobfuscateMember(MappingContext context, MemberType type, String parentClass, String name,
+            String descriptor) {
+        Optional<ClassMapping> classMapping = MappingsHelper.getClassMapping(context, parentClass);
+        if (!classMapping.isPresent()) {
+            return name;
+        }
+        Mapping mapping;
+        switch (type) {
+            case FIELD:
+                mapping = classMapping.get().getFieldMappings()
+                        .get(new FieldSignature(name, Type.fromString(descriptor)));
+                break;
+            case METHOD:
+                mapping = classMapping.get().getMethodMappings()
+                        .get(new MethodSignature(name, MethodDescriptor.fromString(descriptor)));
+                break;
+            default:
+                return name;
+        }
+        return mapping != null ? mapping.getDeobfuscatedName() : name;
+    }
+
+    private static boolean isDeclaration(CharSequence body, Matcher matcher) {
+        for (String keyword : DECLARATION_KEYWORDS) {
+            if (endsWith(body, matcher.start(), keyword)) {
+                return true;
+            }
+        }
+        // a class name directly followed by parameters can only be a constructor or its invocation
+        return matcher.end() < body.length() && body.charAt(matcher.end()) == '('
+                && !endsWith(body, matcher.start(), "new ");
+    }
+
+    private static boolean endsWith(CharSequence str, int end, String suffix) {
+        int start = end - suffix.length();
+        return start >= 0 && str.subSequence(start, end).toString().equals(suffix);
+    }
+
+}
@@ -0,0 +1,165 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.decompile;
+
+import com.google.common.io.ByteStreams;
+import org.jetbrains.java.decompiler.main.extern.IResultSaver;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Implements {@link IResultSaver}, writing decompiled sources to directories
+ * and archives on disk.
+ *
+ * <p>Every source is written out as soon as it is saved, so that only the
+ * sources currently being saved are held in memory. Sources may be saved
+ * from several threads at once; entries of the same archive are written one
+ * at a time.</p>
+ */
+public class SourceSaver implements IResultSaver {
+
+    private final Map<Path, ZipOutputStream> archives = new HashMap<>();
+
+    @Override
+    public void saveFolder(String path) {
+        try {
+            Files.createDirectories(Paths.get(path));
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to create directory " + path, ex);
+        }
+    }
+
+    @Override
+    public void copyFile(String source, String path, String entryName) {
+        try {
+            Path target = Paths.get(path, entryName);
+            Files.createDirectories(target.getParent());
+            Files.copy(Paths.get(source), target);
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to copy " + source, ex);
+        }
+    }
+
+    @Override
+    public void saveClassFile(String path, String qualifiedName, String entryName, String content, int[] mapping) {
+        try {
+            Path target = Paths.get(path, entryName);
+            Files.createDirectories(target.getParent());
+            Files.write(target, content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to save source of " + qualifiedName, ex);
+        }
+    }
+
+    @Override
+    public void createArchive(String path, String archiveName, Manifest manifest) {
+        Path file = Paths.get(path, archiveName);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            OutputStream out = Files.newOutputStream(file);
+            ZipOutputStream zip = manifest != null ? new JarOutputStream(out, manifest) : new ZipOutputStream(out);
+            synchronized (archives) {
+                archives.put(file, zip);
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to create archive " + file, ex);
+        }
+    }
+
+    @Override
+    public void saveDirEntry(String path, String archiveName, String entryName) {
+        writeEntry(path, archiveName, entryName.endsWith("/") ? entryName : entryName + "/", new byte[0]);
+    }
+
+    @Override
+    public void copyEntry(String source, String path, String archiveName, String entry) {
+        try (ZipFile zip = new ZipFile(source)) {
+            ZipEntry zipEntry = zip.getEntry(entry);
+            if (zipEntry != null) {
+                writeEntry(path, archiveName, entry, ByteStreams.toByteArray(zip.getInputStream(zipEntry)));
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Failed to copy entry " + entry + " from " + source, ex);
+        }
+    }
+
+    @Override
+    public void saveClassEntry(String path, String archiveName, String qualifiedName, String entryName,
+            String content) {
+        writeEntry(path, archiveName, entryName, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void closeArchive(String path, String archiveName) {
+        Path file = Paths.get(path, archiveName);
+        ZipOutputStream zip;
+        synchronized (archives) {
+            zip = archives.remove(file);
+        }
+        if (zip == null) {
+            return;
+        }
+        synchronized (zip) {
+            try {
+                zip.close();
+            } catch (IOException ex) {
+                throw new RuntimeException("Failed to close archive " + file, ex);
+            }
+        }
+    }
+
+    private void writeEntry(String path, String archiveName, String entryName, byte[] content) {
+        Path file = Paths.get(path, archiveName);
+        ZipOutputStream zip;
+        synchronized (archives) {
+            zip = archives.get(file);
+        }
+        if (zip == null) {
+            throw new IllegalStateException("Archive " + file + " has not been created");
+        }
+        synchronized (zip) {
+            try {
+                zip.putNextEntry(new ZipEntry(entryName));
+                zip.write(content);
+                zip.closeEntry();
+            } catch (IOException ex) {
+                throw new RuntimeException("Failed to write entry " + entryName + " to " + file, ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.gui;
+
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_PATTERN;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.gui.scene.control.CodeTab;
+import blue.lapis.nocturne.gui.scene.text.SelectableMember;
+import blue.lapis.nocturne.jar.io.JarLoadListener;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.MappingListener;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.InnerClassMapping;
+import blue.lapis.nocturne.mapping.model.MemberMapping;
+import blue.lapis.nocturne.mapping.model.TopLevelClassMapping;
+import blue.lapis.nocturne.util.helper.StringHelper;
+
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
+
+import java.util.List;
+
+/**
+ * Reflects changes to the loaded JAR and its mappings in the GUI.
+ *
+ * <p>Changes may be made from background loads, so they are always reflected
+ * on the FX application thread.</p>
+ */
+public class GuiListener implements MappingListener, JarLoadListener {
+
+    @Override
+    public void onDirtyStateChanged(MappingContext context, boolean dirty) {
+        runOnFxThread(() -> {
+            MainController.INSTANCE.saveMappingsButton.setDisable(!dirty);
+            Main.updateTitle();
+        });
+    }
+
+    @Override
+    public void onClassMappingChanged(ClassMapping mapping, boolean updateClassViews) {
+        runOnFxThread(() -> updateClassMapping(mapping, updateClassViews));
+    }
+
+    private void updateClassMapping(ClassMapping mapping, boolean updateClassViews) {
+        String name = mapping.getDeobfuscatedName();
+        if (mapping instanceof TopLevelClassMapping && CodeTab.CODE_TABS.containsKey(mapping.getObfuscatedName())) {
+            CodeTab.CODE_TABS.get(mapping.getObfuscatedName())
+                    .setText(CLASS_PATH_SEPARATOR_PATTERN.matcher(name).replaceAll("."));
+        }
+
+        List<SelectableMember> memberList = SelectableMember.MEMBERS.get(mapping.getMemberKey());
+        if (memberList == null) {
+            return;
+        }
+
+        String unqualName = mapping instanceof InnerClassMapping ? name : StringHelper.unqualify(name);
+        memberList.forEach(member -> {
+            member.setText(unqualName);
+            member.setDeobfuscated(!name.equals(member.getName()));
+        });
+
+        if (updateClassViews) {
+            MainController.INSTANCE.updateClassViews();
+        }
+    }
+
+    @Override
+    public void onMemberMappingChanged(MemberMapping mapping) {
+        runOnFxThread(() -> updateMemberMapping(mapping));
+    }
+
+    private void updateMemberMapping(MemberMapping mapping) {
+        List<SelectableMember> memberList = SelectableMember.MEMBERS.get(mapping.getMemberKey());
+        if (memberList == null) {
+            return;
+        }
+
+        String name = mapping.getDeobfuscatedName();
+        memberList.forEach(member -> {
+            member.setText(name);
+            member.setDeobfuscated(!name.equals(member.getName()));
+        });
+    }
+
+    @Override
+    public void onInvalidJar(String name) {
+        runOnFxThread(() -> {
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setHeaderText(null);
+            alert.setContentText(Main.getResourceBundle().getString("jarload.invalid"));
+            alert.showAndWait();
+        });
+    }
+
+    @Override
+    public void onEmptyJar(String name) {
+        runOnFxThread(() -> {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alert.setHeaderText(null);
+            alert.setContentText(Main.getResourceBundle().getString("jarload.empty"));
+            alert.showAndWait();
+        });
+    }
+
+    /**
+     * Runs the given {@link Runnable} immediately if called from the FX
+     * application thread, or later on it otherwise.
+     *
+     * @param runnable The {@link Runnable} to run
+     */
+    private static void runOnFxThread(Runnable runnable) {
+        if (Platform.isFxApplicationThread()) {
+            runnable.run();
+        } else {
+            Platform.runLater(runnable);
+        }
+    }
+
+}
@@ -28,17 +28,21 @@ package blue.lapis.nocturne.gui;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.DecompilePrefetcher;
 import blue.lapis.nocturne.gui.io.jar.JarDialogHelper;
 import blue.lapis.nocturne.gui.io.mappings.MappingsOpenDialogHelper;
 import blue.lapis.nocturne.gui.io.mappings.MappingsSaveDialogHelper;
 import blue.lapis.nocturne.gui.scene.control.CodeTab;
 import blue.lapis.nocturne.gui.scene.control.IdentifiableTreeItem;
 import blue.lapis.nocturne.gui.scene.text.SelectableMember;
+import blue.lapis.nocturne.jar.io.JarLoader;
 import blue.lapis.nocturne.jar.model.JarClassEntry;
 import blue.lapis.nocturne.jar.model.hierarchy.Hierarchy;
 import blue.lapis.nocturne.jar.model.hierarchy.HierarchyElement;
 import blue.lapis.nocturne.jar.model.hierarchy.HierarchyNode;
+import blue.lapis.nocturne.processor.transform.TransformWarmer;
 import blue.lapis.nocturne.util.Constants;
+import blue.lapis.nocturne.util.helper.MappingsHelper;
 import blue.lapis.nocturne.util.helper.PropertiesHelper;
 import blue.lapis.nocturne.util.helper.SceneHelper;
 
@@ -63,6 +67,7 @@ import javafx.scene.input.MouseEvent;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -82,11 +87,13 @@ public class MainController implements Initializable {
     private static final Alert RESTART_ALERT = new Alert(Alert.AlertType.WARNING);
 
     public MenuItem openJarButton;
+    public MenuItem reloadJarButton;
     public MenuItem closeJarButton;
     public MenuItem loadMappingsButton;
     public MenuItem mergeMappingsButton;
     public MenuItem saveMappingsButton;
     public MenuItem saveMappingsAsButton;
+    public MenuItem exportSourcesButton;
     public MenuItem closeButton;
 
     public MenuItem resetMappingsButton;
@@ -106,11 +113,13 @@ public class MainController implements Initializable {
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        reloadJarButton.setDisable(Main.getLoadedJar() == null);
         closeJarButton.setDisable(Main.getLoadedJar() == null);
         loadMappingsButton.setDisable(Main.getLoadedJar() == null);
         mergeMappingsButton.setDisable(Main.getLoadedJar() == null);
         saveMappingsButton.setDisable(Main.getLoadedJar() == null);
         saveMappingsAsButton.setDisable(Main.getLoadedJar() == null);
+        exportSourcesButton.setDisable(Main.getLoadedJar() == null);
         resetMappingsButton.setDisable(Main.getLoadedJar() == null);
 
         final String langRadioPrefix = "langRadio-";
@@ -177,12 +186,62 @@ public class MainController implements Initializable {
     }
 
     public void openJar(ActionEvent actionEvent) throws IOException {
-        if (Main.getLoadedJar() != null && !deinitializeCurrentJar()) {
+        // the current JAR is only deinitialized once the new one has loaded, so cancelling leaves it untouched
+        if (Main.getLoadedJar() != null && MappingsSaveDialogHelper.doDirtyConfirmation()) {
             return;
         }
         JarDialogHelper.openJar(this);
+    }
+
+    /**
+     * Replaces the loaded JAR with the given prepared one, discarding the
+     * current mappings and closing all tabs.
+     *
+     * @param jar The prepared JAR to publish
+     */
+    public void replaceJar(JarLoader.PreparedJar jar) {
+        Main.getMappingContext().clear();
+        closeAllTabs();
+        jar.publish();
+
+        reloadJarButton.setDisable(false);
+        closeJarButton.setDisable(false);
+        loadMappingsButton.setDisable(false);
+        mergeMappingsButton.setDisable(false);
+        saveMappingsAsButton.setDisable(false);
+        exportSourcesButton.setDisable(false);
+        resetMappingsButton.setDisable(false);
+
         updateClassViews();
+    }
+
+    public void reloadJar(ActionEvent actionEvent) throws IOException {
+        JarDialogHelper.reloadJar(this);
+    }
+
+    /**
+     * Replaces the loaded JAR with the given prepared, updated version of it,
+     * keeping the current mappings.
+     *
+     * <p>Tabs of classes which no longer exist are closed, and the others are
+     * decompiled again in case their class has changed.</p>
+     *
+     * @param jar The prepared JAR to publish
+     */
+    public void updateJar(JarLoader.PreparedJar jar) {
+        jar.publish();
+
+        for (CodeTab tab : new ArrayList<>(CodeTab.CODE_TABS.values())) {
+            Optional<JarClassEntry> clazz = Main.getLoadedJar().getClass(tab.getClassName());
+            if (clazz.isPresent()) {
+                tab.decompile(clazz.get());
+            } else {
+                tab.getOnClosed().handle(null);
+                tabs.getTabs().remove(tab);
+            }
+        }
 
+        updateClassViews();
     }
 
     public void closeJar(ActionEvent actionEvent) throws IOException {
@@ -190,11 +249,13 @@ public class MainController implements Initializable {
             return;
         }
 
+        reloadJarButton.setDisable(true);
         closeJarButton.setDisable(true);
         loadMappingsButton.setDisable(true);
         mergeMappingsButton.setDisable(true);
         saveMappingsButton.setDisable(true);
         saveMappingsAsButton.setDisable(true);
+        exportSourcesButton.setDisable(true);
         resetMappingsButton.setDisable(true);
 
         Main.getMappingContext().clear();
@@ -212,12 +273,10 @@ public class MainController implements Initializable {
             throw new RuntimeException(ex);
         }
         MappingsOpenDialogHelper.openMappings(false);
-        updateClassViews();
     }
 
     public void mergeMappings(ActionEvent actionEvent) throws IOException {
         MappingsOpenDialogHelper.openMappings(true);
-        updateClassViews();
     }
 
     public void resetMappings(ActionEvent actionEvent) {
@@ -228,21 +287,7 @@ public class MainController implements Initializable {
         } catch (IOException ex) {
             throw new RuntimeException(ex);
         }
-        Main.getMappingContext().getMappings().values().forEach(cm -> {
-            Main.getLoadedJar().getCurrentNames().put(cm.getObfuscatedName(), cm.getObfuscatedName());
-            JarClassEntry jce = Main.getLoadedJar().getClass(cm.getObfuscatedName()).orElse(null);
-            if (jce == null) {
-                return;
-            }
-            cm.getInnerClassMappings().values()
-                    .forEach(im -> jce.getCurrentInnerClassNames().put(im.getObfuscatedName(), im.getObfuscatedName()));
-            cm.getFieldMappings().values()
-                    .forEach(fm -> jce.getCurrentFields().put(fm.getSignature(), fm.getSignature()));
-            cm.getMethodMappings().values()
-                    .forEach(mm -> jce.getCurrentMethods().put(mm.getSignature(), mm.getSignature()));
-        });
-        Main.getMappingContext().clear();
-        Main.getLoadedJar().getClasses().forEach(jce -> jce.setDeobfuscated(false));
+        MappingsHelper.resetMappings(Main.getMappingContext());
         CodeTab.CODE_TABS.values().forEach(CodeTab::resetClassName);
         SelectableMember.MEMBERS.values()
                 .forEach(list -> list.forEach(member -> {
@@ -260,6 +305,10 @@ public class MainController implements Initializable {
         MappingsSaveDialogHelper.saveMappingsAs();
     }
 
+    public void exportSources(ActionEvent actionEvent) throws IOException {
+        JarDialogHelper.exportSources();
+    }
+
     public void onClose(ActionEvent actionEvent) {
         try {
             if (MappingsSaveDialogHelper.doDirtyConfirmation()) {
@@ -387,7 +436,9 @@ public class MainController implements Initializable {
 
             Optional<JarClassEntry> clazz = Main.getLoadedJar().getClass(className);
             checkArgument(clazz.isPresent(), "Cannot find class entry for " + className);
-            tab.setCode(clazz.get().decompile());
+            tab.decompile(clazz.get());
+            TransformWarmer.warmAround(Main.getLoadedJar(), className);
+            DecompilePrefetcher.prefetchAround(Main.getLoadedJar(), className);
         }
     }
 
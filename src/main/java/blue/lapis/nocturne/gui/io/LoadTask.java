@@ -0,0 +1,107 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.gui.io;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.util.LoadStage;
+import blue.lapis.nocturne.util.ProgressMonitor;
+
+import javafx.concurrent.Task;
+import javafx.concurrent.Worker;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.layout.VBox;
+
+/**
+ * A {@link Task} which loads something in the background while showing its
+ * progress in a dialog, from which it may be cancelled.
+ *
+ * <p>Progress reported through the {@link ProgressMonitor} methods is
+ * published to the dialog on the FX application thread, and the
+ * {@link Task}'s event handlers are likewise called on it.</p>
+ *
+ * @param <V> The type of the loaded value
+ */
+public abstract class LoadTask<V> extends Task<V> implements ProgressMonitor {
+
+    private final Dialog<Void> dialog;
+
+    /**
+     * Constructs a new {@link LoadTask}.
+     *
+     * @param titleKey The key of the localized title of the progress dialog
+     * @param contentKey The key of the localized message shown before any
+     *     progress has been reported
+     */
+    protected LoadTask(String titleKey, String contentKey) {
+        updateMessage(Main.getResourceBundle().getString(contentKey));
+
+        Label message = new Label();
+        message.textProperty().bind(messageProperty());
+        ProgressBar progress = new ProgressBar();
+        progress.progressProperty().bind(progressProperty());
+        progress.setMaxWidth(Double.MAX_VALUE);
+
+        dialog = new Dialog<>();
+        dialog.initOwner(Main.getMainStage());
+        dialog.setTitle(Main.getResourceBundle().getString(titleKey));
+        dialog.setHeaderText(null);
+        dialog.getDialogPane().setContent(new VBox(8, message, progress));
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CANCEL);
+        dialog.setOnHidden(event -> cancel()); // no-op if the task has already finished
+
+        stateProperty().addListener((observable, oldState, newState) -> {
+            if (newState == Worker.State.SUCCEEDED || newState == Worker.State.FAILED
+                    || newState == Worker.State.CANCELLED) {
+                dialog.close();
+            }
+        });
+        setOnFailed(event -> {
+            throw new RuntimeException(getException());
+        });
+    }
+
+    @Override
+    public void onProgress(LoadStage stage, long done, long total) {
+        updateMessage(Main.getResourceBundle().getString(stage.getLangKey()));
+        updateProgress(done, total);
+    }
+
+    /**
+     * Shows the progress dialog and starts running this task on a new
+     * background thread.
+     */
+    public void start() {
+        dialog.show();
+
+        Thread thread = new Thread(this, "Nocturne loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+}
@@ -26,74 +26,172 @@
 package blue.lapis.nocturne.gui.io.jar;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.SourceExporter;
 import blue.lapis.nocturne.gui.MainController;
+import blue.lapis.nocturne.gui.io.LoadTask;
 import blue.lapis.nocturne.jar.io.JarLoader;
 import blue.lapis.nocturne.jar.model.ClassSet;
 import blue.lapis.nocturne.util.helper.PropertiesHelper;
 
-import javafx.scene.control.Dialog;
+import javafx.scene.control.Alert;
 import javafx.stage.FileChooser;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.Map;
 
 /**
  * Static utility class for JAR open/save dialogs.
  */
 public final class JarDialogHelper {
 
-    private static Dialog<Boolean> loadDialog;
+    private JarDialogHelper() {
+    }
 
-    static {
-        loadDialog = new Dialog<>();
-        loadDialog.setTitle(Main.getResourceBundle().getString("dialog.load_jar.title"));
-        loadDialog.setHeaderText(null);
-        loadDialog.setContentText(Main.getResourceBundle().getString("dialog.load_jar.content"));
-        loadDialog.setResult(false);
+    /**
+     * Prompts for a JAR and loads it in the background, replacing the loaded
+     * JAR once it has been fully indexed. If the load is cancelled, the
+     * loaded JAR is left untouched.
+     *
+     * @param controller The {@link MainController} to update once the JAR is
+     *     loaded
+     * @throws IOException If an exception occurs while prompting for the JAR
+     */
+    public static void openJar(MainController controller) throws IOException {
+        File selectedFile = chooseJar(null);
+        if (selectedFile == null) {
+            return;
+        }
+
+        LoadTask<JarLoader.PreparedJar> task
+                = new LoadTask<JarLoader.PreparedJar>("dialog.load_jar.title", "dialog.load_jar.content") {
+                    @Override
+                    protected JarLoader.PreparedJar call() throws Exception {
+                        return JarLoader.prepareJar(selectedFile.getAbsolutePath(), selectedFile.toPath(), this);
+                    }
+                };
+        task.setOnSucceeded(event -> {
+            if (task.getValue() != null) {
+                controller.replaceJar(task.getValue());
+            }
+        });
+        task.start();
     }
 
-    private JarDialogHelper() {
+    /**
+     * Prompts for an updated version of the loaded JAR and reloads it in the
+     * background, keeping the current mappings. Only the classes affected by
+     * the update are indexed again.
+     *
+     * @param controller The {@link MainController} to update once the JAR is
+     *     reloaded
+     * @throws IOException If an exception occurs while prompting for the JAR
+     */
+    public static void reloadJar(MainController controller) throws IOException {
+        ClassSet previous = Main.getLoadedJar();
+        File selectedFile = chooseJar(new File(previous.getName()));
+        if (selectedFile == null) {
+            return;
+        }
+
+        LoadTask<JarLoader.PreparedJar> task
+                = new LoadTask<JarLoader.PreparedJar>("dialog.load_jar.title", "dialog.load_jar.content") {
+                    @Override
+                    protected JarLoader.PreparedJar call() throws Exception {
+                        return JarLoader.prepareReload(previous, selectedFile.getAbsolutePath(),
+                                selectedFile.toPath(), this);
+                    }
+                };
+        task.setOnSucceeded(event -> {
+            if (task.getValue() != null) {
+                controller.updateJar(task.getValue());
+            }
+        });
+        task.start();
     }
 
-    public static void openJar(MainController controller) throws IOException {
+    /**
+     * Prompts for an archive and exports the deobfuscated sources of the
+     * loaded JAR to it in the background, warning about any classes which
+     * could not be exported.
+     *
+     * @throws IOException If an exception occurs while prompting for the
+     *     archive
+     */
+    public static void exportSources() throws IOException {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(Main.getResourceBundle().getString("filechooser.export_sources"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_zip"), "*.zip"),
+                new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_jar"), "*.jar")
+        );
+        File current = new File(Main.getLoadedJar().getName());
+        if (current.getParentFile() != null && current.getParentFile().exists()) {
+            fileChooser.setInitialDirectory(current.getParentFile());
+        }
+
+        File selectedFile = fileChooser.showSaveDialog(Main.getMainStage());
+        if (selectedFile == null) {
+            return;
+        }
+
+        int total = Main.getLoadedJar().getTopLevelClasses().size();
+        LoadTask<Map<String, Throwable>> task = new LoadTask<Map<String, Throwable>>("dialog.export_sources.title",
+                "dialog.export_sources.content") {
+            @Override
+            protected Map<String, Throwable> call() throws Exception {
+                return SourceExporter.export(selectedFile.toPath(), this);
+            }
+        };
+        task.setOnSucceeded(event -> {
+            if (!task.getValue().isEmpty()) {
+                Alert alert = new Alert(Alert.AlertType.WARNING);
+                alert.setTitle(Main.getResourceBundle().getString("dialog.export_sources.failed.title"));
+                alert.setHeaderText(null);
+                alert.setContentText(String.format(
+                        Main.getResourceBundle().getString("dialog.export_sources.failed.content"),
+                        task.getValue().size(), total));
+                alert.showAndWait();
+            }
+        });
+        task.start();
+    }
+
+    /**
+     * Prompts for a JAR file.
+     *
+     * @param current The file of the loaded JAR to preselect, or {@code null}
+     *     to start from the last directory a JAR was opened from
+     * @return The selected JAR file, or {@code null} if none was selected
+     */
+    private static File chooseJar(File current) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle(Main.getResourceBundle().getString("filechooser.open_jar"));
         fileChooser.getExtensionFilters().addAll(
                 new FileChooser.ExtensionFilter(Main.getResourceBundle().getString("filechooser.type_jar"), "*.jar")
         );
 
-        String lastDir = Main.getPropertiesHelper().getProperty(PropertiesHelper.Key.LAST_JAR_DIRECTORY);
-        if (!lastDir.isEmpty()) {
-            File initialDir = new File(lastDir);
-            if (initialDir.exists()) {
-                fileChooser.setInitialDirectory(initialDir);
+        if (current != null && current.getParentFile() != null && current.getParentFile().exists()) {
+            fileChooser.setInitialDirectory(current.getParentFile());
+            fileChooser.setInitialFileName(current.getName());
+        } else {
+            String lastDir = Main.getPropertiesHelper().getProperty(PropertiesHelper.Key.LAST_JAR_DIRECTORY);
+            if (!lastDir.isEmpty()) {
+                File initialDir = new File(lastDir);
+                if (initialDir.exists()) {
+                    fileChooser.setInitialDirectory(initialDir);
+                }
             }
         }
 
         File selectedFile = fileChooser.showOpenDialog(Main.getMainStage());
         if (selectedFile == null) {
-            return;
+            return null;
         }
         Main.getPropertiesHelper().setProperty(PropertiesHelper.Key.LAST_JAR_DIRECTORY, selectedFile.getParent());
 
-        if (Files.exists(selectedFile.toPath())) {
-            loadDialog.show();
-            ClassSet classSet;
-            try {
-                classSet = JarLoader.loadJar(selectedFile.getAbsolutePath(), new FileInputStream(selectedFile));
-            } finally {
-                loadDialog.close();
-            }
-            if (classSet != null) {
-                controller.closeJarButton.setDisable(false);
-                controller.loadMappingsButton.setDisable(false);
-                controller.mergeMappingsButton.setDisable(false);
-                controller.saveMappingsAsButton.setDisable(false);
-                controller.resetMappingsButton.setDisable(false);
-            }
-        }
+        return Files.exists(selectedFile.toPath()) ? selectedFile : null;
     }
 
 }
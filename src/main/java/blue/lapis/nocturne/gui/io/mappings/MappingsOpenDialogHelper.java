@@ -27,17 +27,22 @@ package blue.lapis.nocturne.gui.io.mappings;
 
 import blue.lapis.nocturne.Main;
 import blue.lapis.nocturne.gui.MainController;
+import blue.lapis.nocturne.gui.io.LoadTask;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.mapping.io.reader.MappingReaderType;
 import blue.lapis.nocturne.mapping.io.reader.MappingsReader;
 import blue.lapis.nocturne.mapping.io.writer.MappingWriterType;
+import blue.lapis.nocturne.util.LoadStage;
 import blue.lapis.nocturne.util.helper.PropertiesHelper;
+
 import javafx.stage.FileChooser;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.nio.file.Path;
 import java.util.Arrays;
 
@@ -49,6 +54,19 @@ public final class MappingsOpenDialogHelper {
     private MappingsOpenDialogHelper() {
     }
 
+    /**
+     * Prompts for a mappings file and loads it in the background.
+     *
+     * <p>The mappings are parsed into a detached {@link MappingContext} in the
+     * background, and only applied to the loaded JAR once they are
+     * assimilated on the FX application thread, so the load may be cancelled
+     * up to that point.</p>
+     *
+     * @param merge Whether to merge the mappings into the current ones rather
+     *     than replacing them
+     * @throws IOException If an exception occurs while prompting for the
+     *     mappings file
+     */
     public static void openMappings(boolean merge) throws IOException {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle(Main.getResourceBundle().getString("filechooser.open_mapping"));
@@ -79,18 +97,43 @@ public final class MappingsOpenDialogHelper {
         MappingReaderType type = MappingReaderType.fromExtensionFilter(fileChooser.getSelectedExtensionFilter());
         Main.getPropertiesHelper()
                 .setProperty(PropertiesHelper.Key.LAST_MAPPING_LOAD_FORMAT, type.getFormatType().name());
-        try (MappingsReader reader = type.constructReader(new BufferedReader(new FileReader(selectedFile)))) {
-            MappingContext context = reader.read();
+        final long length = selectedFile.length();
+        LoadTask<MappingContext> task
+                = new LoadTask<MappingContext>("dialog.load_mappings.title", "dialog.load_mappings.content") {
+                    @Override
+                    protected MappingContext call() throws Exception {
+                        StringBuilder content = new StringBuilder();
+                        try (Reader in = new FileReader(selectedFile)) {
+                            char[] buffer = new char[8192];
+                            int count;
+                            while ((count = in.read(buffer)) != -1) {
+                                checkCancelled();
+                                content.append(buffer, 0, count);
+                                // the length is in bytes rather than characters, so it's only an upper bound
+                                onProgress(LoadStage.READING_MAPPINGS, Math.min(content.length(), length), length);
+                            }
+                        }
+
+                        // the loaded JAR is read by the FX application thread, so it's only changed once assimilated
+                        try (MappingsReader reader = type.constructReader(
+                                new BufferedReader(new StringReader(content.toString())))) {
+                            reader.setDetached(true);
+                            return reader.read();
+                        }
+                    }
+                };
+        task.setOnSucceeded(event -> {
             if (!merge) {
                 Main.getMappingContext().clear();
             }
-            Main.getMappingContext().assimilate(context);
+            Main.getMappingContext().assimilate(task.getValue());
             MainController.INSTANCE.updateClassViews();
             Main.getMappingContext().setDirty(false);
-        }
 
-        Main.setCurrentMappingsPath(selectedPath);
-        Main.setCurrentWriterType(MappingWriterType.fromFormatType(type.getFormatType()));
+            Main.setCurrentMappingsPath(selectedPath);
+            Main.setCurrentWriterType(MappingWriterType.fromFormatType(type.getFormatType()));
+        });
+        task.start();
     }
 
 }
@@ -30,13 +30,17 @@ import static blue.lapis.nocturne.util.Constants.Processing.CLASS_REGEX;
 import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_REGEX;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.DecompileExecutor;
+import blue.lapis.nocturne.decompile.DecompiledSource;
 import blue.lapis.nocturne.gui.scene.text.SelectableMember;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
 import blue.lapis.nocturne.util.JavaSyntaxHighlighter;
 import blue.lapis.nocturne.util.MemberType;
 import blue.lapis.nocturne.util.helper.StringHelper;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.control.Label;
@@ -50,6 +54,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -61,11 +66,14 @@ public class CodeTab extends Tab {
     public static final Map<String, CodeTab> CODE_TABS = Maps.newHashMap();
 
     private final String className;
+    private CompletableFuture<DecompiledSource> pendingSource;
 
     public Label memberIdentifierLabel;
     public Label memberInfoLabel;
     public Label memberIdentifier;
     public Label memberInfo;
+    public Label decompileProfileLabel;
+    public Label decompileProfile;
     public TextFlow code;
 
     public CodeTab(TabPane pane, String className, String displayName) {
@@ -84,11 +92,16 @@ public class CodeTab extends Tab {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        this.decompileProfileLabel.setText(String.format("%s: ",
+                Main.getResourceBundle().getString("codetab.profile")));
 
         CODE_TABS.put(className, this);
         getTabPane().getSelectionModel().select(this);
 
-        this.setOnClosed(event -> CODE_TABS.remove(this.getClassName()));
+        this.setOnClosed(event -> {
+            cancelDecompilation();
+            CODE_TABS.remove(this.getClassName());
+        });
     }
 
     public String getClassName() {
@@ -134,6 +147,51 @@ public class CodeTab extends Tab {
         this.memberInfo.setText(info);
     }
 
+    /**
+     * Decompiles the given class in the background, showing a placeholder
+     * until its code is available.
+     *
+     * <p>Any previous decompilation for this tab which has not yet completed
+     * is superseded.</p>
+     *
+     * @param entry The class to decompile
+     */
+    public void decompile(JarClassEntry entry) {
+        cancelDecompilation();
+        setPlaceholder(Main.getResourceBundle().getString("codetab.decompiling"));
+        decompileProfile.setText("");
+
+        CompletableFuture<DecompiledSource> future = DecompileExecutor.submit(entry);
+        pendingSource = future;
+        future.whenComplete((source, ex) -> Platform.runLater(() -> {
+            if (pendingSource != future) {
+                return; // superseded or closed in the meantime
+            }
+            pendingSource = null;
+            if (ex == null) {
+                setCode(source.getSource());
+                decompileProfile.setText(source.getProfile().getDisplayName());
+            } else {
+                ex.printStackTrace();
+                setPlaceholder(Main.getResourceBundle().getString("codetab.decompile.failed"));
+            }
+        }));
+    }
+
+    /**
+     * Cancels the pending decompilation for this tab, if any.
+     */
+    public void cancelDecompilation() {
+        if (pendingSource != null) {
+            pendingSource.cancel(false);
+            pendingSource = null;
+        }
+    }
+
+    private void setPlaceholder(String text) {
+        this.code.getChildren().setAll(new Text(text));
+    }
+
     /**
      * Sets the open source file's code.
      *
@@ -33,6 +33,7 @@ import static blue.lapis.nocturne.util.helper.MappingsHelper.genMethodMapping;
 import static blue.lapis.nocturne.util.helper.MappingsHelper.getOrCreateClassMapping;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.SourceRemapper;
 import blue.lapis.nocturne.gui.MainController;
 import blue.lapis.nocturne.gui.scene.control.CodeTab;
 import blue.lapis.nocturne.jar.model.JarClassEntry;
@@ -52,7 +53,6 @@ import blue.lapis.nocturne.util.helper.HierarchyHelper;
 import blue.lapis.nocturne.util.helper.MappingsHelper;
 import blue.lapis.nocturne.util.helper.StringHelper;
 
-import com.google.common.collect.Sets;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.property.StringProperty;
 import javafx.scene.control.Alert;
@@ -130,6 +130,12 @@ public class SelectableMember extends Text {
 
         MenuItem renameItem = new MenuItem(Main.getResourceBundle().getString("member.contextmenu.rename"));
         renameItem.setOnAction(event -> {
+            if (getType() == MemberType.METHOD && HierarchyHelper.isLibraryBound(getParentClass(),
+                    (MethodSignature) sig)) {
+                showLibraryAlert();
+                return;
+            }
+
             String dispText = this.getText();
             if (getType() == MemberType.CLASS && !isInnerClass()) {
                 dispText = fullName;
@@ -353,6 +359,14 @@ public class SelectableMember extends Text {
         alert.showAndWait();
     }
 
+    private void showLibraryAlert() {
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle(Main.getResourceBundle().getString("rename.library.title"));
+        alert.setHeaderText(null);
+        alert.setContentText(Main.getResourceBundle().getString("rename.library.content"));
+        alert.showAndWait();
+    }
+
     public void setMapping(String mapping) {
         switch (type) {
             case CLASS: {
@@ -369,16 +383,8 @@ public class SelectableMember extends Text {
                 break;
             }
             case METHOD: {
-                IndexedClass clazz = IndexedClass.INDEXED_CLASSES.get(getParentClass());
-                Set<IndexedClass> classes = Sets.newHashSet(clazz.getHierarchy());
-                classes.add(clazz);
-
-                for (IndexedClass ic : classes) {
-                    //noinspection SuspiciousMethodCalls: sig must be a MethodSignature object
-                    if (ic.getMethods().containsKey(sig)) {
-                        genMethodMapping(Main.getMappingContext(), ic.getName(), (MethodSignature) sig, mapping, false);
-                    }
-                }
+                // the mapping propagates itself to the rest of the method's family
+                genMethodMapping(Main.getMappingContext(), getParentClass(), (MethodSignature) sig, mapping, false);
                 break;
             }
             default: {
@@ -435,21 +441,8 @@ public class SelectableMember extends Text {
                 break;
             case FIELD:
             case METHOD:
-                deobf = getName();
-
-                Optional<ClassMapping> classMapping
-                        = MappingsHelper.getClassMapping(Main.getMappingContext(), getParentClass());
-                if (classMapping.isPresent()) {
-                    Map<? extends MemberSignature, ? extends Mapping> mappings = getType() == MemberType.FIELD
-                            ? classMapping.get().getFieldMappings()
-                            : classMapping.get().getMethodMappings();
-                    Mapping mapping = mappings.get(getType() == MemberType.METHOD
-                            ? new MethodSignature(getName(), MethodDescriptor.fromString(getDescriptor()))
-                            : new FieldSignature(getName(), Type.fromString(getDescriptor())));
-                    if (mapping != null) {
-                        deobf = mapping.getDeobfuscatedName();
-                    }
-                }
+                deobf = SourceRemapper.deobfuscateMember(Main.getMappingContext(), getType(), getParentClass(),
+                        getName(), getDescriptor());
                 break;
             default:
                 throw new AssertionError();
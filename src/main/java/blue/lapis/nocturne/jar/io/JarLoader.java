@@ -26,105 +26,654 @@
 package blue.lapis.nocturne.jar.io;
 
 import static blue.lapis.nocturne.processor.index.model.IndexedClass.INDEXED_CLASSES;
+import static com.google.common.base.Preconditions.checkArgument;
 
 import blue.lapis.nocturne.Main;
 import blue.lapis.nocturne.jar.model.ClassSet;
 import blue.lapis.nocturne.jar.model.JarClassEntry;
-import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.jar.store.ClassStore;
+import blue.lapis.nocturne.jar.store.ClassStoreType;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.processor.constantpool.ConstantPoolReader;
+import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
+import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
 import blue.lapis.nocturne.processor.index.ClassHierarchyBuilder;
+import blue.lapis.nocturne.processor.index.ClassIndexer;
+import blue.lapis.nocturne.processor.index.IndexCache;
+import blue.lapis.nocturne.processor.index.LibraryIndex;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.util.Constants;
+import blue.lapis.nocturne.util.LoadStage;
+import blue.lapis.nocturne.util.ProgressMonitor;
+import blue.lapis.nocturne.util.helper.MappingsHelper;
 
 import com.google.common.collect.Sets;
-import javafx.scene.control.Alert;
+import com.google.common.io.ByteStreams;
+import com.google.common.primitives.Bytes;
 
-import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 
 /**
  * Utility class for loading JAR files.
  */
 public class JarLoader {
 
+    /**
+     * The pool which the parallel stages of the loading pipeline are run on.
+     */
+    private static final ForkJoinPool LOAD_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private static final List<JarLoadListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers the given {@link JarLoadListener} to be notified of problems
+     * encountered while loading JARs.
+     *
+     * @param listener The {@link JarLoadListener} to register
+     */
+    public static void addListener(JarLoadListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Unregisters the given {@link JarLoadListener}.
+     *
+     * @param listener The {@link JarLoadListener} to unregister
+     */
+    public static void removeListener(JarLoadListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Loads the JAR at the given {@link Path} for use with Nocturne.
+     *
+     * <p>This is equivalent to preparing the JAR with
+     * {@link #prepareJar(String, Path, ProgressMonitor)} and immediately
+     * publishing it.</p>
+     *
+     * @param name The name of the JAR
+     * @param jarPath The {@link Path} of the JAR file to load
+     * @return A {@link ClassSet} representing the JAR file
+     * @throws IOException If an exception occurs while loading the provided
+     *     {@link Path}
+     */
+    public static ClassSet loadJar(String name, Path jarPath) throws IOException {
+        return publish(prepareJar(name, jarPath, ProgressMonitor.NONE));
+    }
+
     /**
      * Loads a JAR from the given {@link InputStream} for use with Nocturne.
      *
+     * <p>This should only be used as a fallback where the JAR is not available
+     * as a file, as {@link #loadJar(String, Path)} is considerably cheaper.
+     * </p>
+     *
      * @param jarFile The {@link InputStream} containing the JAR file to load
      * @return A {@link ClassSet} representing the JAR file
      * @throws IOException If an exception occurs while loading the provided
-     *     {@link File}
+     *     {@link InputStream}
      */
     public static ClassSet loadJar(String name, InputStream jarFile) throws IOException {
-        IndexedClass.INDEXED_CLASSES.clear();
+        return publish(prepareJar(name, jarFile, ProgressMonitor.NONE));
+    }
 
+    /**
+     * Reads and indexes the JAR at the given {@link Path} without touching
+     * the currently loaded JAR, so that this may safely be done off the FX
+     * application thread.
+     *
+     * @param name The name of the JAR
+     * @param jarPath The {@link Path} of the JAR file to load
+     * @param monitor The {@link ProgressMonitor} to report progress to
+     * @return The prepared JAR, or {@code null} if it could not be read or
+     *     contained no classes
+     * @throws IOException If an exception occurs while loading the provided
+     *     {@link Path}
+     * @throws CancellationException If the load was cancelled through the
+     *     given {@link ProgressMonitor}
+     */
+    public static PreparedJar prepareJar(String name, Path jarPath, ProgressMonitor monitor) throws IOException {
+        ClassStore store = ClassStoreType.getConfigured().create();
+        Set<JarClassEntry> classes = readJar(name, jarPath, store, monitor);
+        return classes != null ? prepareClassSet(name, classes, store, monitor) : null;
+    }
+
+    /**
+     * Reads and indexes a JAR from the given {@link InputStream} without
+     * touching the currently loaded JAR.
+     *
+     * <p>This should only be used as a fallback where the JAR is not available
+     * as a file, as {@link #prepareJar(String, Path, ProgressMonitor)} is
+     * considerably cheaper.</p>
+     *
+     * @param name The name of the JAR
+     * @param jarFile The {@link InputStream} containing the JAR file to load
+     * @param monitor The {@link ProgressMonitor} to report progress to
+     * @return The prepared JAR, or {@code null} if it could not be read or
+     *     contained no classes
+     * @throws IOException If an exception occurs while loading the provided
+     *     {@link InputStream}
+     * @throws CancellationException If the load was cancelled through the
+     *     given {@link ProgressMonitor}
+     */
+    public static PreparedJar prepareJar(String name, InputStream jarFile, ProgressMonitor monitor)
+            throws IOException {
         JarInputStream jar;
         try {
             jar = new JarInputStream(jarFile);
         } catch (ZipException ex) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setHeaderText(null);
-            alert.setContentText(Main.getResourceBundle().getString("jarload.invalid"));
-            alert.showAndWait();
+            LISTENERS.forEach(listener -> listener.onInvalidJar(name));
             return null;
         }
 
+        ClassStore store = ClassStoreType.getConfigured().create();
         Set<JarClassEntry> classes = new HashSet<>();
 
-        JarEntry entry;
-        while ((entry = jar.getNextJarEntry()) != null) {
-            if (!entry.getName().endsWith(".class")) {
-                continue; // not a class so we can ignore it
+        try {
+            int read = 0;
+            JarEntry entry;
+            while ((entry = jar.getNextJarEntry()) != null) {
+                monitor.checkCancelled();
+                monitor.onProgress(LoadStage.READING_ENTRIES, ++read, -1); // the entry count isn't known up front
+                if (!entry.getName().endsWith(Constants.CLASS_FILE_NAME_TAIL)) {
+                    continue; // not a class so we can ignore it
+                }
+
+                classes.add(createEntry(entry.getName(), readEntry(jar, entry.getSize()), store));
             }
+        } finally {
+            jar.close(); // release the resource
+        }
 
-            try {
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                int b;
-                while ((b = jar.read()) != -1) {
-                    baos.write(b);
-                }
-                byte[] bytes = baos.toByteArray();
+        return prepareClassSet(name, classes, store, monitor);
+    }
 
-                String className = entry.getName();
-                if (className.endsWith(Constants.CLASS_FILE_NAME_TAIL)) {
-                    className = className.substring(0, className.length() - Constants.CLASS_FILE_NAME_TAIL.length());
-                }
+    /**
+     * Reads the JAR at the given {@link Path} as an updated version of the
+     * given, currently loaded {@link ClassSet}, without touching the latter.
+     *
+     * <p>Only classes which were added or changed, or whose hierarchy may
+     * have been affected by an added, changed or removed class, are indexed
+     * again. The index of every other class is carried over, as is the
+     * processed content of unchanged classes where it remains valid.</p>
+     *
+     * @param previous The currently loaded {@link ClassSet}
+     * @param name The name of the updated JAR
+     * @param jarPath The {@link Path} of the updated JAR file
+     * @param monitor The {@link ProgressMonitor} to report progress to
+     * @return The prepared JAR, or {@code null} if it could not be read or
+     *     contained no classes
+     * @throws IOException If an exception occurs while loading the provided
+     *     {@link Path}
+     * @throws CancellationException If the load was cancelled through the
+     *     given {@link ProgressMonitor}
+     */
+    public static PreparedJar prepareReload(ClassSet previous, String name, Path jarPath, ProgressMonitor monitor)
+            throws IOException {
+        checkArgument(previous == Main.getLoadedJar(), "Only the loaded JAR may be reloaded");
+        ClassStore store = ClassStoreType.getConfigured().create();
+        Set<JarClassEntry> classes = readJar(name, jarPath, store, monitor);
+        return classes != null ? prepareReloadedClassSet(previous, name, classes, store, monitor) : null;
+    }
 
-                JarClassEntry classEntry = new JarClassEntry(className, bytes);
+    /**
+     * Reads the classes of the JAR at the given {@link Path}.
+     *
+     * <p>The archive is opened through its central directory, so each class
+     * is read with a single sized read into an exactly-sized array.</p>
+     *
+     * @param name The name of the JAR
+     * @param jarPath The {@link Path} of the JAR file to read
+     * @param store The {@link ClassStore} to keep the content of the classes in
+     * @param monitor The {@link ProgressMonitor} to report progress to
+     * @return The classes of the JAR, or {@code null} if it could not be read
+     * @throws IOException If an exception occurs while reading the provided
+     *     {@link Path}
+     */
+    private static Set<JarClassEntry> readJar(String name, Path jarPath, ClassStore store,
+            ProgressMonitor monitor) throws IOException {
+        ZipFile jar;
+        try {
+            jar = new ZipFile(jarPath.toFile());
+        } catch (ZipException ex) {
+            LISTENERS.forEach(listener -> listener.onInvalidJar(name));
+            return null;
+        }
+
+        Set<JarClassEntry> classes = new HashSet<>();
 
-                //TODO: detect whether class is already deobfuscated (e.g. this is usually the case for entry classes)
-                ClassMapping mapping = Main.getMappingContext().getMappings().get(className);
-                if (mapping != null && !mapping.getObfuscatedName().equals(mapping.getDeobfuscatedName())) {
-                    classEntry.setDeobfuscated(true);
+        try {
+            final int total = jar.size();
+            int read = 0;
+            Enumeration<? extends ZipEntry> entries = jar.entries();
+            while (entries.hasMoreElements()) {
+                monitor.checkCancelled();
+                ZipEntry entry = entries.nextElement();
+                monitor.onProgress(LoadStage.READING_ENTRIES, ++read, total);
+                if (entry.isDirectory() || !entry.getName().endsWith(Constants.CLASS_FILE_NAME_TAIL)) {
+                    continue; // not a class so we can ignore it
+                }
+
+                try (InputStream in = jar.getInputStream(entry)) {
+                    classes.add(createEntry(entry.getName(), readEntry(in, entry.getSize()), store));
                 }
-                classes.add(classEntry);
-            } catch (IOException ex) {
-                throw new RuntimeException(ex);
             }
+        } finally {
+            jar.close(); // release the resource
+        }
+        return classes;
+    }
+
+    /**
+     * Publishes the given prepared JAR, if any.
+     *
+     * @param jar The prepared JAR, or {@code null}
+     * @return The published {@link ClassSet}, or {@code null} if none was
+     *     given
+     */
+    private static ClassSet publish(PreparedJar jar) {
+        return jar != null ? jar.publish() : null;
+    }
+
+    /**
+     * Reads the content of a single archive entry from the given
+     * {@link InputStream}.
+     *
+     * @param in The {@link InputStream} to read from, positioned at the start
+     *     of the entry
+     * @param size The size of the entry in bytes, or {@code -1} if unknown
+     * @return The content of the entry
+     * @throws IOException If an exception occurs while reading the entry
+     */
+    private static byte[] readEntry(InputStream in, long size) throws IOException {
+        if (size < 0) {
+            return ByteStreams.toByteArray(in); // size isn't stored in the local header, so we need to buffer it
         }
+        byte[] bytes = new byte[(int) size];
+        ByteStreams.readFully(in, bytes);
+        return bytes;
+    }
 
+    /**
+     * Creates a new {@link JarClassEntry} from the given archive entry.
+     *
+     * @param entryName The name of the entry within the archive
+     * @param bytes The content of the entry
+     * @param store The {@link ClassStore} to keep the content of the entry in
+     * @return The new {@link JarClassEntry}
+     */
+    private static JarClassEntry createEntry(String entryName, byte[] bytes, ClassStore store) {
+        String className = entryName.substring(0, entryName.length() - Constants.CLASS_FILE_NAME_TAIL.length());
+
+        return new JarClassEntry(className, bytes, store);
+    }
+
+    /**
+     * Constructs a {@link ClassSet} from the given classes and runs them
+     * through the loading pipeline.
+     *
+     * @param name The name of the JAR
+     * @param classes The classes read from the JAR
+     * @param store The {@link ClassStore} holding the content of the classes
+     * @param monitor The {@link ProgressMonitor} to report progress to
+     * @return The prepared JAR, or {@code null} if the JAR contained no
+     *     classes
+     * @throws CancellationException If the load was cancelled through the
+     *     given {@link ProgressMonitor}
+     */
+    private static PreparedJar prepareClassSet(String name, Set<JarClassEntry> classes, ClassStore store,
+            ProgressMonitor monitor) {
         if (classes.size() == 0) {
-            Alert alert = new Alert(Alert.AlertType.WARNING);
-            alert.setHeaderText(null);
-            alert.setContentText(Main.getResourceBundle().getString("jarload.empty"));
-            alert.showAndWait();
+            LISTENERS.forEach(listener -> listener.onEmptyJar(name));
             return null;
         }
 
-        jar.close(); // release the resource
-        ClassSet cs = new ClassSet(name, classes);
-        Main.setLoadedJar(cs);
-        cs.getClasses().forEach(JarClassEntry::index);
-        new ClassHierarchyBuilder(Sets.newHashSet(INDEXED_CLASSES.values())).buildHierarchies();
-        cs.getClasses().forEach(JarClassEntry::process);
-        INDEXED_CLASSES.values().forEach(IndexedClass::clearPool);
-        return cs;
+        ClassSet cs = new ClassSet(name, classes, store);
+        final int total = classes.size();
+
+        // a cached index lets us skip both indexing and hierarchy building
+        // transformation is deferred until each class's processed content is first requested
+        String cacheKey = IndexCache.isEnabled() ? IndexCache.computeKey(classes) : null;
+        Optional<Map<String, IndexedClass>> cached = cacheKey != null
+                ? IndexCache.load(cacheKey, cs)
+                : Optional.empty();
+        if (cached.isPresent()) {
+            monitor.onProgress(LoadStage.INDEXING_CLASSES, total, total);
+            monitor.onProgress(LoadStage.BUILDING_HIERARCHY, 1, 1);
+            return new PreparedJar(cs, cached.get());
+        }
+
+        // the hierarchy stage needs every class to be indexed, so the parallel stage is joined before moving on
+        Map<String, IndexedClass> index = new ConcurrentHashMap<>();
+        AtomicInteger indexed = new AtomicInteger();
+        runStage(new ArrayList<>(cs.getClasses()), monitor, entry -> {
+            index.put(entry.getName(), new ClassIndexer(entry, cs).index());
+            monitor.onProgress(LoadStage.INDEXING_CLASSES, indexed.incrementAndGet(), total);
+        });
+
+        monitor.onProgress(LoadStage.BUILDING_HIERARCHY, 0, 1);
+        new ClassHierarchyBuilder(Sets.newHashSet(index.values())).buildHierarchies();
+        index.values().forEach(IndexedClass::clearPool);
+        monitor.onProgress(LoadStage.BUILDING_HIERARCHY, 1, 1);
+        LibraryIndex.store(); // keep any library headers read while building the hierarchy for next time
+
+        if (cacheKey != null) {
+            IndexCache.store(cacheKey, index.values());
+        }
+        monitor.checkCancelled();
+        return new PreparedJar(cs, index);
+    }
+
+    /**
+     * Constructs a {@link ClassSet} from the given classes, carrying over as
+     * much as possible from the previous version of the JAR.
+     *
+     * @param previous The previous version of the JAR, whose index must be
+     *     the one in {@link IndexedClass#INDEXED_CLASSES}
+     * @param name The name of the JAR
+     * @param classes The classes read from the updated JAR
+     * @param store The {@link ClassStore} holding the content of the classes
+     * @param monitor The {@link ProgressMonitor} to report progress to
+     * @return The prepared JAR, or {@code null} if the JAR contained no
+     *     classes
+     * @throws CancellationException If the load was cancelled through the
+     *     given {@link ProgressMonitor}
+     */
+    private static PreparedJar prepareReloadedClassSet(ClassSet previous, String name, Set<JarClassEntry> classes,
+            ClassStore store, ProgressMonitor monitor) {
+        if (classes.size() == 0) {
+            LISTENERS.forEach(listener -> listener.onEmptyJar(name));
+            return null;
+        }
+
+        ClassSet cs = new ClassSet(name, classes, store);
+
+        Set<String> modified = new HashSet<>(); // classes which were added, changed or removed
+        Set<String> membershipChanged = new HashSet<>(); // classes which were added or removed
+        Map<String, JarClassEntry> unchanged = new HashMap<>();
+        for (JarClassEntry entry : classes) {
+            Optional<JarClassEntry> old = previous.getClass(entry.getName());
+            if (!old.isPresent()) {
+                modified.add(entry.getName());
+                membershipChanged.add(entry.getName());
+            } else if (!Arrays.equals(old.get().getOriginalContent(), entry.getOriginalContent())
+                    || !INDEXED_CLASSES.containsKey(entry.getName())) {
+                modified.add(entry.getName());
+            } else {
+                unchanged.put(entry.getName(), old.get());
+            }
+        }
+        for (JarClassEntry old : previous.getClasses()) {
+            if (!cs.getClass(old.getName()).isPresent()) {
+                modified.add(old.getName());
+                membershipChanged.add(old.getName());
+            }
+        }
+
+        String cacheKey = IndexCache.isEnabled() ? IndexCache.computeKey(classes) : null;
+        Optional<Map<String, IndexedClass>> cached = cacheKey != null
+                ? IndexCache.load(cacheKey, cs)
+                : Optional.empty();
+        if (cached.isPresent()) {
+            monitor.onProgress(LoadStage.INDEXING_CLASSES, classes.size(), classes.size());
+            monitor.onProgress(LoadStage.BUILDING_HIERARCHY, 1, 1);
+            adoptProcessedContent(cs, unchanged, membershipChanged,
+                    findConnected(modified, INDEXED_CLASSES.values(), cached.get().values()));
+            return new PreparedJar(cs, cached.get());
+        }
+
+        Map<String, IndexedClass> index = new ConcurrentHashMap<>();
+        AtomicInteger indexed = new AtomicInteger();
+        List<JarClassEntry> toIndex = cs.getClasses().stream()
+                .filter(entry -> modified.contains(entry.getName()))
+                .collect(Collectors.toList());
+        runStage(toIndex, monitor, entry -> {
+            index.put(entry.getName(), new ClassIndexer(entry, cs).index());
+            monitor.onProgress(LoadStage.INDEXING_CLASSES, indexed.incrementAndGet(), -1);
+        });
+
+        // a class's hierarchy can only have changed if it's connected to a modified class in either version of the JAR
+        Set<String> dirty = findConnected(modified, INDEXED_CLASSES.values(), index.values());
+        dirty.retainAll(cs.getClasses().stream().map(JarClassEntry::getName).collect(Collectors.toSet()));
+
+        final int total = dirty.size();
+        List<JarClassEntry> toReindex = cs.getClasses().stream()
+                .filter(entry -> dirty.contains(entry.getName()) && !index.containsKey(entry.getName()))
+                .collect(Collectors.toList());
+        runStage(toReindex, monitor, entry -> {
+            index.put(entry.getName(), new ClassIndexer(entry, cs).index());
+            monitor.onProgress(LoadStage.INDEXING_CLASSES, indexed.incrementAndGet(), total);
+        });
+        for (String className : unchanged.keySet()) {
+            if (!dirty.contains(className)) {
+                IndexedClass clazz = INDEXED_CLASSES.get(className);
+                ClassIndexer.restoreEntry(clazz, cs);
+                index.put(className, clazz);
+            }
+        }
+
+        // the hierarchy of every class outside of the dirty set is unaffected and already finalized
+        monitor.onProgress(LoadStage.BUILDING_HIERARCHY, 0, 1);
+        Set<IndexedClass> rebuilt = dirty.stream().map(index::get).collect(Collectors.toSet());
+        new ClassHierarchyBuilder(rebuilt).buildHierarchies();
+        rebuilt.forEach(IndexedClass::clearPool);
+        monitor.onProgress(LoadStage.BUILDING_HIERARCHY, 1, 1);
+        LibraryIndex.store();
+
+        if (cacheKey != null) {
+            IndexCache.store(cacheKey, index.values());
+        }
+        adoptProcessedContent(cs, unchanged, membershipChanged, Sets.union(modified, dirty));
+        monitor.checkCancelled();
+        return new PreparedJar(cs, index);
+    }
+
+    /**
+     * Carries the processed content of the given unchanged classes over from
+     * the previous version of the JAR where it can't have changed.
+     *
+     * <p>Besides the class itself, the transformer depends on which of the
+     * classes it references are in the JAR, and on where the fields it
+     * references are declared. The latter can only have changed for classes
+     * which were modified or whose hierarchy was rebuilt.</p>
+     *
+     * @param cs The updated JAR
+     * @param unchanged The unchanged classes of the previous JAR, by name
+     * @param membershipChanged The names of the classes which were added or
+     *     removed
+     * @param affected The names of the classes which were added, changed,
+     *     removed or connected to such a class
+     */
+    private static void adoptProcessedContent(ClassSet cs, Map<String, JarClassEntry> unchanged,
+            Set<String> membershipChanged, Set<String> affected) {
+        unchanged.forEach((className, old) -> {
+            if (old.isProcessed() && !mayReference(old.getOriginalContent(), membershipChanged)
+                    && !referencesClass(className, old.getOriginalContent(), affected)) {
+                cs.getClass(className).get().adoptProcessedContent(old);
+            }
+        });
+    }
+
+    /**
+     * Returns whether the constant pool of the given class file refers to
+     * any of the given classes, which is the case for the owner of every
+     * field it accesses.
+     *
+     * @param className The name of the class
+     * @param content The content of the class file
+     * @param classNames The names of the classes
+     * @return Whether the class file refers to any of the given classes
+     */
+    private static boolean referencesClass(String className, byte[] content, Set<String> classNames) {
+        ImmutableConstantPool pool = new ConstantPoolReader(className, content).read();
+        for (int i = 1; i <= pool.size(); i++) {
+            if (pool.getType(i) == StructureType.CLASS
+                    && classNames.contains(pool.getString(pool.getClassNameIndex(i)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds all classes connected to the given ones through their
+     * superclasses and interfaces, considering only classes which are part of
+     * one of the given indexes.
+     *
+     * @param seeds The names of the classes to start from
+     * @param indexes The indexes to take the connections from
+     * @return The names of all connected classes, including the given ones
+     */
+    @SafeVarargs
+    private static Set<String> findConnected(Set<String> seeds, Collection<IndexedClass>... indexes) {
+        Map<String, Set<String>> edges = new HashMap<>();
+        for (Collection<IndexedClass> index : indexes) {
+            for (IndexedClass clazz : index) {
+                List<String> parents = new ArrayList<>(clazz.getInterfaces());
+                parents.add(clazz.getSuperclass());
+                for (String parent : parents) {
+                    edges.computeIfAbsent(clazz.getName(), k -> new HashSet<>()).add(parent);
+                    edges.computeIfAbsent(parent, k -> new HashSet<>()).add(clazz.getName());
+                }
+            }
+        }
+        Set<String> known = new HashSet<>();
+        for (Collection<IndexedClass> index : indexes) {
+            index.forEach(clazz -> known.add(clazz.getName()));
+        }
+
+        // only classes in the JAR may connect others, as otherwise everything would be connected through Object
+        Set<String> connected = new HashSet<>(seeds);
+        Deque<String> queue = new ArrayDeque<>(seeds);
+        while (!queue.isEmpty()) {
+            for (String next : edges.getOrDefault(queue.pop(), Collections.emptySet())) {
+                if (known.contains(next) && connected.add(next)) {
+                    queue.push(next);
+                }
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Returns whether the given class file may reference any of the given
+     * classes.
+     *
+     * @param content The content of the class file
+     * @param classNames The names of the classes
+     * @return Whether the class file may reference any of the given classes
+     */
+    private static boolean mayReference(byte[] content, Set<String> classNames) {
+        for (String className : classNames) {
+            // the constant pool uses modified UTF-8, which only differs from the standard encoding for these
+            if (className.indexOf('\0') >= 0
+                    || className.codePoints().anyMatch(Character::isSupplementaryCodePoint)) {
+                return true;
+            }
+            if (Bytes.indexOf(content, className.getBytes(StandardCharsets.UTF_8)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the given stage of the loading pipeline on every provided
+     * {@link JarClassEntry} in parallel, blocking until all of them have been
+     * handled.
+     *
+     * <p>Once the load is cancelled, the remaining entries are skipped.</p>
+     *
+     * @param entries The {@link JarClassEntry JarClassEntries} to run the stage
+     *     on
+     * @param monitor The {@link ProgressMonitor} to check for cancellation
+     * @param stage The stage to run
+     * @throws CancellationException If the load was cancelled through the
+     *     given {@link ProgressMonitor}
+     */
+    private static void runStage(Collection<JarClassEntry> entries, ProgressMonitor monitor,
+            Consumer<JarClassEntry> stage) {
+        LOAD_POOL.submit(() -> entries.parallelStream().forEach(entry -> {
+            if (!monitor.isCancelled()) {
+                stage.accept(entry);
+            }
+        })).join();
+        monitor.checkCancelled();
+    }
+
+    /**
+     * A JAR which has been read and indexed, but not yet published as the
+     * loaded JAR.
+     */
+    public static final class PreparedJar {
+
+        private final ClassSet classSet;
+        private final Map<String, IndexedClass> index;
+
+        private PreparedJar(ClassSet classSet, Map<String, IndexedClass> index) {
+            this.classSet = classSet;
+            this.index = index;
+            // the classes are transformed lazily, possibly after another JAR has replaced this one
+            classSet.getClasses().forEach(entry -> entry.setJar(classSet, index));
+        }
+
+        /**
+         * Gets the {@link ClassSet} representing the prepared JAR.
+         *
+         * @return The {@link ClassSet} representing the prepared JAR
+         */
+        public ClassSet getClassSet() {
+            return classSet;
+        }
+
+        /**
+         * Replaces the loaded JAR and its index with this one.
+         *
+         * <p>The current {@link MappingContext} is applied to the classes at
+         * this point rather than when they are read, as the context may
+         * change while a JAR is loaded in the background.</p>
+         *
+         * @return The {@link ClassSet} representing the published JAR
+         */
+        public ClassSet publish() {
+            INDEXED_CLASSES.clear();
+            INDEXED_CLASSES.putAll(index);
+
+            //TODO: detect whether class is already deobfuscated (e.g. this is usually the case for entry classes)
+            MappingsHelper.applyMappings(classSet, Main.getMappingContext());
+
+            Main.setLoadedJar(classSet);
+            return classSet;
+        }
+
     }
 
 }
@@ -25,15 +25,25 @@
 
 package blue.lapis.nocturne.jar.model;
 
+import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
+
+import blue.lapis.nocturne.decompile.DecompilerSession;
 import blue.lapis.nocturne.jar.model.hierarchy.Hierarchy;
 import blue.lapis.nocturne.jar.model.hierarchy.HierarchyNode;
-import blue.lapis.nocturne.util.Constants;
+import blue.lapis.nocturne.jar.store.ClassStore;
+import blue.lapis.nocturne.jar.store.HeapClassStore;
+import blue.lapis.nocturne.util.helper.StringHelper;
 
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -46,8 +56,19 @@ import java.util.stream.Collectors;
 public class ClassSet {
 
     private final String name;
+    private final ClassStore store;
     private final Map<String, JarClassEntry> classMap = new HashMap<>();
     private final BiMap<String, String> names = HashBiMap.create();
+    private final DecompilerSession decompilerSession = new DecompilerSession();
+
+    // structural indexes, built once as the classes of the set never change
+    private final ImmutableSet<JarClassEntry> classes;
+    private final ImmutableSet<JarClassEntry> topLevelClasses;
+    private final ImmutableSet<JarClassEntry> sourceClasses;
+    private final Map<String, JarClassEntry> outerClasses = new HashMap<>();
+    private final ImmutableListMultimap<String, JarClassEntry> innerClasses;
+    private final ImmutableListMultimap<String, JarClassEntry> allInnerClasses;
+    private final ImmutableSetMultimap<String, JarClassEntry> packageClasses;
 
     /**
      * Constructs a new {@link ClassSet} from the given {@link JarClassEntry}
@@ -57,11 +78,67 @@ public class ClassSet {
      *     new {@link ClassSet} with
      */
     public ClassSet(String name, Set<JarClassEntry> classes) {
+        this(name, classes, new HeapClassStore());
+    }
+
+    /**
+     * Constructs a new {@link ClassSet} from the given {@link JarClassEntry}
+     * {@link Set}, whose content is kept in the given {@link ClassStore}.
+     *
+     * @param classes The {@link JarClassEntry JarClassEntries} to populate the
+     *     new {@link ClassSet} with
+     * @param store The {@link ClassStore} holding the content of the given
+     *     classes
+     */
+    public ClassSet(String name, Set<JarClassEntry> classes, ClassStore store) {
         this.name = name;
+        this.store = store;
         classes.forEach(cl -> {
             classMap.put(cl.getName(), cl);
             getCurrentNames().put(cl.getName(), cl.getName());
         });
+
+        this.classes = ImmutableSet.copyOf(classMap.values());
+
+        // index inner classes in order of their names, so they are decompiled in a stable order
+        List<JarClassEntry> sorted = this.classes.stream()
+                .sorted(Comparator.comparing(JarClassEntry::getName))
+                .collect(Collectors.toList());
+        ImmutableSet.Builder<JarClassEntry> topLevel = ImmutableSet.builder();
+        ImmutableListMultimap.Builder<String, JarClassEntry> inner = ImmutableListMultimap.builder();
+        ImmutableListMultimap.Builder<String, JarClassEntry> allInner = ImmutableListMultimap.builder();
+        ImmutableSetMultimap.Builder<String, JarClassEntry> packages = ImmutableSetMultimap.builder();
+        for (JarClassEntry entry : sorted) {
+            String entryName = entry.getName();
+            packages.put(StringHelper.resolvePackageName(entryName), entry);
+
+            int index = entryName.lastIndexOf(INNER_CLASS_SEPARATOR_CHAR);
+            if (index < 0) {
+                topLevel.add(entry);
+                continue;
+            }
+
+            JarClassEntry outer = classMap.get(entryName.substring(0, index));
+            if (outer != null) {
+                outerClasses.put(entryName, outer);
+                inner.put(outer.getName(), entry);
+            }
+            // any enclosing class which exists, even if intermediate ones don't
+            for (; index >= 0; index = entryName.lastIndexOf(INNER_CLASS_SEPARATOR_CHAR, index - 1)) {
+                String enclosingName = entryName.substring(0, index);
+                if (classMap.containsKey(enclosingName)) {
+                    allInner.put(enclosingName, entry);
+                }
+            }
+        }
+        this.topLevelClasses = topLevel.build();
+        this.innerClasses = inner.build();
+        this.allInnerClasses = allInner.build();
+        this.packageClasses = packages.build();
+
+        Set<JarClassEntry> nested = ImmutableSet.copyOf(allInnerClasses.values());
+        this.sourceClasses = ImmutableSet.copyOf(sorted.stream().filter(entry -> !nested.contains(entry))
+                .collect(Collectors.toList()));
     }
 
     /**
@@ -73,6 +150,16 @@ public class ClassSet {
         return name;
     }
 
+    /**
+     * Returns the {@link ClassStore} holding the content of the classes in
+     * this {@link ClassSet}.
+     *
+     * @return The {@link ClassStore} of this {@link ClassSet}
+     */
+    public ClassStore getStore() {
+        return store;
+    }
+
     /**
      * Returns an {@link ImmutableSet} of all classes contained by this
      * this {@link ClassSet}.
@@ -81,7 +168,81 @@ public class ClassSet {
      *     this {@link ClassSet}
      */
     public ImmutableSet<JarClassEntry> getClasses() {
-        return ImmutableSet.copyOf(classMap.values());
+        return classes;
+    }
+
+    /**
+     * Returns an {@link ImmutableSet} of all classes contained by this
+     * {@link ClassSet} which aren't inner classes.
+     *
+     * @return An {@link ImmutableSet} of all top-level classes contained by
+     *     this {@link ClassSet}
+     */
+    public ImmutableSet<JarClassEntry> getTopLevelClasses() {
+        return topLevelClasses;
+    }
+
+    /**
+     * Returns an {@link ImmutableSet} of all classes contained by this
+     * {@link ClassSet} which aren't nested in any other class of it, and thus
+     * get a source file of their own.
+     *
+     * <p>Besides the top-level classes, these include inner classes none of
+     * whose enclosing classes exist.</p>
+     *
+     * @return An {@link ImmutableSet} of all classes with a source file of
+     *     their own
+     */
+    public ImmutableSet<JarClassEntry> getSourceClasses() {
+        return sourceClasses;
+    }
+
+    /**
+     * Returns all classes contained by this {@link ClassSet} in the given
+     * package, including inner classes.
+     *
+     * @param packageName The name of the package, or an empty string for the
+     *     default package
+     * @return An {@link ImmutableSet} of all classes in the given package
+     */
+    public ImmutableSet<JarClassEntry> getPackageClasses(String packageName) {
+        return packageClasses.get(packageName);
+    }
+
+    /**
+     * Returns the {@link JarClassEntry} directly enclosing the class with the
+     * given FQ name, if it exists.
+     *
+     * @param name The FQ name of the inner class
+     * @return The {@link JarClassEntry} of the outer class, or
+     *     {@link Optional#empty()} if it is not an inner class or its outer
+     *     class does not exist in this {@link ClassSet}
+     */
+    public Optional<JarClassEntry> getOuterClass(String name) {
+        return Optional.ofNullable(outerClasses.get(name));
+    }
+
+    /**
+     * Returns the direct inner classes of the class with the given FQ name.
+     *
+     * @param name The FQ name of the outer class
+     * @return An {@link ImmutableList} of the direct inner classes, sorted by
+     *     name
+     */
+    public ImmutableList<JarClassEntry> getInnerClasses(String name) {
+        return innerClasses.get(name);
+    }
+
+    /**
+     * Returns the direct and transitive inner classes of the class with the
+     * given FQ name.
+     *
+     * @param name The FQ name of the outer class
+     * @return An {@link ImmutableList} of all inner classes nested within the
+     *     class, sorted by name
+     */
+    public ImmutableList<JarClassEntry> getAllInnerClasses(String name) {
+        return allInnerClasses.get(name);
     }
 
     /**
@@ -92,7 +253,7 @@ public class ClassSet {
      *     this {@link ClassSet}
      */
     public ImmutableSet<JarClassEntry> getObfuscatedClasses() {
-        return ImmutableSet.copyOf(getClasses().stream().filter(c -> !c.isDeobfuscated()).collect(Collectors.toSet()));
+        return ImmutableSet.copyOf(classes.stream().filter(c -> !c.isDeobfuscated()).collect(Collectors.toSet()));
     }
 
     /**
@@ -103,7 +264,7 @@ public class ClassSet {
      *     this {@link ClassSet}
      */
     public ImmutableSet<JarClassEntry> getDeobfuscatedClasses() {
-        return ImmutableSet.copyOf(getClasses().stream().filter(JarClassEntry::isDeobfuscated)
+        return ImmutableSet.copyOf(classes.stream().filter(JarClassEntry::isDeobfuscated)
                 .collect(Collectors.toSet()));
     }
 
@@ -118,6 +279,16 @@ public class ClassSet {
         return classMap.containsKey(name) ? Optional.of(classMap.get(name)) : Optional.empty();
     }
 
+    /**
+     * Returns the {@link DecompilerSession} used to decompile the classes of
+     * this {@link ClassSet}.
+     *
+     * @return The {@link DecompilerSession} of this {@link ClassSet}
+     */
+    public DecompilerSession getDecompilerSession() {
+        return decompilerSession;
+    }
+
     /**
      * Returns a {@link HierarchyNode} representing the structure of
      * obfuscated classes contained by this {@link ClassSet}.
@@ -126,7 +297,7 @@ public class ClassSet {
      *     obfuscated classes contained by this {@link ClassSet}
      */
     public Hierarchy getObfuscatedHierarchy() {
-        return generateHierarchy(getObfuscatedClasses(), false);
+        return generateHierarchy(false);
     }
 
     /**
@@ -137,21 +308,20 @@ public class ClassSet {
      *     deobfuscated classes contained by this {@link ClassSet}
      */
     public Hierarchy getDeobfuscatedHierarchy() {
-        return generateHierarchy(getDeobfuscatedClasses(), true);
+        return generateHierarchy(true);
     }
 
     /**
-     * Generates a {@link HierarchyNode} from the given {@link JarClassEntry}
-     * {@link Set}.
+     * Generates a {@link HierarchyNode} from the top-level classes which are
+     * either deobfuscated or not.
      *
-     * @param entrySet The {@link JarClassEntry} {@link Set} to generate the
-     *     {@link HierarchyNode} from
+     * @param deobfuscate Whether to include the deobfuscated rather than the
+     *     obfuscated classes
      * @return The generated {@link HierarchyNode}
      */
-    private Hierarchy generateHierarchy(Set<JarClassEntry> entrySet, boolean deobfuscate) {
-        return Hierarchy.fromSet(entrySet.stream()
-                .filter(e -> !e.getName().contains(Constants.INNER_CLASS_SEPARATOR_CHAR + ""))
-                //.map(deobfuscate ? JarClassEntry::getDeobfuscatedName : JarClassEntry::getName)
+    private Hierarchy generateHierarchy(boolean deobfuscate) {
+        return Hierarchy.fromSet(topLevelClasses.stream()
+                .filter(e -> e.isDeobfuscated() == deobfuscate)
                 .collect(Collectors.toSet()), deobfuscate);
     }
 
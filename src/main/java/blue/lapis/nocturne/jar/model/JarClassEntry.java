@@ -25,83 +25,152 @@
 
 package blue.lapis.nocturne.jar.model;
 
-import static blue.lapis.nocturne.processor.index.model.IndexedClass.INDEXED_CLASSES;
-import static blue.lapis.nocturne.util.Constants.FF_OPTIONS;
-import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import blue.lapis.nocturne.Main;
-import blue.lapis.nocturne.decompile.NoopResultSaver;
-import blue.lapis.nocturne.decompile.SimpleBytecodeProvider;
-import blue.lapis.nocturne.decompile.SimpleFernflowerLogger;
-import blue.lapis.nocturne.processor.index.ClassIndexer;
+import blue.lapis.nocturne.decompile.DecompilationCache;
+import blue.lapis.nocturne.decompile.DecompileExecutor;
+import blue.lapis.nocturne.decompile.DecompiledSource;
+import blue.lapis.nocturne.decompile.DecompilerSession;
+import blue.lapis.nocturne.jar.store.ClassStore;
+import blue.lapis.nocturne.jar.store.HeapClassStore;
+import blue.lapis.nocturne.jar.store.StoredClass;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
 import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
 import blue.lapis.nocturne.processor.transform.ClassTransformer;
-import blue.lapis.nocturne.util.MemberType;
-import blue.lapis.nocturne.util.helper.StringHelper;
-
-import javafx.scene.control.Dialog;
-import org.jetbrains.java.decompiler.main.Fernflower;
-import org.jetbrains.java.decompiler.struct.StructClass;
-import org.jetbrains.java.decompiler.struct.lazy.LazyLoader;
+import blue.lapis.nocturne.util.SymbolTable;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents an class entry within a JAR file.
  */
 public class JarClassEntry {
 
-    private static Dialog<Boolean> decompileDialog;
-
     private final String name;
-    private byte[] content;
+    private final ClassStore store;
+    private final StoredClass content;
+    private volatile StoredClass processedContent;
+    private volatile ClassSet classSet;
+    private volatile Map<String, IndexedClass> index;
     private boolean deobfuscated;
 
-    private final Map<String, String> classNames = new HashMap<>();
-    private final Map<FieldSignature, FieldSignature> fields = new HashMap<>();
-    private final Map<MethodSignature, MethodSignature> methods = new HashMap<>();
-
-    static {
-        if (!Main.getInstance().testingEnv) {
-            decompileDialog = new Dialog<>();
-            decompileDialog.setTitle(Main.getResourceBundle().getString("dialog.decompile.title"));
-            decompileDialog.setHeaderText(null);
-            decompileDialog.setContentText(Main.getResourceBundle().getString("dialog.decompile.content"));
-            decompileDialog.setResult(false);
-        } else {
-            decompileDialog = null;
-        }
-    }
+    // these may be written to concurrently while the JAR is being indexed
+    private final Map<String, String> classNames = new ConcurrentHashMap<>();
+    private final Map<FieldSignature, FieldSignature> fields = new ConcurrentHashMap<>();
+    private final Map<MethodSignature, MethodSignature> methods = new ConcurrentHashMap<>();
 
     /**
      * Constructs a new {@link JarClassEntry} with the given name and byte
      * content.
      *
+     * <p>The given array is used directly rather than copied, so it must not
+     * be modified by the caller afterwards.</p>
+     *
      * @param name The name of the {@link JarClassEntry}.
      * @param content A byte array representing the raw content of the class
      */
     public JarClassEntry(String name, byte[] content) {
-        this.name = name;
-        this.content = new byte[content.length];
-        System.arraycopy(content, 0, this.content, 0, content.length);
+        this(name, content, new HeapClassStore());
     }
 
-    public void index() {
-        INDEXED_CLASSES.put(getName(), new ClassIndexer(this).index());
+    /**
+     * Constructs a new {@link JarClassEntry} with the given name and byte
+     * content, keeping its content in the given {@link ClassStore}.
+     *
+     * <p>The given array must not be modified by the caller afterwards, as the
+     * {@link ClassStore} may use it directly.</p>
+     *
+     * @param name The name of the {@link JarClassEntry}.
+     * @param content A byte array representing the raw content of the class
+     * @param store The {@link ClassStore} to keep the content of the class in
+     */
+    public JarClassEntry(String name, byte[] content, ClassStore store) {
+        this.name = SymbolTable.intern(name);
+        this.store = store;
+        this.content = store.store(content);
     }
 
+    /**
+     * Sets the JAR this {@link JarClassEntry} belongs to along with its index,
+     * which its transformation resolves references against even if another
+     * JAR has been loaded in the meantime.
+     *
+     * @param classSet The {@link ClassSet} of the JAR
+     * @param index The index of the JAR, keyed by class name
+     */
+    public void setJar(ClassSet classSet, Map<String, IndexedClass> index) {
+        this.index = index;
+        this.classSet = classSet;
+    }
+
+    /**
+     * Transforms the original content of this {@link JarClassEntry} if this
+     * has not been done already.
+     *
+     * <p>Transformation is deferred until the processed content is first
+     * required, as only a small share of the classes in a JAR are typically
+     * ever decompiled.</p>
+     */
     public void process() {
-        try {
-            content = new ClassTransformer(getName(), getContent()).process();
-        } catch (IOException ex) {
-            Main.getLogger().severe("Failed to process class " + getName());
-            ex.printStackTrace();
+        if (processedContent != null) {
+            return;
+        }
+        synchronized (this) {
+            if (processedContent == null) {
+                try {
+                    ClassTransformer transformer = classSet != null
+                            ? new ClassTransformer(getName(), content.get(), classSet, index)
+                            : new ClassTransformer(getName(), content.get());
+                    processedContent = store.store(transformer.process());
+                } catch (IOException ex) {
+                    Main.getLogger().severe("Failed to process class " + getName());
+                    ex.printStackTrace();
+                    processedContent = content;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether the content of this {@link JarClassEntry} has already
+     * been transformed.
+     *
+     * @return Whether the content of this {@link JarClassEntry} has already
+     *     been transformed
+     */
+    public boolean isProcessed() {
+        return processedContent != null;
+    }
+
+    /**
+     * Reuses the processed content of the given {@link JarClassEntry} for this
+     * one, if it has already been transformed.
+     *
+     * <p>This is only valid if both entries share the same original content
+     * and the classes they reference are equally present in their respective
+     * JARs, as the transformation depends on both.</p>
+     *
+     * @param previous The {@link JarClassEntry} to reuse the processed content
+     *     of
+     */
+    public void adoptProcessedContent(JarClassEntry previous) {
+        checkArgument(Arrays.equals(getOriginalContent(), previous.getOriginalContent()),
+                "Cannot adopt processed content of a different class");
+        StoredClass adopted = previous.processedContent;
+        if (adopted == null) {
+            return;
+        }
+        synchronized (this) {
+            if (processedContent == null) {
+                // copied into our own store so that the previous one may be released
+                processedContent = store.store(adopted.get());
+            }
         }
     }
 
@@ -120,12 +189,24 @@ public class JarClassEntry {
     }
 
     /**
-     * Returns the raw byte content of this {@link JarClassEntry}.
+     * Returns the processed byte content of this {@link JarClassEntry},
+     * transforming it first if necessary.
      *
-     * @return The raw byte content of this {@link JarClassEntry}.
+     * @return The processed byte content of this {@link JarClassEntry}.
      */
     public byte[] getContent() {
-        return content;
+        process();
+        return processedContent.get();
+    }
+
+    /**
+     * Returns the raw byte content of this {@link JarClassEntry} as it was
+     * read from the JAR.
+     *
+     * @return The raw byte content of this {@link JarClassEntry}
+     */
+    public byte[] getOriginalContent() {
+        return content.get();
     }
 
     /**
@@ -147,47 +228,24 @@ public class JarClassEntry {
         this.deobfuscated = deobfuscated;
     }
 
-    public String decompile() {
-        showDecompileDialog();
-        Fernflower ff = new Fernflower(
-                SimpleBytecodeProvider.getInstance(),
-                NoopResultSaver.getInstance(),
-                FF_OPTIONS,
-                SimpleFernflowerLogger.getInstance()
-        );
-        try {
-            LazyLoader ll = new LazyLoader(SimpleBytecodeProvider.getInstance());
-            String procName = StringHelper.getProcessedName(getName(), null, MemberType.CLASS);
-            ll.addClassLink(procName, new LazyLoader.Link(LazyLoader.Link.CLASS, null, procName));
-            StructClass sc = new StructClass(
-                    SimpleBytecodeProvider.getInstance().getBytecode(null, procName),
-                    true,
-                    ll
-            );
-            ff.getStructContext().getClasses().put(procName, sc);
-
-            // provide inner classes
-            for (JarClassEntry jce : Main.getLoadedJar().getClasses().stream()
-                    .filter(entry -> entry.getName().startsWith(getName() + INNER_CLASS_SEPARATOR_CHAR))
-                    .collect(Collectors.toList())) {
-                String innerProcName = StringHelper.getProcessedName(jce.getName(), null, MemberType.CLASS);
-                ll.addClassLink(innerProcName, new LazyLoader.Link(LazyLoader.Link.CLASS, null, innerProcName));
-                StructClass innerSc = new StructClass(
-                        SimpleBytecodeProvider.getInstance().getBytecode(null, innerProcName),
-                        true,
-                        ll
-                );
-                ff.getStructContext().getClasses().put(innerProcName, innerSc);
-            }
-
-            ff.decompileContext();
-            return ff.getClassContent(sc);
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
-        } finally {
-            closeDecompileDialog();
-            ff.clearContext();
-        }
+    /**
+     * Decompiles this {@link JarClassEntry}, reusing the source from the
+     * {@link DecompilationCache} if neither this class nor its inner classes
+     * have changed since it was last decompiled.
+     *
+     * <p>Otherwise, it is decompiled in the {@link DecompilerSession} of the
+     * loaded {@link ClassSet}, with the {@link DecompilerSession#getProfile
+     * profile} it is currently given.</p>
+     *
+     * <p>This may be called from any thread, see {@link DecompileExecutor}
+     * for decompiling in the background.</p>
+     *
+     * @return The decompiled source of this {@link JarClassEntry}, along with
+     *     the profile it was decompiled with
+     */
+    public DecompiledSource decompile() {
+        ClassSet classSet = Main.getLoadedJar();
+        return classSet.getDecompilerSession().decompile(this, classSet.getAllInnerClasses(getName()));
     }
 
     public Map<String, String> getCurrentInnerClassNames() {
@@ -212,12 +270,4 @@ public class JarClassEntry {
         return Objects.hash(JarClassEntry.class, getName());
     }
 
-    private static void showDecompileDialog() {
-        decompileDialog.show();
-    }
-
-    private static void closeDecompileDialog() {
-        decompileDialog.close();
-    }
-
 }
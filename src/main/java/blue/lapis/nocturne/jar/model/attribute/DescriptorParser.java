@@ -0,0 +1,135 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.model.attribute;
+
+import blue.lapis.nocturne.util.SymbolTable;
+
+import java.util.Arrays;
+
+/**
+ * Single-pass parser for field and method descriptors.
+ *
+ * <p>All returned {@link Type}s and {@link MethodDescriptor}s are canonical
+ * instances obtained from the {@link SymbolTable}.</p>
+ */
+final class DescriptorParser {
+
+    private static final Type[] NO_TYPES = new Type[0];
+    private static final Type[] PRIMITIVE_TYPES = new Type[Primitive.values().length];
+
+    static {
+        for (Primitive primitive : Primitive.values()) {
+            PRIMITIVE_TYPES[primitive.ordinal()] = SymbolTable.intern(new Type(primitive, 0));
+        }
+    }
+
+    private final String descriptor;
+    private int pos;
+
+    private DescriptorParser(String descriptor) {
+        this.descriptor = descriptor;
+    }
+
+    /**
+     * Parses the given field descriptor.
+     *
+     * @param descriptor The field descriptor to parse
+     * @return The canonical {@link Type} described by the descriptor
+     * @throws IllegalArgumentException If the given string is not a valid type
+     *     descriptor
+     */
+    static Type parseType(String descriptor) throws IllegalArgumentException {
+        DescriptorParser parser = new DescriptorParser(descriptor);
+        Type type = parser.readType();
+        if (parser.pos != descriptor.length()) {
+            throw new IllegalArgumentException("Not a valid textual representation of a type: " + descriptor);
+        }
+        return type;
+    }
+
+    /**
+     * Parses the given method descriptor.
+     *
+     * @param descriptor The method descriptor to parse
+     * @return The canonical {@link MethodDescriptor} described by the
+     *     descriptor
+     * @throws IllegalArgumentException If the given string is not a valid
+     *     method descriptor
+     */
+    static MethodDescriptor parseMethodDescriptor(String descriptor) throws IllegalArgumentException {
+        if (descriptor.isEmpty() || descriptor.charAt(0) != '(') {
+            throw new IllegalArgumentException("Not a valid method descriptor: " + descriptor);
+        }
+
+        DescriptorParser parser = new DescriptorParser(descriptor);
+        parser.pos = 1;
+        Type[] params = NO_TYPES;
+        int paramCount = 0;
+        while (parser.pos < descriptor.length() && descriptor.charAt(parser.pos) != ')') {
+            if (paramCount == params.length) {
+                params = Arrays.copyOf(params, Math.max(4, paramCount * 2));
+            }
+            params[paramCount++] = parser.readType();
+        }
+        if (parser.pos == descriptor.length()) {
+            throw new IllegalArgumentException("Not a valid method descriptor: " + descriptor);
+        }
+        parser.pos++; // skip the closing parenthesis
+
+        Type returnType = parser.readType();
+        if (parser.pos != descriptor.length()) {
+            throw new IllegalArgumentException("Not a valid method descriptor: " + descriptor);
+        }
+        return SymbolTable.intern(new MethodDescriptor(returnType,
+                paramCount == params.length ? params : Arrays.copyOf(params, paramCount)));
+    }
+
+    private Type readType() throws IllegalArgumentException {
+        int dims = 0;
+        while (pos < descriptor.length() && descriptor.charAt(pos) == '[') {
+            dims++;
+            pos++;
+        }
+        if (pos == descriptor.length()) {
+            throw new IllegalArgumentException("Unexpected end of descriptor: " + descriptor);
+        }
+
+        char key = descriptor.charAt(pos++);
+        if (key == 'L') {
+            int end = descriptor.indexOf(';', pos);
+            if (end == -1) {
+                throw new IllegalArgumentException("Unterminated class type in descriptor: " + descriptor);
+            }
+            String className = descriptor.substring(pos, end);
+            pos = end + 1;
+            return SymbolTable.intern(new Type(className, dims));
+        }
+
+        Primitive primitive = Primitive.getFromKey(key);
+        return dims == 0 ? PRIMITIVE_TYPES[primitive.ordinal()] : SymbolTable.intern(new Type(primitive, dims));
+    }
+
+}
@@ -25,17 +25,14 @@
 
 package blue.lapis.nocturne.jar.model.attribute;
 
-import static blue.lapis.nocturne.util.Constants.TYPE_SEQUENCE_REGEX;
-
 import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.util.SymbolTable;
 
-import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Objects;
-import java.util.regex.Matcher;
 
 /**
  * Represents a method descriptor consisting of parameter {@link Type}s and a
@@ -43,9 +40,17 @@ import java.util.regex.Matcher;
  */
 public class MethodDescriptor {
 
+    private static final int PARSED_DESCRIPTOR_CACHE_SIZE = 16384;
+
+    private static final Cache<String, MethodDescriptor> PARSED_DESCRIPTORS = CacheBuilder.newBuilder()
+            .maximumSize(PARSED_DESCRIPTOR_CACHE_SIZE)
+            .build();
+
     private final Type returnType;
     private final Type[] paramTypes;
 
+    private final int hash;
+
     /**
      * Constructs a new {@link MethodDescriptor} with the given return and
      * parameter {@link Type}s.
@@ -63,33 +68,25 @@ public class MethodDescriptor {
                 throw new IllegalArgumentException("VOID cannot be used as a method parameter type");
             }
         }
+        this.hash = Objects.hash(returnType, Arrays.hashCode(paramTypes));
     }
 
     /**
-     * Parses and constructs a new {@link MethodDescriptor} from the given
-     * {@link CharSequence}.
+     * Parses the given {@link CharSequence} and returns the canonical
+     * {@link MethodDescriptor} for it.
      *
      * @param descriptor The {@link CharSequence} representing the descriptor
+     * @return The canonical {@link MethodDescriptor}
      * @throws IllegalArgumentException If the provided {@link CharSequence} is
      *     not a valid method descriptor
      */
     public static MethodDescriptor fromString(String descriptor) throws IllegalArgumentException {
-        Preconditions.checkArgument(descriptor.charAt(0) == '(', "Not a valid method descriptor: " + descriptor);
-
-        int returnTypeIndex = descriptor.indexOf(')');
-
-        Matcher matcher = TYPE_SEQUENCE_REGEX.matcher(descriptor.substring(1, returnTypeIndex));
-        List<Type> paramTypeList = new ArrayList<>();
-        while (matcher.find()) {
-            paramTypeList.add(Type.fromString(matcher.group()));
+        MethodDescriptor md = PARSED_DESCRIPTORS.getIfPresent(descriptor);
+        if (md == null) {
+            md = DescriptorParser.parseMethodDescriptor(descriptor);
+            PARSED_DESCRIPTORS.put(descriptor, md);
         }
-        Type[] paramTypes = new Type[paramTypeList.size()];
-        paramTypeList.toArray(paramTypes);
-
-        String returnTypeStr = descriptor.substring(returnTypeIndex + 1);
-        Type returnType = Type.fromString(returnTypeStr);
-
-        return new MethodDescriptor(returnType, paramTypes);
+        return md;
     }
 
     /**
@@ -123,7 +120,7 @@ public class MethodDescriptor {
             deobfParams[i] = getParamTypes()[i].deobfuscate(context);
         }
 
-        return new MethodDescriptor(getReturnType().deobfuscate(context), deobfParams);
+        return SymbolTable.intern(new MethodDescriptor(getReturnType().deobfuscate(context), deobfParams));
     }
 
     @Override
@@ -140,16 +137,20 @@ public class MethodDescriptor {
 
     @Override
     public boolean equals(Object otherObj) {
+        if (otherObj == this) {
+            return true;
+        }
         if (!(otherObj instanceof MethodDescriptor)) {
             return false;
         }
         MethodDescriptor md = (MethodDescriptor) otherObj;
-        return md.getReturnType().equals(getReturnType()) && Arrays.equals(md.getParamTypes(), getParamTypes());
+        return md.hash == hash && md.getReturnType().equals(getReturnType())
+                && Arrays.equals(md.getParamTypes(), getParamTypes());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(returnType, Arrays.hashCode(paramTypes));
+        return hash;
     }
 
 }
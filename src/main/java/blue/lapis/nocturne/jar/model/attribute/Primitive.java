@@ -25,8 +25,6 @@
 
 package blue.lapis.nocturne.jar.model.attribute;
 
-import com.google.common.base.Preconditions;
-
 import java.util.HashMap;
 import java.util.Map;
 
@@ -78,8 +76,11 @@ public enum Primitive {
      *     matched to a {@link Primitive} type
      */
     public static Primitive getFromKey(char key) {
-        Preconditions.checkArgument(KEY_MAP.containsKey(key), "Illegal primitive key: " + key);
-        return KEY_MAP.get(key);
+        Primitive primitive = KEY_MAP.get(key);
+        if (primitive == null) {
+            throw new IllegalArgumentException("Illegal primitive key: " + key);
+        }
+        return primitive;
     }
 
     private void updateKeyMap() {
@@ -27,6 +27,7 @@ package blue.lapis.nocturne.jar.model.attribute;
 
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.util.SymbolTable;
 import blue.lapis.nocturne.util.helper.MappingsHelper;
 
 import com.google.common.base.Preconditions;
@@ -44,6 +45,8 @@ public class Type {
 
     private final int arrayDims;
 
+    private final int hash;
+
     /**
      * Constructs a new {@link Type} of the given {@link Primitive} type.
      *
@@ -56,6 +59,8 @@ public class Type {
         this.clazz = null;
 
         this.arrayDims = arrayDims;
+
+        this.hash = Objects.hash(primitive, arrayDims);
     }
 
     /**
@@ -66,38 +71,24 @@ public class Type {
     public Type(String className, int arrayDims) {
         Preconditions.checkArgument(className != null);
 
-        this.clazz = className;
+        this.clazz = SymbolTable.intern(className);
         this.prim = null;
 
         this.arrayDims = arrayDims;
+
+        this.hash = Objects.hash(className, arrayDims);
     }
 
     /**
-     * Constructs a new {@link Type} from the given textual representation.
+     * Gets the canonical {@link Type} for the given textual representation.
      *
      * @param str The textual representation of the type
-     * @return The new {@link Type}
+     * @return The canonical {@link Type}
      * @throws IllegalArgumentException If the given string is not a valid type
      *     descriptor
      */
     public static Type fromString(String str) throws IllegalArgumentException {
-        int dims = 0;
-        if (str.startsWith("[")) {
-            for (char c : str.toCharArray()) {
-                if (c == '[') {
-                    dims++;
-                }
-            }
-            str = str.substring(dims);
-        }
-
-        if (str.length() == 1) {
-            return new Type(Primitive.getFromKey(str.charAt(0)), dims);
-        } else if (str.startsWith("L") && str.endsWith(";")) {
-            return new Type(str.substring(1, str.length() - 1), dims);
-        } else {
-            throw new IllegalArgumentException("Not a valid textual representation of a type: " + str);
-        }
+        return DescriptorParser.parseType(str);
     }
 
     /**
@@ -163,7 +154,8 @@ public class Type {
      * @return The deobfuscated {@link Type}
      */
     public Type deobfuscate(MappingContext context) {
-        return prim != null ? this : new Type(getDeobfuscatedClassName(context), getArrayDimensions());
+        return prim != null ? this
+                : SymbolTable.intern(new Type(getDeobfuscatedClassName(context), getArrayDimensions()));
     }
 
     @Override
@@ -182,11 +174,17 @@ public class Type {
 
     @Override
     public boolean equals(Object otherObject) {
+        if (otherObject == this) {
+            return true;
+        }
         if (!(otherObject instanceof Type)) {
             return false;
         }
 
         Type type = (Type) otherObject;
+        if (this.hash != type.hash) {
+            return false;
+        }
         if (this.isPrimitive() != type.isPrimitive() || this.getArrayDimensions() != type.getArrayDimensions()) {
             return false;
         }
@@ -200,7 +198,7 @@ public class Type {
 
     @Override
     public int hashCode() {
-        return Objects.hash(isPrimitive() ? asPrimitive() : getClassName(), getArrayDimensions());
+        return hash;
     }
 
 }
@@ -0,0 +1,110 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.store;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link ClassStore} which packs class content contiguously into direct
+ * {@link ByteBuffer} slabs outside of the heap, leaving only a small handle
+ * per class on it.
+ *
+ * <p>Content is copied out of the arena on every access. The slabs are
+ * released together once the store is no longer referenced.</p>
+ */
+public class ArenaClassStore implements ClassStore {
+
+    /**
+     * The size of each slab. Content which does not fit into a slab on its
+     * own is given a dedicated buffer.
+     */
+    public static final int SLAB_SIZE = 4 * 1024 * 1024;
+
+    private ByteBuffer slab;
+    private int entries;
+    private long contentBytes;
+    private long offHeapBytes;
+
+    @Override
+    public synchronized StoredClass store(byte[] content) {
+        ByteBuffer target;
+        if (content.length > SLAB_SIZE) {
+            target = allocate(content.length);
+        } else {
+            if (slab == null || slab.remaining() < content.length) {
+                slab = allocate(SLAB_SIZE); // the remainder of the previous slab is left unused
+            }
+            target = slab;
+        }
+
+        entries++;
+        contentBytes += content.length;
+
+        int offset = target.position();
+        target.put(content);
+        return new ArenaStoredClass(target, offset, content.length);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        offHeapBytes += capacity;
+        return ByteBuffer.allocateDirect(capacity);
+    }
+
+    @Override
+    public synchronized StoreStatistics getStatistics() {
+        return new StoreStatistics(entries, 0, contentBytes, (long) entries * StoreStatistics.HANDLE_OVERHEAD,
+                offHeapBytes);
+    }
+
+    private static final class ArenaStoredClass implements StoredClass {
+
+        private final ByteBuffer slab;
+        private final int offset;
+        private final int length;
+
+        private ArenaStoredClass(ByteBuffer slab, int offset, int length) {
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public byte[] get() {
+            ByteBuffer view = slab.duplicate(); // the slab's own position may be moved by concurrent writes
+            view.position(offset);
+            byte[] content = new byte[length];
+            view.get(content);
+            return content;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+    }
+
+}
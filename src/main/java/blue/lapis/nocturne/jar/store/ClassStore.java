@@ -0,0 +1,54 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.store;
+
+/**
+ * A backend which holds the byte content of the classes of a loaded JAR.
+ *
+ * <p>Each loaded JAR is given its own store, so that all of the memory it
+ * holds may be reclaimed at once when the JAR is closed.</p>
+ */
+public interface ClassStore {
+
+    /**
+     * Stores the given class content.
+     *
+     * <p>The given array may be used directly rather than copied, so it must
+     * not be modified by the caller afterwards.</p>
+     *
+     * @param content The content to store
+     * @return A handle to the stored content
+     */
+    StoredClass store(byte[] content);
+
+    /**
+     * Returns a snapshot of the memory currently used by this store.
+     *
+     * @return A snapshot of the memory currently used by this store
+     */
+    StoreStatistics getStatistics();
+
+}
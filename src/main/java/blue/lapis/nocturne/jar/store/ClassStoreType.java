@@ -0,0 +1,87 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.store;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.util.helper.PropertiesHelper;
+
+import java.util.function.Supplier;
+
+/**
+ * Represents the available {@link ClassStore} backends.
+ */
+public enum ClassStoreType {
+
+    /**
+     * Keeps each class in its own heap array.
+     */
+    HEAP(HeapClassStore::new),
+    /**
+     * Packs classes into slabs outside of the heap.
+     */
+    ARENA(ArenaClassStore::new),
+    /**
+     * Keeps classes on the heap, compressing those which are not being used.
+     */
+    COMPRESSED(CompressingClassStore::new);
+
+    private final Supplier<ClassStore> constructor;
+
+    ClassStoreType(Supplier<ClassStore> constructor) {
+        this.constructor = constructor;
+    }
+
+    /**
+     * Creates a new, empty {@link ClassStore} of this type.
+     *
+     * @return The new {@link ClassStore}
+     */
+    public ClassStore create() {
+        return constructor.get();
+    }
+
+    /**
+     * Returns the configured {@link ClassStoreType}, defaulting to
+     * {@link #HEAP} if none is configured or the configuration is invalid.
+     *
+     * @return The configured {@link ClassStoreType}
+     */
+    public static ClassStoreType getConfigured() {
+        PropertiesHelper properties = Main.getPropertiesHelper();
+        if (properties == null) {
+            return HEAP;
+        }
+        String configured = properties.getProperty(PropertiesHelper.Key.CLASS_STORE);
+        for (ClassStoreType type : values()) {
+            if (type.name().equalsIgnoreCase(configured)) {
+                return type;
+            }
+        }
+        Main.getLogger().warning("Unknown class store type " + configured + " - using " + HEAP.name());
+        return HEAP;
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.store;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link ClassStore} which keeps class content in heap arrays, but
+ * compresses the content of classes which have not been accessed recently.
+ *
+ * <p>Compressed content is inflated again on its next access, and remains
+ * uncompressed until it has been left idle once more.</p>
+ */
+public class CompressingClassStore implements ClassStore {
+
+    /**
+     * The time in milliseconds after which content which has not been
+     * accessed is compressed.
+     */
+    static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Nocturne class store sweeper");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private final Queue<CompressibleClass> entries = new ConcurrentLinkedQueue<>();
+
+    public CompressingClassStore() {
+        scheduleSweep(this);
+    }
+
+    /**
+     * Schedules the given store to be swept periodically for as long as it is
+     * still referenced elsewhere.
+     *
+     * @param store The store to sweep
+     */
+    private static void scheduleSweep(CompressingClassStore store) {
+        WeakReference<CompressingClassStore> ref = new WeakReference<>(store);
+        AtomicReference<ScheduledFuture<?>> future = new AtomicReference<>();
+        future.set(SWEEPER.scheduleWithFixedDelay(() -> {
+            CompressingClassStore target = ref.get();
+            if (target != null) {
+                target.compressIdle(IDLE_MILLIS);
+            } else {
+                future.get().cancel(false); // the JAR has been closed
+            }
+        }, IDLE_MILLIS / 2, IDLE_MILLIS / 2, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public StoredClass store(byte[] content) {
+        CompressibleClass entry = new CompressibleClass(content);
+        entries.add(entry);
+        return entry;
+    }
+
+    /**
+     * Compresses the content of all entries which have not been accessed
+     * within the given time.
+     *
+     * @param idleMillis The time in milliseconds since the last access after
+     *     which an entry is compressed
+     * @return The number of entries which were compressed
+     */
+    public int compressIdle(long idleMillis) {
+        long threshold = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        int compressed = 0;
+        for (CompressibleClass entry : entries) {
+            if (entry.compressIfIdle(threshold)) {
+                compressed++;
+            }
+        }
+        return compressed;
+    }
+
+    @Override
+    public StoreStatistics getStatistics() {
+        int count = 0;
+        int compressed = 0;
+        long contentBytes = 0;
+        long heapBytes = 0;
+        for (CompressibleClass entry : entries) {
+            synchronized (entry) {
+                count++;
+                contentBytes += entry.length;
+                if (entry.content != null) {
+                    heapBytes += StoreStatistics.arraySize(entry.content.length);
+                } else {
+                    compressed++;
+                    heapBytes += StoreStatistics.arraySize(entry.compressed.length);
+                }
+            }
+            heapBytes += StoreStatistics.HANDLE_OVERHEAD;
+        }
+        return new StoreStatistics(count, compressed, contentBytes, heapBytes, 0);
+    }
+
+    private static final class CompressibleClass implements StoredClass {
+
+        private final int length;
+        private byte[] content;
+        private byte[] compressed;
+        private boolean incompressible;
+        private long lastAccess = System.nanoTime();
+
+        private CompressibleClass(byte[] content) {
+            this.length = content.length;
+            this.content = content;
+        }
+
+        @Override
+        public synchronized byte[] get() {
+            lastAccess = System.nanoTime();
+            if (content == null) {
+                content = inflate(compressed, length);
+                compressed = null;
+            }
+            return content;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        private synchronized boolean compressIfIdle(long threshold) {
+            if (content == null || incompressible || lastAccess - threshold > 0) {
+                return false;
+            }
+            compressed = deflate(content);
+            if (compressed == null) {
+                incompressible = true; // don't bother trying again
+                return false;
+            }
+            content = null;
+            return true;
+        }
+
+    }
+
+    /**
+     * Compresses the given content.
+     *
+     * @param content The content to compress
+     * @return The compressed content, or {@code null} if it would not be any
+     *     smaller than the original
+     */
+    private static byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            byte[] buffer = new byte[content.length];
+            int length = deflater.deflate(buffer);
+            return deflater.finished() && length < content.length ? Arrays.copyOf(buffer, length) : null;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] content = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                read += inflater.inflate(content, read, length - read);
+            }
+            return content;
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Compressed class content is corrupt", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.store;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link ClassStore} which keeps each class's content in its own heap
+ * array, returning the array itself on access.
+ */
+public class HeapClassStore implements ClassStore {
+
+    private final AtomicInteger entries = new AtomicInteger();
+    private final AtomicLong contentBytes = new AtomicLong();
+    private final AtomicLong heapBytes = new AtomicLong();
+
+    @Override
+    public StoredClass store(byte[] content) {
+        entries.incrementAndGet();
+        contentBytes.addAndGet(content.length);
+        heapBytes.addAndGet(StoreStatistics.arraySize(content.length) + StoreStatistics.HANDLE_OVERHEAD);
+        return new HeapStoredClass(content);
+    }
+
+    @Override
+    public StoreStatistics getStatistics() {
+        return new StoreStatistics(entries.get(), 0, contentBytes.get(), heapBytes.get(), 0);
+    }
+
+    private static final class HeapStoredClass implements StoredClass {
+
+        private final byte[] content;
+
+        private HeapStoredClass(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public byte[] get() {
+            return content;
+        }
+
+        @Override
+        public int length() {
+            return content.length;
+        }
+
+    }
+
+}
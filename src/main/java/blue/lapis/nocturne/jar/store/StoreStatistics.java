@@ -0,0 +1,131 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.jar.store;
+
+/**
+ * A snapshot of the memory used by a {@link ClassStore}.
+ *
+ * <p>Heap usage is estimated from the sizes of the arrays and handles held by
+ * the store, assuming compressed object pointers.</p>
+ */
+public final class StoreStatistics {
+
+    /**
+     * The estimated heap footprint of an array, excluding its elements.
+     */
+    static final int ARRAY_OVERHEAD = 16;
+
+    /**
+     * The estimated heap footprint of a {@link StoredClass} handle.
+     */
+    static final int HANDLE_OVERHEAD = 24;
+
+    private final int entries;
+    private final int compressedEntries;
+    private final long contentBytes;
+    private final long heapBytes;
+    private final long offHeapBytes;
+
+    StoreStatistics(int entries, int compressedEntries, long contentBytes, long heapBytes, long offHeapBytes) {
+        this.entries = entries;
+        this.compressedEntries = compressedEntries;
+        this.contentBytes = contentBytes;
+        this.heapBytes = heapBytes;
+        this.offHeapBytes = offHeapBytes;
+    }
+
+    /**
+     * Returns the number of stored entries.
+     *
+     * @return The number of stored entries
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the number of stored entries which are currently compressed.
+     *
+     * @return The number of stored entries which are currently compressed
+     */
+    public int getCompressedEntries() {
+        return compressedEntries;
+    }
+
+    /**
+     * Returns the total uncompressed length of the stored entries.
+     *
+     * @return The total uncompressed length of the stored entries
+     */
+    public long getContentBytes() {
+        return contentBytes;
+    }
+
+    /**
+     * Returns the estimated number of heap bytes used by the store.
+     *
+     * @return The estimated number of heap bytes used by the store
+     */
+    public long getHeapBytes() {
+        return heapBytes;
+    }
+
+    /**
+     * Returns the number of bytes reserved outside of the heap by the store.
+     *
+     * @return The number of bytes reserved outside of the heap by the store
+     */
+    public long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+
+    /**
+     * Returns the estimated number of heap bytes used per stored entry.
+     *
+     * @return The estimated number of heap bytes used per stored entry
+     */
+    public long getHeapBytesPerEntry() {
+        return entries > 0 ? heapBytes / entries : 0;
+    }
+
+    /**
+     * Estimates the heap footprint of an array of the given length.
+     *
+     * @param length The length of the array
+     * @return The estimated heap footprint of the array
+     */
+    static long arraySize(int length) {
+        return (ARRAY_OVERHEAD + length + 7) & ~7L; // objects are 8-byte aligned
+    }
+
+    @Override
+    public String toString() {
+        return entries + " entries (" + compressedEntries + " compressed), " + contentBytes + " content bytes, "
+                + heapBytes + " heap bytes (" + getHeapBytesPerEntry() + " per entry), "
+                + offHeapBytes + " off-heap bytes";
+    }
+
+}
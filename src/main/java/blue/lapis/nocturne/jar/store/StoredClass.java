@@ -23,15 +23,29 @@
  * THE SOFTWARE.
  */
 
-package blue.lapis.nocturne.processor.constantpool.model.structure;
+package blue.lapis.nocturne.jar.store;
 
 /**
- * Represents a constant pool structure irrelevant to the transformer.
+ * A handle to class content held by a {@link ClassStore}.
  */
-public class IgnoredStructure extends ConstantStructure {
+public interface StoredClass {
 
-    public IgnoredStructure(byte[] bytes) {
-        super(bytes);
-    }
+    /**
+     * Returns the stored content.
+     *
+     * <p>Depending on the {@link ClassStore}, this may either be a fresh copy
+     * or the stored array itself, so the returned array must not be
+     * modified.</p>
+     *
+     * @return The stored content
+     */
+    byte[] get();
+
+    /**
+     * Returns the length of the stored content in bytes.
+     *
+     * @return The length of the stored content in bytes
+     */
+    int length();
 
 }
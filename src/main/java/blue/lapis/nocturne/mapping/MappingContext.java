@@ -25,25 +25,63 @@
 
 package blue.lapis.nocturne.mapping;
 
-import blue.lapis.nocturne.Main;
-import blue.lapis.nocturne.gui.MainController;
 import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.FieldMapping;
+import blue.lapis.nocturne.mapping.model.InnerClassMapping;
+import blue.lapis.nocturne.mapping.model.MethodMapping;
+import blue.lapis.nocturne.mapping.model.MethodParameterMapping;
 import blue.lapis.nocturne.mapping.model.TopLevelClassMapping;
 
 import com.google.common.collect.ImmutableMap;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a set of {@link ClassMapping}s.
  */
 public class MappingContext {
 
+    private static final List<MappingListener> LISTENERS = new CopyOnWriteArrayList<>();
+
     private final Map<String, TopLevelClassMapping> mappings = new HashMap<>();
+    private final boolean detached;
 
     private boolean dirty;
 
+    /**
+     * Constructs a new {@link MappingContext} whose mappings are applied to
+     * the loaded JAR.
+     */
+    public MappingContext() {
+        this(false);
+    }
+
+    /**
+     * Constructs a new {@link MappingContext}.
+     *
+     * @param detached Whether the mappings of the context should only be
+     *     applied to the loaded JAR once they are
+     *     {@link #assimilate(MappingContext) assimilated}
+     */
+    public MappingContext(boolean detached) {
+        this.detached = detached;
+    }
+
+    /**
+     * Gets whether this {@link MappingContext} is detached, in which case its
+     * mappings neither change the loaded JAR nor notify any
+     * {@link MappingListener} until they are assimilated into another
+     * context.
+     *
+     * @return Whether this {@link MappingContext} is detached
+     */
+    public boolean isDetached() {
+        return detached;
+    }
+
     /**
      * Returns an {@link ImmutableMap} of all {@link TopLevelClassMapping}s contained by
      * this {@link MappingContext}.
@@ -76,6 +114,10 @@ public class MappingContext {
      * <p>Note that mappings from the provided set will take precedence over
      * existing ones if they are already present.</p>
      *
+     * <p>The mappings of a {@link #isDetached() detached} context are applied
+     * to the loaded JAR at this point, notifying the listeners without asking
+     * them to update the class views, which is left to the caller.</p>
+     *
      * @param context The {@link MappingContext} to merge
      */
     public void assimilate(MappingContext context) {
@@ -84,6 +126,27 @@ public class MappingContext {
             setDirty(true);
         }
         context.getMappings().values().forEach(m -> m.setContext(this));
+        if (context.isDetached() && !detached) {
+            context.getMappings().values().forEach(m -> {
+                m.setDeobfuscatedName(m.getDeobfuscatedName(), false);
+                applyMembers(m);
+            });
+        }
+    }
+
+    private static void applyMembers(ClassMapping mapping) {
+        mapping.getFieldMappings().values().forEach(fm -> fm.setDeobfuscatedName(fm.getDeobfuscatedName()));
+        for (MethodMapping mm : mapping.getMethodMappings().values()) {
+            // propagation already happened while reading
+            mm.setDeobfuscatedName(mm.getDeobfuscatedName(), false);
+            for (MethodParameterMapping pm : mm.getParamMappings().values()) {
+                pm.setDeobfuscatedName(pm.getDeobfuscatedName(), false);
+            }
+        }
+        for (InnerClassMapping im : mapping.getInnerClassMappings().values()) {
+            im.setDeobfuscatedName(im.getDeobfuscatedName());
+            applyMembers(im);
+        }
     }
 
     /**
@@ -99,10 +162,37 @@ public class MappingContext {
 
     public void setDirty(boolean dirty) {
         this.dirty = dirty;
-        if (!Main.getInstance().testingEnv) {
-            MainController.INSTANCE.saveMappingsButton.setDisable(!dirty);
-            Main.updateTitle();
+        if (!detached) {
+            LISTENERS.forEach(listener -> listener.onDirtyStateChanged(this, dirty));
         }
     }
 
+    /**
+     * Registers the given {@link MappingListener} to be notified of changes to
+     * mappings in any {@link MappingContext}.
+     *
+     * @param listener The {@link MappingListener} to register
+     */
+    public static void addListener(MappingListener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Unregisters the given {@link MappingListener}.
+     *
+     * @param listener The {@link MappingListener} to unregister
+     */
+    public static void removeListener(MappingListener listener) {
+        LISTENERS.remove(listener);
+    }
+
+    /**
+     * Returns the currently registered {@link MappingListener}s.
+     *
+     * @return The currently registered {@link MappingListener}s
+     */
+    public static List<MappingListener> getListeners() {
+        return LISTENERS;
+    }
+
 }
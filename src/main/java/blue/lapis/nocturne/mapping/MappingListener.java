@@ -0,0 +1,67 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.mapping;
+
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.MemberMapping;
+
+/**
+ * Receives notifications of changes to mappings, so that views of them may be
+ * kept up to date.
+ *
+ * <p>Listeners are registered with
+ * {@link MappingContext#addListener(MappingListener)} and are notified of
+ * changes to mappings in any {@link MappingContext}.</p>
+ */
+public interface MappingListener {
+
+    /**
+     * Called when the dirty state of a {@link MappingContext} is set.
+     *
+     * @param context The {@link MappingContext}
+     * @param dirty Whether the {@link MappingContext} is now dirty
+     */
+    default void onDirtyStateChanged(MappingContext context, boolean dirty) {
+    }
+
+    /**
+     * Called when the deobfuscated name of a {@link ClassMapping} is set.
+     *
+     * @param mapping The {@link ClassMapping}
+     * @param updateClassViews Whether the class views should be updated
+     */
+    default void onClassMappingChanged(ClassMapping mapping, boolean updateClassViews) {
+    }
+
+    /**
+     * Called when the deobfuscated name of a {@link MemberMapping} is set.
+     *
+     * @param mapping The {@link MemberMapping}
+     */
+    default void onMemberMappingChanged(MemberMapping mapping) {
+    }
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.mapping;
+
+import static blue.lapis.nocturne.processor.index.model.IndexedClass.INDEXED_CLASSES;
+
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.mapping.model.ClassMapping;
+import blue.lapis.nocturne.mapping.model.FieldMapping;
+import blue.lapis.nocturne.mapping.model.MethodMapping;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+import blue.lapis.nocturne.processor.index.model.IndexedMethod;
+import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
+import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+import blue.lapis.nocturne.util.helper.HierarchyHelper;
+import blue.lapis.nocturne.util.helper.MappingsHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Static utility class for checking a {@link MappingContext} for mappings
+ * which cannot be applied consistently to a {@link ClassSet}.
+ */
+public final class MappingValidator {
+
+    private MappingValidator() {
+    }
+
+    /**
+     * Checks the given {@link MappingContext} against the given
+     * {@link ClassSet}, which must be the currently loaded JAR.
+     *
+     * <p>The following are reported:</p>
+     *
+     * <ul>
+     *     <li>classes, fields or methods which are mapped to a name already
+     *     used by another class or member in the same scope</li>
+     *     <li>method mappings which are not shared by the methods they
+     *     override or are overridden by</li>
+     *     <li>member mappings for members which do not exist</li>
+     * </ul>
+     *
+     * @param context The {@link MappingContext} to validate
+     * @param classSet The {@link ClassSet} the mappings apply to
+     * @return A description of each problem found, or an empty {@link List}
+     *     if the mappings are valid
+     */
+    public static List<String> validate(MappingContext context, ClassSet classSet) {
+        List<String> problems = new ArrayList<>();
+
+        Map<String, String> classNames = new HashMap<>();
+        for (JarClassEntry entry : classSet.getClasses()) {
+            String deobf = ClassMapping.deobfuscate(context, entry.getName());
+            String existing = classNames.putIfAbsent(deobf, entry.getName());
+            if (existing != null) {
+                problems.add("Classes " + existing + " and " + entry.getName() + " are both mapped to " + deobf);
+            }
+        }
+
+        context.getMappings().values().forEach(mapping -> validateClass(context, mapping, problems));
+        return problems;
+    }
+
+    private static void validateClass(MappingContext context, ClassMapping mapping, List<String> problems) {
+        mapping.getInnerClassMappings().values().forEach(inner -> validateClass(context, inner, problems));
+
+        IndexedClass clazz = INDEXED_CLASSES.get(mapping.getFullObfuscatedName());
+        if (clazz == null) {
+            return; // the class itself is covered by the reader
+        }
+
+        for (FieldMapping fm : mapping.getFieldMappings().values()) {
+            if (!clazz.getFields().containsKey(fm.getSignature())) {
+                problems.add("Mapping for non-existent field " + clazz.getName() + "." + fm.getSignature());
+            }
+        }
+        Map<FieldSignature, FieldSignature> fieldNames = new HashMap<>();
+        for (FieldSignature sig : clazz.getFields().keySet()) {
+            FieldMapping fm = mapping.getFieldMappings().get(sig);
+            FieldSignature deobf = fm != null ? new FieldSignature(fm.getDeobfuscatedName(), sig.getType()) : sig;
+            FieldSignature existing = fieldNames.putIfAbsent(deobf, sig);
+            if (existing != null) {
+                problems.add("Fields " + clazz.getName() + "." + existing + " and " + sig
+                        + " are both mapped to " + deobf.getName());
+            }
+        }
+
+        for (MethodMapping mm : mapping.getMethodMappings().values()) {
+            if (!clazz.getMethods().containsKey(mm.getSignature())) {
+                problems.add("Mapping for non-existent method " + clazz.getName() + "."
+                        + getDisplayName(mm.getSignature()));
+            }
+        }
+        Map<MethodSignature, MethodSignature> methodNames = new HashMap<>();
+        for (IndexedMethod method : clazz.getMethods().values()) {
+            MethodSignature sig = method.getSignature();
+            String deobfName = getDeobfuscatedName(mapping, sig);
+            MethodSignature existing
+                    = methodNames.putIfAbsent(new MethodSignature(deobfName, sig.getDescriptor()), sig);
+            if (existing != null) {
+                problems.add("Methods " + clazz.getName() + "." + getDisplayName(existing) + " and "
+                        + getDisplayName(sig) + " are both mapped to " + deobfName);
+            }
+
+            if (method.getVisibility() == IndexedMethod.Visibility.PRIVATE) {
+                continue;
+            }
+            for (String other : HierarchyHelper.getClassesInHierarchy(clazz.getName(), sig)) {
+                Optional<ClassMapping> otherMapping = MappingsHelper.getClassMapping(context, other);
+                String otherName = otherMapping.isPresent()
+                        ? getDeobfuscatedName(otherMapping.get(), sig)
+                        : sig.getName();
+                // classes without mappings aren't visited, otherwise only report each pair once
+                if (!otherName.equals(deobfName)
+                        && (!otherMapping.isPresent() || clazz.getName().compareTo(other) < 0)) {
+                    problems.add("Method " + getDisplayName(sig) + " is mapped to " + deobfName + " in "
+                            + clazz.getName() + " but to " + otherName + " in " + other);
+                }
+            }
+        }
+    }
+
+    private static String getDeobfuscatedName(ClassMapping mapping, MethodSignature sig) {
+        MethodMapping mm = mapping.getMethodMappings().get(sig);
+        return mm != null ? mm.getDeobfuscatedName() : sig.getName();
+    }
+
+    private static String getDisplayName(MethodSignature sig) {
+        return sig.getName() + sig.getDescriptor();
+    }
+
+}
@@ -37,6 +37,7 @@ import blue.lapis.nocturne.mapping.model.ClassMapping;
 import blue.lapis.nocturne.mapping.model.MethodMapping;
 import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
 import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+import blue.lapis.nocturne.util.SymbolTable;
 import blue.lapis.nocturne.util.helper.MappingsHelper;
 
 import java.io.BufferedReader;
@@ -59,7 +60,7 @@ public class EnigmaReader extends MappingsReader {
 
     @Override
     public MappingContext read() {
-        MappingContext mappings = new MappingContext();
+        MappingContext mappings = createContext();
 
         Stack<ClassMapping> classStack = new Stack<>();
         MethodMapping currentMethod = null;
@@ -219,7 +220,7 @@ public class EnigmaReader extends MappingsReader {
             params[i] = removeNonePrefix(desc.getParamTypes()[i]);
         }
         Type returnType = removeNonePrefix(desc.getReturnType());
-        return new MethodDescriptor(returnType, params);
+        return SymbolTable.intern(new MethodDescriptor(returnType, params));
     }
 
 }
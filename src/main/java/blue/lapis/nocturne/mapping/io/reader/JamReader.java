@@ -65,7 +65,7 @@ public class JamReader extends MappingsReader {
 
     @Override
     public MappingContext read() {
-        MappingContext mappings = new MappingContext();
+        MappingContext mappings = createContext();
 
         Pattern spacePattern = Pattern.compile(" ", Pattern.LITERAL);
         List<String> rawClassMappings = new ArrayList<>();
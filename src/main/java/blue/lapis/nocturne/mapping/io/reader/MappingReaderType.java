@@ -45,22 +45,17 @@ public enum MappingReaderType {
 
     private final MappingFormatType type;
 
-    private static final Map<FileChooser.ExtensionFilter, MappingReaderType> filterToType = Maps.newHashMap();
     private static final Map<MappingFormatType, MappingReaderType> formatToType = Maps.newHashMap();
 
     static {
-        Arrays.asList(values()).forEach(t -> filterToType.put(t.getExtensionFilter(), t));
         Arrays.asList(values()).forEach(t -> formatToType.put(t.getFormatType(), t));
     }
 
-    private final FileChooser.ExtensionFilter extensionFilter;
+    private FileChooser.ExtensionFilter extensionFilter; // created lazily, as it requires the resource bundle
     private final Constructor<? extends MappingsReader> readerCtor;
 
     MappingReaderType(MappingFormatType mappingType, Class<? extends MappingsReader> readerClass) {
         this.type = mappingType;
-        this.extensionFilter = new FileChooser.ExtensionFilter(Main.getResourceBundle()
-                .getString("filechooser.type_" + mappingType.name().toLowerCase()),
-                "*." + mappingType.getFileExtension());
         try {
             this.readerCtor = readerClass.getConstructor(BufferedReader.class);
         } catch (NoSuchMethodException ex) {
@@ -73,6 +68,11 @@ public enum MappingReaderType {
     }
 
     public FileChooser.ExtensionFilter getExtensionFilter() {
+        if (this.extensionFilter == null) {
+            this.extensionFilter = new FileChooser.ExtensionFilter(Main.getResourceBundle()
+                    .getString("filechooser.type_" + type.name().toLowerCase()),
+                    "*." + type.getFileExtension());
+        }
         return this.extensionFilter;
     }
 
@@ -86,7 +86,7 @@ public enum MappingReaderType {
     }
 
     public static MappingReaderType fromExtensionFilter(FileChooser.ExtensionFilter filter) {
-        return filterToType.get(filter);
+        return Arrays.stream(values()).filter(t -> t.getExtensionFilter().equals(filter)).findFirst().orElse(null);
     }
 
     public static MappingReaderType fromFormatType(final MappingFormatType formatType) {
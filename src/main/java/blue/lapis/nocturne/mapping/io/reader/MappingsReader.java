@@ -39,11 +39,24 @@ import java.io.IOException;
 public abstract class MappingsReader implements Closeable {
 
     protected final BufferedReader reader;
+    private boolean detached;
 
     protected MappingsReader(BufferedReader reader) {
         this.reader = reader;
     }
 
+    /**
+     * Sets whether the mappings are read into a
+     * {@link MappingContext#isDetached() detached} {@link MappingContext},
+     * which leaves the loaded JAR untouched so that they may be read off the
+     * FX application thread.
+     *
+     * @param detached Whether to read the mappings into a detached context
+     */
+    public void setDetached(boolean detached) {
+        this.detached = detached;
+    }
+
     /**
      * Reads from the given {@link BufferedReader}.
      *
@@ -51,6 +64,10 @@ public abstract class MappingsReader implements Closeable {
      */
     public abstract MappingContext read();
 
+    protected MappingContext createContext() {
+        return new MappingContext(detached);
+    }
+
     protected int getClassNestingLevel(String name) {
         return name.split(" ")[1].length()
                 - name.split(" ")[1].replace(INNER_CLASS_SEPARATOR_CHAR + "", "").length();
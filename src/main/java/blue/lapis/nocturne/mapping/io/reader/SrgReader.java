@@ -59,7 +59,7 @@ public class SrgReader extends MappingsReader {
 
     @Override
     public MappingContext read() {
-        MappingContext mappings = new MappingContext();
+        MappingContext mappings = createContext();
 
         Pattern spacePattern = Pattern.compile(" ", Pattern.LITERAL);
         List<String> rawClassMappings = new ArrayList<>();
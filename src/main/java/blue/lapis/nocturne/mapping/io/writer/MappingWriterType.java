@@ -44,22 +44,17 @@ public enum MappingWriterType {
 
     private final MappingFormatType type;
 
-    private static final Map<FileChooser.ExtensionFilter, MappingWriterType> filterToType = Maps.newHashMap();
     private static final Map<MappingFormatType, MappingWriterType> formatToType = Maps.newHashMap();
 
     static {
-        Arrays.asList(values()).forEach(t -> filterToType.put(t.getExtensionFilter(), t));
         Arrays.asList(values()).forEach(t -> formatToType.put(t.getFormatType(), t));
     }
 
-    private final FileChooser.ExtensionFilter extensionFilter;
+    private FileChooser.ExtensionFilter extensionFilter; // created lazily, as it requires the resource bundle
     private final Constructor<? extends MappingsWriter> writerCtor;
 
     MappingWriterType(MappingFormatType mappingType, Class<? extends MappingsWriter> readerClass) {
         this.type = mappingType;
-        this.extensionFilter = new FileChooser.ExtensionFilter(Main.getResourceBundle()
-                .getString("filechooser.type_" + mappingType.name().toLowerCase()),
-                "*." + mappingType.getFileExtension());
         try {
             this.writerCtor = readerClass.getConstructor(PrintWriter.class);
         } catch (NoSuchMethodException ex) {
@@ -72,6 +67,11 @@ public enum MappingWriterType {
     }
 
     public FileChooser.ExtensionFilter getExtensionFilter() {
+        if (this.extensionFilter == null) {
+            this.extensionFilter = new FileChooser.ExtensionFilter(Main.getResourceBundle()
+                    .getString("filechooser.type_" + type.name().toLowerCase()),
+                    "*." + type.getFileExtension());
+        }
         return this.extensionFilter;
     }
 
@@ -85,7 +85,7 @@ public enum MappingWriterType {
     }
 
     public static MappingWriterType fromExtensionFilter(FileChooser.ExtensionFilter filter) {
-        return filterToType.get(filter);
+        return Arrays.stream(values()).filter(t -> t.getExtensionFilter().equals(filter)).findFirst().orElse(null);
     }
 
     public static MappingWriterType fromFormatType(final MappingFormatType formatType) {
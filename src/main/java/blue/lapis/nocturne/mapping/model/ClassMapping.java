@@ -28,18 +28,14 @@ package blue.lapis.nocturne.mapping.model;
 import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_PATTERN;
 
 import blue.lapis.nocturne.Main;
-import blue.lapis.nocturne.gui.MainController;
-import blue.lapis.nocturne.gui.scene.text.SelectableMember;
 import blue.lapis.nocturne.jar.model.JarClassEntry;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
 import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
-import blue.lapis.nocturne.util.helper.StringHelper;
 
 import com.google.common.collect.ImmutableMap;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -185,22 +181,12 @@ public abstract class ClassMapping extends Mapping {
 
     public void setDeobfuscatedName(String name, boolean updateClassViews) {
         super.setDeobfuscatedName(name);
-        updateEntryDeobfuscation();
-
-        List<SelectableMember> memberList = SelectableMember.MEMBERS.get(getMemberKey());
-        if (memberList == null) {
+        if (getContext().isDetached()) {
             return;
         }
+        updateEntryDeobfuscation();
 
-        String unqualName = this instanceof InnerClassMapping ? name : StringHelper.unqualify(name);
-        memberList.forEach(member -> {
-            member.setText(unqualName);
-            member.setDeobfuscated(!name.equals(member.getName()));
-        });
-
-        if (updateClassViews) {
-            MainController.INSTANCE.updateClassViews();
-        }
+        MappingContext.getListeners().forEach(listener -> listener.onClassMappingChanged(this, updateClassViews));
     }
 
     private void updateEntryDeobfuscation() {
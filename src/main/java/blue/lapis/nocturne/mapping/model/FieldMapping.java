@@ -32,6 +32,7 @@ import blue.lapis.nocturne.gui.scene.text.SelectableMember;
 import blue.lapis.nocturne.jar.model.attribute.Type;
 import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
 import blue.lapis.nocturne.util.MemberType;
+import blue.lapis.nocturne.util.SymbolTable;
 
 /**
  * Represents a {@link Mapping} for a field.
@@ -51,7 +52,7 @@ public class FieldMapping extends MemberMapping {
     public FieldMapping(ClassMapping parent, FieldSignature sig, String deobfName) {
         super(parent, sig.getName(), deobfName);
         this.parent = parent;
-        this.sig = sig;
+        this.sig = SymbolTable.intern(sig);
 
         parent.addFieldMapping(this);
     }
@@ -77,6 +78,9 @@ public class FieldMapping extends MemberMapping {
     @Override
     public void setDeobfuscatedName(String deobf) {
         super.setDeobfuscatedName(deobf);
+        if (getContext().isDetached()) {
+            return;
+        }
 
         Main.getLoadedJar().getClass(getParent().getFullObfuscatedName()).get()
                 .getCurrentFields().put(sig, getObfuscatedName().equals(getDeobfuscatedName()) ? sig
@@ -89,7 +93,7 @@ public class FieldMapping extends MemberMapping {
     }
 
     @Override
-    protected SelectableMember.MemberKey getMemberKey() {
+    public SelectableMember.MemberKey getMemberKey() {
         return new SelectableMember.MemberKey(MemberType.FIELD, getQualifiedName(), sig.getType().toString());
     }
 
@@ -100,7 +100,9 @@ public class InnerClassMapping extends ClassMapping implements IMemberMapping {
     public void setDeobfuscatedName(String deobf) {
         Optional<JarClassEntry> jarClassEntry = Main.getLoadedJar().getClass(getParent().getFullObfuscatedName());
         if (jarClassEntry.isPresent()) {
-            jarClassEntry.get().getCurrentInnerClassNames().put(getObfuscatedName(), deobf);
+            if (!getContext().isDetached()) {
+                jarClassEntry.get().getCurrentInnerClassNames().put(getObfuscatedName(), deobf);
+            }
         } else {
             // log and skip
             Main.getLogger().severe("Invalid obfuscated name: " + getParent().getFullObfuscatedName());
@@ -111,7 +113,7 @@ public class InnerClassMapping extends ClassMapping implements IMemberMapping {
     }
 
     @Override
-    protected SelectableMember.MemberKey getMemberKey() {
+    public SelectableMember.MemberKey getMemberKey() {
         return new SelectableMember.MemberKey(MemberType.CLASS, getFullObfuscatedName(), null);
     }
 
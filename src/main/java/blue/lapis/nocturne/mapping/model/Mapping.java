@@ -27,6 +27,7 @@ package blue.lapis.nocturne.mapping.model;
 
 import blue.lapis.nocturne.gui.scene.text.SelectableMember;
 import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.util.SymbolTable;
 
 /**
  * Represents a single obfuscation mapping for a particular member.
@@ -44,8 +45,8 @@ public abstract class Mapping {
      * @param deobfName The deobfuscated name of the mapped member
      */
     protected Mapping(String obfName, String deobfName) {
-        this.obf = obfName;
-        this.deobf = deobfName;
+        this.obf = SymbolTable.intern(obfName);
+        this.deobf = SymbolTable.intern(deobfName);
     }
 
     public void initialize() {
@@ -79,7 +80,7 @@ public abstract class Mapping {
         if (this.deobf.equals(name)) {
             this.setAdHoc(false);
         }
-        this.deobf = name;
+        this.deobf = SymbolTable.intern(name);
         getContext().setDirty(true);
     }
 
@@ -110,6 +111,11 @@ public abstract class Mapping {
      */
     public abstract MappingContext getContext();
 
-    protected abstract SelectableMember.MemberKey getMemberKey();
+    /**
+     * Gets the key identifying the member this {@link Mapping} applies to.
+     *
+     * @return The key identifying the member this {@link Mapping} applies to
+     */
+    public abstract SelectableMember.MemberKey getMemberKey();
 
 }
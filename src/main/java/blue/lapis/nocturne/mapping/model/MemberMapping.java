@@ -25,12 +25,9 @@
 
 package blue.lapis.nocturne.mapping.model;
 
-import blue.lapis.nocturne.gui.scene.text.SelectableMember;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.processor.index.model.signature.MemberSignature;
 
-import java.util.List;
-
 /**
  * Represents a mapping for a class member.
  */
@@ -58,14 +55,9 @@ public abstract class MemberMapping extends Mapping implements IMemberMapping {
     public void setDeobfuscatedName(String name) {
         super.setDeobfuscatedName(name);
 
-        List<SelectableMember> memberList = SelectableMember.MEMBERS.get(getMemberKey());
-        if (memberList == null) {
-            return;
+        if (!getContext().isDetached()) {
+            MappingContext.getListeners().forEach(listener -> listener.onMemberMappingChanged(this));
         }
-        memberList.forEach(member -> {
-            member.setText(name);
-            member.setDeobfuscated(!name.equals(member.getName()));
-        });
     }
 
     /**
@@ -33,6 +33,7 @@ import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
 import blue.lapis.nocturne.util.MemberType;
+import blue.lapis.nocturne.util.SymbolTable;
 import blue.lapis.nocturne.util.helper.HierarchyHelper;
 import blue.lapis.nocturne.util.helper.MappingsHelper;
 
@@ -62,7 +63,7 @@ public class MethodMapping extends MemberMapping {
      */
     public MethodMapping(ClassMapping parent, MethodSignature sig, String deobfName, boolean propagate) {
         super(parent, sig.getName(), deobfName);
-        this.sig = sig;
+        this.sig = SymbolTable.intern(sig);
         memberKey = new SelectableMember.MemberKey(MemberType.METHOD, getQualifiedName(),
                 getObfuscatedDescriptor().toString());
         parent.addMethodMapping(this, propagate);
@@ -132,7 +133,7 @@ public class MethodMapping extends MemberMapping {
     }
 
     @Override
-    protected SelectableMember.MemberKey getMemberKey() {
+    public SelectableMember.MemberKey getMemberKey() {
         return memberKey;
     }
 
@@ -163,6 +164,9 @@ public class MethodMapping extends MemberMapping {
             }
         }
 
+        if (getContext().isDetached()) {
+            return;
+        }
         Main.getLoadedJar().getClass(getParent().getFullObfuscatedName()).get()
                 .getCurrentMethods().put(sig, getObfuscatedName().equals(getDeobfuscatedName()) ? sig
                 : new MethodSignature(getDeobfuscatedName(), sig.getDescriptor()));
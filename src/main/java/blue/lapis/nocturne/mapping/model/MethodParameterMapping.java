@@ -84,7 +84,7 @@ public class MethodParameterMapping extends Mapping {
     }
 
     @Override
-    protected SelectableMember.MemberKey getMemberKey() {
+    public SelectableMember.MemberKey getMemberKey() {
         return this.memberKey;
     }
 
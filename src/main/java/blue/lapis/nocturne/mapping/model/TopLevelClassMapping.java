@@ -25,10 +25,7 @@
 
 package blue.lapis.nocturne.mapping.model;
 
-import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_PATTERN;
-
 import blue.lapis.nocturne.Main;
-import blue.lapis.nocturne.gui.scene.control.CodeTab;
 import blue.lapis.nocturne.gui.scene.text.SelectableMember;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.util.MemberType;
@@ -84,18 +81,14 @@ public class TopLevelClassMapping extends ClassMapping {
     @Override
     public void setDeobfuscatedName(String deobfuscatedName, boolean updateClassViews) {
         super.setDeobfuscatedName(deobfuscatedName, updateClassViews);
-        if (CodeTab.CODE_TABS.containsKey(getObfuscatedName())) {
-            CodeTab.CODE_TABS.get(getObfuscatedName())
-                    .setText(CLASS_PATH_SEPARATOR_PATTERN.matcher(deobfuscatedName).replaceAll("."));
-        }
 
-        if (Main.getLoadedJar() != null) {
+        if (Main.getLoadedJar() != null && !getContext().isDetached()) {
             Main.getLoadedJar().getCurrentNames().put(getObfuscatedName(), deobfuscatedName);
         }
     }
 
     @Override
-    protected SelectableMember.MemberKey getMemberKey() {
+    public SelectableMember.MemberKey getMemberKey() {
         return new SelectableMember.MemberKey(MemberType.CLASS, getObfuscatedName(), null);
     }
 
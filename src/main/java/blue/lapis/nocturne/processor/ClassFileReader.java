@@ -0,0 +1,144 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor;
+
+import static blue.lapis.nocturne.util.Constants.CLASS_FORMAT_CONSTANT_POOL_OFFSET;
+import static blue.lapis.nocturne.util.helper.ByteHelper.readInt;
+import static blue.lapis.nocturne.util.helper.ByteHelper.readUshort;
+
+import blue.lapis.nocturne.processor.constantpool.ConstantPoolReader;
+import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
+import blue.lapis.nocturne.util.MemberType;
+
+/**
+ * Reads a class file in a single pass, reporting its structures to a
+ * {@link ClassFileVisitor}.
+ */
+public class ClassFileReader extends ClassProcessor {
+
+    private final ImmutableConstantPool pool;
+
+    /**
+     * Constructs a new {@link ClassFileReader} for the given class.
+     *
+     * @param className The name of the class
+     * @param bytes The bytecode of the class
+     */
+    public ClassFileReader(String className, byte[] bytes) {
+        this(className, bytes, null);
+    }
+
+    /**
+     * Constructs a new {@link ClassFileReader} for the given class, reusing
+     * a constant pool which has already been read from the same bytecode.
+     *
+     * @param className The name of the class
+     * @param bytes The bytecode of the class
+     * @param pool The constant pool of the class, or {@code null} to read it
+     *     from the bytecode
+     */
+    public ClassFileReader(String className, byte[] bytes, ImmutableConstantPool pool) {
+        super(className, bytes);
+        this.pool = pool != null ? pool : new ConstantPoolReader(className, bytes).read();
+    }
+
+    /**
+     * Returns the constant pool of the class.
+     *
+     * @return The constant pool of the class
+     */
+    public ImmutableConstantPool getConstantPool() {
+        return pool;
+    }
+
+    /**
+     * Reads the class file, reporting its structures to the given
+     * {@link ClassFileVisitor}.
+     *
+     * @param visitor The {@link ClassFileVisitor} to report to
+     */
+    public void accept(ClassFileVisitor visitor) {
+        visitor.visitHeader(readUshort(bytes, 4), readUshort(bytes, 6));
+        visitor.visitConstantPool(pool);
+
+        final int classOffset = CLASS_FORMAT_CONSTANT_POOL_OFFSET + pool.length();
+        int[] interfaces = new int[readUshort(bytes, classOffset + 6)];
+        for (int i = 0; i < interfaces.length; i++) {
+            interfaces[i] = readUshort(bytes, classOffset + 8 + i * 2);
+        }
+        visitor.visitClass(classOffset, readUshort(bytes, classOffset), readUshort(bytes, classOffset + 2),
+                readUshort(bytes, classOffset + 4), interfaces);
+
+        int pos = classOffset + 8 + interfaces.length * 2;
+        pos = acceptMembers(visitor, MemberType.FIELD, pos);
+        pos = acceptMembers(visitor, MemberType.METHOD, pos);
+        acceptAttributes(visitor, MemberType.CLASS, pos);
+
+        visitor.visitEnd();
+    }
+
+    /**
+     * Reads the member table starting at the given offset.
+     *
+     * @param visitor The {@link ClassFileVisitor} to report to
+     * @param type The type of the members in the table
+     * @param offset The offset of the table
+     * @return The offset immediately following the table
+     */
+    private int acceptMembers(ClassFileVisitor visitor, MemberType type, int offset) {
+        int count = readUshort(bytes, offset);
+        visitor.visitMemberCount(type, count);
+        int pos = offset + 2;
+        for (int i = 0; i < count; i++) {
+            visitor.visitMember(type, readUshort(bytes, pos), readUshort(bytes, pos + 2), readUshort(bytes, pos + 4));
+            pos = acceptAttributes(visitor, type, pos + 6);
+            visitor.visitMemberEnd(type);
+        }
+        return pos;
+    }
+
+    /**
+     * Reads the attribute table starting at the given offset.
+     *
+     * @param visitor The {@link ClassFileVisitor} to report to
+     * @param owner The type of structure owning the table
+     * @param offset The offset of the table
+     * @return The offset immediately following the table
+     */
+    private int acceptAttributes(ClassFileVisitor visitor, MemberType owner, int offset) {
+        int count = readUshort(bytes, offset);
+        visitor.visitAttributeCount(owner, offset, count);
+        int pos = offset + 2;
+        for (int i = 0; i < count; i++) {
+            // the length is a uint, but anything larger than Integer.MAX_VALUE won't fit in a Java array anyway
+            int length = readInt(bytes, pos + 2);
+            visitor.visitAttribute(owner, readUshort(bytes, pos), pos + 6, length);
+            pos += 6 + length;
+        }
+        return pos;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor;
+
+import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
+import blue.lapis.nocturne.util.MemberType;
+
+/**
+ * Receives the structures of a class file as they are read by a
+ * {@link ClassFileReader}, in the order they appear in the file.
+ *
+ * <p>Structures are reported as constant pool indices and offsets into the
+ * bytecode rather than being copied, so implementations are free to read
+ * only what they need. Every method does nothing by default.</p>
+ */
+public interface ClassFileVisitor {
+
+    /**
+     * Visits the header of the class file.
+     *
+     * @param minorVersion The minor version of the class file format
+     * @param majorVersion The major version of the class file format
+     */
+    default void visitHeader(int minorVersion, int majorVersion) {
+    }
+
+    /**
+     * Visits the constant pool of the class.
+     *
+     * @param pool The constant pool of the class
+     */
+    default void visitConstantPool(ImmutableConstantPool pool) {
+    }
+
+    /**
+     * Visits the declaration of the class.
+     *
+     * @param offset The offset of the declaration (starting at the access
+     *     flags) within the bytecode
+     * @param access The access flags of the class
+     * @param thisClassIndex The pool index of the Class structure of the class
+     * @param superClassIndex The pool index of the Class structure of the
+     *     superclass, or {@code 0} if there is none
+     * @param interfaceIndices The pool indices of the Class structures of the
+     *     implemented interfaces
+     */
+    default void visitClass(int offset, int access, int thisClassIndex, int superClassIndex,
+            int[] interfaceIndices) {
+    }
+
+    /**
+     * Visits the start of the field or method table of the class.
+     *
+     * @param type The type of the members, being either
+     *     {@link MemberType#FIELD} or {@link MemberType#METHOD}
+     * @param count The number of members in the table
+     */
+    default void visitMemberCount(MemberType type, int count) {
+    }
+
+    /**
+     * Visits a field or method of the class. Its attributes are visited
+     * immediately afterwards, followed by {@link #visitMemberEnd(MemberType)}.
+     *
+     * @param type The type of the member
+     * @param access The access flags of the member
+     * @param nameIndex The pool index of the name of the member
+     * @param descriptorIndex The pool index of the descriptor of the member
+     */
+    default void visitMember(MemberType type, int access, int nameIndex, int descriptorIndex) {
+    }
+
+    /**
+     * Visits the end of a field or method of the class.
+     *
+     * @param type The type of the member
+     */
+    default void visitMemberEnd(MemberType type) {
+    }
+
+    /**
+     * Visits the start of an attribute table.
+     *
+     * @param owner The type of structure owning the table, being
+     *     {@link MemberType#FIELD} or {@link MemberType#METHOD} for the
+     *     attributes of the member last visited, or {@link MemberType#CLASS}
+     *     for the attributes of the class itself
+     * @param offset The offset of the table (starting at the attribute count)
+     *     within the bytecode
+     * @param count The number of attributes in the table
+     */
+    default void visitAttributeCount(MemberType owner, int offset, int count) {
+    }
+
+    /**
+     * Visits an attribute.
+     *
+     * @param owner The type of structure owning the attribute, as for
+     *     {@link #visitAttributeCount(MemberType, int, int)}
+     * @param nameIndex The pool index of the name of the attribute
+     * @param offset The offset of the attribute body within the bytecode
+     * @param length The length of the attribute body in bytes
+     */
+    default void visitAttribute(MemberType owner, int nameIndex, int offset, int length) {
+    }
+
+    /**
+     * Visits the end of the class file.
+     */
+    default void visitEnd() {
+    }
+
+}
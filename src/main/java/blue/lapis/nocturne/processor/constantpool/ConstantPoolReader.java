@@ -30,14 +30,8 @@ import static blue.lapis.nocturne.util.helper.ByteHelper.asUshort;
 
 import blue.lapis.nocturne.processor.ClassProcessor;
 import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
-import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.DummyStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
 
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * Reads and parses the constant pool of a class given its bytecode.
  */
@@ -47,30 +41,31 @@ public class ConstantPoolReader extends ClassProcessor {
         super(className, bytes);
     }
 
+    /**
+     * Reads the constant pool of the class.
+     *
+     * <p>Only the offset of each structure is recorded, so the returned pool
+     * refers to the bytecode given to this reader rather than copying it.</p>
+     *
+     * @return The constant pool of the class
+     */
     public ImmutableConstantPool read() {
-        List<ConstantStructure> tempPool = new ArrayList<>();
-
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        buffer.get(new byte[CLASS_FORMAT_CONSTANT_POOL_OFFSET]);
-        int constPoolCount = asUshort(buffer.getShort()) - 1;
-        for (int i = 0; i < constPoolCount; i++) {
-            StructureType sType = StructureType.fromTag(buffer.get());
-            int length = sType.getLength();
-            if (sType == StructureType.UTF_8) {
-                length = asUshort(buffer.getShort()) + 2;
-                buffer.position(buffer.position() - 2);
-            }
-            byte[] structBytes = new byte[length + 1];
-            structBytes[0] = sType.getTag();
-            buffer.get(structBytes, 1, length);
-            tempPool.add(ConstantStructure.createConstantStructure(structBytes));
+        int[] offsets = new int[asUshort(bytes[CLASS_FORMAT_CONSTANT_POOL_OFFSET],
+                bytes[CLASS_FORMAT_CONSTANT_POOL_OFFSET + 1]) - 1];
+        int pos = CLASS_FORMAT_CONSTANT_POOL_OFFSET + 2;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = pos;
+            StructureType sType = StructureType.fromTag(bytes[pos]);
+            int length = sType == StructureType.UTF_8
+                    ? asUshort(bytes[pos + 1], bytes[pos + 2]) + 2
+                    : sType.getLength();
+            pos += length + 1;
 
-            if (sType == StructureType.DOUBLE || sType == StructureType.LONG) {
-                tempPool.add(new DummyStructure());
-                i++;
+            if ((sType == StructureType.DOUBLE || sType == StructureType.LONG) && i + 1 < offsets.length) {
+                offsets[++i] = -1; // the following entry is unusable
             }
         }
-        return new ImmutableConstantPool(tempPool, buffer.position() - CLASS_FORMAT_CONSTANT_POOL_OFFSET);
+        return new ImmutableConstantPool(bytes, offsets, pos - CLASS_FORMAT_CONSTANT_POOL_OFFSET);
     }
 
 }
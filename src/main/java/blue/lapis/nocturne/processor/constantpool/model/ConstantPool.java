@@ -25,31 +25,52 @@
 
 package blue.lapis.nocturne.processor.constantpool.model;
 
+import blue.lapis.nocturne.processor.constantpool.model.structure.ClassStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
-
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
+import blue.lapis.nocturne.processor.constantpool.model.structure.NameAndTypeStructure;
+import blue.lapis.nocturne.processor.constantpool.model.structure.RefStructure;
+import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
+import blue.lapis.nocturne.processor.constantpool.model.structure.Utf8Structure;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents the constant pool of a class.
+ *
+ * <p>The pool is layered over an {@link ImmutableConstantPool}, so only the
+ * structures which are replaced or added are held as objects.</p>
  */
 public class ConstantPool {
 
-    private final List<ConstantStructure> contents;
+    /**
+     * The maximum number of structures a constant pool may hold, as its
+     * count is stored as an unsigned short which includes the unused 0th
+     * entry.
+     */
+    public static final int MAX_SIZE = 0xFFFF - 1;
+
+    private final ImmutableConstantPool base;
+    private final ConstantStructure[] replaced;
+    private final List<ConstantStructure> added = new ArrayList<>();
     private int length;
 
+    // maps the raw bytes of each structure to its index, built on first use
+    private Map<StructureKey, Integer> indices;
+
     /**
-     * Instantiates a new {@link ConstantPool} with the given contents.
+     * Instantiates a new {@link ConstantPool} with the contents of the given
+     * {@link ImmutableConstantPool}.
      *
-     * @param contents The contents of the new {@link ConstantPool}
-     * @param length The length of the constant pool in bytes
+     * @param base The initial contents of the new {@link ConstantPool}
      */
-    public ConstantPool(List<ConstantStructure> contents, int length) {
-        this.contents = Lists.newArrayList(contents);
-        this.length = length;
+    public ConstantPool(ImmutableConstantPool base) {
+        this.base = base;
+        this.replaced = new ConstantStructure[base.size()];
+        this.length = base.length();
     }
 
     /**
@@ -61,7 +82,7 @@ public class ConstantPool {
      * @return The number of structures contained by this {@link ConstantPool}
      */
     public int size() {
-        return contents.size();
+        return base.size() + added.size();
     }
 
     /**
@@ -78,19 +99,114 @@ public class ConstantPool {
     }
 
     /**
-     * Returns the structure at the given index of this
+     * Returns the type of the structure at the given index of this
      * <strong>1-indexed</strong> constant pool.
      *
-     * @param index The index of the structure to retrieve
-     * @return The retrieved structure
+     * @param index The index of the structure
+     * @return The type of the structure
      * @throws IndexOutOfBoundsException If the given index is less than 1 or
      *     greater than the value returned by {@link ConstantPool#size()}
      */
-    public ConstantStructure get(int index) throws IndexOutOfBoundsException {
-        if (index < 1 || index > size()) {
-            throw new IndexOutOfBoundsException("Constant pool index " + index + " out-of-bounds");
-        }
-        return contents.get(index - 1);
+    public StructureType getType(int index) throws IndexOutOfBoundsException {
+        ConstantStructure structure = getStructure(index);
+        return structure != null ? structure.getType() : base.getType(index);
+    }
+
+    /**
+     * Returns the string held by the Utf8 structure at the given index.
+     *
+     * @param index The index of the Utf8 structure
+     * @return The string held by the structure
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     Utf8 structure
+     */
+    public String getString(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        ConstantStructure structure = getStructure(index);
+        return structure != null ? cast(structure, Utf8Structure.class).asString() : base.getString(index);
+    }
+
+    /**
+     * Returns the index of the name of the Class structure at the given index.
+     *
+     * @param index The index of the Class structure
+     * @return The index of the Utf8 structure holding the class name
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     Class structure
+     */
+    public int getClassNameIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        ConstantStructure structure = getStructure(index);
+        return structure != null
+                ? cast(structure, ClassStructure.class).getNameIndex()
+                : base.getClassNameIndex(index);
+    }
+
+    /**
+     * Returns the index of the class of the *ref structure at the given index.
+     *
+     * @param index The index of the *ref structure
+     * @return The index of the Class structure of the referenced member
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     *ref structure
+     */
+    public int getRefClassIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        ConstantStructure structure = getStructure(index);
+        return structure != null
+                ? cast(structure, RefStructure.class).getClassIndex()
+                : base.getRefClassIndex(index);
+    }
+
+    /**
+     * Returns the index of the NameAndType of the *ref structure at the given
+     * index.
+     *
+     * @param index The index of the *ref structure
+     * @return The index of the NameAndType structure of the referenced member
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     *ref structure
+     */
+    public int getRefNameAndTypeIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        ConstantStructure structure = getStructure(index);
+        return structure != null
+                ? cast(structure, RefStructure.class).getNameAndTypeIndex()
+                : base.getRefNameAndTypeIndex(index);
+    }
+
+    /**
+     * Returns the index of the name of the NameAndType structure at the given
+     * index.
+     *
+     * @param index The index of the NameAndType structure
+     * @return The index of the Utf8 structure holding the name
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     NameAndType structure
+     */
+    public int getNameAndTypeNameIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        ConstantStructure structure = getStructure(index);
+        return structure != null
+                ? cast(structure, NameAndTypeStructure.class).getNameIndex()
+                : base.getNameAndTypeNameIndex(index);
+    }
+
+    /**
+     * Returns the index of the descriptor of the NameAndType structure at the
+     * given index.
+     *
+     * @param index The index of the NameAndType structure
+     * @return The index of the Utf8 structure holding the descriptor
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     NameAndType structure
+     */
+    public int getNameAndTypeTypeIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        ConstantStructure structure = getStructure(index);
+        return structure != null
+                ? cast(structure, NameAndTypeStructure.class).getTypeIndex()
+                : base.getNameAndTypeTypeIndex(index);
     }
 
     /**
@@ -103,39 +219,121 @@ public class ConstantPool {
      *     greater than the value returned by {@link ConstantPool#size()}
      */
     public void set(int index, ConstantStructure structure) throws IndexOutOfBoundsException {
-        if (index < 1 || index > size()) {
-            throw new IndexOutOfBoundsException("Constant pool index " + index + " out-of-bounds");
+        ConstantStructure previous = getStructure(index);
+        if (indices != null) {
+            indices.remove(getKey(index), index);
+            indices.putIfAbsent(getKey(structure), index);
+        }
+        length += structure.getBytes().length
+                - (previous != null ? previous.getBytes().length : base.getStructureLength(index));
+        if (index > base.size()) {
+            added.set(index - base.size() - 1, structure);
+        } else {
+            replaced[index - 1] = structure;
         }
-        length += structure.getBytes().length - contents.get(index - 1).getBytes().length;
-        contents.set(index - 1, structure);
     }
 
     /**
      * Adds the structure to the end of this constant pool.
      *
-     * @param structure The replacement structure
-     * @throws IndexOutOfBoundsException If the given index is less than 1 or
-     *     greater than the value returned by {@link ConstantPool#size()}
+     * @param structure The structure to add
+     * @throws ConstantPoolOverflowException If this constant pool is already
+     *     full
      */
-    public void add(ConstantStructure structure) throws IndexOutOfBoundsException {
+    public void add(ConstantStructure structure) throws ConstantPoolOverflowException {
+        if (size() >= MAX_SIZE) {
+            throw new ConstantPoolOverflowException("Constant pool cannot hold more than " + MAX_SIZE + " structures");
+        }
         length += structure.getBytes().length;
-        contents.add(structure);
+        added.add(structure);
+        if (indices != null) {
+            indices.putIfAbsent(getKey(structure), size());
+        }
     }
 
     /**
-     * Returns the current contents of the constant pool.
+     * Returns the index of a structure equal to the given one, adding it to
+     * the end of this constant pool if there is none yet.
      *
-     * @return The current contents of the constant pool
+     * @param structure The structure to find or add
+     * @return The index of the equal structure
+     * @throws ConstantPoolOverflowException If the structure needs to be
+     *     added but this constant pool is already full
      */
-    public ImmutableList<ConstantStructure> getContents() {
-        return ImmutableList.copyOf(contents);
+    public int intern(ConstantStructure structure) throws ConstantPoolOverflowException {
+        if (indices == null) {
+            indices = new HashMap<>();
+            for (int i = 1; i <= size(); i++) {
+                StructureKey key = getKey(i);
+                if (key != null) {
+                    indices.putIfAbsent(key, i);
+                }
+            }
+        }
+        Integer existing = indices.get(getKey(structure));
+        if (existing != null) {
+            return existing;
+        }
+        add(structure);
+        return size();
     }
 
     public byte[] getBytes() {
         ByteBuffer buffer = ByteBuffer.allocate(length());
-        buffer.putShort((short) (size() + 1));
-        getContents().forEach(cs -> buffer.put(cs.getBytes()));
+        write(buffer);
         return buffer.array();
     }
 
+    /**
+     * Writes this constant pool to the given {@link ByteBuffer}, which must
+     * have at least {@link ConstantPool#length()} bytes remaining.
+     *
+     * @param buffer The {@link ByteBuffer} to write to
+     */
+    public void write(ByteBuffer buffer) {
+        buffer.putShort((short) (size() + 1));
+        for (int i = 1; i <= base.size(); i++) {
+            if (replaced[i - 1] != null) {
+                buffer.put(replaced[i - 1].getBytes());
+            } else {
+                base.writeStructure(i, buffer);
+            }
+        }
+        added.forEach(cs -> buffer.put(cs.getBytes()));
+    }
+
+    /**
+     * Returns the structure object at the given index, if the structure has
+     * been replaced or added.
+     *
+     * @param index The index of the structure
+     * @return The structure object, or {@code null} if the structure is still
+     *     that of the underlying {@link ImmutableConstantPool}
+     * @throws IndexOutOfBoundsException If the given index is less than 1 or
+     *     greater than the value returned by {@link ConstantPool#size()}
+     */
+    private ConstantStructure getStructure(int index) throws IndexOutOfBoundsException {
+        if (index < 1 || index > size()) {
+            throw new IndexOutOfBoundsException("Constant pool index " + index + " out-of-bounds");
+        }
+        return index > base.size() ? added.get(index - base.size() - 1) : replaced[index - 1];
+    }
+
+    private StructureKey getKey(int index) {
+        ConstantStructure structure = getStructure(index);
+        return structure != null ? getKey(structure) : base.getKey(index);
+    }
+
+    private static StructureKey getKey(ConstantStructure structure) {
+        return new StructureKey(structure.getBytes(), 0, structure.getBytes().length);
+    }
+
+    private static <T extends ConstantStructure> T cast(ConstantStructure structure, Class<T> type) {
+        if (!type.isInstance(structure)) {
+            throw new IllegalArgumentException("Structure of type " + structure.getType().name()
+                    + " is not a " + type.getSimpleName());
+        }
+        return type.cast(structure);
+    }
+
 }
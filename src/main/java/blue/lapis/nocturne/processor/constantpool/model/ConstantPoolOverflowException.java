@@ -22,16 +22,19 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-
-package blue.lapis.nocturne.processor.constantpool.model.structure;
+package blue.lapis.nocturne.processor.constantpool.model;
 
 /**
- * Dummy structure used to fill gaps caused by double-width structures.
+ * Thrown when a structure is added to a {@link ConstantPool} which already
+ * holds the {@link ConstantPool#MAX_SIZE maximum number} of structures
+ * permitted by the class file format.
  */
-public class DummyStructure extends ConstantStructure {
+public class ConstantPoolOverflowException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
 
-    public DummyStructure() {
-        super(new byte[0]);
+    public ConstantPoolOverflowException(String message) {
+        super(message);
     }
 
 }
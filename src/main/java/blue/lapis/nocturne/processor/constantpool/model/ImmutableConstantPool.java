@@ -25,55 +25,245 @@
 
 package blue.lapis.nocturne.processor.constantpool.model;
 
-import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
+import static blue.lapis.nocturne.util.helper.ByteHelper.asUshort;
 
-import java.util.List;
+import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 /**
  * Represents the immutable constant pool of a class.
+ *
+ * <p>Structures are not parsed up front, but read from the bytecode of the
+ * class on demand through the offset of each entry. Strings are decoded when
+ * they are first requested.</p>
  */
-public class ImmutableConstantPool extends ConstantPool {
+public class ImmutableConstantPool {
+
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final int length;
+    private final String[] strings;
 
     /**
-     * Instantiates a new {@link ImmutableConstantPool} with the given contents.
+     * Instantiates a new {@link ImmutableConstantPool} over the given
+     * bytecode.
      *
-     * @param contents The contents of the new {@link ConstantPool}
+     * @param bytes The bytecode of the class the constant pool belongs to
+     * @param offsets The offset of each structure within the bytecode, or
+     *     {@code -1} for the unusable entries following double-width
+     *     structures
      * @param length The length of the constant pool in bytes
      */
-    public ImmutableConstantPool(List<ConstantStructure> contents, int length) {
-        super(contents, length);
+    public ImmutableConstantPool(byte[] bytes, int[] offsets, int length) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.length = length;
+        this.strings = new String[offsets.length];
     }
 
     /**
-     * <strong>This method is not supported for {@link ImmutableConstantPool}s.
-     * </strong>
+     * Returns the number of structures contained by this
+     * {@link ImmutableConstantPool}.
      *
-     * <p>Returns the structure at the given index of this
-     * <strong>1-indexed</strong> constant pool.</p>
+     * <p>This method should not be confused with
+     * {@link ImmutableConstantPool#length()}.</p>
      *
-     * @param index The index of the structure to retrieve
-     * @param structure The replacement structure
-     * @throws UnsupportedOperationException Always
-     * @throws IndexOutOfBoundsException If the given index is less than 1 or
-     *     greater than the value returned by {@link ConstantPool#size()}
+     * @return The number of structures contained by this
+     *     {@link ImmutableConstantPool}
      */
-    @Override
-    public void set(int index, ConstantStructure structure)
-            throws UnsupportedOperationException, IndexOutOfBoundsException {
-        throw new UnsupportedOperationException();
+    public int size() {
+        return offsets.length;
     }
 
+    /**
+     * Returns the length of this {@link ImmutableConstantPool} in bytes
+     * (including the two leading bytes denoting the entry count).
+     *
+     * <p>This method should not be confused with
+     * {@link ImmutableConstantPool#size()}.</p>
+     *
+     * @return The length of this {@link ImmutableConstantPool} in bytes
+     */
+    public int length() {
+        return length;
+    }
 
     /**
-     * Adds the structure to the end of this constant pool.
+     * Returns the type of the structure at the given index of this
+     * <strong>1-indexed</strong> constant pool.
      *
-     * @param structure The replacement structure
+     * @param index The index of the structure
+     * @return The type of the structure, or {@link StructureType#DUMMY} for
+     *     the unusable entries following double-width structures
      * @throws IndexOutOfBoundsException If the given index is less than 1 or
-     *     greater than the value returned by {@link ConstantPool#size()}
+     *     greater than the value returned by
+     *     {@link ImmutableConstantPool#size()}
+     */
+    public StructureType getType(int index) throws IndexOutOfBoundsException {
+        int offset = getOffset(index);
+        return offset < 0 ? StructureType.DUMMY : StructureType.fromTag(bytes[offset]);
+    }
+
+    /**
+     * Returns the string held by the Utf8 structure at the given index.
+     *
+     * @param index The index of the Utf8 structure
+     * @return The string held by the structure
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     Utf8 structure
+     */
+    public String getString(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        int offset = getOffset(index, StructureType.UTF_8);
+        String str = strings[index - 1];
+        if (str == null) {
+            // racing threads would decode equal strings, so there's no need to synchronize
+            str = new String(bytes, offset + 3, readUshort(offset + 1), StandardCharsets.UTF_8);
+            strings[index - 1] = str;
+        }
+        return str;
+    }
+
+    /**
+     * Returns the index of the name of the Class structure at the given index.
+     *
+     * @param index The index of the Class structure
+     * @return The index of the Utf8 structure holding the class name
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     Class structure
+     */
+    public int getClassNameIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        return readUshort(getOffset(index, StructureType.CLASS) + 1);
+    }
+
+    /**
+     * Returns the index of the class of the *ref structure at the given index.
+     *
+     * @param index The index of the *ref structure
+     * @return The index of the Class structure of the referenced member
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     *ref structure
+     */
+    public int getRefClassIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        return readUshort(getRefOffset(index) + 1);
+    }
+
+    /**
+     * Returns the index of the NameAndType of the *ref structure at the given
+     * index.
+     *
+     * @param index The index of the *ref structure
+     * @return The index of the NameAndType structure of the referenced member
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     *ref structure
+     */
+    public int getRefNameAndTypeIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        return readUshort(getRefOffset(index) + 3);
+    }
+
+    /**
+     * Returns the index of the name of the NameAndType structure at the given
+     * index.
+     *
+     * @param index The index of the NameAndType structure
+     * @return The index of the Utf8 structure holding the name
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     NameAndType structure
+     */
+    public int getNameAndTypeNameIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        return readUshort(getOffset(index, StructureType.NAME_AND_TYPE) + 1);
+    }
+
+    /**
+     * Returns the index of the descriptor of the NameAndType structure at the
+     * given index.
+     *
+     * @param index The index of the NameAndType structure
+     * @return The index of the Utf8 structure holding the descriptor
+     * @throws IndexOutOfBoundsException If the given index is out of bounds
+     * @throws IllegalArgumentException If the given index does not point to a
+     *     NameAndType structure
      */
-    @Override
-    public void add(ConstantStructure structure) throws IndexOutOfBoundsException {
-        throw new UnsupportedOperationException();
+    public int getNameAndTypeTypeIndex(int index) throws IndexOutOfBoundsException, IllegalArgumentException {
+        return readUshort(getOffset(index, StructureType.NAME_AND_TYPE) + 3);
+    }
+
+    /**
+     * Returns the length in bytes of the structure at the given index.
+     *
+     * @param index The index of the structure
+     * @return The length of the structure in bytes
+     */
+    int getStructureLength(int index) {
+        int offset = getOffset(index);
+        if (offset < 0) {
+            return 0;
+        }
+        StructureType type = StructureType.fromTag(bytes[offset]);
+        return 1 + (type == StructureType.UTF_8 ? readUshort(offset + 1) + 2 : type.getLength());
+    }
+
+    /**
+     * Writes the raw bytes of the structure at the given index to the given
+     * {@link ByteBuffer}.
+     *
+     * @param index The index of the structure
+     * @param buffer The {@link ByteBuffer} to write to
+     */
+    void writeStructure(int index, ByteBuffer buffer) {
+        int structLength = getStructureLength(index);
+        if (structLength > 0) {
+            buffer.put(bytes, offsets[index - 1], structLength);
+        }
+    }
+
+    /**
+     * Returns a key identifying the structure at the given index by its raw
+     * bytes.
+     *
+     * @param index The index of the structure
+     * @return The key of the structure, or {@code null} for the unusable
+     *     entries following double-width structures
+     */
+    StructureKey getKey(int index) {
+        int structLength = getStructureLength(index);
+        return structLength > 0 ? new StructureKey(bytes, offsets[index - 1], structLength) : null;
+    }
+
+    private int getOffset(int index) throws IndexOutOfBoundsException {
+        if (index < 1 || index > size()) {
+            throw new IndexOutOfBoundsException("Constant pool index " + index + " out-of-bounds");
+        }
+        return offsets[index - 1];
+    }
+
+    private int getOffset(int index, StructureType expected) {
+        int offset = getOffset(index);
+        if (offset < 0 || bytes[offset] != expected.getTag()) {
+            throw new IllegalArgumentException("Constant pool index " + index + " does not point to a "
+                    + expected.name() + " structure");
+        }
+        return offset;
+    }
+
+    private int getRefOffset(int index) {
+        int offset = getOffset(index);
+        if (offset < 0 || (bytes[offset] != StructureType.FIELDREF.getTag()
+                && bytes[offset] != StructureType.METHODREF.getTag()
+                && bytes[offset] != StructureType.INTERFACE_METHODREF.getTag())) {
+            throw new IllegalArgumentException("Constant pool index " + index + " does not point to a ref structure");
+        }
+        return offset;
+    }
+
+    private int readUshort(int offset) {
+        return asUshort(bytes[offset], bytes[offset + 1]);
     }
 
 }
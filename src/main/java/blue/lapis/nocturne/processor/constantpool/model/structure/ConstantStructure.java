@@ -34,14 +34,10 @@ public abstract class ConstantStructure {
     private final StructureType type;
 
     protected ConstantStructure(byte[] bytes) {
-        assert this instanceof DummyStructure || bytes.length > 0;
+        assert bytes.length > 0;
         this.bytes = bytes;
-        if (!(this instanceof DummyStructure)) {
-            this.type = StructureType.fromTag(bytes[0]);
-            assert type.getLength() == -1 || bytes.length == type.getLength() + 1;
-        } else {
-            this.type = null;
-        }
+        this.type = StructureType.fromTag(bytes[0]);
+        assert type.getLength() == -1 || bytes.length == type.getLength() + 1;
     }
 
     public byte[] getBytes() {
@@ -52,32 +48,4 @@ public abstract class ConstantStructure {
         return type;
     }
 
-    public static ConstantStructure createConstantStructure(byte[] bytes) {
-        assert bytes.length > 0;
-        StructureType type = StructureType.fromTag(bytes[0]);
-        switch (type) {
-            case CLASS: {
-                return new ClassStructure(bytes);
-            }
-            case FIELDREF: {
-                return new FieldrefStructure(bytes);
-            }
-            case INTERFACE_METHODREF: {
-                return new InterfaceMethodrefStructure(bytes);
-            }
-            case METHODREF: {
-                return new MethodrefStructure(bytes);
-            }
-            case NAME_AND_TYPE: {
-                return new NameAndTypeStructure(bytes);
-            }
-            case UTF_8: {
-                return new Utf8Structure(bytes);
-            }
-            default: {
-                return new IgnoredStructure(bytes);
-            }
-        }
-    }
-
 }
@@ -25,9 +25,6 @@
 
 package blue.lapis.nocturne.processor.constantpool.model.structure;
 
-import java.util.HashMap;
-import java.util.Map;
-
 /**
  * Represents a particular structure type contained by the constant pool.
  */
@@ -46,30 +43,26 @@ public enum StructureType {
     NAME_AND_TYPE(0x0C, 4),
     METHOD_HANDLE(0x0F, 3),
     METHOD_TYPE(0x10, 2),
+    DYNAMIC(0x11, 4),
     INVOKE_DYNAMIC(0x12, 4),
+    MODULE(0x13, 2),
+    PACKAGE(0x14, 2),
     DUMMY(0xFF, -1);
 
-    private static Map<Byte, StructureType> types;
+    private static final StructureType[] TYPES = new StructureType[256];
 
     private final byte tag;
     private final int length;
 
+    static {
+        for (StructureType type : values()) {
+            TYPES[type.tag & 0xFF] = type;
+        }
+    }
+
     StructureType(int tag, int length) {
         this.tag = (byte)tag;
         this.length = length;
-        register((byte)tag);
-    }
-
-    /**
-     * Adds this {@link StructureType} to the registry with the given tag.
-     *
-     * @param tag The tag to associated with this {@link StructureType}
-     */
-    private void register(byte tag) {
-        if (types == null) {
-            types = new HashMap<>();
-        }
-        types.put(tag, this);
     }
 
     /**
@@ -97,10 +90,11 @@ public enum StructureType {
      * @return The {@link StructureType} associated with the given byte tag
      */
     public static StructureType fromTag(byte tag) {
-        if (!types.containsKey(tag)) {
+        StructureType type = TYPES[tag & 0xFF];
+        if (type == null) {
             throw new IllegalArgumentException("No such constant structure with tag " + tag);
         }
-        return types.get(tag);
+        return type;
     }
 
 }
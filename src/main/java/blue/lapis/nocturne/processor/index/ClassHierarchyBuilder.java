@@ -25,86 +25,477 @@
 
 package blue.lapis.nocturne.processor.index;
 
+import blue.lapis.nocturne.processor.index.model.HierarchyComponent;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.processor.index.model.IndexedMethod;
+import blue.lapis.nocturne.processor.index.model.MethodFamily;
+import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
 import blue.lapis.nocturne.util.helper.HierarchyHelper;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Sets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Hierarchy builder for indexed classes.
+ *
+ * <p>The hierarchy of a class consists of its ancestors, its descendants and
+ * the ancestors of its descendants. Classes are assigned dense IDs and split
+ * into connected components, each of which is ordered topologically so that
+ * the closures can be computed as {@link BitSet}s in one pass up and one pass
+ * down. The sets themselves are only materialized when first requested.
+ * Methods are then joined into {@link MethodFamily families} across related
+ * classes, and the fields which each class inherits are resolved.</p>
+ *
+ * <p>Supertypes which are not part of the given classes take no part in the
+ * hierarchies. They are only looked up in the {@link LibraryIndex} to find
+ * the library methods overridden by each family. The passes over a component
+ * containing an inheritance cycle are repeated until its sets stop
+ * changing.</p>
  */
 public class ClassHierarchyBuilder {
 
-    private final ImmutableMap<String, IndexedClass> classes;
+    private static final String[] NO_CLASSES = new String[0];
+
+    private final IndexedClass[] classes;
+    private final Map<String, Integer> classIds = new HashMap<>();
+    private final int[][] parents;
+    private final int[][] children;
+    private final String[][] externalParents;
 
     public ClassHierarchyBuilder(Set<IndexedClass> classes) {
-        this.classes = ImmutableMap.copyOf(classes.stream().collect(Collectors.toMap(IndexedClass::getName, c -> c)));
+        this.classes = classes.toArray(new IndexedClass[classes.size()]);
+        Arrays.sort(this.classes, Comparator.comparing(IndexedClass::getName));
+
+        for (int i = 0; i < this.classes.length; i++) {
+            classIds.put(this.classes[i].getName(), i);
+        }
+
+        this.parents = new int[this.classes.length][];
+        this.externalParents = new String[this.classes.length][];
+        int[] childCounts = new int[this.classes.length];
+        for (int i = 0; i < this.classes.length; i++) {
+            parents[i] = getParentIds(this.classes[i], i, classIds);
+            externalParents[i] = getExternalParents(this.classes[i], classIds);
+            for (int parent : parents[i]) {
+                childCounts[parent]++;
+            }
+        }
+
+        this.children = new int[this.classes.length][];
+        for (int i = 0; i < this.classes.length; i++) {
+            children[i] = new int[childCounts[i]];
+            childCounts[i] = 0;
+        }
+        for (int i = 0; i < this.classes.length; i++) {
+            for (int parent : parents[i]) {
+                children[parent][childCounts[parent]++] = i;
+            }
+        }
+    }
+
+    private static int[] getParentIds(IndexedClass clazz, int id, Map<String, Integer> ids) {
+        int[] parentIds = new int[clazz.getInterfaces().size() + 1];
+        int count = 0;
+        count = addParentId(parentIds, count, ids.get(clazz.getSuperclass()), id);
+        for (String iface : clazz.getInterfaces()) {
+            count = addParentId(parentIds, count, ids.get(iface), id);
+        }
+        return count == parentIds.length ? parentIds : Arrays.copyOf(parentIds, count);
+    }
+
+    private static int addParentId(int[] parentIds, int count, Integer parent, int id) {
+        if (parent == null || parent == id) {
+            return count;
+        }
+        for (int i = 0; i < count; i++) {
+            if (parentIds[i] == parent) {
+                return count;
+            }
+        }
+        parentIds[count] = parent;
+        return count + 1;
+    }
+
+    private static String[] getExternalParents(IndexedClass clazz, Map<String, Integer> ids) {
+        List<String> external = new ArrayList<>(1);
+        if (clazz.getSuperclass() != null && !ids.containsKey(clazz.getSuperclass())) {
+            external.add(clazz.getSuperclass());
+        }
+        for (String iface : clazz.getInterfaces()) {
+            if (!ids.containsKey(iface) && !external.contains(iface)) {
+                external.add(iface);
+            }
+        }
+        return external.isEmpty() ? NO_CLASSES : external.toArray(new String[external.size()]);
     }
 
     public void buildHierarchies() {
-        buildClassHierarchies();
-        buildMethodHierarchies();
-        classes.values().forEach(c -> {
-            c.finalizeHierarchy();
-            c.getMethods().values().forEach(IndexedMethod::finalizeHierarchy);
-        });
-    }
-
-    private void buildClassHierarchies() {
-        for (IndexedClass clazz : classes.values()) {
-            if (!clazz.getHierarchy().isEmpty()) {
-                Set<IndexedClass> toAdd = new HashSet<>();
-                for (IndexedClass child : clazz.getHierarchy()) {
-                    toAdd.addAll(child.getHierarchy());
+        int[] local = new int[classes.length];
+        for (int[] component : findComponents()) {
+            if (component.length == 1) {
+                IndexedClass clazz = classes[component[0]];
+                List<String> external = Arrays.asList(externalParents[component[0]]);
+                clazz.restoreHierarchy(ImmutableList.of());
+                clazz.getMethods().values().forEach(method -> method.setFamily(new MethodFamily(
+                        method.getSignature(), ImmutableList.of(clazz), findOverridden(clazz, method, external))));
+                continue;
+            }
+
+            for (int i = 0; i < component.length; i++) {
+                local[component[i]] = i;
+            }
+            buildComponent(component, local);
+        }
+    }
+
+    /**
+     * Splits the classes into connected components, each listing the IDs of
+     * its classes in ascending order.
+     *
+     * @return The connected components of the classes
+     */
+    private List<int[]> findComponents() {
+        int[] roots = new int[classes.length];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = i;
+        }
+        for (int i = 0; i < classes.length; i++) {
+            for (int parent : parents[i]) {
+                int a = findRoot(roots, i);
+                int b = findRoot(roots, parent);
+                if (a != b) {
+                    roots[Math.max(a, b)] = Math.min(a, b);
+                }
+            }
+        }
+
+        int[] sizes = new int[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            roots[i] = findRoot(roots, i);
+            sizes[roots[i]]++;
+        }
+
+        int[][] byRoot = new int[classes.length][];
+        List<int[]> components = new ArrayList<>();
+        for (int i = 0; i < classes.length; i++) {
+            if (roots[i] == i) {
+                byRoot[i] = new int[sizes[i]];
+                components.add(byRoot[i]);
+                sizes[i] = 0;
+            }
+            byRoot[roots[i]][sizes[roots[i]]++] = i;
+        }
+        return components;
+    }
+
+    private static int findRoot(int[] roots, int id) {
+        int root = id;
+        while (roots[root] != root) {
+            root = roots[root];
+        }
+        while (roots[id] != root) {
+            int next = roots[id];
+            roots[id] = root;
+            id = next;
+        }
+        return root;
+    }
+
+    private void buildComponent(int[] component, int[] local) {
+        // renumber the component in topological order, which keeps related classes close together
+        int[] order = sortTopologically(component, local);
+        IndexedClass[] members = new IndexedClass[component.length];
+        int[] ids = new int[component.length];
+        for (int i = 0; i < order.length; i++) {
+            ids[i] = component[order[i]];
+            members[i] = classes[ids[i]];
+        }
+        for (int i = 0; i < ids.length; i++) {
+            local[ids[i]] = i;
+        }
+        boolean cyclic = false;
+        for (int i = 0; i < ids.length && !cyclic; i++) {
+            for (int parent : parents[ids[i]]) {
+                cyclic |= local[parent] >= i;
+            }
+        }
+
+        BitSet[] related = new BitSet[members.length];
+        for (int i = 0; i < members.length; i++) {
+            related[i] = new BitSet();
+        }
+
+        // on the way down, each set collects the ancestors of its class
+        boolean changed;
+        do {
+            changed = propagate(related, ids, local, true, cyclic);
+        } while (changed);
+
+        // on the way back up, each class inherits everything related to its children
+        for (int i = 0; i < members.length; i++) {
+            related[i].set(i);
+        }
+        do {
+            changed = propagate(related, ids, local, false, cyclic);
+        } while (changed);
+
+        HierarchyComponent<IndexedClass> hierarchy = new HierarchyComponent<>(Arrays.asList(members), related);
+        for (int i = 0; i < members.length; i++) {
+            members[i].deferHierarchy(hierarchy, i);
+        }
+        buildMethodFamilies(members, related, findExternalSupertypes(ids, local, cyclic));
+        resolveInheritedFields(members);
+    }
+
+    /**
+     * Resolves the fields inherited by each class of a component, following
+     * the field lookup rules of the JVM: the fields of the class's interfaces,
+     * in declaration order, take precedence over those of its superclass.
+     *
+     * <p>Classes whose only supertype in the component declares no fields of
+     * its own share that supertype's map.</p>
+     *
+     * @param members The classes of the component in topological order
+     */
+    private void resolveInheritedFields(IndexedClass[] members) {
+        for (IndexedClass clazz : members) {
+            List<IndexedClass> lookupOrder = new ArrayList<>(clazz.getInterfaces().size() + 1);
+            for (String iface : clazz.getInterfaces()) {
+                addSupertype(lookupOrder, clazz, iface);
+            }
+            addSupertype(lookupOrder, clazz, clazz.getSuperclass());
+
+            if (lookupOrder.size() == 1 && lookupOrder.get(0).getFields().isEmpty()) {
+                clazz.setInheritedFields(lookupOrder.get(0).getInheritedFields());
+                continue;
+            }
+            Map<FieldSignature, IndexedClass> inherited = new HashMap<>();
+            for (IndexedClass supertype : lookupOrder) {
+                supertype.getFields().keySet().forEach(sig -> inherited.putIfAbsent(sig, supertype));
+                supertype.getInheritedFields().forEach(inherited::putIfAbsent);
+            }
+            clazz.setInheritedFields(inherited);
+        }
+    }
+
+    private void addSupertype(List<IndexedClass> supertypes, IndexedClass clazz, String name) {
+        Integer id = classIds.get(name);
+        if (id != null && classes[id] != clazz && !supertypes.contains(classes[id])) {
+            supertypes.add(classes[id]);
+        }
+    }
+
+    /**
+     * Collects the supertypes outside of the given classes which each class
+     * of a component inherits from, either directly or through its ancestors.
+     *
+     * @param ids The IDs of the classes in topological order
+     * @param local The index of each class within its component
+     * @param cyclic Whether the component contains a cycle, in which case
+     *     the pass is repeated until the sets stop changing
+     * @return The external supertypes of each class, in topological order
+     */
+    private List<Set<String>> findExternalSupertypes(int[] ids, int[] local, boolean cyclic) {
+        List<Set<String>> external = new ArrayList<>(Collections.nCopies(ids.length, ImmutableSet.of()));
+        boolean changed;
+        do {
+            changed = false;
+            for (int i = 0; i < ids.length; i++) {
+                // most classes inherit the same few supertypes, so sets are shared with a parent wherever possible
+                Set<String> set = external.get(i);
+                for (int parent : parents[ids[i]]) {
+                    set = merge(set, external.get(local[parent]));
+                }
+                set = merge(set, ImmutableSet.copyOf(externalParents[ids[i]]));
+                if (set != external.get(i)) {
+                    external.set(i, set);
+                    changed = true;
                 }
-                clazz.getHierarchy().addAll(toAdd);
-            } else {
-                Set<IndexedClass> parents = getParents(clazz);
-                clazz.getHierarchy().addAll(parents);
             }
-            clazz.getHierarchy().forEach(c -> c.getHierarchy().add(clazz));
+        } while (cyclic && changed);
+        return external;
+    }
+
+    private static Set<String> merge(Set<String> set, Set<String> other) {
+        if (set.containsAll(other)) {
+            return set;
+        } else if (other.containsAll(set)) {
+            return other;
         }
+        return ImmutableSet.<String>builder().addAll(set).addAll(other).build();
     }
 
-    private Set<IndexedClass> getParents(IndexedClass clazz) {
-        return getParents(clazz, true);
+    /**
+     * Merges the sets of each class's parents or children into its own.
+     *
+     * @param related The sets to update, indexed in topological order
+     * @param ids The IDs of the classes in topological order
+     * @param local The index of each class within its component
+     * @param down Whether to walk down from the parents, as opposed to up
+     *     from the children
+     * @param trackChanges Whether another pass may be required, which is
+     *     only the case if the component contains a cycle
+     * @return Whether another pass is required
+     */
+    private boolean propagate(BitSet[] related, int[] ids, int[] local, boolean down, boolean trackChanges) {
+        boolean changed = false;
+        for (int step = 0; step < ids.length; step++) {
+            int index = down ? step : ids.length - 1 - step;
+            BitSet set = related[index];
+            int before = trackChanges ? set.cardinality() : 0;
+            for (int other : down ? parents[ids[index]] : children[ids[index]]) {
+                if (down) {
+                    set.set(local[other]);
+                }
+                set.or(related[local[other]]);
+            }
+            changed |= trackChanges && set.cardinality() != before;
+        }
+        return changed;
     }
 
-    private Set<IndexedClass> getParents(IndexedClass clazz, boolean returnEmpty) {
-        Set<IndexedClass> parents = new HashSet<>();
+    /**
+     * Orders the given component so that every class outside of a cycle comes
+     * before all of its descendants.
+     *
+     * <p>The order is the reverse postorder of a depth-first walk down from
+     * the component's roots, which also tends to keep each class close to its
+     * descendants. Classes in an inheritance cycle are only walked afterwards,
+     * in name order, and may come before some of their ancestors.</p>
+     *
+     * @param component The IDs of the classes in the component
+     * @param local The index of each class within its component
+     * @return The component-local indices of the classes in topological order
+     */
+    private int[] sortTopologically(int[] component, int[] local) {
+        int[] order = new int[component.length];
+        int remaining = component.length;
+
+        boolean[] visited = new boolean[component.length];
+        int[] stack = new int[component.length];
+        int[] nextChild = new int[component.length];
+        for (int pass = 0; pass < 2; pass++) {
+            for (int root = 0; root < component.length; root++) {
+                if (visited[root] || (pass == 0 && parents[component[root]].length != 0)) {
+                    continue;
+                }
 
-        Set<String> parentNames = Sets.newHashSet(clazz.getInterfaces());
-        parentNames.add(clazz.getSuperclass());
-        Set<IndexedClass> directParents = parentNames.stream().filter(classes::containsKey)
-                .map(classes::get).collect(Collectors.toSet());
-        parents.addAll(directParents);
+                visited[root] = true;
+                stack[0] = root;
+                int depth = 1;
+                while (depth > 0) {
+                    int current = stack[depth - 1];
+                    int[] currentChildren = children[component[current]];
+                    if (nextChild[current] < currentChildren.length) {
+                        int child = local[currentChildren[nextChild[current]++]];
+                        if (!visited[child]) {
+                            visited[child] = true;
+                            stack[depth++] = child;
+                        }
+                    } else {
+                        order[--remaining] = current;
+                        depth--;
+                    }
+                }
+            }
+        }
+        return order;
+    }
 
-        for (IndexedClass ic : directParents) {
-            parents.addAll(getParents(ic, false));
+    /**
+     * Joins the methods of a component into {@link MethodFamily families}.
+     *
+     * <p>Two methods with the same signature are joined if their classes are
+     * related and either method is visible from the other's class. Private
+     * methods are never joined.</p>
+     *
+     * @param members The classes of the component in topological order
+     * @param related The set of classes related to each class
+     * @param external The external supertypes of each class
+     */
+    private static void buildMethodFamilies(IndexedClass[] members, BitSet[] related, List<Set<String>> external) {
+        // give every method of the component a dense ID, remembering which class declares it
+        List<IndexedMethod> methods = new ArrayList<>();
+        List<Integer> owners = new ArrayList<>();
+        Map<IndexedMethod, Integer> ids = new IdentityHashMap<>();
+        for (int i = 0; i < members.length; i++) {
+            for (IndexedMethod method : members[i].getMethods().values()) {
+                ids.put(method, methods.size());
+                methods.add(method);
+                owners.add(i);
+            }
         }
 
-        return !parents.isEmpty() ? parents : returnEmpty ? new HashSet<>() : Sets.newHashSet(clazz);
+        int[] roots = new int[methods.size()];
+        for (int id = 0; id < roots.length; id++) {
+            roots[id] = id;
+        }
+        for (int id = 0; id < roots.length; id++) {
+            IndexedMethod method = methods.get(id);
+            if (method.getVisibility() == IndexedMethod.Visibility.PRIVATE) {
+                continue;
+            }
+
+            // relatedness is symmetric, so each pair of classes only needs to be looked at once
+            int owner = owners.get(id);
+            for (int i = related[owner].nextSetBit(owner + 1); i >= 0; i = related[owner].nextSetBit(i + 1)) {
+                IndexedMethod other = members[i].getMethods().get(method.getSignature());
+                if (other != null && isJoined(members[owner], method, members[i], other)) {
+                    int a = findRoot(roots, id);
+                    int b = findRoot(roots, ids.get(other));
+                    if (a != b) {
+                        roots[Math.max(a, b)] = Math.min(a, b);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<IndexedClass>> familyClasses = new HashMap<>();
+        Map<Integer, Set<String>> familyLibraryClasses = new HashMap<>();
+        for (int id = 0; id < roots.length; id++) {
+            int root = findRoot(roots, id);
+            int owner = owners.get(id);
+            familyClasses.computeIfAbsent(root, r -> new ArrayList<>()).add(members[owner]);
+            List<String> overridden = findOverridden(members[owner], methods.get(id), external.get(owner));
+            if (!overridden.isEmpty()) {
+                familyLibraryClasses.computeIfAbsent(root, r -> new LinkedHashSet<>()).addAll(overridden);
+            }
+        }
+        Map<Integer, MethodFamily> families = new HashMap<>();
+        for (int id = 0; id < roots.length; id++) {
+            IndexedMethod method = methods.get(id);
+            method.setFamily(families.computeIfAbsent(findRoot(roots, id), root -> new MethodFamily(
+                    method.getSignature(), familyClasses.get(root),
+                    ImmutableList.copyOf(familyLibraryClasses.getOrDefault(root, ImmutableSet.of())))));
+        }
     }
 
-    private void buildMethodHierarchies() {
-        for (IndexedClass clazz : classes.values()) {
-            clazz.getMethods().values().stream()
-                    .filter(method -> method.getVisibility() != IndexedMethod.Visibility.PRIVATE)
-                    .forEach(method -> {
-                        method.getHierarchy().addAll(clazz.getHierarchy().stream()
-                                .filter(c -> c.getMethods().containsKey(method.getSignature())
-                                && HierarchyHelper.isVisible(
-                                        clazz.getName(), c.getName(),
-                                        c.getMethods().get(method.getSignature()).getVisibility()))
-                                .collect(Collectors.toSet()));
-                    });
+    private static List<String> findOverridden(IndexedClass clazz, IndexedMethod method, Collection<String> external) {
+        if (external.isEmpty() || method.getVisibility() == IndexedMethod.Visibility.PRIVATE) {
+            return ImmutableList.of();
         }
+        return LibraryIndex.getOverriddenClasses(clazz.getName(), external, method.getSignature());
+    }
+
+    private static boolean isJoined(IndexedClass class1, IndexedMethod method1, IndexedClass class2,
+            IndexedMethod method2) {
+        return (method1.getVisibility() != IndexedMethod.Visibility.PRIVATE
+                && HierarchyHelper.isVisible(class1.getName(), class2.getName(), method2.getVisibility()))
+                || (method2.getVisibility() != IndexedMethod.Visibility.PRIVATE
+                && HierarchyHelper.isVisible(class2.getName(), class1.getName(), method1.getVisibility()));
     }
 
 }
@@ -25,29 +25,22 @@
 
 package blue.lapis.nocturne.processor.index;
 
-import static blue.lapis.nocturne.util.Constants.CLASS_FORMAT_CONSTANT_POOL_OFFSET;
-import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
-import static blue.lapis.nocturne.util.helper.ByteHelper.asUshort;
-import static com.google.common.base.Preconditions.checkArgument;
-
-import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
 import blue.lapis.nocturne.jar.model.JarClassEntry;
 import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
 import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.processor.ClassFileReader;
+import blue.lapis.nocturne.processor.ClassFileVisitor;
 import blue.lapis.nocturne.processor.ClassProcessor;
-import blue.lapis.nocturne.processor.constantpool.ConstantPoolReader;
-import blue.lapis.nocturne.processor.constantpool.model.ConstantPool;
 import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
-import blue.lapis.nocturne.processor.constantpool.model.structure.ClassStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.Utf8Structure;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.processor.index.model.IndexedField;
 import blue.lapis.nocturne.processor.index.model.IndexedMethod;
 import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
 import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+import blue.lapis.nocturne.util.MemberType;
+import blue.lapis.nocturne.util.SymbolTable;
 
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -58,10 +51,18 @@ import java.util.Optional;
 public class ClassIndexer extends ClassProcessor {
 
     private final JarClassEntry jce;
+    private final ClassSet classSet;
 
-    public ClassIndexer(JarClassEntry clazz) {
-        super(clazz.getName(), clazz.getContent());
+    /**
+     * Constructs a new {@link ClassIndexer} for the given class.
+     *
+     * @param clazz The class to index
+     * @param classSet The {@link ClassSet} the class belongs to
+     */
+    public ClassIndexer(JarClassEntry clazz, ClassSet classSet) {
+        super(clazz.getName(), clazz.getOriginalContent());
         this.jce = clazz;
+        this.classSet = classSet;
     }
 
     /**
@@ -71,113 +72,87 @@ public class ClassIndexer extends ClassProcessor {
      * @return The created index of the class
      */
     public IndexedClass index() {
-        ImmutableConstantPool pool = new ConstantPoolReader(getClassName(), getOriginalBytes()).read(); // get the pool
-
-        ByteBuffer buffer = ByteBuffer.wrap(bytes); // create a buffer for the bytecode
-        buffer.position(CLASS_FORMAT_CONSTANT_POOL_OFFSET + pool.length() + 4); // position the buffer
-
-        final String superClass = getClassNameFromIndex(pool, asUshort(buffer.getShort())); // read the superclass name
-
-        int interfaceCount = asUshort(buffer.getShort()); // read the interface count
-        List<String> interfaces = new ArrayList<>();
-        for (int i = 0; i < interfaceCount; i++) {
-            interfaces.add(getClassNameFromIndex(pool, buffer.getShort())); // read each interface name
-        }
-
-        if (getClassName().contains(INNER_CLASS_SEPARATOR_CHAR + "")) {
-            int lastIndex = getClassName().lastIndexOf(INNER_CLASS_SEPARATOR_CHAR);
-            Optional<JarClassEntry> parent = Main.getLoadedJar()
-                    .getClass(getClassName().substring(0, lastIndex));
-            if (parent.isPresent()) {
-                String simpleName = getClassName().substring(lastIndex + 1);
-                parent.get().getCurrentInnerClassNames().put(simpleName, simpleName);
-            }
-        }
+        ClassFileReader reader = new ClassFileReader(getClassName(), getOriginalBytes());
+        IndexingVisitor visitor = new IndexingVisitor(reader.getConstantPool());
+        reader.accept(visitor); // read the class in a single pass
 
-        List<IndexedField> fields = indexFields(buffer, pool);
+        registerInnerClass(getClassName(), classSet);
 
-        List<IndexedMethod> methods = indexMethods(buffer, pool);
-
-        return new IndexedClass(getClassName(), pool, superClass, interfaces, fields, methods);
+        return new IndexedClass(getClassName(), reader.getConstantPool(), visitor.superClass, visitor.interfaces,
+                visitor.fields, visitor.methods);
     }
 
     /**
-     * Skips the fields of the provided buffer, given it is positioned at their
-     * immediate start.
+     * Populates the current members of the given class's
+     * {@link JarClassEntry}, and its name in its parent's inner classes, from
+     * an existing index rather than from the class file.
      *
-     * @param buffer The buffer to read from
+     * @param clazz The existing index of the class
+     * @param classSet The {@link ClassSet} the class belongs to
      */
-    private List<IndexedField> indexFields(ByteBuffer buffer, ConstantPool pool) {
-        List<IndexedField> fields = new ArrayList<>();
-
-        int fieldCount = buffer.getShort(); // read the field count
-        for (int i = 0; i < fieldCount; i++) {
-            IndexedField.Visibility vis = IndexedField.Visibility.fromAccessFlags(buffer.getShort()); // get the access
-            String name = getString(pool, buffer.getShort()); // get the name
-            Type desc = Type.fromString(getString(pool, buffer.getShort())); // get the descriptor
-            FieldSignature sig = new FieldSignature(name, desc);
-            fields.add(new IndexedField(sig, vis));
-            jce.getCurrentFields().put(sig, sig); // index the field name for future reference
-            skipAttributes(buffer);
-        }
+    public static void restoreEntry(IndexedClass clazz, ClassSet classSet) {
+        JarClassEntry entry = classSet.getClass(clazz.getName()).get();
+        clazz.getFields().keySet().forEach(sig -> entry.getCurrentFields().put(sig, sig));
+        clazz.getMethods().keySet().forEach(sig -> entry.getCurrentMethods().put(sig, sig));
 
-        return fields;
+        registerInnerClass(clazz.getName(), classSet);
     }
 
-    /**
-     * Reads the methods of the provided buffer, given it is positioned at their
-     * immediate start.
-     *
-     * @param buffer The buffer to read from
-     * @param pool The constant pool to read strings from
-     * @return A {@link List} of read {@link IndexedMethod}s
-     */
-    private List<IndexedMethod> indexMethods(ByteBuffer buffer, ConstantPool pool) {
-        List<IndexedMethod> methods = new ArrayList<>();
-
-        int methodCount = asUshort(buffer.getShort());
-        for (int i = 0; i < methodCount; i++) {
-            IndexedMethod.Visibility vis = IndexedMethod.Visibility.fromAccessFlags(buffer.getShort());
-            String name = getString(pool, buffer.getShort());
-            MethodDescriptor desc = MethodDescriptor.fromString(getString(pool, buffer.getShort()));
-            MethodSignature sig = new MethodSignature(name, desc);
-            methods.add(new IndexedMethod(sig, vis));
-            jce.getCurrentMethods().put(sig, sig); // index the method sig for future reference
-
-            skipAttributes(buffer);
+    private static void registerInnerClass(String className, ClassSet classSet) {
+        Optional<JarClassEntry> parent = classSet.getOuterClass(className);
+        if (parent.isPresent()) {
+            String simpleName = className.substring(parent.get().getName().length() + 1);
+            parent.get().getCurrentInnerClassNames().put(simpleName, simpleName);
         }
+    }
 
-        return methods;
+    private static String getClassNameFromIndex(ImmutableConstantPool pool, int index) {
+        return pool.getString(pool.getClassNameIndex(index));
     }
 
     /**
-     * Skips the upcoming attribute table of the provided buffer, given it is
-     * positioned at their immediate start.
-     *
-     * @param buffer The buffer to read from
+     * Collects the superclass, interfaces and members of the class.
      */
-    private void skipAttributes(ByteBuffer buffer) {
-        int attrCount = asUshort(buffer.getShort()); // read the attribute count
-        for (int j = 0; j < attrCount; j++) {
-            buffer.position(buffer.position() + 2); // skip the attribute name
-            // the length is a uint, but anything larger than Integer.MAX_VALUE won't fit in a Java array/buffer
-            // also, why the hell would you have a 2 GB attribute in the first place?
-            int attrLen = buffer.getInt(); // get the body length
-            buffer.position(buffer.position() + attrLen); // skip the attribute body
+    private class IndexingVisitor implements ClassFileVisitor {
+
+        private final ImmutableConstantPool pool;
+
+        private String superClass;
+        private final List<String> interfaces = new ArrayList<>();
+        private final List<IndexedField> fields = new ArrayList<>();
+        private final List<IndexedMethod> methods = new ArrayList<>();
+
+        IndexingVisitor(ImmutableConstantPool pool) {
+            this.pool = pool;
         }
-    }
 
-    private String getString(ConstantPool pool, int strIndex) {
-        assert strIndex <= pool.size();
-        ConstantStructure cs = pool.get(strIndex);
-        assert cs instanceof Utf8Structure;
-        return ((Utf8Structure) cs).asString();
-    }
+        @Override
+        public void visitClass(int offset, int access, int thisClassIndex, int superClassIndex,
+                int[] interfaceIndices) {
+            superClass = getClassNameFromIndex(pool, superClassIndex);
+            for (int index : interfaceIndices) {
+                interfaces.add(getClassNameFromIndex(pool, index));
+            }
+        }
+
+        @Override
+        public void visitMember(MemberType type, int access, int nameIndex, int descriptorIndex) {
+            String name = pool.getString(nameIndex);
+            if (type == MemberType.FIELD) {
+                IndexedField.Visibility vis = IndexedField.Visibility.fromAccessFlags((short) access);
+                FieldSignature sig = SymbolTable.intern(
+                        new FieldSignature(name, Type.fromString(pool.getString(descriptorIndex))));
+                fields.add(new IndexedField(sig, vis));
+                jce.getCurrentFields().put(sig, sig); // index the field name for future reference
+            } else {
+                IndexedMethod.Visibility vis = IndexedMethod.Visibility.fromAccessFlags((short) access);
+                MethodSignature sig = SymbolTable.intern(new MethodSignature(name,
+                        MethodDescriptor.fromString(pool.getString(descriptorIndex))));
+                methods.add(new IndexedMethod(sig, vis));
+                jce.getCurrentMethods().put(sig, sig); // index the method sig for future reference
+            }
+        }
 
-    private String getClassNameFromIndex(ConstantPool pool, int index) {
-        ConstantStructure classStruct = pool.get(index);
-        checkArgument(classStruct instanceof ClassStructure, "Index does not point to class structure");
-        return getString(pool, ((ClassStructure) classStruct).getNameIndex());
     }
 
 }
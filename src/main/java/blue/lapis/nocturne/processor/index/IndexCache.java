@@ -0,0 +1,529 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor.index;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.processor.index.model.HierarchyComponent;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+import blue.lapis.nocturne.processor.index.model.IndexedField;
+import blue.lapis.nocturne.processor.index.model.IndexedMethod;
+import blue.lapis.nocturne.processor.index.model.MethodFamily;
+import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
+import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+import blue.lapis.nocturne.util.SymbolTable;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Static utility class for persisting the index and finalized hierarchies of
+ * a JAR to disk, so that they need not be rebuilt when the same JAR is loaded
+ * again.
+ *
+ * <p>Cache files are keyed by a hash of the classes contained by the JAR and
+ * of the libraries in the {@link LibraryIndex}, which determine the library
+ * methods overridden by each {@link MethodFamily}. A file written with a
+ * different {@link #FORMAT_VERSION} is treated as a miss and overwritten.</p>
+ *
+ * <p>Hierarchies are persisted as the {@link HierarchyComponent components}
+ * they were computed from, so that they are neither materialized when they
+ * are stored nor when they are restored.</p>
+ */
+public final class IndexCache {
+
+    /**
+     * The version of the cache format. This must be incremented whenever the
+     * layout of cache files or the semantics of the cached data change.
+     */
+    public static final int FORMAT_VERSION = 6;
+
+    private static final int MAGIC = 0x4E494458; // "NIDX"
+    private static final String CACHE_DIRECTORY_NAME = "cache";
+    private static final String CACHE_FILE_EXTENSION = ".idx";
+
+    private static volatile Path cacheDirectory;
+
+    private IndexCache() {
+    }
+
+    /**
+     * Returns whether the cache may be used, which requires either the global
+     * configuration directory to be available or a cache directory to have
+     * been set explicitly.
+     *
+     * @return Whether the cache may be used
+     */
+    public static boolean isEnabled() {
+        return getCacheDirectory().isPresent();
+    }
+
+    /**
+     * Returns the directory cache files are written to.
+     *
+     * @return The cache directory, or {@link Optional#empty()} if the cache
+     *     may not be used
+     */
+    public static Optional<Path> getCacheDirectory() {
+        Path directory = cacheDirectory;
+        if (directory != null) {
+            return Optional.of(directory);
+        }
+        if (Main.getPropertiesHelper() == null) {
+            return Optional.empty(); // there's nowhere to put it
+        }
+        return Optional.of(Main.getPropertiesHelper().getNocturneDirectory().toPath().resolve(CACHE_DIRECTORY_NAME));
+    }
+
+    /**
+     * Sets the directory cache files are written to in place of the one in
+     * the global configuration directory, e.g. so that tests don't write to
+     * the configuration of the user running them.
+     *
+     * @param directory The cache directory, or {@code null} to use the
+     *     global configuration directory again
+     */
+    public static void setCacheDirectory(Path directory) {
+        cacheDirectory = directory;
+        LibraryIndex.reset(); // the opened libraries still refer to the previous directory
+    }
+
+    /**
+     * Computes the key identifying the cache file for the given classes and
+     * the current libraries.
+     *
+     * @param classes The classes to compute the key for
+     * @return The computed key
+     */
+    public static String computeKey(Collection<JarClassEntry> classes) {
+        List<JarClassEntry> sorted = new ArrayList<>(classes);
+        sorted.sort(Comparator.comparing(JarClassEntry::getName));
+
+        Hasher hasher = Hashing.sha1().newHasher();
+        for (JarClassEntry entry : sorted) {
+            hasher.putString(entry.getName(), StandardCharsets.UTF_8);
+            hasher.putInt(entry.getOriginalContent().length);
+            hasher.putBytes(entry.getOriginalContent());
+        }
+        hasher.putString(LibraryIndex.getFingerprint(), StandardCharsets.UTF_8);
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Attempts to restore the index of the given {@link ClassSet} from the
+     * cache, populating the current members of each {@link JarClassEntry} on
+     * success.
+     *
+     * <p>The restored index is returned rather than being published to
+     * {@link IndexedClass#INDEXED_CLASSES}, as the {@link ClassSet} may not be
+     * the loaded one yet.</p>
+     *
+     * @param key The key of the cache file, as returned by
+     *     {@link #computeKey(Collection)}
+     * @param classSet The {@link ClassSet} to restore the index of
+     * @return The restored index, keyed by class name, or
+     *     {@link Optional#empty()} if it could not be restored
+     */
+    public static Optional<Map<String, IndexedClass>> load(String key, ClassSet classSet) {
+        Optional<Path> path = getCacheFile(key);
+        if (!path.isPresent() || !Files.exists(path.get())) {
+            return Optional.empty();
+        }
+
+        // the file is read whole rather than mapped, as a mapped file couldn't be replaced on Windows
+        Map<String, IndexedClass> restored;
+        try {
+            restored = read(ByteBuffer.wrap(Files.readAllBytes(path.get())), classSet);
+        } catch (IOException | RuntimeException ex) {
+            Main.getLogger().warning("Failed to read index cache " + path.get() + ": " + ex);
+            restored = null;
+        }
+
+        if (restored == null) {
+            try {
+                Files.deleteIfExists(path.get()); // it's stale, so get rid of it
+            } catch (IOException ignored) {
+                // it'll be overwritten later anyway
+            }
+            return Optional.empty();
+        }
+
+        restored.values().forEach(clazz -> ClassIndexer.restoreEntry(clazz, classSet));
+        return Optional.of(restored);
+    }
+
+    /**
+     * Writes the given indexed classes and their finalized hierarchies to the
+     * cache. Failures are logged and otherwise ignored.
+     *
+     * @param key The key of the cache file, as returned by
+     *     {@link #computeKey(Collection)}
+     * @param classes The indexed classes to write
+     */
+    public static void store(String key, Collection<IndexedClass> classes) {
+        Optional<Path> path = getCacheFile(key);
+        if (!path.isPresent()) {
+            return;
+        }
+
+        List<IndexedClass> classList = new ArrayList<>(classes);
+        Map<IndexedClass, Integer> classIndices = new HashMap<>();
+        for (int i = 0; i < classList.size(); i++) {
+            classIndices.put(classList.get(i), i);
+        }
+        Map<MethodFamily, Integer> familyIndices = new IdentityHashMap<>();
+        List<MethodFamily> families = new ArrayList<>();
+        Map<HierarchyComponent<IndexedClass>, Integer> componentIndices = new IdentityHashMap<>();
+        List<HierarchyComponent<IndexedClass>> components = new ArrayList<>();
+        StringTable strings = new StringTable();
+
+        // the class table is written first so that strings can be collected along the way
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(body)) {
+            out.writeInt(classList.size());
+            for (IndexedClass clazz : classList) {
+                out.writeInt(strings.get(clazz.getName()));
+                out.writeInt(strings.get(clazz.getSuperclass()));
+                out.writeInt(clazz.getInterfaces().size());
+                for (String iface : clazz.getInterfaces()) {
+                    out.writeInt(strings.get(iface));
+                }
+
+                out.writeInt(clazz.getFields().size());
+                for (IndexedField field : clazz.getFields().values()) {
+                    out.writeInt(strings.get(field.getSignature().getName()));
+                    out.writeInt(strings.get(field.getSignature().getType().toString()));
+                    out.writeByte(field.getVisibility() != null ? field.getVisibility().getTag() : -1);
+                }
+
+                out.writeInt(clazz.getMethods().size());
+                for (IndexedMethod method : clazz.getMethods().values()) {
+                    out.writeInt(strings.get(method.getSignature().getName()));
+                    out.writeInt(strings.get(method.getSignature().getDescriptor().toString()));
+                    out.writeByte(method.getVisibility() != null ? method.getVisibility().getTag() : -1);
+                    out.writeInt(familyIndices.computeIfAbsent(method.getFamily(), family -> {
+                        families.add(family);
+                        return families.size() - 1;
+                    }));
+                }
+
+                out.writeInt(clazz.getInheritedFields().size());
+                for (Map.Entry<FieldSignature, IndexedClass> field : clazz.getInheritedFields().entrySet()) {
+                    out.writeInt(strings.get(field.getKey().getName()));
+                    out.writeInt(strings.get(field.getKey().getType().toString()));
+                    out.writeInt(classIndices.get(field.getValue()));
+                }
+
+                Optional<HierarchyComponent<IndexedClass>> component = clazz.getHierarchyComponent();
+                if (component.isPresent()) {
+                    out.writeInt(componentIndices.computeIfAbsent(component.get(), c -> {
+                        components.add(c);
+                        return components.size() - 1;
+                    }));
+                    out.writeInt(clazz.getHierarchyComponentIndex());
+                } else {
+                    out.writeInt(-1);
+                    writeHierarchy(out, clazz.getHierarchy(), classIndices);
+                }
+            }
+
+            out.writeInt(components.size());
+            for (HierarchyComponent<IndexedClass> component : components) {
+                writeHierarchy(out, component.getMembers(), classIndices);
+                for (int i = 0; i < component.getMembers().size(); i++) {
+                    long[] related = component.getRelated(i).toLongArray();
+                    out.writeInt(related.length);
+                    for (long word : related) {
+                        out.writeLong(word);
+                    }
+                }
+            }
+
+            out.writeInt(families.size());
+            for (MethodFamily family : families) {
+                out.writeInt(family.getLibraryClasses().size());
+                for (String libraryClass : family.getLibraryClasses()) {
+                    out.writeInt(strings.get(libraryClass));
+                }
+            }
+        } catch (IOException ex) {
+            Main.getLogger().warning("Failed to serialize index cache: " + ex);
+            return;
+        }
+
+        if (!strings.isLossless()) {
+            return; // some names can't be faithfully represented, so don't risk restoring them incorrectly
+        }
+
+        try {
+            Files.createDirectories(path.get().getParent());
+            Path temp = Files.createTempFile(path.get().getParent(), key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                strings.write(out);
+                body.writeTo(out);
+            }
+            Files.move(temp, path.get(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            Main.getLogger().warning("Failed to write index cache " + path.get() + ": " + ex);
+        }
+    }
+
+    private static Map<String, IndexedClass> read(ByteBuffer buffer, ClassSet classSet) {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION) {
+            return null;
+        }
+
+        try {
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int classCount = buffer.getInt();
+            if (classCount != classSet.getClasses().size()) {
+                return null;
+            }
+
+            IndexedClass[] classes = new IndexedClass[classCount];
+            int[][] classHierarchies = new int[classCount][];
+            int[] classComponents = new int[classCount];
+            int[] componentIndices = new int[classCount];
+            List<List<FieldSignature>> inheritedFields = new ArrayList<>(classCount);
+            int[][] inheritedFieldOwners = new int[classCount][];
+            Map<Integer, List<IndexedMethod>> familyMethods = new HashMap<>();
+            Map<Integer, List<Integer>> familyOwners = new HashMap<>();
+            for (int i = 0; i < classCount; i++) {
+                String name = getString(strings, buffer.getInt());
+                if (!classSet.getClass(name).isPresent()) {
+                    return null;
+                }
+                final String superClass = getString(strings, buffer.getInt());
+
+                List<String> interfaces = new ArrayList<>();
+                int interfaceCount = buffer.getInt();
+                for (int j = 0; j < interfaceCount; j++) {
+                    interfaces.add(getString(strings, buffer.getInt()));
+                }
+
+                List<IndexedField> fields = new ArrayList<>();
+                int fieldCount = buffer.getInt();
+                for (int j = 0; j < fieldCount; j++) {
+                    FieldSignature sig = SymbolTable.intern(new FieldSignature(getString(strings, buffer.getInt()),
+                            Type.fromString(getString(strings, buffer.getInt()))));
+                    byte vis = buffer.get();
+                    fields.add(new IndexedField(sig, vis != -1 ? IndexedField.Visibility.fromAccessFlags(vis) : null));
+                }
+
+                List<IndexedMethod> methods = new ArrayList<>();
+                int methodCount = buffer.getInt();
+                for (int j = 0; j < methodCount; j++) {
+                    MethodSignature sig = SymbolTable.intern(new MethodSignature(getString(strings, buffer.getInt()),
+                            MethodDescriptor.fromString(getString(strings, buffer.getInt()))));
+                    byte vis = buffer.get();
+                    IndexedMethod method
+                            = new IndexedMethod(sig, vis != -1 ? IndexedMethod.Visibility.fromAccessFlags(vis) : null);
+                    methods.add(method);
+
+                    int family = buffer.getInt();
+                    familyMethods.computeIfAbsent(family, f -> new ArrayList<>()).add(method);
+                    familyOwners.computeIfAbsent(family, f -> new ArrayList<>()).add(i);
+                }
+
+                List<FieldSignature> inherited = new ArrayList<>();
+                inheritedFieldOwners[i] = new int[buffer.getInt()];
+                for (int j = 0; j < inheritedFieldOwners[i].length; j++) {
+                    inherited.add(SymbolTable.intern(new FieldSignature(getString(strings, buffer.getInt()),
+                            Type.fromString(getString(strings, buffer.getInt())))));
+                    inheritedFieldOwners[i][j] = buffer.getInt();
+                }
+                inheritedFields.add(inherited);
+
+                classComponents[i] = buffer.getInt();
+                if (classComponents[i] != -1) {
+                    componentIndices[i] = buffer.getInt();
+                } else {
+                    classHierarchies[i] = readHierarchy(buffer);
+                }
+                classes[i] = new IndexedClass(name, null, superClass, interfaces, fields, methods);
+            }
+
+            List<HierarchyComponent<IndexedClass>> components = new ArrayList<>();
+            int componentCount = buffer.getInt();
+            for (int i = 0; i < componentCount; i++) {
+                List<IndexedClass> members = resolveHierarchy(readHierarchy(buffer), classes);
+                BitSet[] related = new BitSet[members.size()];
+                for (int j = 0; j < related.length; j++) {
+                    long[] words = new long[buffer.getInt()];
+                    for (int k = 0; k < words.length; k++) {
+                        words[k] = buffer.getLong();
+                    }
+                    related[j] = BitSet.valueOf(words);
+                    if (related[j].length() > members.size()) {
+                        return null;
+                    }
+                }
+                components.add(new HierarchyComponent<>(members, related));
+            }
+
+            List<List<String>> familyLibraryClasses = new ArrayList<>();
+            int familyCount = buffer.getInt();
+            for (int i = 0; i < familyCount; i++) {
+                List<String> libraryClasses = new ArrayList<>();
+                int libraryClassCount = buffer.getInt();
+                for (int j = 0; j < libraryClassCount; j++) {
+                    libraryClasses.add(SymbolTable.intern(getString(strings, buffer.getInt())));
+                }
+                familyLibraryClasses.add(libraryClasses);
+            }
+
+            Map<String, IndexedClass> restored = new HashMap<>();
+            for (int i = 0; i < classCount; i++) {
+                if (classComponents[i] == -1) {
+                    classes[i].restoreHierarchy(resolveHierarchy(classHierarchies[i], classes));
+                } else {
+                    HierarchyComponent<IndexedClass> component = components.get(classComponents[i]);
+                    if (component.getMembers().get(componentIndices[i]) != classes[i]) {
+                        return null;
+                    }
+                    classes[i].deferHierarchy(component, componentIndices[i]);
+                }
+                Map<FieldSignature, IndexedClass> inherited = new HashMap<>();
+                for (int j = 0; j < inheritedFieldOwners[i].length; j++) {
+                    inherited.put(inheritedFields.get(i).get(j), classes[inheritedFieldOwners[i][j]]);
+                }
+                classes[i].setInheritedFields(inherited);
+                restored.put(classes[i].getName(), classes[i]);
+            }
+            for (Map.Entry<Integer, List<IndexedMethod>> entry : familyMethods.entrySet()) {
+                List<IndexedClass> owners = familyOwners.get(entry.getKey()).stream().map(i -> classes[i])
+                        .collect(Collectors.toList());
+                MethodFamily family = new MethodFamily(entry.getValue().get(0).getSignature(), owners,
+                        familyLibraryClasses.get(entry.getKey()));
+                entry.getValue().forEach(method -> method.setFamily(family));
+            }
+            return restored.size() == classCount ? restored : null;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            return null; // the file is truncated or otherwise corrupt
+        }
+    }
+
+    private static void writeHierarchy(DataOutputStream out, Collection<IndexedClass> hierarchy,
+            Map<IndexedClass, Integer> classIndices) throws IOException {
+        out.writeInt(hierarchy.size());
+        for (IndexedClass member : hierarchy) {
+            out.writeInt(classIndices.get(member));
+        }
+    }
+
+    private static int[] readHierarchy(ByteBuffer buffer) {
+        int[] hierarchy = new int[buffer.getInt()];
+        for (int i = 0; i < hierarchy.length; i++) {
+            hierarchy[i] = buffer.getInt();
+        }
+        return hierarchy;
+    }
+
+    private static List<IndexedClass> resolveHierarchy(int[] indices, IndexedClass[] classes) {
+        List<IndexedClass> hierarchy = new ArrayList<>(indices.length);
+        for (int index : indices) {
+            hierarchy.add(classes[index]);
+        }
+        return hierarchy;
+    }
+
+    private static String getString(String[] strings, int index) {
+        return index != -1 ? strings[index] : null;
+    }
+
+    private static Optional<Path> getCacheFile(String key) {
+        return getCacheDirectory().map(directory -> directory.resolve(key + CACHE_FILE_EXTENSION));
+    }
+
+    /**
+     * A table of distinct strings, referenced by index from the rest of the
+     * cache file.
+     */
+    private static class StringTable {
+
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<byte[]> encoded = new ArrayList<>();
+        private boolean lossless = true;
+
+        private int get(String str) {
+            if (str == null) {
+                return -1;
+            }
+            return indices.computeIfAbsent(str, s -> {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                lossless &= new String(bytes, StandardCharsets.UTF_8).equals(s);
+                encoded.add(bytes);
+                return encoded.size() - 1;
+            });
+        }
+
+        private boolean isLossless() {
+            return lossless;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            out.writeInt(encoded.size());
+            for (byte[] bytes : encoded) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,659 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor.index;
+
+import static blue.lapis.nocturne.util.Constants.CLASS_FILE_NAME_TAIL;
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.processor.ClassFileReader;
+import blue.lapis.nocturne.processor.ClassFileVisitor;
+import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
+import blue.lapis.nocturne.processor.index.model.IndexedMethod;
+import blue.lapis.nocturne.processor.index.model.LibraryClass;
+import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+import blue.lapis.nocturne.util.MemberType;
+import blue.lapis.nocturne.util.SymbolTable;
+import blue.lapis.nocturne.util.helper.HierarchyHelper;
+import blue.lapis.nocturne.util.helper.PropertiesHelper;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.ProviderNotFoundException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Static utility class for resolving the headers of classes outside of the
+ * loaded JAR, namely those of the running JDK and of any libraries listed in
+ * the global configuration.
+ *
+ * <p>Nothing is read until a class of the loaded JAR names a supertype which
+ * the JAR doesn't contain, and then only the headers of that supertype and of
+ * its own supertypes are parsed. Parsed headers are kept in a memory-mapped
+ * cache file per library, keyed by the location, size and modification time
+ * of the library, so that later sessions need not open the library at all
+ * for classes they've seen before. Headers parsed during this session are
+ * only written out by {@link #store()}.</p>
+ *
+ * <p>A mapped file can't be replaced or deleted on some platforms until its
+ * mapping is garbage collected, so every store writes a new generation of
+ * the cache file, and older generations are deleted once that's possible.</p>
+ */
+public final class LibraryIndex {
+
+    /**
+     * The version of the cache format. This must be incremented whenever the
+     * layout of cache files or the semantics of the cached data change.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final int MAGIC = 0x4E4C4942; // "NLIB"
+    private static final int HEADER_LENGTH = 12;
+    private static final String CACHE_FILE_EXTENSION = ".lib";
+
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_STATIC = 0x0008;
+
+    private static final Map<String, Optional<LibraryClass>> CLASSES = new HashMap<>();
+    private static final Map<String, ImmutableList<LibraryClass>> SUPERTYPES = new HashMap<>();
+
+    private static List<Library> libraries;
+
+    private LibraryIndex() {
+    }
+
+    /**
+     * Gets the header of the library class with the given name, reading it
+     * from the first library which contains it.
+     *
+     * @param name The name of the class
+     * @return The header of the class, or {@link Optional#empty()} if no
+     *     library contains it
+     */
+    public static synchronized Optional<LibraryClass> getClass(String name) {
+        Optional<LibraryClass> clazz = CLASSES.get(name);
+        if (clazz == null) {
+            clazz = Optional.empty();
+            for (Library library : getLibraries()) {
+                clazz = library.find(name);
+                if (clazz.isPresent()) {
+                    break;
+                }
+            }
+            CLASSES.put(name, clazz);
+        }
+        return clazz;
+    }
+
+    /**
+     * Gets the headers of the given library class and of all of its
+     * supertypes which could be resolved, each listed once.
+     *
+     * @param name The name of the class
+     * @return The headers of the class and its supertypes
+     */
+    public static synchronized List<LibraryClass> getSupertypes(String name) {
+        ImmutableList<LibraryClass> supertypes = SUPERTYPES.get(name);
+        if (supertypes != null) {
+            return supertypes;
+        }
+
+        ImmutableList.Builder<LibraryClass> builder = ImmutableList.builder();
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(name);
+        while (!queue.isEmpty()) {
+            String current = queue.poll();
+            if (!visited.add(current)) {
+                continue;
+            }
+            Optional<LibraryClass> clazz = getClass(current);
+            if (clazz.isPresent()) {
+                builder.add(clazz.get());
+                if (clazz.get().getSuperclass() != null) {
+                    queue.add(clazz.get().getSuperclass());
+                }
+                queue.addAll(clazz.get().getInterfaces());
+            }
+        }
+        supertypes = builder.build();
+        SUPERTYPES.put(name, supertypes);
+        return supertypes;
+    }
+
+    /**
+     * Finds the library classes declaring a method which is overridden by the
+     * given method of a class of the loaded JAR.
+     *
+     * @param className The name of the class declaring the method
+     * @param supertypes The library classes which the class inherits from,
+     *     directly or through its ancestors in the loaded JAR
+     * @param sig The signature of the method
+     * @return The names of the library classes declaring an overridden
+     *     method, which is empty if the method overrides none
+     */
+    public static List<String> getOverriddenClasses(String className, Collection<String> supertypes,
+            MethodSignature sig) {
+        List<String> overridden = new ArrayList<>(0);
+        for (String supertype : supertypes) {
+            for (LibraryClass clazz : getSupertypes(supertype)) {
+                IndexedMethod.Visibility vis = clazz.getMethods().get(sig);
+                if (vis != null && HierarchyHelper.isVisible(clazz.getName(), className, vis)
+                        && !overridden.contains(clazz.getName())) {
+                    overridden.add(clazz.getName());
+                }
+            }
+        }
+        return overridden;
+    }
+
+    /**
+     * Computes a string identifying the current set of libraries, which
+     * changes whenever any of them does.
+     *
+     * @return The fingerprint of the current set of libraries
+     */
+    public static synchronized String getFingerprint() {
+        return getLibraries().stream().map(library -> library.identity).collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * Writes any headers parsed during this session to the cache file of
+     * their library. Failures are logged and otherwise ignored.
+     */
+    public static synchronized void store() {
+        if (libraries != null) {
+            libraries.forEach(Library::store);
+        }
+    }
+
+    /**
+     * Writes the headers read since the last call to {@link #store()} and
+     * forgets the opened libraries, so that they are opened again from the
+     * current cache directory when next needed.
+     */
+    static synchronized void reset() {
+        store();
+        libraries = null;
+    }
+
+    private static List<Library> getLibraries() {
+        if (libraries == null) {
+            libraries = new ArrayList<>();
+            addRuntime(libraries);
+            if (Main.getPropertiesHelper() != null) {
+                String paths = Main.getPropertiesHelper().getProperty(PropertiesHelper.Key.LIBRARIES);
+                for (String path : Splitter.on(File.pathSeparatorChar).trimResults().omitEmptyStrings()
+                        .split(paths)) {
+                    addJar(libraries, Paths.get(path));
+                }
+            }
+        }
+        return libraries;
+    }
+
+    private static void addRuntime(List<Library> libraries) {
+        try {
+            FileSystem jrt = FileSystems.getFileSystem(URI.create("jrt:/"));
+            Path modules = Paths.get(System.getProperty("java.home"), "lib", "modules");
+            String identity = Files.exists(modules)
+                    ? getIdentity(modules)
+                    : "jrt:" + System.getProperty("java.home") + ":" + System.getProperty("java.runtime.version");
+            libraries.add(new RuntimeLibrary(identity, jrt));
+            return;
+        } catch (FileSystemNotFoundException | ProviderNotFoundException ex) {
+            // runtimes predating Java 9 keep their classes in JARs on the boot class path instead
+        } catch (IOException ex) {
+            Main.getLogger().warning("Failed to open the runtime image: " + ex);
+            return;
+        }
+
+        String bootClassPath = System.getProperty("sun.boot.class.path");
+        if (bootClassPath != null) {
+            for (String path : Splitter.on(File.pathSeparatorChar).omitEmptyStrings().split(bootClassPath)) {
+                if (Files.isRegularFile(Paths.get(path))) {
+                    addJar(libraries, Paths.get(path));
+                }
+            }
+        }
+    }
+
+    private static void addJar(List<Library> libraries, Path path) {
+        try {
+            libraries.add(new JarLibrary(getIdentity(path), path));
+        } catch (IOException ex) {
+            Main.getLogger().warning("Failed to open library " + path + ": " + ex);
+        }
+    }
+
+    private static String getIdentity(Path path) throws IOException {
+        return path.toAbsolutePath() + ":" + Files.size(path) + ":" + Files.getLastModifiedTime(path).toMillis();
+    }
+
+    private static LibraryClass parse(String name, byte[] bytes) {
+        ClassFileReader reader = new ClassFileReader(name, bytes);
+        HeaderVisitor visitor = new HeaderVisitor(reader.getConstantPool());
+        reader.accept(visitor);
+        return new LibraryClass(name, visitor.superClass, visitor.interfaces, visitor.methods);
+    }
+
+    private static LibraryClass readClass(ByteBuffer buffer, String name) {
+        String superClass = readString(buffer);
+        List<String> interfaces = new ArrayList<>();
+        int interfaceCount = buffer.getInt();
+        for (int i = 0; i < interfaceCount; i++) {
+            interfaces.add(readString(buffer));
+        }
+
+        Map<MethodSignature, IndexedMethod.Visibility> methods = new HashMap<>();
+        int methodCount = buffer.getInt();
+        for (int i = 0; i < methodCount; i++) {
+            MethodSignature sig = SymbolTable.intern(new MethodSignature(readString(buffer),
+                    MethodDescriptor.fromString(readString(buffer))));
+            methods.put(sig, IndexedMethod.Visibility.fromAccessFlags(buffer.get()));
+        }
+        return new LibraryClass(name, superClass, interfaces, methods);
+    }
+
+    private static void writeClass(DataOutputStream out, LibraryClass clazz) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (DataOutputStream bodyOut = new DataOutputStream(body)) {
+            writeString(bodyOut, clazz.getSuperclass());
+            bodyOut.writeInt(clazz.getInterfaces().size());
+            for (String iface : clazz.getInterfaces()) {
+                writeString(bodyOut, iface);
+            }
+            bodyOut.writeInt(clazz.getMethods().size());
+            for (Map.Entry<MethodSignature, IndexedMethod.Visibility> method : clazz.getMethods().entrySet()) {
+                writeString(bodyOut, method.getKey().getName());
+                writeString(bodyOut, method.getKey().getDescriptor().toString());
+                bodyOut.writeByte(method.getValue().getTag());
+            }
+        }
+
+        // the length lets readers skip over the class until it's requested
+        writeString(out, clazz.getName());
+        out.writeInt(body.size());
+        body.writeTo(out);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, String str) throws IOException {
+        if (str == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * A source of library classes, along with the cache of the headers read
+     * from it.
+     */
+    private abstract static class Library {
+
+        private final String identity;
+        private final String cacheKey;
+        private final Optional<Path> cacheDirectory;
+
+        // the mapped cache file, its generation and the offset of each class within it, opened on first use
+        private MappedByteBuffer cache;
+        private int generation;
+        private int cacheEnd;
+        private Map<String, Integer> cachedOffsets;
+
+        // headers parsed during this session which have yet to be written to the cache file
+        private final Map<String, LibraryClass> added = new LinkedHashMap<>();
+
+        Library(String identity) {
+            this.identity = identity;
+            this.cacheKey = Hashing.sha1().hashString(identity, StandardCharsets.UTF_8).toString();
+            this.cacheDirectory = IndexCache.getCacheDirectory(); // library caches are kept alongside JAR indexes
+        }
+
+        /**
+         * Reads the content of the class with the given name from this
+         * library.
+         *
+         * @param name The name of the class
+         * @return The content of the class, or {@code null} if this library
+         *     doesn't contain it
+         * @throws IOException If an exception occurs while reading the
+         *     library
+         */
+        abstract byte[] read(String name) throws IOException;
+
+        Optional<LibraryClass> find(String name) {
+            if (cachedOffsets == null) {
+                openCache();
+            }
+
+            Integer offset = cachedOffsets.get(name);
+            if (offset != null) {
+                try {
+                    ByteBuffer buffer = cache.duplicate();
+                    buffer.position(offset);
+                    return Optional.of(readClass(buffer, name));
+                } catch (BufferUnderflowException | IllegalArgumentException ex) {
+                    // the entry is corrupt, so fall back to the library itself
+                }
+            }
+
+            try {
+                byte[] content = read(name);
+                if (content == null) {
+                    return Optional.empty();
+                }
+                LibraryClass clazz = parse(name, content);
+                added.put(name, clazz);
+                return Optional.of(clazz);
+            } catch (IOException | RuntimeException ex) {
+                Main.getLogger().warning("Failed to read library class " + name + ": " + ex);
+                return Optional.empty();
+            }
+        }
+
+        private void openCache() {
+            cache = null;
+            cachedOffsets = new HashMap<>();
+            generation = getCacheFiles().values().stream().max(Integer::compare).orElse(-1);
+            if (generation < 0) {
+                return;
+            }
+            deleteStaleCacheFiles();
+
+            Path cacheFile = getCacheFile(generation);
+            try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.remaining() < HEADER_LENGTH || buffer.getInt() != MAGIC
+                        || buffer.getInt() != FORMAT_VERSION) {
+                    return; // it'll be overwritten by the next store
+                }
+
+                Map<String, Integer> offsets = new HashMap<>();
+                int count = buffer.getInt();
+                for (int i = 0; i < count; i++) {
+                    String name = readString(buffer);
+                    int length = buffer.getInt();
+                    offsets.put(name, buffer.position());
+                    buffer.position(buffer.position() + length);
+                }
+                cache = buffer;
+                cacheEnd = buffer.position();
+                cachedOffsets = offsets;
+            } catch (IOException | BufferUnderflowException | IllegalArgumentException ex) {
+                Main.getLogger().warning("Failed to read library cache " + cacheFile + ": " + ex);
+            }
+        }
+
+        private void store() {
+            if (added.isEmpty() || !cacheDirectory.isPresent()) {
+                return;
+            }
+
+            // the current generation may still be mapped, so it's left for a later session to delete
+            Path cacheFile = getCacheFile(generation + 1);
+            try {
+                Files.createDirectories(cacheDirectory.get());
+                Path temp = Files.createTempFile(cacheDirectory.get(), cacheKey, ".tmp");
+                try (DataOutputStream out
+                        = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeInt(MAGIC);
+                    out.writeInt(FORMAT_VERSION);
+                    out.writeInt(cachedOffsets.size() + added.size());
+                    if (cache != null) {
+                        // the existing entries are carried over verbatim
+                        ByteBuffer entries = cache.duplicate();
+                        entries.position(HEADER_LENGTH);
+                        entries.limit(cacheEnd);
+                        byte[] bytes = new byte[entries.remaining()];
+                        entries.get(bytes);
+                        out.write(bytes);
+                    }
+                    for (LibraryClass clazz : added.values()) {
+                        writeClass(out, clazz);
+                    }
+                }
+                Files.move(temp, cacheFile, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException ex) {
+                Main.getLogger().warning("Failed to write library cache " + cacheFile + ": " + ex);
+                return;
+            }
+
+            added.clear();
+            openCache(); // map the new file so that the next store carries over everything written so far
+        }
+
+        private Path getCacheFile(int generation) {
+            return cacheDirectory.get().resolve(cacheKey + '.' + generation + CACHE_FILE_EXTENSION);
+        }
+
+        /**
+         * Lists the generations of the cache file of this library.
+         *
+         * @return The cache files of this library, mapped to their generation,
+         *     or {@code -1} for files which aren't named after one
+         */
+        private Map<Path, Integer> getCacheFiles() {
+            Map<Path, Integer> files = new HashMap<>();
+            if (!cacheDirectory.isPresent() || !Files.isDirectory(cacheDirectory.get())) {
+                return files;
+            }
+
+            try (DirectoryStream<Path> stream
+                    = Files.newDirectoryStream(cacheDirectory.get(), cacheKey + "*" + CACHE_FILE_EXTENSION)) {
+                for (Path file : stream) {
+                    String name = file.getFileName().toString();
+                    String infix = name.substring(cacheKey.length(), name.length() - CACHE_FILE_EXTENSION.length());
+                    try {
+                        files.put(file, infix.startsWith(".") ? Integer.parseInt(infix.substring(1)) : -1);
+                    } catch (NumberFormatException ex) {
+                        files.put(file, -1);
+                    }
+                }
+            } catch (IOException ex) {
+                Main.getLogger().warning("Failed to list library caches in " + cacheDirectory.get() + ": " + ex);
+            }
+            return files;
+        }
+
+        private void deleteStaleCacheFiles() {
+            getCacheFiles().forEach((file, fileGeneration) -> {
+                if (fileGeneration < generation) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException ignored) {
+                        // it's still mapped somewhere, so it'll be deleted by a later session
+                    }
+                }
+            });
+        }
+
+    }
+
+    /**
+     * The modules of the running JDK, read through its {@code jrt:/} file
+     * system.
+     */
+    private static class RuntimeLibrary extends Library {
+
+        private final FileSystem fileSystem;
+        private final Map<String, List<Path>> packageModules = new HashMap<>();
+
+        RuntimeLibrary(String identity, FileSystem fileSystem) {
+            super(identity);
+            this.fileSystem = fileSystem;
+        }
+
+        @Override
+        byte[] read(String name) throws IOException {
+            int index = name.lastIndexOf(CLASS_PATH_SEPARATOR_CHAR);
+            String packageName = index >= 0 ? name.substring(0, index) : "";
+            List<Path> modules = packageModules.get(packageName);
+            if (modules == null) {
+                // the image lists the modules containing each package, so there's no need to search all of them
+                modules = new ArrayList<>(1);
+                Path packageDir = fileSystem.getPath("/packages", packageName.replace(CLASS_PATH_SEPARATOR_CHAR, '.'));
+                if (!packageName.isEmpty() && Files.isDirectory(packageDir)) {
+                    try (DirectoryStream<Path> stream = Files.newDirectoryStream(packageDir)) {
+                        for (Path module : stream) {
+                            modules.add(fileSystem.getPath("/modules", module.getFileName().toString()));
+                        }
+                    }
+                }
+                packageModules.put(packageName, modules);
+            }
+
+            for (Path module : modules) {
+                Path file = module.resolve(name + CLASS_FILE_NAME_TAIL);
+                if (Files.exists(file)) {
+                    return Files.readAllBytes(file);
+                }
+            }
+            return null;
+        }
+
+    }
+
+    /**
+     * A library JAR, which is opened when a class is first read from it.
+     */
+    private static class JarLibrary extends Library {
+
+        private final Path path;
+        private ZipFile zipFile;
+
+        JarLibrary(String identity, Path path) {
+            super(identity);
+            this.path = path;
+        }
+
+        @Override
+        byte[] read(String name) throws IOException {
+            if (zipFile == null) {
+                zipFile = new ZipFile(path.toFile());
+            }
+            ZipEntry entry = zipFile.getEntry(name + CLASS_FILE_NAME_TAIL);
+            if (entry == null) {
+                return null;
+            }
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                return ByteStreams.toByteArray(in);
+            }
+        }
+
+    }
+
+    /**
+     * Collects the supertypes and overridable methods of a library class.
+     */
+    private static class HeaderVisitor implements ClassFileVisitor {
+
+        private final ImmutableConstantPool pool;
+
+        private String superClass;
+        private final List<String> interfaces = new ArrayList<>();
+        private final Map<MethodSignature, IndexedMethod.Visibility> methods = new HashMap<>();
+
+        HeaderVisitor(ImmutableConstantPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void visitClass(int offset, int access, int thisClassIndex, int superClassIndex,
+                int[] interfaceIndices) {
+            superClass = superClassIndex != 0 ? pool.getString(pool.getClassNameIndex(superClassIndex)) : null;
+            for (int index : interfaceIndices) {
+                interfaces.add(pool.getString(pool.getClassNameIndex(index)));
+            }
+        }
+
+        @Override
+        public void visitMember(MemberType type, int access, int nameIndex, int descriptorIndex) {
+            String name = pool.getString(nameIndex);
+            // constructors, initializers and static and private methods are never overridden
+            if (type != MemberType.METHOD || (access & (ACC_PRIVATE | ACC_STATIC)) != 0 || name.startsWith("<")) {
+                return;
+            }
+            IndexedMethod.Visibility vis = IndexedMethod.Visibility.fromAccessFlags((short) access);
+            if (vis != null) {
+                methods.put(SymbolTable.intern(new MethodSignature(name,
+                        MethodDescriptor.fromString(pool.getString(descriptorIndex)))), vis);
+            }
+        }
+
+    }
+
+}
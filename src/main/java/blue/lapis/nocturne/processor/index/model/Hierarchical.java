@@ -29,7 +29,9 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.collect.ImmutableSet;
 
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Optional;
 import java.util.Set;
 
 /**
@@ -38,12 +40,46 @@ import java.util.Set;
 public class Hierarchical<T extends Hierarchical> {
 
     private Set<T> hierarchy = new HashSet<>();
+    private HierarchyComponent<T> component;
+    private int componentIndex;
+    private volatile boolean isHierarchyDeferred = false;
     private boolean isHierarchyFinalized = false;
 
     public Set<T> getHierarchy() {
+        if (isHierarchyDeferred) {
+            materializeHierarchy();
+        }
         return hierarchy;
     }
 
+    private synchronized void materializeHierarchy() {
+        if (isHierarchyDeferred) {
+            hierarchy = ImmutableSet.copyOf(component.getHierarchy(componentIndex));
+            isHierarchyDeferred = false;
+        }
+    }
+
+    /**
+     * Gets the component this hierarchy was computed from, if it was
+     * {@link #deferHierarchy deferred}.
+     *
+     * @return The component of this hierarchy, or {@link Optional#empty()}
+     *     if its members were given directly
+     */
+    public Optional<HierarchyComponent<T>> getHierarchyComponent() {
+        return Optional.ofNullable(component);
+    }
+
+    /**
+     * Gets the index of this hierarchy's owner within its
+     * {@link #getHierarchyComponent() component}.
+     *
+     * @return The index within the component
+     */
+    public int getHierarchyComponentIndex() {
+        return componentIndex;
+    }
+
     public void finalizeHierarchy() {
         checkState(!isHierarchyFinalized, "Cannot finalize hierarchy more than once");
         //noinspection SuspiciousMethodCalls
@@ -53,4 +89,33 @@ public class Hierarchical<T extends Hierarchical> {
         isHierarchyFinalized = true;
     }
 
+    /**
+     * Finalizes this hierarchy with the given, previously computed members.
+     *
+     * @param members The members of the hierarchy
+     */
+    public void restoreHierarchy(Collection<T> members) {
+        checkState(!isHierarchyFinalized, "Cannot finalize hierarchy more than once");
+        hierarchy = ImmutableSet.copyOf(members);
+
+        isHierarchyFinalized = true;
+    }
+
+    /**
+     * Finalizes this hierarchy with the members of the given component it is
+     * related to, which are only collected once the hierarchy is first
+     * requested.
+     *
+     * @param component The component the owner of this hierarchy belongs to
+     * @param index The index of the owner within the component
+     */
+    public void deferHierarchy(HierarchyComponent<T> component, int index) {
+        checkState(!isHierarchyFinalized, "Cannot finalize hierarchy more than once");
+        this.component = component;
+        this.componentIndex = index;
+        isHierarchyDeferred = true;
+
+        isHierarchyFinalized = true;
+    }
+
 }
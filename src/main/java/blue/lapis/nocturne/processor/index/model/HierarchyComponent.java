@@ -0,0 +1,87 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.processor.index.model;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A connected component of a class hierarchy, holding for each of its members
+ * the set of members it is related to.
+ *
+ * <p>The members of a component share it, so that their hierarchies need
+ * only be materialized once they are requested, and may be persisted without
+ * materializing them.</p>
+ *
+ * @param <T> The type of the members
+ */
+public final class HierarchyComponent<T> {
+
+    private final ImmutableList<T> members;
+    private final BitSet[] related;
+
+    public HierarchyComponent(List<T> members, BitSet[] related) {
+        this.members = ImmutableList.copyOf(members);
+        this.related = related;
+    }
+
+    public ImmutableList<T> getMembers() {
+        return members;
+    }
+
+    /**
+     * Gets the members the member at the given index is related to, which
+     * include itself.
+     *
+     * @param index The index of the member within this component
+     * @return A copy of the related members as a {@link BitSet} over their
+     *     indices
+     */
+    public BitSet getRelated(int index) {
+        return (BitSet) related[index].clone();
+    }
+
+    /**
+     * Gets the hierarchy of the member at the given index, excluding the
+     * member itself.
+     *
+     * @param index The index of the member within this component
+     * @return The hierarchy of the member
+     */
+    public List<T> getHierarchy(int index) {
+        BitSet set = related[index];
+        List<T> hierarchy = new ArrayList<>(set.cardinality());
+        for (int i = set.nextSetBit(0); i >= 0; i = set.nextSetBit(i + 1)) {
+            if (i != index) {
+                hierarchy.add(members.get(i));
+            }
+        }
+        return hierarchy;
+    }
+
+}
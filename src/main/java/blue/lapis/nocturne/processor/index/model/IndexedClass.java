@@ -28,13 +28,15 @@ package blue.lapis.nocturne.processor.index.model;
 import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
 import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
 import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+import blue.lapis.nocturne.util.SymbolTable;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -42,7 +44,7 @@ import java.util.stream.Collectors;
  */
 public class IndexedClass extends Hierarchical<IndexedClass> {
 
-    public static final Map<String, IndexedClass> INDEXED_CLASSES = new HashMap<>();
+    public static final Map<String, IndexedClass> INDEXED_CLASSES = new ConcurrentHashMap<>();
 
     private final String name;
     private ImmutableConstantPool constantPool;
@@ -50,13 +52,14 @@ public class IndexedClass extends Hierarchical<IndexedClass> {
     private final ImmutableList<String> interfaces;
     private final ImmutableMap<FieldSignature, IndexedField> fields;
     private final ImmutableMap<MethodSignature, IndexedMethod> methods;
+    private ImmutableMap<FieldSignature, IndexedClass> inheritedFields = ImmutableMap.of();
 
     public IndexedClass(String name, ImmutableConstantPool constantPool, String superClass, List<String> interfaces,
             List<IndexedField> fields, List<IndexedMethod> methods) {
-        this.name = name;
+        this.name = SymbolTable.intern(name);
         this.constantPool = constantPool;
-        this.superClass = superClass;
-        this.interfaces = ImmutableList.copyOf(interfaces);
+        this.superClass = SymbolTable.intern(superClass);
+        this.interfaces = ImmutableList.copyOf(interfaces.stream().map(SymbolTable::intern).iterator());
         this.fields = ImmutableMap.copyOf(
                 fields.stream().collect(Collectors.toMap(IndexedField::getSignature, f -> f)));
         this.methods = ImmutableMap.copyOf(
@@ -88,6 +91,33 @@ public class IndexedClass extends Hierarchical<IndexedClass> {
         return methods;
     }
 
+    /**
+     * Gets the fields which references through this class may resolve to
+     * despite being declared by one of its supertypes, mapped to the class
+     * declaring each of them.
+     *
+     * @return The fields inherited by this class
+     */
+    public ImmutableMap<FieldSignature, IndexedClass> getInheritedFields() {
+        return inheritedFields;
+    }
+
+    public void setInheritedFields(Map<FieldSignature, IndexedClass> inheritedFields) {
+        this.inheritedFields = ImmutableMap.copyOf(inheritedFields);
+    }
+
+    /**
+     * Resolves a reference to the field with the given signature through
+     * this class, following the field lookup rules of the JVM.
+     *
+     * @param sig The signature of the referenced field
+     * @return The class declaring the field, or {@link Optional#empty()} if
+     *     no class of the loaded JAR declares it
+     */
+    public Optional<IndexedClass> resolveField(FieldSignature sig) {
+        return fields.containsKey(sig) ? Optional.of(this) : Optional.ofNullable(inheritedFields.get(sig));
+    }
+
     public void clearPool() {
         this.constantPool = null;
     }
@@ -25,6 +25,8 @@
 
 package blue.lapis.nocturne.processor.index.model;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
 
 import java.util.HashMap;
@@ -33,10 +35,11 @@ import java.util.Map;
 /**
  * Represents a method serialized by Nocturne's class indexer.
  */
-public class IndexedMethod extends Hierarchical<IndexedClass> {
+public class IndexedMethod {
 
     private final MethodSignature signature;
     private final Visibility visibility;
+    private MethodFamily family;
 
     public IndexedMethod(MethodSignature signature, Visibility visibility) {
         this.signature = signature;
@@ -51,6 +54,21 @@ public class IndexedMethod extends Hierarchical<IndexedClass> {
         return visibility;
     }
 
+    /**
+     * Gets the {@link MethodFamily} this method belongs to.
+     *
+     * @return The {@link MethodFamily} this method belongs to, or
+     *     {@code null} if the hierarchy has not been built yet
+     */
+    public MethodFamily getFamily() {
+        return family;
+    }
+
+    public void setFamily(MethodFamily family) {
+        checkState(this.family == null, "Cannot set the family of a method more than once");
+        this.family = family;
+    }
+
     /**
      * Represents the visibility level of a particular method.
      */
@@ -0,0 +1,80 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor.index.model;
+
+import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+import blue.lapis.nocturne.util.SymbolTable;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The header of a class outside of the loaded JAR, such as a class of the JDK
+ * or of a library.
+ *
+ * <p>Only the methods which may be overridden by another class are kept.</p>
+ */
+public class LibraryClass {
+
+    private final String name;
+    private final String superClass;
+    private final ImmutableList<String> interfaces;
+    private final ImmutableMap<MethodSignature, IndexedMethod.Visibility> methods;
+
+    public LibraryClass(String name, String superClass, List<String> interfaces,
+            Map<MethodSignature, IndexedMethod.Visibility> methods) {
+        this.name = SymbolTable.intern(name);
+        this.superClass = SymbolTable.intern(superClass);
+        this.interfaces = ImmutableList.copyOf(interfaces.stream().map(SymbolTable::intern).iterator());
+        this.methods = ImmutableMap.copyOf(methods);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSuperclass() {
+        return superClass;
+    }
+
+    public ImmutableList<String> getInterfaces() {
+        return interfaces;
+    }
+
+    /**
+     * Gets the overridable methods declared by this class, along with their
+     * visibility.
+     *
+     * @return The overridable methods declared by this class
+     */
+    public ImmutableMap<MethodSignature, IndexedMethod.Visibility> getMethods() {
+        return methods;
+    }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor.index.model;
+
+import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * A family of methods which are joined through inheritance, and which must
+ * therefore share a name.
+ *
+ * <p>All methods of a family have the same {@link MethodSignature}, so a
+ * family is fully described by its signature and the classes declaring its
+ * methods.</p>
+ *
+ * <p>A family which overrides a method of the JDK or of a library is bound to
+ * that method's name, and must not be renamed.</p>
+ */
+public class MethodFamily {
+
+    private final MethodSignature signature;
+    private final ImmutableList<IndexedClass> classes;
+    private final ImmutableList<String> libraryClasses;
+
+    public MethodFamily(MethodSignature signature, List<IndexedClass> classes) {
+        this(signature, classes, ImmutableList.of());
+    }
+
+    public MethodFamily(MethodSignature signature, List<IndexedClass> classes, List<String> libraryClasses) {
+        this.signature = signature;
+        this.classes = ImmutableList.copyOf(classes);
+        this.libraryClasses = ImmutableList.copyOf(libraryClasses);
+    }
+
+    public MethodSignature getSignature() {
+        return signature;
+    }
+
+    /**
+     * Gets the classes which declare a method of this family.
+     *
+     * @return The classes which declare a method of this family
+     */
+    public ImmutableList<IndexedClass> getClasses() {
+        return classes;
+    }
+
+    /**
+     * Gets the names of the classes outside of the loaded JAR which declare a
+     * method overridden by this family.
+     *
+     * @return The names of the library classes declaring an overridden method
+     */
+    public ImmutableList<String> getLibraryClasses() {
+        return libraryClasses;
+    }
+
+    /**
+     * Returns whether this family overrides a method of the JDK or of a
+     * library, in which case it must keep its name.
+     *
+     * @return Whether this family overrides a library method
+     */
+    public boolean isLibraryBound() {
+        return !libraryClasses.isEmpty();
+    }
+
+}
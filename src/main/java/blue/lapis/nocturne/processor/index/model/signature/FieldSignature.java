@@ -36,9 +36,12 @@ public class FieldSignature extends MemberSignature {
 
     protected final Type type;
 
+    private final int hash;
+
     public FieldSignature(String name, Type type) {
         super(name);
         this.type = type;
+        this.hash = Objects.hash(this.name, type);
     }
 
     public Type getType() {
@@ -52,16 +55,19 @@ public class FieldSignature extends MemberSignature {
 
     @Override
     public boolean equals(Object otherObj) {
+        if (otherObj == this) {
+            return true;
+        }
         if (!(otherObj instanceof FieldSignature)) {
             return false;
         }
         FieldSignature sig = (FieldSignature) otherObj;
-        return sig.getName().equals(getName()) && sig.getType().equals(getType());
+        return sig.hash == hash && sig.getName().equals(getName()) && Objects.equals(sig.getType(), getType());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, type);
+        return hash;
     }
 
 }
@@ -25,6 +25,8 @@
 
 package blue.lapis.nocturne.processor.index.model.signature;
 
+import blue.lapis.nocturne.util.SymbolTable;
+
 /**
  * Represents the unique signature of a particular class member.
  */
@@ -33,7 +35,7 @@ public abstract class MemberSignature {
     protected final String name;
 
     public MemberSignature(String name) {
-        this.name = name;
+        this.name = SymbolTable.intern(name);
     }
 
     public String getName() {
@@ -36,9 +36,12 @@ public class MethodSignature extends MemberSignature {
 
     protected final MethodDescriptor descriptor;
 
+    private final int hash;
+
     public MethodSignature(String name, MethodDescriptor descriptor) {
         super(name);
         this.descriptor = descriptor;
+        this.hash = Objects.hash(this.name, descriptor);
     }
 
     public MethodDescriptor getDescriptor() {
@@ -47,16 +50,20 @@ public class MethodSignature extends MemberSignature {
 
     @Override
     public boolean equals(Object otherObj) {
+        if (otherObj == this) {
+            return true;
+        }
         if (!(otherObj instanceof MethodSignature)) {
             return false;
         }
         MethodSignature sig = (MethodSignature) otherObj;
-        return sig.getName().equals(getName()) && sig.getDescriptor().equals(getDescriptor());
+        return sig.hash == hash && sig.getName().equals(getName())
+                && Objects.equals(sig.getDescriptor(), getDescriptor());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, descriptor);
+        return hash;
     }
 
 }
@@ -28,38 +28,40 @@ package blue.lapis.nocturne.processor.transform;
 import static blue.lapis.nocturne.util.Constants.CLASS_FORMAT_CONSTANT_POOL_OFFSET;
 import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
 import static blue.lapis.nocturne.util.Constants.Processing.CLASS_PREFIX;
-import static blue.lapis.nocturne.util.helper.ByteHelper.asUshort;
-import static blue.lapis.nocturne.util.helper.ByteHelper.getBytes;
-import static blue.lapis.nocturne.util.helper.ByteHelper.readBytes;
+import static blue.lapis.nocturne.util.helper.ByteHelper.readInt;
+import static blue.lapis.nocturne.util.helper.ByteHelper.readUshort;
 import static blue.lapis.nocturne.util.helper.StringHelper.getProcessedDescriptor;
 import static blue.lapis.nocturne.util.helper.StringHelper.getProcessedName;
 import static blue.lapis.nocturne.util.helper.StringHelper.getUnprocessedName;
+import static com.google.common.base.Preconditions.checkArgument;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.processor.ClassFileReader;
+import blue.lapis.nocturne.processor.ClassFileVisitor;
 import blue.lapis.nocturne.processor.ClassProcessor;
+import blue.lapis.nocturne.processor.constantpool.ConstantPoolReader;
 import blue.lapis.nocturne.processor.constantpool.model.ConstantPool;
+import blue.lapis.nocturne.processor.constantpool.model.ConstantPoolOverflowException;
 import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
 import blue.lapis.nocturne.processor.constantpool.model.structure.ClassStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.ConstantStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.FieldrefStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.IgnoredStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.MethodrefStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.NameAndTypeStructure;
-import blue.lapis.nocturne.processor.constantpool.model.structure.RefStructure;
 import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
 import blue.lapis.nocturne.processor.constantpool.model.structure.Utf8Structure;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
+import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
+import blue.lapis.nocturne.util.ByteBuilder;
 import blue.lapis.nocturne.util.MemberType;
-import blue.lapis.nocturne.util.tuple.Pair;
 
 import com.google.common.collect.ImmutableList;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.IntStream;
@@ -70,6 +72,8 @@ import java.util.stream.IntStream;
  */
 public class ClassTransformer extends ClassProcessor {
 
+    private final ClassSet classSet;
+    private final Map<String, IndexedClass> index;
     private ImmutableConstantPool constantPool;
     private boolean isPoolProcessed;
     private ConstantPool processedPool;
@@ -77,10 +81,14 @@ public class ClassTransformer extends ClassProcessor {
     private final List<String> syntheticFields = new ArrayList<>();
     private final List<String> syntheticMethods = new ArrayList<>();
 
-    private final Map<Integer, Integer> processedFieldNameMap = new HashMap<>();
-    private final Map<Integer, Integer> processedFieldDescriptorMap = new HashMap<>();
-    private final Map<Integer, Integer> processedMethodNameMap = new HashMap<>();
-    private final Map<Integer, Integer> processedMethodDescriptorMap = new HashMap<>();
+    // map original pool indices to those of their processed replacements, with 0 denoting no replacement
+    private final int[] processedFieldNameMap;
+    private final int[] processedFieldDescriptorMap;
+    private final int[] processedMethodNameMap;
+    private final int[] processedMethodDescriptorMap;
+
+    // the output is assembled in a per-thread buffer so that it can be copied into an exactly-sized array
+    private static final ThreadLocal<ByteBuilder> OUTPUT = ThreadLocal.withInitial(() -> new ByteBuilder(64 * 1024));
 
     private static final ImmutableList<String> STUPID_PARAM_NAMES = ImmutableList.<String>builder()
             .add("\u2603").build();
@@ -88,188 +96,124 @@ public class ClassTransformer extends ClassProcessor {
             .add("<init>").add("<clinit>").build();
 
     public ClassTransformer(String className, byte[] bytes) {
-        super(className, bytes);
-        assert IndexedClass.INDEXED_CLASSES.containsKey(getClassName());
-        constantPool = IndexedClass.INDEXED_CLASSES.get(getClassName()).getConstantPool();
-        processedPool = new ConstantPool(constantPool.getContents(), constantPool.length());
-    }
-
-    /**
-     * Processes the class and returns the new bytecode.
-     *
-     * @return The processed bytecode
-     */
-    public byte[] process() throws IOException {
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        byte[] header = processClassHeader(buffer);
-        buffer.get(new byte[constantPool.length()]); // skip constant pool
-        byte[] intermediate = processIntermediateBytes(buffer);
-        byte[] fields = processFieldBytes(buffer);
-        byte[] methods = processMethodBytes(buffer);
-        byte[] remainder = processRemainder(buffer);
-
-        // next call MUST come after field and method processing
-        byte[] poolBytes = getProcessedPool().getBytes();
-
-        ByteBuffer bb = ByteBuffer.allocate(bytes.length + (poolBytes.length - constantPool.length()));
-        bb.put(header);
-        bb.put(poolBytes);
-        bb.put(intermediate);
-        bb.put(fields);
-        bb.put(methods);
-        bb.put(remainder);
-        return bb.array();
+        this(className, bytes, Main.getLoadedJar(), IndexedClass.INDEXED_CLASSES);
     }
 
     /**
-     * Processes the header of the class (the first 8 bytes).
+     * Constructs a new {@link ClassTransformer} for the given class, which
+     * resolves the references it makes against the given JAR and its index.
      *
-     * @param buffer The {@link ByteBuffer} to read from
-     * @return The processed class header
+     * @param className The name of the class
+     * @param bytes The original content of the class
+     * @param classSet The {@link ClassSet} the class belongs to
+     * @param index The index of the JAR the class belongs to, keyed by class
+     *     name
+     * @throws IllegalArgumentException If the class isn't in the given JAR
+     *     or index
      */
-    public byte[] processClassHeader(ByteBuffer buffer) {
-        byte[] value = new byte[CLASS_FORMAT_CONSTANT_POOL_OFFSET];
-        buffer.get(value);
-        return value;
+    public ClassTransformer(String className, byte[] bytes, ClassSet classSet, Map<String, IndexedClass> index) {
+        super(className, bytes);
+        checkArgument(classSet != null && classSet.getClass(getClassName()).isPresent(),
+                "Class %s is not part of the JAR being transformed", getClassName());
+        IndexedClass clazz = index.get(getClassName());
+        checkArgument(clazz != null, "Class %s is not indexed", getClassName());
+        this.classSet = classSet;
+        this.index = index;
+        constantPool = clazz.getConstantPool();
+        if (constantPool == null) {
+            // the indexed pool is discarded once loading finishes, so we need to read it again
+            constantPool = new ConstantPoolReader(getClassName(), bytes).read();
+        }
+        processedPool = new ConstantPool(constantPool);
+        processedFieldNameMap = new int[constantPool.size() + 1];
+        processedFieldDescriptorMap = new int[constantPool.size() + 1];
+        processedMethodNameMap = new int[constantPool.size() + 1];
+        processedMethodDescriptorMap = new int[constantPool.size() + 1];
     }
 
     /**
-     * Processes the intermediate bytes between the constant pool and the member
-     * definitions.
+     * Processes the class and returns the new bytecode.
      *
-     * @param buffer The buffer to read from
-     * @return The intermediate bytes
+     * @return The processed bytecode
+     * @throws IOException If the processed constant pool would exceed the
+     *     size permitted by the class file format
      */
-    public byte[] processIntermediateBytes(ByteBuffer buffer) {
-        int initialPos = buffer.position(); // mark the initial position of the buffer
-
-        // Okay, so here's what's happening here:
-        //     - The first 6 bytes aren't relevant at all
-        //     - The next 2 bytes are the number of interfaces the class implements
-        //     - The remaining bytes are pointers to class structures, one for each interface, each being 2 bytes
-        // So, we need to process 8 bytes plus [2 times the interface count]. Hopefully this comment makes sense.
-        final int irrelevantBytes = 6; // magic number
-        buffer.get(new byte[irrelevantBytes]); // skip the header
-        int interfaceCount = asUshort(buffer.getShort()); // read the interface count
-        byte[] finalArray = new byte[irrelevantBytes + 2 + interfaceCount * 2]; // allocate an appropriately-sized array
-        buffer.position(initialPos); // rewind the buffer to the initial position
-        buffer.get(finalArray); // put the bytes into the allocated array
-        return finalArray;
-    }
+    public byte[] process() throws IOException {
+        ByteBuilder body = OUTPUT.get();
+        body.reset();
+        ConstantPool pool;
+        try {
+            new ClassFileReader(getClassName(), bytes, constantPool).accept(new TransformingVisitor(body));
+
+            // next call MUST come after field and method processing
+            pool = getProcessedPool();
+        } catch (ConstantPoolOverflowException ex) {
+            throw new IOException("Cannot process class " + getClassName() + " (" + constantPool.size()
+                    + " constant pool entries before processing)", ex);
+        }
 
-    /**
-     * Processes field definitions.
-     *
-     * @param buffer The buffer to read from
-     * @return The new field definition bytes
-     */
-    public byte[] processFieldBytes(ByteBuffer buffer) throws IOException {
-        return processMemberBytes(buffer, false);
+        byte[] processed = new byte[CLASS_FORMAT_CONSTANT_POOL_OFFSET + pool.length() + body.size()];
+        System.arraycopy(bytes, 0, processed, 0, CLASS_FORMAT_CONSTANT_POOL_OFFSET); // copy the header
+        pool.write(ByteBuffer.wrap(processed, CLASS_FORMAT_CONSTANT_POOL_OFFSET, pool.length()));
+        body.copyTo(processed, CLASS_FORMAT_CONSTANT_POOL_OFFSET + pool.length());
+        return processed;
     }
 
     /**
-     * Processes method definitions.
+     * Processes the name of a member definition, adding a new structure to
+     * the processed pool if required.
      *
-     * @param buffer The buffer to read from
-     * @return The new method definition bytes
-     */
-    public byte[] processMethodBytes(ByteBuffer buffer) throws IOException {
-        return processMemberBytes(buffer, true);
-    }
-
-    /**
-     * Processes member definitions.
-     *
-     * @param buffer The buffer to read from
      * @param isMethod Whether the member is a method (a value of {@link false}
      *     for this parameter is taken to mean the member is a field)
-     * @return The new member definition bytes
+     * @param nameIndex The pool index of the name of the member
+     * @param descriptorIndex The pool index of the descriptor of the member
+     * @param isSynthetic Whether the member is synthetic
+     * @return The pool index of the processed name
      */
-    public byte[] processMemberBytes(ByteBuffer buffer, boolean isMethod) throws IOException {
-        ByteArrayOutputStream os = new ByteArrayOutputStream();
-
-        int count = asUshort(buffer.getShort());
-        os.write(getBytes((short) count));
-
-        for (int m = 0; m < count; m++) {
-            final int memberStart = buffer.position();
-
-            short access = buffer.getShort();
-            os.write(getBytes(access));
-            boolean isSynthetic = (access & 0x1000) != 0;
-
-            buffer.get(new byte[4]);
-            ByteArrayOutputStream attrOs = new ByteArrayOutputStream();
-            int attrCount = asUshort(buffer.getShort());
-            attrOs.write(getBytes((short) attrCount));
-
-            for (int i = 0; i < attrCount; i++) {
-                Pair<byte[], Boolean> attr = processAttribute(buffer);
-                attrOs.write(attr.first());
-                isSynthetic = attr.second();
-            }
-            final byte[] attrArr = attrOs.toByteArray();
-            final int memberEnd = buffer.position();
-
-            buffer.position(memberStart + 2);
-
-            int nameIndex = asUshort(buffer.getShort());
-            int descriptorIndex = asUshort(buffer.getShort());
-
-            if (isSynthetic) {
-                (isMethod ? syntheticMethods : syntheticFields).add(getString(nameIndex));
-            }
-
-            if (!isSynthetic) {
-                if (!isMethod || !IGNORED_METHODS.contains(getString(nameIndex))) {
-                    Map<Integer, Integer> map = isMethod ? processedMethodNameMap : processedFieldNameMap;
-                    if (map.containsKey(nameIndex)) {
-                        nameIndex = map.get(nameIndex);
-                    } else {
-                        String procName = getProcessedName(
-                                getClassName() + CLASS_PATH_SEPARATOR_CHAR + getString(nameIndex),
-                                getString(descriptorIndex),
-                                isMethod ? MemberType.METHOD : MemberType.FIELD
-                        );
-                        Utf8Structure nameStruct = new Utf8Structure(procName);
-                        processedPool.add(nameStruct);
-                        nameIndex = processedPool.size();
-                    }
-                }
-            }
-            os.write(getBytes((short) nameIndex));
-
-            Map<Integer, Integer> map = isMethod ? processedMethodDescriptorMap : processedFieldDescriptorMap;
-            if (map.containsKey(descriptorIndex)) {
-                descriptorIndex = map.get(descriptorIndex);
-            } else {
-                String procDesc = getProcessedDescriptor(
-                        isMethod ? MemberType.METHOD : MemberType.FIELD,
-                        getString(descriptorIndex)
-                );
-                if (!procDesc.equals(getString(descriptorIndex))) {
-                    Utf8Structure descStruct = new Utf8Structure(procDesc);
-                    processedPool.add(descStruct);
-                    descriptorIndex = processedPool.size();
-                }
-            }
-            os.write(getBytes((short) descriptorIndex));
-
-            os.write(attrArr);
-            buffer.position(memberEnd);
+    private int processMemberName(boolean isMethod, int nameIndex, int descriptorIndex, boolean isSynthetic) {
+        if (isSynthetic) {
+            (isMethod ? syntheticMethods : syntheticFields).add(getString(nameIndex));
+            return nameIndex;
+        }
+        if (isMethod && IGNORED_METHODS.contains(getString(nameIndex))) {
+            return nameIndex;
         }
 
-        return os.toByteArray();
+        int[] map = isMethod ? processedMethodNameMap : processedFieldNameMap;
+        if (map[nameIndex] != 0) {
+            return map[nameIndex];
+        }
+        String procName = getProcessedName(
+                getClassName() + CLASS_PATH_SEPARATOR_CHAR + getString(nameIndex),
+                getString(descriptorIndex),
+                isMethod ? MemberType.METHOD : MemberType.FIELD
+        );
+        return processedPool.intern(new Utf8Structure(procName));
     }
 
     /**
-     * Returns any bytes remaining in the class file after the given offset.
+     * Processes the descriptor of a member definition, adding a new structure
+     * to the processed pool if required.
      *
-     * @param buffer The buffer to read
-     * @return The remainder of the class file
+     * @param isMethod Whether the member is a method (a value of {@link false}
+     *     for this parameter is taken to mean the member is a field)
+     * @param descriptorIndex The pool index of the descriptor of the member
+     * @return The pool index of the processed descriptor
      */
-    public byte[] processRemainder(ByteBuffer buffer) {
-        return ByteBuffer.allocate(buffer.capacity() - buffer.position()).put(buffer).array();
+    private int processMemberDescriptor(boolean isMethod, int descriptorIndex) {
+        int[] map = isMethod ? processedMethodDescriptorMap : processedFieldDescriptorMap;
+        if (map[descriptorIndex] != 0) {
+            return map[descriptorIndex];
+        }
+        String procDesc = getProcessedDescriptor(
+                classSet,
+                isMethod ? MemberType.METHOD : MemberType.FIELD,
+                getString(descriptorIndex)
+        );
+        if (procDesc.equals(getString(descriptorIndex))) {
+            return descriptorIndex;
+        }
+        return processedPool.intern(new Utf8Structure(procDesc));
     }
 
     private ConstantPool getProcessedPool() {
@@ -281,22 +225,20 @@ public class ClassTransformer extends ClassProcessor {
     }
 
     private void handleMember(int index) {
-        ConstantStructure cs = processedPool.get(index);
-        if (!(cs instanceof IgnoredStructure)) {
-            if (cs.getType() == StructureType.CLASS) {
-                handleClassMember(cs, index, processedPool);
-            } else if (  cs.getType() == StructureType.FIELDREF
-                    || cs.getType() == StructureType.INTERFACE_METHODREF
-                    || cs.getType() == StructureType.METHODREF) {
-                handleNonClassMember(cs, index, processedPool);
-            }
+        StructureType type = processedPool.getType(index);
+        if (type == StructureType.CLASS) {
+            handleClassMember(index, processedPool);
+        } else if (type == StructureType.FIELDREF
+                || type == StructureType.INTERFACE_METHODREF
+                || type == StructureType.METHODREF) {
+            handleNonClassMember(type, index, processedPool);
         }
     }
 
-    private void handleClassMember(ConstantStructure cs, int index, ConstantPool pool) {
-        String name = getString(((ClassStructure) cs).getNameIndex());
+    private void handleClassMember(int index, ConstantPool pool) {
+        String name = getString(pool.getClassNameIndex(index));
 
-        if (!Main.getLoadedJar().getClass(name).isPresent()) {
+        if (!classSet.getClass(name).isPresent()) {
             return;
         }
 
@@ -306,17 +248,17 @@ public class ClassTransformer extends ClassProcessor {
         strBuffer.put(StructureType.UTF_8.getTag());
         strBuffer.putShort((short) strBytes.length);
         strBuffer.put(strBytes);
-        pool.add(new Utf8Structure(strBuffer.array()));
+        int nameIndex = pool.intern(new Utf8Structure(strBuffer.array()));
 
         ByteBuffer classBuffer = ByteBuffer.allocate(StructureType.CLASS.getLength() + 1);
         classBuffer.put(StructureType.CLASS.getTag());
-        classBuffer.putShort((short) pool.size());
+        classBuffer.putShort((short) nameIndex);
         pool.set(index, new ClassStructure(classBuffer.array()));
     }
 
-    private void handleNonClassMember(ConstantStructure cs, int index, ConstantPool pool) {
+    private void handleNonClassMember(StructureType type, int index, ConstantPool pool) {
         MemberType memberType;
-        switch (cs.getType()) {
+        switch (type) {
             case FIELDREF: {
                 memberType = MemberType.FIELD;
                 break;
@@ -330,16 +272,15 @@ public class ClassTransformer extends ClassProcessor {
                 throw new AssertionError();
             }
         }
-        String className = getClassNameFromStruct((RefStructure) cs);
+        String className = getClassNameFromRef(index);
         if (className.startsWith(CLASS_PREFIX)) {
             className = getUnprocessedName(className);
         }
 
-        NameAndType nat = getNameAndType((RefStructure) cs);
-        int natIndex = ((RefStructure) cs).getNameAndTypeIndex();
-        NameAndTypeStructure natStruct = (NameAndTypeStructure) constantPool.get(natIndex);
-        int nameIndex = natStruct.getNameIndex();
-        int typeIndex = natStruct.getTypeIndex();
+        int natIndex = pool.getRefNameAndTypeIndex(index);
+        NameAndType nat = getNameAndType(natIndex);
+        int nameIndex = constantPool.getNameAndTypeNameIndex(natIndex);
+        int typeIndex = constantPool.getNameAndTypeTypeIndex(natIndex);
 
         boolean ignored = false;
         if (IGNORED_METHODS.contains(nat.getName())) { // don't process ignored methods
@@ -351,7 +292,12 @@ public class ClassTransformer extends ClassProcessor {
         boolean isSynthetic
                 = (memberType == MemberType.FIELD ? syntheticFields : syntheticMethods).contains(nat.getName());
 
-        if (Main.getLoadedJar().getClass(className).isPresent() && !isSynthetic && !ignored) {
+        if (memberType == MemberType.FIELD) {
+            // a field may be referenced through a subclass, but must be processed as a member of its declaring class
+            className = resolveFieldOwner(className, nat);
+        }
+
+        if (className != null && classSet.getClass(className).isPresent() && !isSynthetic && !ignored) {
             String newName = getProcessedName(className + CLASS_PATH_SEPARATOR_CHAR + nat.getName(), desc,
                     memberType);
             byte[] newNameBytes = newName.getBytes(StandardCharsets.UTF_8);
@@ -359,15 +305,14 @@ public class ClassTransformer extends ClassProcessor {
             nameBuffer.put(StructureType.UTF_8.getTag());
             nameBuffer.putShort((short) newNameBytes.length);
             nameBuffer.put(newNameBytes);
-            pool.add(new Utf8Structure(nameBuffer.array()));
-            Map<Integer, Integer> map = memberType == MemberType.FIELD
-                    ? processedFieldNameMap : processedMethodNameMap;
-            map.put(nameIndex, pool.size());
-            nameIndex = pool.size();
+            int[] map = memberType == MemberType.FIELD ? processedFieldNameMap : processedMethodNameMap;
+            map[nameIndex] = pool.intern(new Utf8Structure(nameBuffer.array()));
+            nameIndex = map[nameIndex];
         }
 
         String processedDesc = getProcessedDescriptor(
-                cs.getType() == StructureType.FIELDREF ? MemberType.FIELD : MemberType.METHOD,
+                classSet,
+                type == StructureType.FIELDREF ? MemberType.FIELD : MemberType.METHOD,
                 desc
         );
         if (!processedDesc.equals(desc)) {
@@ -376,124 +321,175 @@ public class ClassTransformer extends ClassProcessor {
             typeBuffer.put(StructureType.UTF_8.getTag());
             typeBuffer.putShort((short) newTypeBytes.length);
             typeBuffer.put(newTypeBytes);
-            pool.add(new Utf8Structure(typeBuffer.array()));
-            Map<Integer, Integer> map = memberType == MemberType.FIELD
-                    ? processedFieldDescriptorMap : processedMethodDescriptorMap;
-            map.put(typeIndex, pool.size());
-            typeIndex = pool.size();
+            int[] map = memberType == MemberType.FIELD ? processedFieldDescriptorMap : processedMethodDescriptorMap;
+            map[typeIndex] = pool.intern(new Utf8Structure(typeBuffer.array()));
+            typeIndex = map[typeIndex];
         }
 
         ByteBuffer buffer = ByteBuffer.allocate(StructureType.NAME_AND_TYPE.getLength() + 1);
         buffer.put(StructureType.NAME_AND_TYPE.getTag());
         buffer.putShort((short) nameIndex);
         buffer.putShort((short) typeIndex);
-        pool.add(new NameAndTypeStructure(buffer.array()));
+        int processedNatIndex = pool.intern(new NameAndTypeStructure(buffer.array()));
 
         StructureType st = memberType == MemberType.FIELD ? StructureType.FIELDREF : StructureType.METHODREF;
         ByteBuffer mBuffer = ByteBuffer.allocate(st.getLength() + 1);
         mBuffer.put(st.getTag());
-        mBuffer.putShort((short) ((RefStructure) cs).getClassIndex());
-        mBuffer.putShort((short) pool.size());
+        mBuffer.putShort((short) pool.getRefClassIndex(index));
+        mBuffer.putShort((short) processedNatIndex);
         pool.set(index, memberType == MemberType.FIELD
                 ? new FieldrefStructure(mBuffer.array())
                 : new MethodrefStructure(mBuffer.array()));
     }
 
-    @SuppressWarnings("fallthrough")
-    private Pair<byte[], Boolean> processAttribute(ByteBuffer buffer) throws IOException {
-        ByteArrayOutputStream os = new ByteArrayOutputStream();
-        boolean isSynthetic = false;
+    /**
+     * Resolves the class declaring the field referenced through the given
+     * class, using the index of the JAR this class belongs to.
+     *
+     * @param className The name of the class named by the reference
+     * @param nat The name and type of the referenced field
+     * @return The name of the declaring class, or {@code null} if the field
+     *     is not declared by any class of the loaded JAR
+     */
+    private String resolveFieldOwner(String className, NameAndType nat) {
+        IndexedClass clazz = index.get(className);
+        if (clazz == null) {
+            return className;
+        }
+        return clazz.resolveField(new FieldSignature(nat.getName(), Type.fromString(nat.getType())))
+                .map(IndexedClass::getName).orElse(null);
+    }
 
-        int attrNameIndex = asUshort(buffer.getShort());
-        os.write(getBytes((short) attrNameIndex));
+    /**
+     * Writes the given attribute of a member to the given output, removing
+     * any local variable tables.
+     *
+     * @param out The output to write to
+     * @param attrNameIndex The pool index of the name of the attribute
+     * @param offset The offset of the attribute body
+     * @param attrLength The length of the attribute body
+     * @return Whether the attribute marks the member as synthetic
+     */
+    private boolean processAttribute(ByteBuilder out, int attrNameIndex, int offset, int attrLength) {
+        out.putShort(attrNameIndex);
         String attrName = getString(attrNameIndex);
 
-        int attrLength = buffer.getInt();
-
-        switch (attrName) {
-            case "Code": {
-                // note: we're now at max_stack
-                ByteArrayOutputStream bufferOs = new ByteArrayOutputStream();
-                bufferOs.write(readBytes(buffer, 4)); // skip max_stack and max_locals
-
-                // skip the actual code (also unimportant to us)
-                int codeLength = buffer.getInt(); // read code_length
-                bufferOs.write(getBytes(codeLength));
-                bufferOs.write(readBytes(buffer, codeLength)); // read code
-
-                // skip the exception table
-                int exceptionTableLength = asUshort(buffer.getShort()); // read exception_table_length
-                bufferOs.write(getBytes((short) exceptionTableLength));
-                bufferOs.write(readBytes(buffer, exceptionTableLength * 8)); // exception_table (each entry is 8 bytes)
-
-                // now we get to the good stuff
-                // note: we're now at attribute_count
-                ByteArrayOutputStream subOs = new ByteArrayOutputStream(); // since the length can change
-                int attrCount = asUshort(buffer.getShort()); // read attributes_count
-                int actualAttrCount = 0;
-                for (int a = 0; a < attrCount; a++) {
-                    // now we're in a sub-attribute
-                    int subAttrNameIndex = asUshort(buffer.getShort()); // read attribute_name_index
-                    String subAttrName = getString(subAttrNameIndex);
-                    int subAttrLength = buffer.getInt(); // read attribute_length
-
-                    if (subAttrName.equals("LocalVariableTable")) {
-                        attrLength -= subAttrLength + 6;
-                        readBytes(buffer, subAttrLength); // read and discard attribute body
-                    } else {
-                        actualAttrCount++;
-                        subOs.write(getBytes((short) subAttrNameIndex)); // write attribute_name_index
-                        subOs.write(getBytes(subAttrLength)); // write attribute_length
-                        subOs.write(readBytes(buffer, subAttrLength)); // read and write attribute body
-                    }
-                }
-
-                bufferOs.write(getBytes((short) actualAttrCount));
-                bufferOs.write(subOs.toByteArray());
-
-                os.write(getBytes(attrLength));
-                os.write(bufferOs.toByteArray());
+        if (!attrName.equals("Code")) {
+            out.putInt(attrLength);
+            out.put(bytes, offset, attrLength);
+            return attrName.equals("Synthetic");
+        }
 
-                break;
-            }
-            case "Synthetic": {
-                isSynthetic = true;
-            }
-            default: {
-                os.write(getBytes(attrLength));
-                os.write(readBytes(buffer, attrLength));
-                break;
+        final int lengthPos = out.size();
+        out.putInt(attrLength); // rewritten once we know which sub-attributes remain
+
+        // copy max_stack, max_locals, code_length and the actual code (unimportant to us),
+        // followed by the exception table (each entry being 8 bytes)
+        int codeLength = readInt(bytes, offset + 4);
+        int exceptionTableLength = readUshort(bytes, offset + 8 + codeLength);
+        int pos = offset + 8 + codeLength + 2 + exceptionTableLength * 8;
+        out.put(bytes, offset, pos - offset);
+
+        // now we get to the good stuff
+        // note: we're now at attribute_count
+        int attrCount = readUshort(bytes, pos);
+        final int countPos = out.size();
+        out.putShort(attrCount); // rewritten once we know which sub-attributes remain
+        pos += 2;
+        int actualAttrCount = 0;
+        for (int a = 0; a < attrCount; a++) {
+            // now we're in a sub-attribute
+            String subAttrName = getString(readUshort(bytes, pos));
+            int subAttrLength = readInt(bytes, pos + 2);
+
+            if (!subAttrName.equals("LocalVariableTable")) {
+                actualAttrCount++;
+                out.put(bytes, pos, subAttrLength + 6); // copy the name index, length and body
             }
+            pos += subAttrLength + 6;
         }
 
-        return new Pair<>(os.toByteArray(), isSynthetic);
+        out.putShort(countPos, actualAttrCount);
+        out.putInt(lengthPos, out.size() - lengthPos - 4);
+        return false;
     }
 
-    private NameAndType getNameAndType(RefStructure rs) {
-        int natStructIndex = rs.getNameAndTypeIndex();
-        assert natStructIndex <= constantPool.size();
-
-        ConstantStructure natStruct = constantPool.get(natStructIndex);
-        assert natStruct instanceof NameAndTypeStructure;
-
-        int nameIndex = ((NameAndTypeStructure) natStruct).getNameIndex();
-        int typeIndex = ((NameAndTypeStructure) natStruct).getTypeIndex();
-
-        return new NameAndType(getString(nameIndex), getString(typeIndex));
+    private NameAndType getNameAndType(int natIndex) {
+        return new NameAndType(getString(constantPool.getNameAndTypeNameIndex(natIndex)),
+                getString(constantPool.getNameAndTypeTypeIndex(natIndex)));
     }
 
     private String getString(int strIndex) {
-        assert strIndex <= processedPool.size();
-        ConstantStructure cs = processedPool.get(strIndex);
-        assert cs instanceof Utf8Structure;
-        return ((Utf8Structure) cs).asString();
+        return processedPool.getString(strIndex);
+    }
+
+    private String getClassNameFromRef(int refIndex) {
+        return getString(processedPool.getClassNameIndex(processedPool.getRefClassIndex(refIndex)));
     }
 
-    private String getClassNameFromStruct(RefStructure rs) {
-        int classIndex = rs.getClassIndex();
-        ConstantStructure classStruct = processedPool.get(classIndex);
-        assert classStruct instanceof ClassStructure;
-        return getString(((ClassStructure) classStruct).getNameIndex());
+    /**
+     * Writes everything following the constant pool to the given output,
+     * processing the member definitions of the class on the way.
+     */
+    private class TransformingVisitor implements ClassFileVisitor {
+
+        private final ByteBuilder out;
+
+        private int memberPos;
+        private int nameIndex;
+        private int descriptorIndex;
+        private boolean isSynthetic;
+
+        TransformingVisitor(ByteBuilder out) {
+            this.out = out;
+        }
+
+        @Override
+        public void visitClass(int offset, int access, int thisClassIndex, int superClassIndex,
+                int[] interfaceIndices) {
+            // the bytes between the constant pool and the member definitions don't need processing
+            out.put(bytes, offset, 8 + interfaceIndices.length * 2);
+        }
+
+        @Override
+        public void visitMemberCount(MemberType type, int count) {
+            out.putShort(count);
+        }
+
+        @Override
+        public void visitMember(MemberType type, int access, int nameIndex, int descriptorIndex) {
+            this.memberPos = out.size();
+            this.nameIndex = nameIndex;
+            this.descriptorIndex = descriptorIndex;
+            this.isSynthetic = (access & 0x1000) != 0;
+            out.putShort(access);
+            out.putShort(nameIndex); // the indices are rewritten once the attributes have been processed
+            out.putShort(descriptorIndex);
+        }
+
+        @Override
+        public void visitAttributeCount(MemberType owner, int offset, int count) {
+            if (owner == MemberType.CLASS) {
+                out.put(bytes, offset, bytes.length - offset); // copy the remainder of the class
+            } else {
+                out.putShort(count);
+            }
+        }
+
+        @Override
+        public void visitAttribute(MemberType owner, int nameIndex, int offset, int length) {
+            if (owner != MemberType.CLASS) {
+                isSynthetic = processAttribute(out, nameIndex, offset, length);
+            }
+        }
+
+        @Override
+        public void visitMemberEnd(MemberType type) {
+            boolean isMethod = type == MemberType.METHOD;
+            out.putShort(memberPos + 2, processMemberName(isMethod, nameIndex, descriptorIndex, isSynthetic));
+            out.putShort(memberPos + 4, processMemberDescriptor(isMethod, descriptorIndex));
+        }
+
     }
 
     private class NameAndType {
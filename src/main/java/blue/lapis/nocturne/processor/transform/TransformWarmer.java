@@ -0,0 +1,100 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.processor.transform;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.util.helper.PropertiesHelper;
+import blue.lapis.nocturne.util.helper.StringHelper;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Static utility class for transforming classes in the background ahead of
+ * them being requested.
+ */
+public final class TransformWarmer {
+
+    /**
+     * The maximum number of classes to warm up around a single class.
+     */
+    private static final int MAX_NEIGHBOURS = 64;
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "Nocturne transform warm-up");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private static volatile int generation;
+
+    private TransformWarmer() {
+    }
+
+    /**
+     * Transforms the classes in the same package as the given class in the
+     * background, superseding any warm-up which has not yet completed.
+     *
+     * @param classSet The {@link ClassSet} the class belongs to
+     * @param className The name of the class to warm up the neighbours of
+     */
+    public static synchronized void warmAround(ClassSet classSet, String className) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final int round = ++generation; // supersedes the previous warm-up, even if it is already running
+
+        List<JarClassEntry> neighbours = classSet.getPackageClasses(StringHelper.resolvePackageName(className)).stream()
+                .filter(entry -> !entry.isProcessed())
+                .limit(MAX_NEIGHBOURS)
+                .collect(Collectors.toList());
+        if (neighbours.isEmpty()) {
+            return;
+        }
+
+        EXECUTOR.execute(() -> {
+            for (JarClassEntry entry : neighbours) {
+                if (generation != round || Main.getLoadedJar() != classSet) {
+                    return; // superseded, or the JAR was closed or replaced in the meantime
+                }
+                entry.process();
+            }
+        });
+    }
+
+    private static boolean isEnabled() {
+        PropertiesHelper properties = Main.getPropertiesHelper();
+        return properties != null
+                && Boolean.parseBoolean(properties.getProperty(PropertiesHelper.Key.WARM_UP_TRANSFORMS));
+    }
+
+}
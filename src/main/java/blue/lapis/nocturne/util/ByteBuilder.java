@@ -0,0 +1,148 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable byte buffer which may be reused between writes, written to in
+ * big-endian order as per the class file format.
+ *
+ * <p>Unlike {@link java.io.ByteArrayOutputStream}, values are written
+ * directly into the backing array, and previously written values may be
+ * overwritten in place once their final value is known.</p>
+ */
+public final class ByteBuilder {
+
+    private byte[] buffer;
+    private int size;
+
+    /**
+     * Constructs a new {@link ByteBuilder} with the given initial capacity.
+     *
+     * @param capacity The initial capacity in bytes
+     */
+    public ByteBuilder(int capacity) {
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Returns the number of bytes written to this {@link ByteBuilder}.
+     *
+     * @return The number of bytes written
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Discards everything written to this {@link ByteBuilder}, retaining its
+     * capacity.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    public void putByte(int value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) value;
+    }
+
+    public void putShort(int value) {
+        ensureCapacity(2);
+        putShort(size, value);
+        size += 2;
+    }
+
+    /**
+     * Overwrites the short at the given position, which must already have
+     * been written.
+     *
+     * @param position The position of the short
+     * @param value The new value of the short
+     */
+    public void putShort(int position, int value) {
+        buffer[position] = (byte) (value >>> 8);
+        buffer[position + 1] = (byte) value;
+    }
+
+    public void putInt(int value) {
+        ensureCapacity(4);
+        putInt(size, value);
+        size += 4;
+    }
+
+    /**
+     * Overwrites the int at the given position, which must already have been
+     * written.
+     *
+     * @param position The position of the int
+     * @param value The new value of the int
+     */
+    public void putInt(int position, int value) {
+        buffer[position] = (byte) (value >>> 24);
+        buffer[position + 1] = (byte) (value >>> 16);
+        buffer[position + 2] = (byte) (value >>> 8);
+        buffer[position + 3] = (byte) value;
+    }
+
+    public void put(byte[] src) {
+        put(src, 0, src.length);
+    }
+
+    public void put(byte[] src, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(src, offset, buffer, size, length);
+        size += length;
+    }
+
+    /**
+     * Copies everything written to this {@link ByteBuilder} into the given
+     * array.
+     *
+     * @param dest The array to copy to
+     * @param offset The offset within the array to copy to
+     */
+    public void copyTo(byte[] dest, int offset) {
+        System.arraycopy(buffer, 0, dest, offset, size);
+    }
+
+    /**
+     * Returns a copy of everything written to this {@link ByteBuilder}.
+     *
+     * @return A copy of the written bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (size + additional > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + additional));
+        }
+    }
+
+}
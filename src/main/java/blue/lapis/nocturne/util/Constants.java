@@ -58,16 +58,16 @@ public final class Constants {
     public static final int SHORT_UNSIGNER = (int) Math.pow(2, Short.BYTES * 8) - 1;
     public static final long INT_UNSIGNER = (long) Math.pow(2, Integer.BYTES * 8) - 1;
 
-    /**
-     * Regular expression to match the types contained by a method descriptor.
-     */
-    // side-note: I'm really proud of this thing. I wrote it in like 2 minutes and it works exactly how I want it to.
-    public static final Pattern TYPE_SEQUENCE_REGEX = Pattern.compile("(\\[*(?:(?:L.+?;)|.))");
-
     public static final ImmutableMap<String, Object> FF_OPTIONS = ImmutableMap.<String, Object>builder()
             .put(IFernflowerPreferences.REMOVE_SYNTHETIC, "1")
             .put(IFernflowerPreferences.INDENT_STRING, "    ")
             .build();
+    // skips the most expensive passes, giving up on any method which takes more than the given number of seconds
+    public static final ImmutableMap<String, Object> FF_FAST_OPTIONS = ImmutableMap.<String, Object>builder()
+            .putAll(FF_OPTIONS)
+            .put(IFernflowerPreferences.FINALLY_DEINLINE, "0")
+            .put(IFernflowerPreferences.MAX_PROCESSING_METHOD, "2")
+            .build();
 
     public static final String ENIGMA_ROOT_PACKAGE_PREFIX = "none/";
 
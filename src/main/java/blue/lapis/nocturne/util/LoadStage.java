@@ -0,0 +1,54 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.util;
+
+/**
+ * Represents a stage of a background load which progress is reported for.
+ */
+public enum LoadStage {
+
+    READING_ENTRIES("load.stage.reading_entries"),
+    INDEXING_CLASSES("load.stage.indexing_classes"),
+    BUILDING_HIERARCHY("load.stage.building_hierarchy"),
+    READING_MAPPINGS("load.stage.reading_mappings"),
+    EXPORTING_SOURCES("load.stage.exporting_sources");
+
+    private final String langKey;
+
+    LoadStage(String langKey) {
+        this.langKey = langKey;
+    }
+
+    /**
+     * Returns the key of the localized description of this stage.
+     *
+     * @return The key of the localized description of this stage
+     */
+    public String getLangKey() {
+        return langKey;
+    }
+
+}
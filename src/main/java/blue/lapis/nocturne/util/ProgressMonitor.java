@@ -0,0 +1,76 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.util;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Receives progress reports from a long-running load and allows it to be
+ * cancelled cooperatively.
+ *
+ * <p>Implementations may be called from any thread, including several at
+ * once.</p>
+ */
+public interface ProgressMonitor {
+
+    /**
+     * A {@link ProgressMonitor} which ignores all progress and never cancels.
+     */
+    ProgressMonitor NONE = new ProgressMonitor() {
+    };
+
+    /**
+     * Called when the given stage has made progress.
+     *
+     * @param stage The stage which has made progress
+     * @param done The amount of work done so far in the stage
+     * @param total The total amount of work in the stage, or {@code -1} if
+     *     unknown
+     */
+    default void onProgress(LoadStage stage, long done, long total) {
+    }
+
+    /**
+     * Returns whether the load has been cancelled.
+     *
+     * @return Whether the load has been cancelled
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+
+    /**
+     * Throws a {@link CancellationException} if the load has been cancelled.
+     *
+     * @throws CancellationException If the load has been cancelled
+     */
+    default void checkCancelled() throws CancellationException {
+        if (isCancelled()) {
+            throw new CancellationException();
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.util;
+
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.processor.index.model.signature.MemberSignature;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Global table of canonical names, {@link Type}s, {@link MethodDescriptor}s
+ * and {@link MemberSignature}s.
+ *
+ * <p>The same names and descriptors are otherwise held in separate copies by
+ * the index, the mappings and every class entry. Interning them here lets all
+ * of those share a single instance, and lets equality checks between two
+ * canonical instances succeed on identity alone. Entries are weakly held, so
+ * symbols from an unloaded JAR are released along with it.</p>
+ */
+public final class SymbolTable {
+
+    private static final Interner<String> NAMES = Interners.newWeakInterner();
+    private static final Interner<Type> TYPES = Interners.newWeakInterner();
+    private static final Interner<MethodDescriptor> DESCRIPTORS = Interners.newWeakInterner();
+    private static final Interner<MemberSignature> SIGNATURES = Interners.newWeakInterner();
+
+    /**
+     * Returns the canonical instance of the given name.
+     *
+     * @param name The name to intern, may be {@code null}
+     * @return The canonical instance of the name, or {@code null} if the given
+     *     name was {@code null}
+     */
+    public static String intern(String name) {
+        return name != null ? NAMES.intern(name) : null;
+    }
+
+    /**
+     * Returns the canonical instance of the given {@link Type}.
+     *
+     * @param type The {@link Type} to intern
+     * @return The canonical instance of the {@link Type}
+     */
+    public static Type intern(Type type) {
+        return TYPES.intern(type);
+    }
+
+    /**
+     * Returns the canonical instance of the given {@link MethodDescriptor}.
+     *
+     * @param descriptor The {@link MethodDescriptor} to intern
+     * @return The canonical instance of the {@link MethodDescriptor}
+     */
+    public static MethodDescriptor intern(MethodDescriptor descriptor) {
+        return DESCRIPTORS.intern(descriptor);
+    }
+
+    /**
+     * Returns the canonical instance of the given {@link MemberSignature}.
+     *
+     * @param sig The signature to intern
+     * @param <T> The type of the signature
+     * @return The canonical instance of the signature
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends MemberSignature> T intern(T sig) {
+        // signatures are only ever equal to signatures of the same class
+        return (T) SIGNATURES.intern(sig);
+    }
+
+}
@@ -36,9 +36,7 @@ import java.nio.ByteBuffer;
 public final class ByteHelper {
 
     public static int asUshort(byte b1, byte b2) {
-        ByteBuffer buffer = ByteBuffer.allocate(Short.BYTES);
-        buffer.put(new byte[] {b1, b2});
-        return ((int) buffer.getShort(0)) & SHORT_UNSIGNER;
+        return (b1 & 0xFF) << 8 | b2 & 0xFF;
     }
 
     public static int asUshort(short signed) {
@@ -46,27 +44,48 @@ public final class ByteHelper {
     }
 
     public static long asUint(byte b1, byte b2, byte b3, byte b4) {
-        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
-        buffer.put(new byte[] {b1, b2, b3, b4});
-        return ((long) buffer.getInt(0)) & INT_UNSIGNER;
+        return asUint((b1 & 0xFF) << 24 | (b2 & 0xFF) << 16 | (b3 & 0xFF) << 8 | b4 & 0xFF);
     }
 
     public static long asUint(int signed) {
         return ((long) signed) & INT_UNSIGNER;
     }
 
+    /**
+     * Reads the unsigned short at the given offset of the given array.
+     *
+     * @param bytes The array to read from
+     * @param offset The offset of the short
+     * @return The unsigned value of the short
+     */
+    public static int readUshort(byte[] bytes, int offset) {
+        return asUshort(bytes[offset], bytes[offset + 1]);
+    }
+
+    /**
+     * Reads the int at the given offset of the given array.
+     *
+     * @param bytes The array to read from
+     * @param offset The offset of the int
+     * @return The value of the int
+     */
+    public static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8 | bytes[offset + 3] & 0xFF;
+    }
+
     public static byte[] getBytes(short s) {
-        return ByteBuffer.allocate(Short.BYTES).putShort(s).array();
+        return new byte[] {(byte) (s >>> 8), (byte) s};
     }
 
     public static byte[] getBytes(int i) {
-        return ByteBuffer.allocate(Integer.BYTES).putInt(i).array();
+        return new byte[] {(byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i};
     }
 
     public static byte[] readBytes(ByteBuffer src, int toRead) {
         byte[] arr = new byte[toRead];
         src.get(arr);
-        return ByteBuffer.allocate(toRead).put(arr).array();
+        return arr;
     }
 
 }
@@ -29,10 +29,14 @@ import static blue.lapis.nocturne.processor.index.model.IndexedClass.INDEXED_CLA
 import static blue.lapis.nocturne.util.helper.StringHelper.resolvePackageName;
 import static com.google.common.base.Preconditions.checkState;
 
+import blue.lapis.nocturne.processor.index.LibraryIndex;
 import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.processor.index.model.IndexedMethod;
 import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -41,14 +45,78 @@ import java.util.stream.Collectors;
  */
 public final class HierarchyHelper {
 
+    /**
+     * Gets the names of the other classes declaring a method which must share
+     * a name with the given method.
+     *
+     * @param className The name of the class declaring the method
+     * @param sig The signature of the method
+     * @return The names of the other classes declaring a method of the same
+     *     family
+     */
     public static Set<String> getClassesInHierarchy(String className, MethodSignature sig) {
         checkState(INDEXED_CLASSES.containsKey(className), "Class \"" + className + "\" is not indexed");
         IndexedClass clazz = INDEXED_CLASSES.get(className);
 
+        IndexedMethod method = clazz.getMethods().get(sig);
+        if (method != null && method.getFamily() != null) {
+            return method.getFamily().getClasses().stream().map(IndexedClass::getName)
+                    .filter(name -> !name.equals(className)).collect(Collectors.toSet());
+        }
+
+        // the method is only inherited by the class, so it has no family of its own
         return clazz.getHierarchy().stream().filter(c -> c.getMethods().containsKey(sig)).map(IndexedClass::getName)
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Returns whether the given method overrides a method of the JDK or of a
+     * library, and must therefore keep its name.
+     *
+     * <p>If the class only inherits the method, its ancestors are searched
+     * for the nearest classes declaring it instead.</p>
+     *
+     * @param className The name of the class declaring or inheriting the
+     *     method
+     * @param sig The signature of the method
+     * @return Whether the method overrides a library method
+     */
+    public static boolean isLibraryBound(String className, MethodSignature sig) {
+        checkState(INDEXED_CLASSES.containsKey(className), "Class \"" + className + "\" is not indexed");
+
+        Set<String> external = new HashSet<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(className);
+        while (!queue.isEmpty()) {
+            String name = queue.poll();
+            if (!visited.add(name)) {
+                continue;
+            }
+            IndexedClass clazz = INDEXED_CLASSES.get(name);
+            if (clazz == null) {
+                external.add(name);
+                continue;
+            }
+
+            // a declaring class's family already accounts for everything above it
+            IndexedMethod method = clazz.getMethods().get(sig);
+            if (method != null && method.getFamily() != null
+                    && (name.equals(className) || method.getVisibility() != IndexedMethod.Visibility.PRIVATE)) {
+                if (method.getFamily().isLibraryBound()) {
+                    return true;
+                }
+                continue;
+            }
+
+            if (clazz.getSuperclass() != null) {
+                queue.add(clazz.getSuperclass());
+            }
+            queue.addAll(clazz.getInterfaces());
+        }
+        return !LibraryIndex.getOverriddenClasses(className, external, sig).isEmpty();
+    }
+
     public static boolean isVisible(String class1, String class2, IndexedMethod.Visibility vis) {
         switch (vis) {
             case PUBLIC:
@@ -29,6 +29,8 @@ import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_CHAR;
 import static blue.lapis.nocturne.util.Constants.INNER_CLASS_SEPARATOR_PATTERN;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
 import blue.lapis.nocturne.mapping.MappingContext;
 import blue.lapis.nocturne.mapping.model.ClassMapping;
 import blue.lapis.nocturne.mapping.model.FieldMapping;
@@ -40,6 +42,7 @@ import blue.lapis.nocturne.processor.index.model.IndexedClass;
 import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
 import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -129,29 +132,40 @@ public final class MappingsHelper {
             return null;
         }
 
-        ClassMapping parent = getOrCreateClassMapping(context, owningClass);
-        if (parent.getFieldMappings().containsKey(sig)) {
-            final FieldMapping fieldMapping = parent.getFieldMappings().get(sig);
+        FieldSignature finalSig = sig;
+        IndexedClass owner = IndexedClass.INDEXED_CLASSES.get(owningClass);
+        if (sig.getType() == null) {
+            // fall back to the inherited fields only if the class doesn't declare a field of the same name itself
+            List<FieldSignature> sigList = findFieldsByName(owner.getFields().keySet(), sig.getName());
+            if (sigList.isEmpty()) {
+                sigList = findFieldsByName(owner.getInheritedFields().keySet(), sig.getName());
+            }
+            if (sigList.size() > 1) {
+                Main.getLogger().warning("Discovered ambiguous field mapping! Ignoring...");
+                return null;
+            } else if (sigList.size() == 0) {
+                Main.getLogger().warning("Discovered field mapping for non-existent field - ignoring...");
+                return null;
+            }
+            finalSig = sigList.get(0);
+        }
+
+        // a field referenced through a subclass is mapped on the class declaring it
+        String declaringClass = owner.resolveField(finalSig).map(IndexedClass::getName).orElse(owningClass);
+        ClassMapping parent = getOrCreateClassMapping(context, declaringClass);
+        if (parent.getFieldMappings().containsKey(finalSig)) {
+            final FieldMapping fieldMapping = parent.getFieldMappings().get(finalSig);
             fieldMapping.setDeobfuscatedName(deobf);
             return fieldMapping;
         } else {
-            FieldSignature finalSig = sig;
-            if (sig.getType() == null) {
-                List<FieldSignature> sigList = IndexedClass.INDEXED_CLASSES.get(owningClass).getFields().keySet()
-                        .stream().filter(s -> s.getName().equals(sig.getName())).collect(Collectors.toList());
-                if (sigList.size() > 1) {
-                    Main.getLogger().warning("Discovered ambiguous field mapping! Ignoring...");
-                    return null;
-                } else if (sigList.size() == 0) {
-                    Main.getLogger().warning("Discovered field mapping for non-existent field - ignoring...");
-                    return null;
-                }
-                finalSig = sigList.get(0);
-            }
             return new FieldMapping(parent, finalSig, deobf);
         }
     }
 
+    private static List<FieldSignature> findFieldsByName(Collection<FieldSignature> sigs, String name) {
+        return sigs.stream().filter(s -> s.getName().equals(name)).collect(Collectors.toList());
+    }
+
     public static MethodMapping genMethodMapping(MappingContext context, String owningClass, MethodSignature sig,
                                                  String deobf, boolean acceptInitializer) {
         if (!Main.getLoadedJar().getClass(owningClass).isPresent()) {
@@ -237,4 +251,78 @@ public final class MappingsHelper {
         return getClassMapping(context, qualifiedName, true).get();
     }
 
+    /**
+     * Reverts the names of the loaded JAR's classes and members which were
+     * changed by mappings in the given {@link MappingContext}, then clears the
+     * context.
+     *
+     * @param context The {@link MappingContext} to reset
+     */
+    public static void resetMappings(MappingContext context) {
+        ClassSet jar = Main.getLoadedJar();
+        context.getMappings().values().forEach(cm -> {
+            jar.getCurrentNames().forcePut(cm.getObfuscatedName(), cm.getObfuscatedName());
+            resetClassEntry(jar, cm);
+        });
+        context.clear();
+        jar.getClasses().forEach(jce -> jce.setDeobfuscated(false));
+    }
+
+    private static void resetClassEntry(ClassSet jar, ClassMapping mapping) {
+        JarClassEntry jce = jar.getClass(mapping.getFullObfuscatedName()).orElse(null);
+        if (jce == null) {
+            return;
+        }
+        mapping.getInnerClassMappings().values().forEach(im -> {
+            jce.getCurrentInnerClassNames().put(im.getObfuscatedName(), im.getObfuscatedName());
+            resetClassEntry(jar, im);
+        });
+        mapping.getFieldMappings().values()
+                .forEach(fm -> jce.getCurrentFields().put(fm.getSignature(), fm.getSignature()));
+        mapping.getMethodMappings().values()
+                .forEach(mm -> jce.getCurrentMethods().put(mm.getSignature(), mm.getSignature()));
+    }
+
+    /**
+     * Applies the names given by the mappings in the given
+     * {@link MappingContext} to the classes and members of the given
+     * {@link ClassSet}, without notifying listeners or dirtying the context.
+     *
+     * <p>Mappings for classes or members which do not exist in the
+     * {@link ClassSet} are ignored.</p>
+     *
+     * @param jar The {@link ClassSet} to apply the mappings to
+     * @param context The {@link MappingContext} to apply
+     */
+    public static void applyMappings(ClassSet jar, MappingContext context) {
+        context.getMappings().values().forEach(cm -> {
+            if (jar.getClass(cm.getObfuscatedName()).isPresent()) {
+                jar.getCurrentNames().forcePut(cm.getObfuscatedName(), cm.getDeobfuscatedName());
+            }
+            applyClassEntry(jar, cm);
+        });
+    }
+
+    private static void applyClassEntry(ClassSet jar, ClassMapping mapping) {
+        JarClassEntry jce = jar.getClass(mapping.getFullObfuscatedName()).orElse(null);
+        if (jce == null) {
+            return;
+        }
+        jce.setDeobfuscated(!mapping.getObfuscatedName().equals(mapping.getDeobfuscatedName()));
+        mapping.getInnerClassMappings().values().forEach(im -> {
+            jce.getCurrentInnerClassNames().put(im.getObfuscatedName(), im.getDeobfuscatedName());
+            applyClassEntry(jar, im);
+        });
+        mapping.getFieldMappings().values().stream()
+                .filter(fm -> jce.getCurrentFields().containsKey(fm.getSignature()))
+                .forEach(fm -> jce.getCurrentFields().put(fm.getSignature(),
+                        fm.getObfuscatedName().equals(fm.getDeobfuscatedName()) ? fm.getSignature()
+                                : new FieldSignature(fm.getDeobfuscatedName(), fm.getSignature().getType())));
+        mapping.getMethodMappings().values().stream()
+                .filter(mm -> jce.getCurrentMethods().containsKey(mm.getSignature()))
+                .forEach(mm -> jce.getCurrentMethods().put(mm.getSignature(),
+                        mm.getObfuscatedName().equals(mm.getDeobfuscatedName()) ? mm.getSignature()
+                                : new MethodSignature(mm.getDeobfuscatedName(), mm.getSignature().getDescriptor())));
+    }
+
 }
@@ -88,7 +88,13 @@ public final class PropertiesHelper {
         globalProperties.store(new FileOutputStream(globalPropertiesFile), description);
     }
 
-    private File getNocturneDirectory() {
+    /**
+     * Returns the directory in which Nocturne stores its global configuration
+     * and caches.
+     *
+     * @return The Nocturne directory
+     */
+    public File getNocturneDirectory() {
         String appdata = OperatingSystem.getOs().getConfigFolder();
         if (OperatingSystem.getOs() == OperatingSystem.LINUX) {
             return new File(appdata, "nocturne"); // to maintain compatibility with earlier Nocturne versions
@@ -106,6 +112,12 @@ public final class PropertiesHelper {
         public static final Key LAST_MAPPINGS_DIRECTORY = new Key("lastMappingsDir", "");
         public static final Key LAST_MAPPING_LOAD_FORMAT = new Key("lastMappingLoadFormat", "");
         public static final Key LAST_MAPPING_SAVE_FORMAT = new Key("lastMappingSaveFormat", "");
+        public static final Key WARM_UP_TRANSFORMS = new Key("warmUpTransforms", "true");
+        public static final Key CLASS_STORE = new Key("classStore", "heap");
+        public static final Key LIBRARIES = new Key("libraries", "");
+        public static final Key DECOMPILATION_CACHE_SIZE = new Key("decompilationCacheSize", "67108864");
+        public static final Key PREFETCH_DECOMPILATION = new Key("prefetchDecompilation", "true");
+        public static final Key DECOMPILATION_TIME_LIMIT = new Key("decompilationTimeLimit", "15");
 
         private final String key;
         private final String defaultValue;
@@ -38,10 +38,16 @@ import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_REGEX;
 import static blue.lapis.nocturne.util.Constants.Processing.MEMBER_SUFFIX;
 
 import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.ClassSet;
 import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
 import blue.lapis.nocturne.jar.model.attribute.Type;
 import blue.lapis.nocturne.util.MemberType;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -51,6 +57,15 @@ import java.util.regex.Matcher;
  */
 public final class StringHelper {
 
+    private static final int PROCESSED_DESCRIPTOR_CACHE_SIZE = 16384;
+
+    // processed descriptors depend on which classes are present in the loaded JAR, so each class set gets its own cache
+    private static final LoadingCache<ClassSet, Cache<String, String>> PROCESSED_DESCRIPTORS = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build(CacheLoader.from(
+                    () -> CacheBuilder.newBuilder().maximumSize(PROCESSED_DESCRIPTOR_CACHE_SIZE).<String, String>build()
+            ));
+
     // class format is ^NOCTURNE+name^
     // member format is %NOCTURNE+TYPE-name-descriptor%
     public static String getProcessedName(String qualName, String descriptor, MemberType memberType) {
@@ -61,11 +76,38 @@ public final class StringHelper {
     }
 
     public static String getProcessedDescriptor(MemberType memberType, String desc) {
+        return getProcessedDescriptor(Main.getLoadedJar(), memberType, desc);
+    }
+
+    /**
+     * Processes the class names in the given descriptor which belong to the
+     * given {@link ClassSet}.
+     *
+     * @param classSet The {@link ClassSet} whose classes should be processed
+     * @param memberType The type of the member the descriptor belongs to
+     * @param desc The descriptor to process
+     * @return The processed descriptor
+     */
+    public static String getProcessedDescriptor(ClassSet classSet, MemberType memberType, String desc) {
+        if (classSet == null) {
+            return processDescriptor(null, memberType, desc);
+        }
+
+        Cache<String, String> cache = PROCESSED_DESCRIPTORS.getUnchecked(classSet);
+        String processed = cache.getIfPresent(desc);
+        if (processed == null) {
+            processed = processDescriptor(classSet, memberType, desc);
+            cache.put(desc, processed);
+        }
+        return processed;
+    }
+
+    private static String processDescriptor(ClassSet classSet, MemberType memberType, String desc) {
         switch (memberType) {
             case FIELD: {
                 if (desc.startsWith("L") && desc.endsWith(";")) {
                     String typeClass = desc.substring(1, desc.length() - 1);
-                    if (Main.getLoadedJar().getClass(typeClass).isPresent()) {
+                    if (classSet.getClass(typeClass).isPresent()) {
                         return "L" + getProcessedName(typeClass, null, MemberType.CLASS) + ";";
                     }
                 }
@@ -80,7 +122,7 @@ public final class StringHelper {
                             newParams.add(param);
                         } else {
                             String typeClass = param.getClassName();
-                            if (Main.getLoadedJar().getClass(typeClass).isPresent()) {
+                            if (classSet.getClass(typeClass).isPresent()) {
                                 newParams.add(new Type(getProcessedName(typeClass, null, MemberType.CLASS),
                                         param.getArrayDimensions()));
                             } else {
@@ -91,7 +133,7 @@ public final class StringHelper {
                     Type returnType = md.getReturnType();
                     if (!returnType.isPrimitive()) {
                         String typeClass = returnType.getClassName();
-                        if (Main.getLoadedJar().getClass(typeClass).isPresent()) {
+                        if (classSet.getClass(typeClass).isPresent()) {
                             returnType = new Type(getProcessedName(typeClass, null, MemberType.CLASS),
                                     returnType.getArrayDimensions());
                         }
@@ -0,0 +1,155 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.cli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.cli.HeadlessEngine;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.reader.MappingReaderType;
+import blue.lapis.nocturne.mapping.io.writer.MappingWriterType;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Unit tests related to the {@link HeadlessEngine}.
+ */
+public class HeadlessEngineTest {
+
+    private HeadlessEngine engine;
+
+    @Before
+    public void initialize() throws Exception {
+        engine = new HeadlessEngine();
+        engine.loadJar(getResource("test.jar"));
+    }
+
+    @Test
+    public void readerTypeTest() throws Exception {
+        assertEquals(MappingReaderType.SRG, HeadlessEngine.getReaderType(getResource("mappings/example.srg")));
+        assertEquals(MappingReaderType.JAM, HeadlessEngine.getReaderType(getResource("mappings/example.jam")));
+        assertEquals(MappingReaderType.ENIGMA, HeadlessEngine.getReaderType(getResource("mappings/example.eng")));
+    }
+
+    @Test
+    public void validateTest() throws Exception {
+        for (String name : new String[] {"mappings/example.srg", "mappings/example.jam", "mappings/example.eng"}) {
+            Path path = getResource(name);
+            MappingContext context = engine.readMappings(path, HeadlessEngine.getReaderType(path));
+            assertTrue(engine.validate(context).isEmpty());
+            engine.reset();
+        }
+    }
+
+    @Test
+    public void resetTest() throws Exception {
+        engine.readMappings(getResource("mappings/example.srg"), MappingReaderType.SRG);
+        assertEquals("com/example/project/Example", Main.getLoadedJar().getCurrentNames().get("a"));
+        assertTrue(Main.getLoadedJar().getClass("a").get().isDeobfuscated());
+
+        engine.reset();
+        assertEquals("a", Main.getLoadedJar().getCurrentNames().get("a"));
+        assertFalse(Main.getLoadedJar().getClass("a").get().isDeobfuscated());
+    }
+
+    @Test
+    public void convertTest() throws Exception {
+        MappingContext context = engine.readMappings(getResource("mappings/example.srg"), MappingReaderType.SRG);
+        Path output = Files.createTempFile("nocturne", ".jam");
+        try {
+            engine.writeMappings(context, output, MappingWriterType.JAM);
+            engine.reset();
+
+            MappingContext converted = engine.readMappings(output, MappingReaderType.JAM);
+            assertEquals(context.getMappings().keySet(), converted.getMappings().keySet());
+            assertEquals(context.getMappings().get("a").getDeobfuscatedName(),
+                    converted.getMappings().get("a").getDeobfuscatedName());
+        } finally {
+            engine.reset();
+            Files.delete(output);
+        }
+    }
+
+    @Test
+    public void reloadTest() throws Exception {
+        MappingContext context = engine.readMappings(getResource("mappings/example.srg"), MappingReaderType.SRG);
+        ClassSet previous = Main.getLoadedJar();
+        IndexedClass index = IndexedClass.INDEXED_CLASSES.get("a");
+        try {
+            ClassSet reloaded = engine.reloadJar(getResource("test.jar"), context);
+            assertNotSame(previous, reloaded);
+            assertSame(reloaded, Main.getLoadedJar());
+            assertSame(index, IndexedClass.INDEXED_CLASSES.get("a")); // nothing changed, so nothing is indexed again
+            assertEquals("com/example/project/Example", reloaded.getCurrentNames().get("a"));
+            assertTrue(reloaded.getClass("a").get().isDeobfuscated());
+        } finally {
+            engine.reset();
+        }
+    }
+
+    @Test
+    public void reloadFieldOwnerTest() throws Exception {
+        // c reads a.f, which is inherited from b in the first version but declared by a itself in the second
+        engine.loadJar(getResource("reload/v1.jar"));
+        String before = new String(Main.getLoadedJar().getClass("c").get().getContent(), StandardCharsets.UTF_8);
+        assertTrue(before.contains("%NOCTURNE+FIELD-b/f-I%"));
+
+        ClassSet reloaded = engine.reloadJar(getResource("reload/v2.jar"), Main.getMappingContext());
+        String after = new String(reloaded.getClass("c").get().getContent(), StandardCharsets.UTF_8);
+        assertTrue(after.contains("%NOCTURNE+FIELD-a/f-I%"));
+        assertFalse(after.contains("%NOCTURNE+FIELD-b/f-I%"));
+    }
+
+    @Test
+    public void replacedJarTest() throws Exception {
+        // classes are transformed lazily, so they may still be requested once another JAR has been loaded
+        JarClassEntry entry = Main.getLoadedJar().getClass("a$b").get();
+        engine.loadJar(getResource("reload/v1.jar"));
+        assertFalse(IndexedClass.INDEXED_CLASSES.containsKey("a$b"));
+
+        String content = new String(entry.getContent(), StandardCharsets.UTF_8);
+        assertTrue(content.contains("&NOCTURNE+a$b&"));
+    }
+
+    private static Path getResource(String name) throws Exception {
+        return Paths.get(ClassLoader.getSystemResource(name).toURI());
+    }
+
+}
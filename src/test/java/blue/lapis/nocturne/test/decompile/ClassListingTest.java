@@ -0,0 +1,117 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.ClassListing;
+import blue.lapis.nocturne.decompile.DecompileProfile;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableList;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests related to the {@link ClassListing}.
+ */
+public class ClassListingTest {
+
+    private static ClassSet classSet;
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        classSet = JarLoader.loadJar("test.jar", ClassListingTest.class.getResourceAsStream("/test.jar"));
+        Main.setLoadedJar(classSet);
+    }
+
+    @Test
+    public void listTest() {
+        JarClassEntry entry = classSet.getClass("a").get();
+        String listing = ClassListing.list(classSet, entry, classSet.getAllInnerClasses("a"));
+
+        assertTrue(listing.contains("\npublic class &NOCTURNE+a& {\n"));
+        assertTrue(listing.contains("\n    private int %NOCTURNE+FIELD-a/a-I%;\n"));
+        assertTrue(listing.contains("\n    public &NOCTURNE+a&() {\n        // 5 bytes of bytecode\n    }\n"));
+        assertTrue(listing.contains("(int var1, &NOCTURNE+a& var2, int var3) {\n"));
+        // inner classes are nested within their outer classes
+        assertTrue(listing.contains("\n    public class &NOCTURNE+a$b& {\n"));
+        assertTrue(listing.contains("\n        public class &NOCTURNE+a$b$c& {\n"));
+        assertTrue(listing.endsWith("\n            }\n        }\n    }\n}\n"));
+    }
+
+    @Test
+    public void orphanTest() {
+        // an inner class whose outer class is missing is nested within the listed class itself
+        assertEquals(ImmutableList.of("public class", "    public class", "    public class"),
+                listNesting("x/Outer", "x/Outer$Inner", "x/Outer$Missing$Orphan"));
+        assertEquals(ImmutableList.of("public class", "    public class"),
+                listNesting("x/Outer", "x/Outer$Missing$Orphan"));
+    }
+
+    @Test
+    public void profileTest() {
+        assertEquals(DecompileProfile.FULL, classSet.getDecompilerSession().getProfile("a"));
+        assertEquals(DecompileProfile.FAST, DecompileProfile.FULL.getFallback());
+        assertEquals(DecompileProfile.LISTING, DecompileProfile.FAST.getFallback());
+        assertNull(DecompileProfile.LISTING.getFallback());
+        assertNull(DecompileProfile.LISTING.getOptions());
+    }
+
+    /**
+     * Lists the first of the given classes, all of which share the content
+     * of an existing class, returning the indentation of each declaration.
+     */
+    private static List<String> listNesting(String... names) {
+        byte[] content = classSet.getClass("b").get().getContent();
+        ClassSet orphans = new ClassSet("orphans", Arrays.stream(names).map(name -> new JarClassEntry(name, content) {
+            @Override
+            public byte[] getContent() {
+                return content;
+            }
+        }).collect(Collectors.toSet()));
+
+        String listing = ClassListing.list(orphans, orphans.getClass(names[0]).get(),
+                orphans.getAllInnerClasses(names[0]));
+        assertEquals(CharMatcher.is('{').countIn(listing), CharMatcher.is('}').countIn(listing));
+        return Arrays.stream(listing.split("\n"))
+                .filter(line -> line.endsWith("class &NOCTURNE+b& {"))
+                .map(line -> line.substring(0, line.indexOf(" &")))
+                .collect(Collectors.toList());
+    }
+
+}
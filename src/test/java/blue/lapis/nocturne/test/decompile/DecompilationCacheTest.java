@@ -0,0 +1,73 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.DecompilationCache;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.hash.HashCode;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests related to the {@link DecompilationCache}.
+ */
+public class DecompilationCacheTest {
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+    }
+
+    @Test
+    public void stampTest() {
+        AtomicInteger decompiled = new AtomicInteger();
+        final CacheStats before = DecompilationCache.getStats();
+
+        assertEquals("a1", DecompilationCache.get("test/a", HashCode.fromInt(1),
+                () -> "a" + decompiled.incrementAndGet()));
+        assertEquals("a1", DecompilationCache.get("test/a", HashCode.fromInt(1),
+                () -> "a" + decompiled.incrementAndGet()));
+
+        // a changed class or another class with the same content must be decompiled again
+        assertEquals("a2", DecompilationCache.get("test/a", HashCode.fromInt(2),
+                () -> "a" + decompiled.incrementAndGet()));
+        assertEquals("b3", DecompilationCache.get("test/b", HashCode.fromInt(1),
+                () -> "b" + decompiled.incrementAndGet()));
+
+        CacheStats stats = DecompilationCache.getStats().minus(before);
+        assertEquals(1, stats.hitCount());
+        assertEquals(3, stats.missCount());
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.decompile.DecompileExecutor;
+import blue.lapis.nocturne.decompile.DecompileProfile;
+import blue.lapis.nocturne.decompile.DecompiledSource;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests related to the {@link DecompileExecutor}.
+ */
+public class DecompileExecutorTest {
+
+    // the executor never runs more than this many decompilations at once
+    private static final int MAX_THREAD_COUNT = 4;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void awaitIdle() throws InterruptedException {
+        release.countDown();
+        for (int i = 0; i < 500 && DecompileExecutor.getPendingCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, DecompileExecutor.getPendingCount());
+    }
+
+    @Test
+    public void cancelQueuedTest() throws Exception {
+        // every worker is kept busy, so the last decompilation can't be picked up before it is cancelled
+        List<CompletableFuture<DecompiledSource>> blocking = new ArrayList<>();
+        for (int i = 0; i < MAX_THREAD_COUNT; i++) {
+            blocking.add(DecompileExecutor.submit(new BlockingEntry("blocking" + i)));
+        }
+        BlockingEntry queued = new BlockingEntry("queued");
+        CompletableFuture<DecompiledSource> future = DecompileExecutor.submit(queued);
+        assertTrue(future.cancel(false));
+        assertEquals(MAX_THREAD_COUNT + 1, DecompileExecutor.getPendingCount());
+
+        awaitIdle();
+        assertEquals(0, queued.started.get());
+        for (CompletableFuture<DecompiledSource> blocked : blocking) {
+            assertEquals("blocking", blocked.get(1, TimeUnit.SECONDS).getSource());
+        }
+    }
+
+    @Test
+    public void cancelRunningTest() throws Exception {
+        BlockingEntry running = new BlockingEntry("running");
+        CompletableFuture<DecompiledSource> future = DecompileExecutor.submit(running);
+        for (int i = 0; i < 500 && running.started.get() == 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, running.started.get());
+
+        // the decompilation can't be interrupted, so it remains pending until it finishes
+        assertTrue(future.cancel(false));
+        assertEquals(1, DecompileExecutor.getPendingCount());
+
+        awaitIdle();
+        assertTrue(future.isCancelled());
+    }
+
+    /**
+     * A class whose decompilation hangs until the test releases it.
+     */
+    private class BlockingEntry extends JarClassEntry {
+
+        private final AtomicInteger started = new AtomicInteger();
+
+        BlockingEntry(String name) {
+            super(name, new byte[0]);
+        }
+
+        @Override
+        public DecompiledSource decompile() {
+            started.incrementAndGet();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+                // the test has finished
+            }
+            return new DecompiledSource("blocking", DecompileProfile.FULL);
+        }
+
+    }
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.DecompilePrefetcher;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests related to the {@link DecompilePrefetcher}.
+ */
+public class DecompilePrefetcherTest {
+
+    private static ClassSet classSet;
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        classSet = JarLoader.loadJar("test.jar", DecompilePrefetcherTest.class.getResourceAsStream("/test.jar"));
+    }
+
+    @Test
+    public void candidateTest() {
+        // references to the class itself and its inner classes aren't worth prefetching
+        assertEquals(ImmutableList.of(), names("a"));
+        assertEquals(ImmutableList.of(), names("b"));
+        // inner classes are prefetched through their top-level class
+        assertEquals(ImmutableList.of("a"), names("a$b"));
+        assertEquals(ImmutableList.of(), names("c"));
+    }
+
+    private static ImmutableList<String> names(String className) {
+        return ImmutableList.copyOf(DecompilePrefetcher.getCandidates(classSet, className).stream()
+                .map(JarClassEntry::getName)
+                .collect(Collectors.toList()));
+    }
+
+}
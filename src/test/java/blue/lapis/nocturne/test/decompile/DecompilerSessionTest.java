@@ -0,0 +1,227 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.DecompilationCache;
+import blue.lapis.nocturne.decompile.DecompileProfile;
+import blue.lapis.nocturne.decompile.DecompiledSource;
+import blue.lapis.nocturne.decompile.DecompilerSession;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.util.ProgressMonitor;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multiset;
+import org.jetbrains.java.decompiler.struct.StructClass;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests related to the {@link DecompilerSession}.
+ */
+public class DecompilerSessionTest {
+
+    private static ClassSet classSet;
+    private static CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        classSet = JarLoader.loadJar("test.jar", DecompilerSessionTest.class.getResourceAsStream("/test.jar"));
+        Main.setLoadedJar(classSet);
+    }
+
+    @After
+    public void releaseAbandoned() throws InterruptedException {
+        release.countDown();
+        for (int i = 0; i < 100 && DecompilerSession.getAbandonedAttempts() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, DecompilerSession.getAbandonedAttempts());
+        release = new CountDownLatch(1);
+    }
+
+    @Test
+    public void fallbackTest() throws InterruptedException {
+        JarClassEntry entry = classSet.getClass("a").get();
+        List<JarClassEntry> innerClasses = classSet.getAllInnerClasses("a");
+        SlowSession session = new SlowSession(ImmutableSet.of(DecompileProfile.FULL));
+
+        DecompiledSource first = session.decompile(entry, innerClasses);
+        assertEquals(DecompileProfile.FAST, first.getProfile());
+        assertEquals("FAST", first.getSource());
+        assertEquals(DecompileProfile.FAST, session.getProfile("a"));
+        assertEquals(1, session.runs.count(DecompileProfile.FULL));
+        assertEquals(1, session.runs.count(DecompileProfile.FAST));
+
+        // the fallback source is cached under the profile it was produced with
+        final CacheStats before = DecompilationCache.getStats();
+        DecompiledSource second = session.decompile(entry, innerClasses);
+        assertEquals(DecompileProfile.FAST, second.getProfile());
+        assertEquals("FAST", second.getSource());
+        assertEquals(2, session.runs.size());
+        assertEquals(1, DecompilationCache.getStats().minus(before).hitCount());
+        assertEquals(1, DecompilerSession.getAbandonedAttempts());
+
+        // a new session mustn't mistake the fallback source for a full decompilation
+        releaseAbandoned();
+        SlowSession reloaded = new SlowSession(ImmutableSet.of(DecompileProfile.FULL));
+        assertEquals(DecompileProfile.FAST, reloaded.decompile(entry, innerClasses).getProfile());
+        assertEquals(1, reloaded.runs.count(DecompileProfile.FULL));
+    }
+
+    @Test
+    public void listingTest() {
+        JarClassEntry entry = classSet.getClass("b").get();
+        SlowSession session = new SlowSession(ImmutableSet.of(DecompileProfile.FULL, DecompileProfile.FAST));
+
+        DecompiledSource source = session.decompile(entry, classSet.getAllInnerClasses("b"));
+        assertEquals(DecompileProfile.LISTING, source.getProfile());
+        assertTrue(source.getSource().contains("class &NOCTURNE+b&"));
+        assertEquals(DecompileProfile.LISTING, session.getProfile("b"));
+    }
+
+    @Test
+    public void abandonedTest() {
+        JarClassEntry entry = classSet.getClass("b").get();
+        List<JarClassEntry> innerClasses = classSet.getAllInnerClasses("b");
+
+        // every timed out attempt keeps running, until the full profile is refused altogether
+        boolean refused = false;
+        for (int i = 0; i <= Runtime.getRuntime().availableProcessors() && !refused; i++) {
+            SlowSession session = new SlowSession(ImmutableSet.of(DecompileProfile.FULL));
+            DecompiledSource source = session.decompile(entry, innerClasses);
+            assertEquals(DecompileProfile.FAST, source.getProfile());
+            refused = session.runs.count(DecompileProfile.FULL) == 0;
+            if (refused) {
+                // the class itself isn't at fault
+                assertEquals(DecompileProfile.FULL, session.getProfile("b"));
+            }
+        }
+        assertTrue(refused);
+        assertFalse(DecompilerSession.getAbandonedAttempts() == 0);
+    }
+
+    @Test
+    public void prefetchTest() {
+        JarClassEntry entry = classSet.getClass("a").get();
+        List<JarClassEntry> innerClasses = classSet.getAllInnerClasses("a");
+        DecompilationCache.invalidateAll();
+        SlowSession session = new SlowSession(ImmutableSet.of());
+
+        Optional<DecompiledSource> prefetched = session.prefetch(entry, innerClasses);
+        assertTrue(prefetched.isPresent());
+        assertEquals(DecompileProfile.FULL, prefetched.get().getProfile());
+        // the prefetch doesn't keep its parsed classes in the session
+        assertEquals(0, session.getStats().requestCount());
+
+        // a cached class isn't prefetched again
+        final CacheStats before = DecompilationCache.getStats();
+        assertFalse(session.prefetch(entry, innerClasses).isPresent());
+        assertEquals(1, session.runs.size());
+        assertEquals(0, DecompilationCache.getStats().minus(before).requestCount());
+
+        assertEquals("FULL", session.decompile(entry, innerClasses).getSource());
+        assertEquals(1, session.runs.size());
+        DecompilationCache.invalidateAll();
+    }
+
+    @Test
+    public void reuseTest() throws IOException {
+        JarClassEntry entry = classSet.getClass("a").get();
+        List<JarClassEntry> innerClasses = classSet.getAllInnerClasses("a");
+        DecompilationCache.invalidateAll();
+        SlowSession session = new SlowSession(ImmutableSet.of());
+
+        session.decompile(entry, innerClasses);
+        assertEquals(0, session.getStats().hitCount());
+        assertEquals(innerClasses.size() + 1, session.getStats().missCount());
+
+        // the classes are parsed from the same processed content, so they're reused
+        DecompilationCache.invalidateAll();
+        session.decompile(entry, innerClasses);
+        assertEquals(2, session.runs.size());
+        assertEquals(innerClasses.size() + 1, session.getStats().hitCount());
+        assertEquals(innerClasses.size() + 1, session.getStats().missCount());
+
+        // a class of the same name with different content mustn't be mistaken for the parsed one
+        ClassSet other = JarLoader.prepareJar("v1.jar",
+                DecompilerSessionTest.class.getResourceAsStream("/reload/v1.jar"), ProgressMonitor.NONE).getClassSet();
+        final CacheStats before = session.getStats();
+        session.decompile(other.getClass("a").get(), other.getAllInnerClasses("a"));
+        assertEquals(3, session.runs.size());
+        assertEquals(0, session.getStats().minus(before).hitCount());
+        assertEquals(1, session.getStats().minus(before).missCount());
+        DecompilationCache.invalidateAll();
+    }
+
+    /**
+     * A session whose decompiler hangs with the given profiles, until the
+     * test releases it.
+     */
+    private static class SlowSession extends DecompilerSession {
+
+        private final Set<DecompileProfile> slowProfiles;
+        private final Multiset<DecompileProfile> runs = ConcurrentHashMultiset.create();
+
+        SlowSession(Set<DecompileProfile> slowProfiles) {
+            super(50, TimeUnit.MILLISECONDS);
+            this.slowProfiles = slowProfiles;
+        }
+
+        @Override
+        protected String runFernflower(DecompileProfile profile, Map<String, StructClass> classes,
+                StructClass target) {
+            runs.add(profile);
+            if (slowProfiles.contains(profile)) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    // the test has finished
+                }
+            }
+            return profile.name();
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.test.decompile;
+
+import static org.junit.Assert.assertEquals;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.decompile.SourceRemapper;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
+import blue.lapis.nocturne.util.helper.MappingsHelper;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+
+/**
+ * Unit tests related to the {@link SourceRemapper}.
+ */
+public class SourceRemapperTest {
+
+    private static final MappingContext MAPPINGS = new MappingContext();
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        Main.setLoadedJar(JarLoader.loadJar("test.jar", SourceRemapperTest.class.getResourceAsStream("/test.jar")));
+
+        MappingsHelper.genClassMapping(MAPPINGS, "a", "com/example/Example", false);
+        MappingsHelper.genClassMapping(MAPPINGS, "a$b", "com/example/Example$Inner", false);
+        MappingsHelper.genFieldMapping(MAPPINGS, "a", new FieldSignature("a", Type.fromString("I")), "value");
+    }
+
+    @Test
+    public void remapTest() {
+        String source = "public class &NOCTURNE+a& {\n"
+                + "    private int %NOCTURNE+FIELD-a/a-I%;\n"
+                + "    private int %NOCTURNE+FIELD-a/b-I%;\n"
+                + "    public &NOCTURNE+a&(&NOCTURNE+a$b& inner) {\n"
+                + "        new &NOCTURNE+b&();\n"
+                + "    }\n"
+                + "    public class &NOCTURNE+a$b& {\n"
+                + "    }\n"
+                + "}\n";
+        String expected = "package com.example;\n\n"
+                + "public class Example {\n"
+                + "    private int value;\n"
+                + "    private int b;\n"
+                + "    public Example(com.example.Example.Inner inner) {\n"
+                + "        new b();\n"
+                + "    }\n"
+                + "    public class Inner {\n"
+                + "    }\n"
+                + "}\n";
+        assertEquals(expected, SourceRemapper.remap(MAPPINGS, "a", source));
+    }
+
+    @Test
+    public void packageTest() {
+        // the package of an unmapped class is kept, while the decompiler's own declaration is replaced
+        assertEquals("class b {}", SourceRemapper.remap(MAPPINGS, "b", "package ignored;\n\nclass &NOCTURNE+b& {}"));
+    }
+
+}
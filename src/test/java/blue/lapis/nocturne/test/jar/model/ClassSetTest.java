@@ -0,0 +1,82 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.test.jar.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests related to the structural indexes of {@link ClassSet}.
+ */
+public class ClassSetTest {
+
+    private static final ClassSet CLASS_SET = new ClassSet("test", Stream.of(
+            "a/Outer", "a/Outer$Inner", "a/Outer$Inner$Deep", "a/Outer$Missing$Orphan", "a/Other", "b/Outer$Lone"
+    ).map(name -> new JarClassEntry(name, new byte[0])).collect(Collectors.toSet()));
+
+    @Test
+    public void innerClassesTest() {
+        assertEquals(ImmutableList.of("a/Outer$Inner"), names(CLASS_SET.getInnerClasses("a/Outer")));
+        assertEquals(ImmutableList.of("a/Outer$Inner$Deep"), names(CLASS_SET.getInnerClasses("a/Outer$Inner")));
+        // transitive inner classes include those whose intermediate outer class doesn't exist
+        assertEquals(ImmutableList.of("a/Outer$Inner", "a/Outer$Inner$Deep", "a/Outer$Missing$Orphan"),
+                names(CLASS_SET.getAllInnerClasses("a/Outer")));
+        assertEquals("a/Outer$Inner", CLASS_SET.getOuterClass("a/Outer$Inner$Deep").get().getName());
+        assertFalse(CLASS_SET.getOuterClass("a/Outer$Missing$Orphan").isPresent());
+        assertFalse(CLASS_SET.getOuterClass("a/Outer").isPresent());
+    }
+
+    @Test
+    public void topLevelTest() {
+        assertEquals(ImmutableSet.of("a/Other", "a/Outer"),
+                ImmutableSet.copyOf(names(CLASS_SET.getTopLevelClasses())));
+        assertEquals(ImmutableSet.of("b/Outer$Lone"), ImmutableSet.copyOf(names(CLASS_SET.getPackageClasses("b"))));
+        assertEquals(5, CLASS_SET.getPackageClasses("a").size());
+    }
+
+    @Test
+    public void sourceClassesTest() {
+        // inner classes without any enclosing class get a source file of their own
+        assertEquals(ImmutableList.of("a/Other", "a/Outer", "b/Outer$Lone"),
+                names(CLASS_SET.getSourceClasses()));
+    }
+
+    private static List<String> names(Collection<JarClassEntry> entries) {
+        return entries.stream().map(JarClassEntry::getName).collect(Collectors.toList());
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.jar.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import blue.lapis.nocturne.jar.store.ArenaClassStore;
+import blue.lapis.nocturne.jar.store.ClassStore;
+import blue.lapis.nocturne.jar.store.CompressingClassStore;
+import blue.lapis.nocturne.jar.store.HeapClassStore;
+import blue.lapis.nocturne.jar.store.StoredClass;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/**
+ * Unit tests related to the {@link ClassStore} implementations.
+ */
+public class ClassStoreTest {
+
+    private static final byte[] CONTENT = new byte[1024];
+
+    static {
+        Arrays.fill(CONTENT, 0, 512, (byte) 0xCA);
+        Arrays.fill(CONTENT, 512, 1024, (byte) 0xFE);
+    }
+
+    @Test
+    public void heapTest() {
+        roundTrip(new HeapClassStore());
+    }
+
+    @Test
+    public void arenaTest() {
+        ArenaClassStore store = new ArenaClassStore();
+        roundTrip(store);
+        // content larger than a slab must still be stored intact
+        byte[] large = new byte[ArenaClassStore.SLAB_SIZE + 1];
+        large[large.length - 1] = 1;
+        assertArrayEquals(large, store.store(large).get());
+        assertEquals(2, store.getStatistics().getEntries());
+    }
+
+    @Test
+    public void compressedTest() {
+        CompressingClassStore store = new CompressingClassStore();
+        StoredClass stored = store.store(CONTENT.clone());
+        assertEquals(1, store.compressIdle(0));
+        assertEquals(1, store.getStatistics().getCompressedEntries());
+        assertArrayEquals(CONTENT, stored.get());
+        assertEquals(0, store.getStatistics().getCompressedEntries());
+        assertEquals(0, store.compressIdle(Long.MAX_VALUE / 2));
+    }
+
+    private static void roundTrip(ClassStore store) {
+        StoredClass stored = store.store(CONTENT.clone());
+        assertEquals(CONTENT.length, stored.length());
+        assertArrayEquals(CONTENT, stored.get());
+        assertEquals(1, store.getStatistics().getEntries());
+        assertEquals(CONTENT.length, store.getStatistics().getContentBytes());
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package blue.lapis.nocturne.test.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.io.JarLoader;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.mapping.MappingContext;
+import blue.lapis.nocturne.mapping.io.reader.SrgReader;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit tests related to the {@link MappingContext}.
+ */
+public class MappingContextTest {
+
+    private static ClassSet classSet;
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+        classSet = JarLoader.loadJar("test.jar", MappingContextTest.class.getResourceAsStream("/test.jar"));
+        Main.setLoadedJar(classSet);
+    }
+
+    @Test
+    public void detachedTest() throws IOException {
+        MappingContext read;
+        try (SrgReader reader = new SrgReader(new BufferedReader(new InputStreamReader(
+                MappingContextTest.class.getResourceAsStream("/mappings/example.srg"), StandardCharsets.UTF_8)))) {
+            reader.setDetached(true);
+            read = reader.read();
+        }
+        assertTrue(read.isDetached());
+        assertEquals("com/example/project/Example", read.getMappings().get("a").getDeobfuscatedName());
+
+        // reading leaves the loaded JAR untouched
+        JarClassEntry entry = classSet.getClass("a").get();
+        assertEquals("a", classSet.getCurrentNames().get("a"));
+        assertFalse(entry.isDeobfuscated());
+        assertFalse("Inner".equals(entry.getCurrentInnerClassNames().get("b")));
+
+        MappingContext context = new MappingContext();
+        context.assimilate(read);
+        assertEquals("com/example/project/Example", classSet.getCurrentNames().get("a"));
+        assertTrue(entry.isDeobfuscated());
+        assertEquals("Inner", entry.getCurrentInnerClassNames().get("b"));
+        assertTrue(entry.getCurrentFields().values().stream().anyMatch(sig -> sig.getName().equals("someField")));
+        assertTrue(context.isDirty());
+    }
+
+}
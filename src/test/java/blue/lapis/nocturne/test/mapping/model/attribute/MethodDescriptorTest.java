@@ -27,10 +27,13 @@ package blue.lapis.nocturne.test.mapping.model.attribute;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
 import blue.lapis.nocturne.jar.model.attribute.Primitive;
 import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+import blue.lapis.nocturne.util.SymbolTable;
 
 import org.junit.Test;
 
@@ -78,4 +81,39 @@ public class MethodDescriptorTest {
         assertEquals(new Type(c2, 0), ms.getReturnType());
     }
 
+    @Test
+    public void testCanonicalDescriptor() {
+        String desc = "(Ljava/lang/String;[I)Ljava/util/List;";
+        MethodDescriptor md = MethodDescriptor.fromString(desc);
+        assertSame(md, MethodDescriptor.fromString(new String(desc)));
+        assertSame(md.getParamTypes()[0], Type.fromString("Ljava/lang/String;"));
+        assertSame(md.getReturnType().getClassName(), new Type(new String("java/util/List"), 0).getClassName());
+
+        MethodSignature sig = SymbolTable.intern(new MethodSignature("get", md));
+        assertSame(sig, SymbolTable.intern(new MethodSignature(new String("get"), MethodDescriptor.fromString(desc))));
+    }
+
+    @Test
+    public void testEmptyDescriptor() {
+        MethodDescriptor ms = MethodDescriptor.fromString("()[Ljava/lang/Object;");
+        assertArrayEquals(new Type[0], ms.getParamTypes());
+        assertEquals(new Type("java/lang/Object", 1), ms.getReturnType());
+        assertEquals("()[Ljava/lang/Object;", ms.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnterminatedParameters() {
+        MethodDescriptor.fromString("(IJ");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnterminatedClassType() {
+        MethodDescriptor.fromString("(Ljava/lang/String)V");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTrailingCharacters() {
+        MethodDescriptor.fromString("()VV");
+    }
+
 }
@@ -0,0 +1,104 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.processor.ClassFileReader;
+import blue.lapis.nocturne.processor.ClassFileVisitor;
+import blue.lapis.nocturne.util.Constants;
+import blue.lapis.nocturne.util.MemberType;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+
+/**
+ * Unit tests related to the {@link ClassFileReader}.
+ */
+public class ClassFileReaderTest {
+
+    @Test
+    public void readTest() throws IOException {
+        int read = 0;
+        try (JarInputStream jar = new JarInputStream(ClassFileReaderTest.class.getResourceAsStream("/test.jar"))) {
+            JarEntry entry;
+            while ((entry = jar.getNextJarEntry()) != null) {
+                if (entry.getName().endsWith(Constants.CLASS_FILE_NAME_TAIL)) {
+                    checkClass(ByteStreams.toByteArray(jar));
+                    read++;
+                }
+            }
+        }
+        assertTrue(read > 0);
+    }
+
+    private static void checkClass(byte[] bytes) {
+        ClassFileVisitor visitor = new ClassFileVisitor() {
+            private int expectedMembers;
+            private int members;
+            private int end;
+            private boolean ended;
+
+            @Override
+            public void visitHeader(int minorVersion, int majorVersion) {
+                assertTrue(majorVersion >= 45);
+            }
+
+            @Override
+            public void visitMemberCount(MemberType type, int count) {
+                assertEquals(expectedMembers, members);
+                expectedMembers += count;
+            }
+
+            @Override
+            public void visitMember(MemberType type, int access, int nameIndex, int descriptorIndex) {
+                members++;
+            }
+
+            @Override
+            public void visitAttribute(MemberType owner, int nameIndex, int offset, int length) {
+                assertTrue(offset >= end);
+                end = offset + length;
+            }
+
+            @Override
+            public void visitEnd() {
+                assertFalse(ended);
+                ended = true;
+                assertEquals(expectedMembers, members);
+                assertEquals(bytes.length, end);
+            }
+        };
+        new ClassFileReader(null, bytes).accept(visitor);
+    }
+
+}
@@ -0,0 +1,101 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.processor.constantpool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import blue.lapis.nocturne.processor.constantpool.ConstantPoolReader;
+import blue.lapis.nocturne.processor.constantpool.model.ConstantPool;
+import blue.lapis.nocturne.processor.constantpool.model.ConstantPoolOverflowException;
+import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
+import blue.lapis.nocturne.processor.constantpool.model.structure.Utf8Structure;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarInputStream;
+
+/**
+ * Unit tests related to the {@link ConstantPool} class.
+ */
+public class ConstantPoolTest {
+
+    private static ConstantPool readPool() throws IOException {
+        try (JarInputStream jar = new JarInputStream(ConstantPoolTest.class.getResourceAsStream("/test.jar"))) {
+            JarEntry entry;
+            while ((entry = jar.getNextJarEntry()) != null) {
+                if (entry.getName().equals("a.class")) {
+                    byte[] bytes = ByteStreams.toByteArray(jar);
+                    return new ConstantPool(new ConstantPoolReader("a", bytes).read());
+                }
+            }
+        }
+        throw new AssertionError("Test class not found");
+    }
+
+    @Test
+    public void internTest() throws IOException {
+        ConstantPool pool = readPool();
+        final int size = pool.size();
+
+        int existing = 0;
+        for (int i = 1; i <= size; i++) {
+            if (pool.getType(i) == StructureType.UTF_8) {
+                existing = i;
+                break;
+            }
+        }
+        assertTrue(existing > 0);
+        assertEquals(existing, pool.intern(new Utf8Structure(pool.getString(existing))));
+        assertEquals(size, pool.size());
+
+        int added = pool.intern(new Utf8Structure("☃ not in the pool"));
+        assertEquals(size + 1, added);
+        assertEquals(added, pool.intern(new Utf8Structure("☃ not in the pool")));
+        assertEquals(size + 1, pool.size());
+        assertEquals("☃ not in the pool", pool.getString(added));
+    }
+
+    @Test
+    public void overflowTest() throws IOException {
+        ConstantPool pool = readPool();
+        while (pool.size() < ConstantPool.MAX_SIZE) {
+            pool.intern(new Utf8Structure("entry " + pool.size()));
+        }
+        try {
+            pool.intern(new Utf8Structure("overflow"));
+            fail("Constant pool overflow was not detected");
+        } catch (ConstantPoolOverflowException ignored) {
+            // expected
+        }
+        assertEquals(ConstantPool.MAX_SIZE, pool.size());
+    }
+
+}
@@ -0,0 +1,223 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.processor.index;
+
+import static blue.lapis.nocturne.processor.index.model.IndexedMethod.Visibility.PACKAGE;
+import static blue.lapis.nocturne.processor.index.model.IndexedMethod.Visibility.PRIVATE;
+import static blue.lapis.nocturne.processor.index.model.IndexedMethod.Visibility.PUBLIC;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.jar.model.attribute.MethodDescriptor;
+import blue.lapis.nocturne.jar.model.attribute.Type;
+import blue.lapis.nocturne.processor.index.ClassHierarchyBuilder;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+import blue.lapis.nocturne.processor.index.model.IndexedField;
+import blue.lapis.nocturne.processor.index.model.IndexedMethod;
+import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
+import blue.lapis.nocturne.processor.index.model.signature.MethodSignature;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests related to the {@link ClassHierarchyBuilder}.
+ */
+public class ClassHierarchyBuilderTest {
+
+    private static final MethodSignature RUN = new MethodSignature("run", MethodDescriptor.fromString("()V"));
+    private static final MethodSignature TO_STRING
+            = new MethodSignature("toString", MethodDescriptor.fromString("()Ljava/lang/String;"));
+    private static final FieldSignature F = new FieldSignature("f", Type.fromString("I"));
+    private static final FieldSignature G = new FieldSignature("g", Type.fromString("J"));
+    private static final MethodSignature HASH_CODE
+            = new MethodSignature("hashCode", MethodDescriptor.fromString("()I"));
+
+    @BeforeClass
+    public static void initialize() throws IOException {
+        new Main(true);
+    }
+
+    @Test
+    public void hierarchyTest() {
+        // a <- b <- c -> i, a <- d, with e standing alone
+        Map<String, IndexedClass> classes = build(
+                create("a", "java/lang/Object", true),
+                create("b", "a", false),
+                create("c", "b", true, "i"),
+                create("d", "a", true),
+                create("i", "java/lang/Object", true),
+                create("e", "missing", true)
+        );
+
+        assertHierarchy(classes.get("a"), "b", "c", "d", "i");
+        assertHierarchy(classes.get("b"), "a", "c", "i");
+        assertHierarchy(classes.get("c"), "a", "b", "i");
+        assertHierarchy(classes.get("d"), "a");
+        assertHierarchy(classes.get("i"), "a", "b", "c");
+        assertHierarchy(classes.get("e"));
+
+        // d is only related to a, but still shares its family with c through it
+        assertFamily(classes.get("a"), "a", "c", "d", "i");
+        assertSame(classes.get("a").getMethods().get(RUN).getFamily(),
+                classes.get("d").getMethods().get(RUN).getFamily());
+        assertFamily(classes.get("e"), "e");
+    }
+
+    @Test
+    public void familyVisibilityTest() {
+        Map<String, IndexedClass> classes = build(
+                create("p/a", "java/lang/Object", PUBLIC),
+                create("q/b", "p/a", PACKAGE),
+                create("p/c", "p/a", PRIVATE),
+                create("r/x", "java/lang/Object", PACKAGE),
+                create("s/y", "r/x", PACKAGE)
+        );
+
+        assertFamily(classes.get("p/a"), "p/a", "q/b");
+        assertFamily(classes.get("p/c"), "p/c");
+        assertFamily(classes.get("r/x"), "r/x");
+        assertFamily(classes.get("s/y"), "s/y");
+    }
+
+    @Test
+    public void cycleTest() {
+        Map<String, IndexedClass> classes = build(
+                create("x", "y", false),
+                create("y", "x", false),
+                create("z", "x", false)
+        );
+
+        assertHierarchy(classes.get("x"), "y", "z");
+        assertHierarchy(classes.get("y"), "x", "z");
+    }
+
+    @Test
+    public void libraryTest() {
+        // library supertypes are resolved against the running JDK
+        Map<String, IndexedClass> classes = build(
+                create("a", "java/lang/Object", new IndexedMethod(TO_STRING, PUBLIC), new IndexedMethod(RUN, PUBLIC)),
+                create("b", "a", new IndexedMethod(HASH_CODE, PUBLIC)),
+                create("c", "java/lang/Object", true, "java/lang/Runnable"),
+                create("d", "java/lang/Thread", true),
+                create("e", "java/lang/Object", new IndexedMethod(TO_STRING, PRIVATE))
+        );
+
+        assertLibraryClasses(classes.get("a"), TO_STRING, "java/lang/Object");
+        assertFalse(classes.get("a").getMethods().get(RUN).getFamily().isLibraryBound());
+        assertLibraryClasses(classes.get("b"), HASH_CODE, "java/lang/Object");
+        assertLibraryClasses(classes.get("c"), RUN, "java/lang/Runnable");
+        assertLibraryClasses(classes.get("d"), RUN, "java/lang/Thread", "java/lang/Runnable");
+        assertFalse(classes.get("e").getMethods().get(TO_STRING).getFamily().isLibraryBound());
+    }
+
+    @Test
+    public void fieldResolutionTest() {
+        // a <- b <- c, with b also implementing i, and d standing next to b
+        Map<String, IndexedClass> classes = build(
+                create("a", "java/lang/Object", ImmutableList.of(F), ImmutableList.of()),
+                create("i", "java/lang/Object", ImmutableList.of(F, G), ImmutableList.of()),
+                create("b", "a", ImmutableList.of(), ImmutableList.of("i")),
+                create("c", "b", ImmutableList.of(F), ImmutableList.of()),
+                create("d", "a", ImmutableList.of(), ImmutableList.of())
+        );
+
+        // interfaces take precedence over the superclass, and the class itself over both
+        assertEquals("i", classes.get("b").resolveField(F).get().getName());
+        assertEquals("i", classes.get("b").resolveField(G).get().getName());
+        assertEquals("c", classes.get("c").resolveField(F).get().getName());
+        assertEquals("i", classes.get("c").resolveField(G).get().getName());
+        assertEquals("a", classes.get("d").resolveField(F).get().getName());
+        assertFalse(classes.get("a").resolveField(G).isPresent());
+    }
+
+    private static IndexedClass create(String name, String superClass, List<FieldSignature> fields,
+            List<String> interfaces) {
+        return new IndexedClass(name, null, superClass, interfaces,
+                fields.stream().map(sig -> new IndexedField(sig, IndexedField.Visibility.PUBLIC))
+                        .collect(Collectors.toList()),
+                Collections.emptyList());
+    }
+
+    private static IndexedClass create(String name, String superClass, IndexedMethod... methods) {
+        return new IndexedClass(name, null, superClass, Collections.emptyList(), Collections.emptyList(),
+                ImmutableList.copyOf(methods));
+    }
+
+    private static IndexedClass create(String name, String superClass, boolean hasMethod, String... interfaces) {
+        return create(name, superClass, hasMethod ? PUBLIC : null, interfaces);
+    }
+
+    private static IndexedClass create(String name, String superClass, IndexedMethod.Visibility visibility,
+            String... interfaces) {
+        return new IndexedClass(name, null, superClass, ImmutableList.copyOf(interfaces), Collections.emptyList(),
+                visibility != null
+                        ? Collections.singletonList(new IndexedMethod(RUN, visibility))
+                        : Collections.emptyList());
+    }
+
+    private static Map<String, IndexedClass> build(IndexedClass... classes) {
+        new ClassHierarchyBuilder(Sets.newHashSet(classes)).buildHierarchies();
+        return ImmutableSet.copyOf(classes).stream().collect(Collectors.toMap(IndexedClass::getName,
+                Function.identity()));
+    }
+
+    private static void assertHierarchy(IndexedClass clazz, String... expected) {
+        assertEquals(names(expected), names(clazz.getHierarchy()));
+    }
+
+    private static void assertFamily(IndexedClass clazz, String... expected) {
+        assertEquals(names(expected), ImmutableSet.copyOf(clazz.getMethods().get(RUN).getFamily().getClasses().stream()
+                .map(IndexedClass::getName).iterator()));
+    }
+
+    private static void assertLibraryClasses(IndexedClass clazz, MethodSignature sig, String... expected) {
+        assertEquals(names(expected), ImmutableSet.copyOf(clazz.getMethods().get(sig).getFamily().getLibraryClasses()));
+    }
+
+    private static Set<String> names(String... names) {
+        return ImmutableSet.copyOf(names);
+    }
+
+    private static Set<String> names(Set<IndexedClass> classes) {
+        return classes.stream().map(IndexedClass::getName).collect(Collectors.toSet());
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.processor.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.cli.HeadlessEngine;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.processor.index.IndexCache;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+import blue.lapis.nocturne.processor.index.model.IndexedField;
+import blue.lapis.nocturne.processor.index.model.IndexedMethod;
+import blue.lapis.nocturne.processor.index.model.MethodFamily;
+import blue.lapis.nocturne.processor.index.model.signature.FieldSignature;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests related to the {@link IndexCache}.
+ */
+public class IndexCacheTest {
+
+    private Path cacheDirectory;
+
+    @Before
+    public void initialize() throws IOException {
+        cacheDirectory = Files.createTempDirectory("nocturne");
+        IndexCache.setCacheDirectory(cacheDirectory);
+    }
+
+    @After
+    public void cleanUp() throws IOException {
+        IndexCache.setCacheDirectory(null);
+        try (Stream<Path> files = Files.walk(cacheDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void roundTripTest() throws Exception {
+        // nothing is cached yet, so this indexes the JAR and writes the result to the cache
+        new HeadlessEngine().loadJar(Paths.get(ClassLoader.getSystemResource("test.jar").toURI()));
+        ClassSet classSet = Main.getLoadedJar();
+        Map<String, IndexedClass> fresh = new HashMap<>(IndexedClass.INDEXED_CLASSES);
+
+        Optional<Map<String, IndexedClass>> restored
+                = IndexCache.load(IndexCache.computeKey(classSet.getClasses()), classSet);
+        assertTrue(restored.isPresent());
+        assertEquals(fresh.keySet(), restored.get().keySet());
+
+        for (IndexedClass freshClass : fresh.values()) {
+            IndexedClass restoredClass = restored.get().get(freshClass.getName());
+            assertNotSame(freshClass, restoredClass);
+            assertEquals(freshClass.getSuperclass(), restoredClass.getSuperclass());
+            assertEquals(freshClass.getInterfaces(), restoredClass.getInterfaces());
+            assertEquals(getNames(freshClass.getHierarchy()), getNames(restoredClass.getHierarchy()));
+            assertEquals(getDeclaringClasses(freshClass), getDeclaringClasses(restoredClass));
+
+            assertEquals(freshClass.getFields().keySet(), restoredClass.getFields().keySet());
+            for (IndexedField freshField : freshClass.getFields().values()) {
+                IndexedField restoredField = restoredClass.getFields().get(freshField.getSignature());
+                assertEquals(freshField.getVisibility(), restoredField.getVisibility());
+                assertEquals(getNames(freshField.getHierarchy()), getNames(restoredField.getHierarchy()));
+            }
+
+            assertEquals(freshClass.getMethods().keySet(), restoredClass.getMethods().keySet());
+            for (IndexedMethod freshMethod : freshClass.getMethods().values()) {
+                IndexedMethod restoredMethod = restoredClass.getMethods().get(freshMethod.getSignature());
+                assertEquals(freshMethod.getVisibility(), restoredMethod.getVisibility());
+                checkFamily(freshMethod.getFamily(), restoredMethod.getFamily());
+            }
+        }
+    }
+
+    private static void checkFamily(MethodFamily fresh, MethodFamily restored) {
+        if (fresh == null) {
+            assertNull(restored);
+            return;
+        }
+        assertEquals(fresh.getSignature(), restored.getSignature());
+        assertEquals(getNames(fresh.getClasses()), getNames(restored.getClasses()));
+        assertEquals(fresh.getLibraryClasses(), restored.getLibraryClasses());
+    }
+
+    private static Map<FieldSignature, String> getDeclaringClasses(IndexedClass clazz) {
+        return clazz.getInheritedFields().entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().getName()));
+    }
+
+    private static Set<String> getNames(Collection<IndexedClass> classes) {
+        return classes.stream().map(IndexedClass::getName).collect(Collectors.toSet());
+    }
+
+}
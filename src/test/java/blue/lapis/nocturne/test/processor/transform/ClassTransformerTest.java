@@ -0,0 +1,246 @@
+/*
+ * Nocturne
+ * Copyright (c) 2015-2016, Lapis <https://github.com/LapisBlue>
+ *
+ * The MIT License
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package blue.lapis.nocturne.test.processor.transform;
+
+import static blue.lapis.nocturne.util.Constants.CLASS_PATH_SEPARATOR_CHAR;
+import static blue.lapis.nocturne.util.helper.StringHelper.getProcessedDescriptor;
+import static blue.lapis.nocturne.util.helper.StringHelper.getProcessedName;
+import static blue.lapis.nocturne.util.helper.StringHelper.getUnprocessedName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import blue.lapis.nocturne.Main;
+import blue.lapis.nocturne.cli.HeadlessEngine;
+import blue.lapis.nocturne.jar.model.ClassSet;
+import blue.lapis.nocturne.jar.model.JarClassEntry;
+import blue.lapis.nocturne.processor.ClassFileReader;
+import blue.lapis.nocturne.processor.ClassFileVisitor;
+import blue.lapis.nocturne.processor.constantpool.model.ImmutableConstantPool;
+import blue.lapis.nocturne.processor.constantpool.model.structure.StructureType;
+import blue.lapis.nocturne.processor.index.model.IndexedClass;
+import blue.lapis.nocturne.processor.transform.ClassTransformer;
+import blue.lapis.nocturne.util.Constants;
+import blue.lapis.nocturne.util.MemberType;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests related to the {@link ClassTransformer}.
+ */
+public class ClassTransformerTest {
+
+    private static final int ACC_SYNTHETIC = 0x1000;
+    private static final Set<String> IGNORED_METHODS = ImmutableSet.of("<init>", "<clinit>");
+
+    @BeforeClass
+    public static void initialize() throws Exception {
+        new HeadlessEngine().loadJar(Paths.get(ClassLoader.getSystemResource("test.jar").toURI()));
+    }
+
+    @Test
+    public void transformTest() throws Exception {
+        ClassSet classSet = Main.getLoadedJar();
+        assertTrue(classSet.getClasses().size() > 0);
+        for (JarClassEntry entry : classSet.getClasses()) {
+            byte[] processed = new ClassTransformer(entry.getName(), entry.getOriginalContent(), classSet,
+                    IndexedClass.INDEXED_CLASSES).process();
+            checkClass(classSet, entry.getName(), read(entry.getOriginalContent()), read(processed));
+        }
+    }
+
+    private static ClassSummary read(byte[] bytes) {
+        ClassSummary summary = new ClassSummary(bytes.length);
+        new ClassFileReader(null, bytes).accept(summary);
+        assertTrue(summary.ended);
+        return summary;
+    }
+
+    private static void checkClass(ClassSet classSet, String name, ClassSummary original, ClassSummary processed) {
+        assertEquals(getProcessedName(name, null, MemberType.CLASS), processed.getClassName(processed.thisClass));
+        checkClassRef(classSet, original, processed, original.superClass, processed.superClass);
+        assertEquals(original.interfaces.length, processed.interfaces.length);
+        for (int i = 0; i < original.interfaces.length; i++) {
+            checkClassRef(classSet, original, processed, original.interfaces[i], processed.interfaces[i]);
+        }
+
+        assertEquals(original.members.size(), processed.members.size());
+        for (int i = 0; i < original.members.size(); i++) {
+            Member origMember = original.members.get(i);
+            Member procMember = processed.members.get(i);
+            assertEquals(origMember.type, procMember.type);
+            assertEquals(origMember.access, procMember.access);
+
+            String origName = original.getString(origMember.nameIndex);
+            String origDesc = original.getString(origMember.descriptorIndex);
+            String expectedName = origMember.synthetic
+                    || origMember.type == MemberType.METHOD && IGNORED_METHODS.contains(origName)
+                    ? origName
+                    : getProcessedName(name + CLASS_PATH_SEPARATOR_CHAR + origName, origDesc, origMember.type);
+            assertEquals(expectedName, processed.getString(procMember.nameIndex));
+            assertEquals(getProcessedDescriptor(classSet, origMember.type, origDesc),
+                    processed.getString(procMember.descriptorIndex));
+        }
+
+        // every reference in the processed pool must still resolve to a structure of the right type
+        ImmutableConstantPool pool = processed.pool;
+        for (int i = 1; i <= pool.size(); i++) {
+            StructureType type = pool.getType(i);
+            if (type == StructureType.LONG || type == StructureType.DOUBLE) {
+                i++; // these take up two entries
+            } else if (type == StructureType.CLASS) {
+                String className = processed.getClassName(i);
+                if (className.startsWith(Constants.Processing.CLASS_PREFIX)) {
+                    assertTrue(classSet.getClass(getUnprocessedName(className)).isPresent());
+                } else {
+                    assertFalse(classSet.getClass(className).isPresent());
+                }
+            } else if (type == StructureType.FIELDREF || type == StructureType.METHODREF
+                    || type == StructureType.INTERFACE_METHODREF) {
+                assertType(pool, pool.getRefClassIndex(i), StructureType.CLASS);
+                assertType(pool, pool.getRefNameAndTypeIndex(i), StructureType.NAME_AND_TYPE);
+            } else if (type == StructureType.NAME_AND_TYPE) {
+                assertType(pool, pool.getNameAndTypeNameIndex(i), StructureType.UTF_8);
+                assertType(pool, pool.getNameAndTypeTypeIndex(i), StructureType.UTF_8);
+            }
+        }
+    }
+
+    private static void checkClassRef(ClassSet classSet, ClassSummary original, ClassSummary processed,
+            int origIndex, int procIndex) {
+        if (origIndex == 0) {
+            assertEquals(0, procIndex);
+            return;
+        }
+        String origName = original.getClassName(origIndex);
+        assertEquals(classSet.getClass(origName).isPresent()
+                        ? getProcessedName(origName, null, MemberType.CLASS)
+                        : origName,
+                processed.getClassName(procIndex));
+    }
+
+    private static void assertType(ImmutableConstantPool pool, int index, StructureType type) {
+        assertTrue("Pool index " + index + " is out of bounds", index >= 1 && index <= pool.size());
+        assertEquals(type, pool.getType(index));
+    }
+
+    private static class Member {
+
+        private final MemberType type;
+        private final int access;
+        private final int nameIndex;
+        private final int descriptorIndex;
+        private boolean synthetic;
+
+        private Member(MemberType type, int access, int nameIndex, int descriptorIndex) {
+            this.type = type;
+            this.access = access;
+            this.nameIndex = nameIndex;
+            this.descriptorIndex = descriptorIndex;
+            this.synthetic = (access & ACC_SYNTHETIC) != 0;
+        }
+
+    }
+
+    private static class ClassSummary implements ClassFileVisitor {
+
+        private final int length;
+        private final List<Member> members = new ArrayList<>();
+        private ImmutableConstantPool pool;
+        private int thisClass;
+        private int superClass;
+        private int[] interfaces;
+        private Member member;
+        private int end;
+        private boolean ended;
+
+        private ClassSummary(int length) {
+            this.length = length;
+        }
+
+        private String getString(int index) {
+            assertType(pool, index, StructureType.UTF_8);
+            return pool.getString(index);
+        }
+
+        private String getClassName(int index) {
+            assertType(pool, index, StructureType.CLASS);
+            return getString(pool.getClassNameIndex(index));
+        }
+
+        @Override
+        public void visitConstantPool(ImmutableConstantPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public void visitClass(int offset, int access, int thisClassIndex, int superClassIndex,
+                int[] interfaceIndices) {
+            this.thisClass = thisClassIndex;
+            this.superClass = superClassIndex;
+            this.interfaces = interfaceIndices;
+        }
+
+        @Override
+        public void visitMember(MemberType type, int access, int nameIndex, int descriptorIndex) {
+            member = new Member(type, access, nameIndex, descriptorIndex);
+            members.add(member);
+        }
+
+        @Override
+        public void visitMemberEnd(MemberType type) {
+            member = null;
+        }
+
+        @Override
+        public void visitAttributeCount(MemberType owner, int offset, int count) {
+            end = offset + 2;
+        }
+
+        @Override
+        public void visitAttribute(MemberType owner, int nameIndex, int offset, int length) {
+            if (getString(nameIndex).equals("Synthetic") && member != null) {
+                member.synthetic = true;
+            }
+            end = offset + length;
+        }
+
+        @Override
+        public void visitEnd() {
+            ended = true;
+            assertEquals(length, end);
+        }
+
+    }
+
+}